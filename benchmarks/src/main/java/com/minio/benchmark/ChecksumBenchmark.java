@@ -0,0 +1,76 @@
+package com.minio.benchmark;
+
+import com.minio.utils.ChecksumAlgorithm;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一个16MB分片的校验和耗时，可换算为每个上传线程的吞吐。
+ * copy为同样大小的内存拷贝，作为内存带宽的参照；CRC32C在JDK9及以上应与之接近
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChecksumBenchmark {
+
+    private static final int PART_SIZE = 16 * 1024 * 1024;
+
+    @Param({"CRC32C", "SHA256", "MD5"})
+    private ChecksumAlgorithm algorithm;
+
+    private byte[] part;
+
+    private byte[] target;
+
+    private ByteBuffer directPart;
+
+    @Setup
+    public void setup() {
+        part = new byte[PART_SIZE];
+        ThreadLocalRandom.current().nextBytes(part);
+        target = new byte[PART_SIZE];
+        directPart = ByteBuffer.allocateDirect(PART_SIZE);
+        directPart.put(part);
+    }
+
+    @Benchmark
+    public byte[] copy() {
+        System.arraycopy(part, 0, target, 0, PART_SIZE);
+        return target;
+    }
+
+    /**
+     * 流上传时从分片缓冲区计算
+     */
+    @Benchmark
+    public byte[] heapBuffer() {
+        return algorithm.digest(part, 0, PART_SIZE);
+    }
+
+    /**
+     * 本地文件上传时从堆外缓冲区计算
+     */
+    @Benchmark
+    public byte[] directBuffer() {
+        ChecksumAlgorithm.Hasher hasher = algorithm.newHasher();
+        directPart.clear();
+        hasher.update(directPart);
+        return hasher.digest();
+    }
+}
@@ -0,0 +1,68 @@
+package com.minio.benchmark;
+
+import com.minio.utils.MinioTemplate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 初始化分片上传：一次CreateMultipartUpload请求加上totalPart个分片地址的签名
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InitMultipartBenchmark {
+
+    private static final String BUCKET = "benchmark";
+
+    private static final String OBJECT = "2023-01/01/video.mp4";
+
+    @Param({"100", "1000", "10000"})
+    private int totalPart;
+
+    private S3StubServer stub;
+
+    private MinioTemplate minioTemplate;
+
+    @Setup
+    public void setup() throws IOException {
+        stub = new S3StubServer();
+        minioTemplate = stub.newTemplate(BUCKET, null);
+    }
+
+    /**
+     * 初始化的分片上传不会合并，每轮结束后清除
+     */
+    @TearDown(Level.Iteration)
+    public void clearUploads() {
+        stub.clearUploads();
+    }
+
+    @TearDown
+    public void tearDown() {
+        minioTemplate.destroy();
+        stub.close();
+    }
+
+    @Benchmark
+    public Map<String, Object> initMultiPartUpload() {
+        return minioTemplate.initMultiPartUpload(BUCKET, OBJECT, totalPart, "video/mp4");
+    }
+}
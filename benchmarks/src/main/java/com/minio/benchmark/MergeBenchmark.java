@@ -0,0 +1,65 @@
+package com.minio.benchmark;
+
+import com.minio.utils.MinioTemplate;
+import io.minio.ObjectWriteResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 合并分片：按merge.pageSize分页查询已上传的分片，再发出CompleteMultipartUpload。
+ * 桩服务中的分片上传合并后仍保留，每次调用都合并同一个uploadId
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MergeBenchmark {
+
+    private static final String BUCKET = "benchmark";
+
+    private static final String OBJECT = "2023-01/01/video.mp4";
+
+    private static final long PART_SIZE = 5 * 1024 * 1024;
+
+    @Param({"100", "1000", "10000"})
+    private int totalPart;
+
+    private S3StubServer stub;
+
+    private MinioTemplate minioTemplate;
+
+    private String uploadId;
+
+    @Setup
+    public void setup() throws IOException {
+        stub = new S3StubServer();
+        minioTemplate = stub.newTemplate(BUCKET, null);
+        uploadId = stub.prepareUpload(BUCKET, OBJECT, totalPart, PART_SIZE);
+    }
+
+    @TearDown
+    public void tearDown() {
+        minioTemplate.destroy();
+        stub.close();
+    }
+
+    @Benchmark
+    public ObjectWriteResponse mergeMultipartUpload() {
+        return minioTemplate.mergeMultipartUpload(BUCKET, OBJECT, uploadId, totalPart);
+    }
+}
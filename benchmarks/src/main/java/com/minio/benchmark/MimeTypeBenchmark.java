@@ -0,0 +1,53 @@
+package com.minio.benchmark;
+
+import com.minio.enums.MimeTypeEnum;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按文件名查找文件类型：原先每次遍历values()与索引查找的对比。
+ * 扩展名分别位于枚举的开头、末尾和不存在，索引查找的耗时应与位置无关。
+ * 加上-prof gc可以看到索引查找不分配内存
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MimeTypeBenchmark {
+
+    @Param({"2023-01/01/music.aac", "2023-01/01/archive.7z", "2023-01/01/photo.JPG", "2023-01/01/unknown.xyz"})
+    private String fileName;
+
+    /**
+     * 原upload中的实现
+     */
+    @Benchmark
+    public String linearScan() {
+        String suffix = fileName.substring(fileName.lastIndexOf("."));
+        for (MimeTypeEnum typesEnum : MimeTypeEnum.values()) {
+            if (suffix.equals(typesEnum.getExtension())) {
+                return typesEnum.getFileType();
+            }
+        }
+
+        return "file";
+    }
+
+    @Benchmark
+    public String indexLookup() {
+        MimeTypeEnum mimeType = MimeTypeEnum.findByFileName(fileName);
+        return mimeType == null ? "file" : mimeType.getFileType();
+    }
+}
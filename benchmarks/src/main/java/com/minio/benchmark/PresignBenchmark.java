@@ -0,0 +1,124 @@
+package com.minio.benchmark;
+
+import com.minio.utils.MinioPresigner;
+import io.minio.GetPresignedObjectUrlArgs;
+import io.minio.MinioClient;
+import io.minio.http.Method;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分片上传地址生成：逐个调用getPresignedObjectUrl与MinioPresigner批量生成的对比；
+ * 以及同样数量的对象预览地址逐个签名与批量签名的对比
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PresignBenchmark {
+
+    private static final String ENDPOINT = "http://127.0.0.1:9000";
+
+    private static final String BUCKET = "benchmark";
+
+    private static final String OBJECT = "2023-01/01/video.mp4";
+
+    private static final String UPLOAD_ID = "1e3c4a8b-52f6-4a57-9bd5-4f9f1c2d7e60";
+
+    @Param({"100", "1000", "10000"})
+    private int totalPart;
+
+    private MinioClient minioClient;
+
+    private MinioPresigner sequentialPresigner;
+
+    private MinioPresigner parallelPresigner;
+
+    private List<String> objectNames;
+
+    @Setup
+    public void setup() {
+        minioClient = MinioClient.builder().endpoint(ENDPOINT).region("us-east-1").credentials("minioadmin", "minioadmin").build();
+        sequentialPresigner = new MinioPresigner(ENDPOINT, "us-east-1", "minioadmin", "minioadmin", Integer.MAX_VALUE);
+        parallelPresigner = new MinioPresigner(ENDPOINT, "us-east-1", "minioadmin", "minioadmin", 1);
+        objectNames = new ArrayList<>(totalPart);
+        for (int i = 0; i < totalPart; i++) {
+            objectNames.add("2023-01/01/thumbnail-" + i + ".jpg");
+        }
+    }
+
+    /**
+     * 原initMultiPartUpload中的实现
+     */
+    @Benchmark
+    public List<String> clientLoop() throws Exception {
+        List<String> partList = new ArrayList<>();
+        Map<String, String> reqParams = new HashMap<>();
+        reqParams.put("uploadId", UPLOAD_ID);
+
+        for (int i = 1; i <= totalPart; i++) {
+            reqParams.put("partNumber", String.valueOf(i));
+
+            partList.add(minioClient.getPresignedObjectUrl(
+                    GetPresignedObjectUrlArgs.builder()
+                            .method(Method.PUT)
+                            .bucket(BUCKET)
+                            .object(OBJECT)
+                            .expiry(1, TimeUnit.DAYS)
+                            .extraQueryParams(reqParams)
+                            .build()));
+        }
+
+        return partList;
+    }
+
+    @Benchmark
+    public List<String> presignerBatch() {
+        return sequentialPresigner.presignParts(BUCKET, OBJECT, UPLOAD_ID, totalPart, 86400);
+    }
+
+    @Benchmark
+    public List<String> presignerParallel() {
+        return parallelPresigner.presignParts(BUCKET, OBJECT, UPLOAD_ID, totalPart, 86400);
+    }
+
+    /**
+     * 逐个调用preview时的签名部分
+     */
+    @Benchmark
+    public List<String> objectLoop() {
+        List<String> urls = new ArrayList<>(totalPart);
+        for (String objectName : objectNames) {
+            urls.add(sequentialPresigner.presign(Method.GET, BUCKET, objectName, 86400, null));
+        }
+
+        return urls;
+    }
+
+    @Benchmark
+    public Map<String, String> objectBatch() {
+        return sequentialPresigner.presignObjects(Method.GET, BUCKET, objectNames, 86400);
+    }
+
+    @Benchmark
+    public Map<String, String> objectParallel() {
+        return parallelPresigner.presignObjects(Method.GET, BUCKET, objectNames, 86400);
+    }
+}
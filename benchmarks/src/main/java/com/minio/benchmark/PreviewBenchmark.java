@@ -0,0 +1,59 @@
+package com.minio.benchmark;
+
+import com.minio.utils.MinioTemplate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 预览地址：cacheSize为0时每次先查询文件是否存在再签名，否则从预览地址缓存返回
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PreviewBenchmark {
+
+    private static final String BUCKET = "benchmark";
+
+    private static final String OBJECT = "2023-01/01/photo.jpg";
+
+    @Param({"0", "10000"})
+    private int cacheSize;
+
+    private S3StubServer stub;
+
+    private MinioTemplate minioTemplate;
+
+    @Setup
+    public void setup() throws IOException {
+        stub = new S3StubServer();
+        stub.putObject(BUCKET, OBJECT, 1024 * 1024);
+        minioTemplate = stub.newTemplate(BUCKET, properties -> properties.getPresign().setCacheSize(cacheSize));
+    }
+
+    @TearDown
+    public void tearDown() {
+        minioTemplate.destroy();
+        stub.close();
+    }
+
+    @Benchmark
+    public String preview() {
+        return minioTemplate.preview(BUCKET, OBJECT);
+    }
+}
@@ -0,0 +1,75 @@
+package com.minio.benchmark;
+
+import com.minio.utils.MinioTemplate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 断点下载：从256MB的文件中随机读取一段并读完
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RangedGetBenchmark {
+
+    private static final String BUCKET = "benchmark";
+
+    private static final String OBJECT = "2023-01/01/video.mp4";
+
+    private static final long OBJECT_SIZE = 256L * 1024 * 1024;
+
+    @Param({"4096", "1048576", "8388608"})
+    private int rangeSize;
+
+    private S3StubServer stub;
+
+    private MinioTemplate minioTemplate;
+
+    private byte[] buffer;
+
+    @Setup
+    public void setup() throws IOException {
+        stub = new S3StubServer();
+        stub.putObject(BUCKET, OBJECT, OBJECT_SIZE);
+        minioTemplate = stub.newTemplate(BUCKET, null);
+        buffer = new byte[64 * 1024];
+    }
+
+    @TearDown
+    public void tearDown() {
+        minioTemplate.destroy();
+        stub.close();
+    }
+
+    @Benchmark
+    public long getObject() throws Exception {
+        long offset = ThreadLocalRandom.current().nextLong(OBJECT_SIZE - rangeSize);
+        long read = 0;
+        try (InputStream stream = minioTemplate.getObject(BUCKET, OBJECT, offset, rangeSize)) {
+            int n;
+            while ((n = stream.read(buffer)) > 0) {
+                read += n;
+            }
+        }
+
+        return read;
+    }
+}
@@ -0,0 +1,355 @@
+package com.minio.benchmark;
+
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import com.minio.properties.MinioProperties;
+import com.minio.utils.MinioTemplate;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 进程内的S3兼容桩服务，只实现benchmark用到的请求，不校验签名，不保存内容，用于离线测量客户端一侧的开销。
+ *
+ * 文件只记录大小，读取时返回全零的数据；分片上传只记录分片数和总大小。
+ * 桩服务与benchmark在同一进程中，-prof gc的分配速率包含桩服务处理请求的分配
+ */
+public class S3StubServer implements Closeable {
+
+    private static final String NAMESPACE = "http://s3.amazonaws.com/doc/2006-03-01/";
+
+    private static final String ETAG = "\"9b2cf535f27731c974343645a3985328\"";
+
+    private static final String LAST_MODIFIED = "Sun, 01 Jan 2023 00:00:00 GMT";
+
+    private static final String PART_LAST_MODIFIED = "2023-01-01T00:00:00.000Z";
+
+    /** 读取时返回的内容，请求体也读入这里丢弃 */
+    private static final byte[] ZEROS = new byte[64 * 1024];
+
+    private static final byte[] DISCARD = new byte[64 * 1024];
+
+    private final HttpServer server;
+
+    private final ExecutorService executor;
+
+    private final Map<String, Long> objects = new ConcurrentHashMap<>();
+
+    private final Map<String, Upload> uploads = new ConcurrentHashMap<>();
+
+    private final AtomicLong uploadIds = new AtomicLong();
+
+    public S3StubServer() throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        this.executor = Executors.newCachedThreadPool(ThreadFactoryBuilder.create().setNamePrefix("s3-stub-").setDaemon(true).build());
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    public String getEndpoint() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    /**
+     * 创建连接桩服务的MinioTemplate，启动时同步检查存储桶
+     *
+     * @param customizer 修改默认配置，可为空
+     */
+    public MinioTemplate newTemplate(String bucket, Consumer<MinioProperties> customizer) {
+        MinioProperties properties = new MinioProperties();
+        properties.setEndpoint(getEndpoint());
+        properties.setAccessKey("minioadmin");
+        properties.setSecretKey("minioadmin");
+        properties.setBucket(bucket);
+        properties.setRegion("us-east-1");
+        properties.getBootstrap().setMode(MinioTemplate.BOOTSTRAP_SYNC);
+        if (customizer != null) {
+            customizer.accept(properties);
+        }
+
+        MinioTemplate template = new MinioTemplate(properties);
+        template.init();
+        return template;
+    }
+
+    /**
+     * 直接登记一个文件，不经过上传
+     */
+    public void putObject(String bucket, String objectName, long size) {
+        objects.put(bucket + "/" + objectName, size);
+    }
+
+    /**
+     * 直接登记一个已上传全部分片的分片上传，合并后仍保留，同一个uploadId可以反复合并
+     *
+     * @return uploadId
+     */
+    public String prepareUpload(String bucket, String objectName, int parts, long partSize) {
+        String uploadId = "prepared-" + uploadIds.incrementAndGet();
+        Upload upload = new Upload(true);
+        upload.parts.set(parts);
+        upload.size.set(parts * partSize);
+        uploads.put(uploadId, upload);
+        return uploadId;
+    }
+
+    /**
+     * 清除未合并的分片上传，保留直接登记的分片上传
+     */
+    public void clearUploads() {
+        uploads.values().removeIf(upload -> !upload.reusable);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath().substring(1);
+            int slash = path.indexOf('/');
+            String bucket = slash < 0 ? path : path.substring(0, slash);
+            String objectName = slash < 0 ? "" : path.substring(slash + 1);
+            Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+            long length = drain(exchange.getRequestBody());
+
+            if (objectName.isEmpty()) {
+                handleBucket(exchange, query);
+            } else {
+                handleObject(exchange, bucket, bucket + "/" + objectName, query, length);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * 存储桶总是存在
+     */
+    private void handleBucket(HttpExchange exchange, Map<String, String> query) throws IOException {
+        if ("GET".equals(exchange.getRequestMethod()) && query.containsKey("location")) {
+            xml(exchange, 200, "<LocationConstraint xmlns=\"" + NAMESPACE + "\">us-east-1</LocationConstraint>");
+            return;
+        }
+
+        exchange.sendResponseHeaders(200, -1);
+    }
+
+    private void handleObject(HttpExchange exchange, String bucket, String key, Map<String, String> query, long length) throws IOException {
+        String method = exchange.getRequestMethod();
+        String uploadId = query.get("uploadId");
+
+        if ("POST".equals(method) && query.containsKey("uploads")) {
+            String id = "upload-" + uploadIds.incrementAndGet();
+            uploads.put(id, new Upload(false));
+            xml(exchange, 200, "<InitiateMultipartUploadResult xmlns=\"" + NAMESPACE + "\"><Bucket>" + bucket + "</Bucket><Key>"
+                    + key.substring(bucket.length() + 1) + "</Key><UploadId>" + id + "</UploadId></InitiateMultipartUploadResult>");
+            return;
+        }
+
+        if (uploadId != null) {
+            Upload upload = uploads.get(uploadId);
+            if (upload == null) {
+                error(exchange, 404, "NoSuchUpload", key);
+                return;
+            }
+
+            switch (method) {
+                case "PUT":
+                    upload.parts.accumulateAndGet(Integer.parseInt(query.get("partNumber")), Math::max);
+                    upload.size.addAndGet(length);
+                    exchange.getResponseHeaders().set("ETag", ETAG);
+                    exchange.sendResponseHeaders(200, -1);
+                    return;
+                case "GET":
+                    listParts(exchange, bucket, key, uploadId, upload, query);
+                    return;
+                case "POST":
+                    if (!upload.reusable) {
+                        uploads.remove(uploadId);
+                    }
+                    objects.put(key, upload.size.get());
+                    xml(exchange, 200, "<CompleteMultipartUploadResult xmlns=\"" + NAMESPACE + "\"><Location>" + getEndpoint() + "/" + key
+                            + "</Location><Bucket>" + bucket + "</Bucket><Key>" + key.substring(bucket.length() + 1) + "</Key><ETag>" + ETAG
+                            + "</ETag></CompleteMultipartUploadResult>");
+                    return;
+                case "DELETE":
+                    uploads.remove(uploadId);
+                    exchange.sendResponseHeaders(204, -1);
+                    return;
+                default:
+                    exchange.sendResponseHeaders(501, -1);
+                    return;
+            }
+        }
+
+        switch (method) {
+            case "PUT":
+                objects.put(key, length);
+                exchange.getResponseHeaders().set("ETag", ETAG);
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            case "HEAD":
+            case "GET":
+                getObject(exchange, key, "HEAD".equals(method));
+                return;
+            case "DELETE":
+                objects.remove(key);
+                exchange.sendResponseHeaders(204, -1);
+                return;
+            default:
+                exchange.sendResponseHeaders(501, -1);
+        }
+    }
+
+    /**
+     * 按max-parts和part-number-marker分页
+     */
+    private void listParts(HttpExchange exchange, String bucket, String key, String uploadId, Upload upload, Map<String, String> query) throws IOException {
+        int total = upload.parts.get();
+        int maxParts = query.containsKey("max-parts") ? Integer.parseInt(query.get("max-parts")) : 1000;
+        int marker = query.containsKey("part-number-marker") ? Integer.parseInt(query.get("part-number-marker")) : 0;
+        int end = Math.min(total, marker + maxParts);
+        long partSize = total == 0 ? 0 : upload.size.get() / total;
+
+        StringBuilder body = new StringBuilder(256 + (end - marker) * 160);
+        body.append("<ListPartsResult xmlns=\"").append(NAMESPACE).append("\"><Bucket>").append(bucket).append("</Bucket><Key>")
+                .append(key.substring(bucket.length() + 1)).append("</Key><UploadId>").append(uploadId).append("</UploadId>")
+                .append("<Initiator><ID>minioadmin</ID><DisplayName>minioadmin</DisplayName></Initiator>")
+                .append("<Owner><ID>minioadmin</ID><DisplayName>minioadmin</DisplayName></Owner><StorageClass>STANDARD</StorageClass>")
+                .append("<PartNumberMarker>").append(marker).append("</PartNumberMarker><NextPartNumberMarker>").append(end)
+                .append("</NextPartNumberMarker><MaxParts>").append(maxParts).append("</MaxParts><IsTruncated>").append(end < total)
+                .append("</IsTruncated>");
+        for (int i = marker + 1; i <= end; i++) {
+            body.append("<Part><PartNumber>").append(i).append("</PartNumber><ETag>").append(ETAG).append("</ETag><LastModified>")
+                    .append(PART_LAST_MODIFIED).append("</LastModified><Size>").append(partSize).append("</Size></Part>");
+        }
+        body.append("</ListPartsResult>");
+
+        xml(exchange, 200, body.toString());
+    }
+
+    /**
+     * 支持bytes=a-b和bytes=a-两种Range
+     */
+    private void getObject(HttpExchange exchange, String key, boolean head) throws IOException {
+        Long size = objects.get(key);
+        if (size == null) {
+            if (head) {
+                exchange.sendResponseHeaders(404, -1);
+            } else {
+                error(exchange, 404, "NoSuchKey", key);
+            }
+            return;
+        }
+
+        exchange.getResponseHeaders().set("ETag", ETAG);
+        exchange.getResponseHeaders().set("Last-Modified", LAST_MODIFIED);
+        exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+        exchange.getResponseHeaders().set("Accept-Ranges", "bytes");
+        if (head) {
+            // HEAD请求的长度只能手动设置
+            exchange.getResponseHeaders().set("Content-Length", String.valueOf(size));
+            exchange.sendResponseHeaders(200, -1);
+            return;
+        }
+
+        long start = 0;
+        long end = size - 1;
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        int code = 200;
+        if (range != null && range.startsWith("bytes=")) {
+            String[] bounds = range.substring("bytes=".length()).split("-", -1);
+            start = Long.parseLong(bounds[0]);
+            if (!bounds[1].isEmpty()) {
+                end = Math.min(end, Long.parseLong(bounds[1]));
+            }
+            if (start > end) {
+                error(exchange, 416, "InvalidRange", key);
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + end + "/" + size);
+            code = 206;
+        }
+
+        long length = end - start + 1;
+        exchange.sendResponseHeaders(code, length == 0 ? -1 : length);
+        OutputStream out = exchange.getResponseBody();
+        while (length > 0) {
+            int n = (int) Math.min(length, ZEROS.length);
+            out.write(ZEROS, 0, n);
+            length -= n;
+        }
+    }
+
+    private static void error(HttpExchange exchange, int code, String errorCode, String resource) throws IOException {
+        xml(exchange, code, "<Error><Code>" + errorCode + "</Code><Message>" + errorCode + "</Message><Resource>/" + resource
+                + "</Resource><RequestId>stub</RequestId><HostId>stub</HostId></Error>");
+    }
+
+    private static void xml(HttpExchange exchange, int code, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/xml");
+        exchange.sendResponseHeaders(code, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private static Map<String, String> query(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            query.put(eq < 0 ? pair : pair.substring(0, eq), eq < 0 ? "" : pair.substring(eq + 1));
+        }
+        return query;
+    }
+
+    /**
+     * 请求体不保存，读入共享的缓冲区丢弃
+     */
+    private static long drain(InputStream body) throws IOException {
+        long length = 0;
+        int n;
+        while ((n = body.read(DISCARD)) > 0) {
+            length += n;
+        }
+
+        return length;
+    }
+
+    /**
+     * 分片上传，只记录最大的分片序号和累计大小
+     */
+    private static class Upload {
+
+        private final boolean reusable;
+
+        private final AtomicInteger parts = new AtomicInteger();
+
+        private final AtomicLong size = new AtomicLong();
+
+        private Upload(boolean reusable) {
+            this.reusable = reusable;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.minio.benchmark;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对桩服务运行MinioTemplate的benchmark，不需要minio服务：
+ * 先按吞吐量（ops/s）运行并用-prof gc统计分配速率，再按采样模式运行得到耗时分位数（p50、p90、p99等）。
+ * <pre>
+ * java -cp target/benchmarks.jar com.minio.benchmark.StubBenchmarkRunner [正则]
+ * </pre>
+ * 正则为空时运行预览、初始化分片上传、上传、断点下载、合并分片和文件类型查找
+ */
+public class StubBenchmarkRunner {
+
+    private static final String DEFAULT_INCLUDE = "com\\.minio\\.benchmark\\.(Preview|InitMultipart|Upload|RangedGet|Merge|MimeType)Benchmark";
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : DEFAULT_INCLUDE;
+
+        new Runner(new OptionsBuilder()
+                .include(include)
+                .mode(Mode.Throughput)
+                .timeUnit(TimeUnit.SECONDS)
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+
+        new Runner(new OptionsBuilder()
+                .include(include)
+                .mode(Mode.SampleTime)
+                .timeUnit(TimeUnit.MILLISECONDS)
+                .build()).run();
+    }
+}
@@ -0,0 +1,150 @@
+package com.minio.benchmark;
+
+import com.minio.utils.MinioTemplate;
+import com.minio.utils.UploadResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 上传：MultipartFile、长度未知的流和本地文件三种入口，大于分片大小时按分片并行上传
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UploadBenchmark {
+
+    private static final String BUCKET = "benchmark";
+
+    @Param({"65536", "1048576", "16777216", "67108864"})
+    private int size;
+
+    private S3StubServer stub;
+
+    private MinioTemplate minioTemplate;
+
+    private byte[] content;
+
+    private MultipartFile multipartFile;
+
+    private Path file;
+
+    @Setup
+    public void setup() throws IOException {
+        stub = new S3StubServer();
+        minioTemplate = stub.newTemplate(BUCKET, null);
+        content = new byte[size];
+        ThreadLocalRandom.current().nextBytes(content);
+        multipartFile = new BytesMultipartFile("upload.bin", content);
+        file = Files.createTempFile("minio-benchmark", ".bin");
+        Files.write(file, content);
+    }
+
+    /**
+     * 上传失败时残留的分片上传每轮结束后清除
+     */
+    @TearDown(Level.Iteration)
+    public void clearUploads() {
+        stub.clearUploads();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        minioTemplate.destroy();
+        stub.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public UploadResult uploadObject() {
+        return minioTemplate.uploadObject(multipartFile);
+    }
+
+    @Benchmark
+    public void uploadStream() throws IOException {
+        minioTemplate.upload("2023-01/01/stream.bin", new ByteArrayInputStream(content));
+    }
+
+    @Benchmark
+    public UploadResult putObject() {
+        return minioTemplate.putObject(BUCKET, "2023-01/01/file.bin", file);
+    }
+
+    /**
+     * 内存中的MultipartFile，每次读取都从头开始
+     */
+    private static class BytesMultipartFile implements MultipartFile {
+
+        private final String name;
+
+        private final byte[] content;
+
+        private BytesMultipartFile(String name, byte[] content) {
+            this.name = name;
+            this.content = content;
+        }
+
+        @Override
+        public String getName() {
+            return "file";
+        }
+
+        @Override
+        public String getOriginalFilename() {
+            return name;
+        }
+
+        @Override
+        public String getContentType() {
+            return "application/octet-stream";
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return content.length == 0;
+        }
+
+        @Override
+        public long getSize() {
+            return content.length;
+        }
+
+        @Override
+        public byte[] getBytes() {
+            return content;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new ByteArrayInputStream(content);
+        }
+
+        @Override
+        public void transferTo(File dest) throws IOException {
+            Files.write(dest.toPath(), content);
+        }
+    }
+}
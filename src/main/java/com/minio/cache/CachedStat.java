@@ -0,0 +1,51 @@
+package com.minio.cache;
+
+import io.minio.StatObjectResponse;
+import io.minio.errors.ErrorResponseException;
+import io.minio.messages.ErrorResponse;
+import okhttp3.Response;
+
+/**
+ * 一次statObject的结果，文件存在时保存元数据，不存在时保存服务端返回的错误。
+ * 缓存会被多个线程同时命中，每次命中新建异常抛出，避免共享同一个异常实例的堆栈和suppressed
+ */
+public final class CachedStat {
+
+    private final StatObjectResponse response;
+
+    private final ErrorResponse errorResponse;
+
+    private final Response errorHttpResponse;
+
+    private final String httpTrace;
+
+    private CachedStat(StatObjectResponse response, ErrorResponse errorResponse, Response errorHttpResponse, String httpTrace) {
+        this.response = response;
+        this.errorResponse = errorResponse;
+        this.errorHttpResponse = errorHttpResponse;
+        this.httpTrace = httpTrace;
+    }
+
+    public static CachedStat of(StatObjectResponse response) {
+        return new CachedStat(response, null, null, null);
+    }
+
+    public static CachedStat notFound(ErrorResponseException e) {
+        return new CachedStat(null, e.errorResponse(), e.response(), e.httpTrace());
+    }
+
+    public boolean exists() {
+        return response != null;
+    }
+
+    /**
+     * 返回元数据，文件不存在时按缓存的错误抛出新的异常
+     */
+    public StatObjectResponse response() throws ErrorResponseException {
+        if (response == null) {
+            throw new ErrorResponseException(errorResponse, errorHttpResponse, httpTrace);
+        }
+
+        return response;
+    }
+}
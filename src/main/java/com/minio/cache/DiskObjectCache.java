@@ -0,0 +1,512 @@
+package com.minio.cache;
+
+import cn.hutool.core.util.IdUtil;
+import io.minio.GetObjectResponse;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Headers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 本地磁盘上的文件内容缓存，适合反复读取的较小热点文件
+ *
+ * 按占用字节数淘汰最久未使用的文件。超过revalidateAfter的缓存项读取前用If-None-Match向minio确认，
+ * 未修改时继续使用本地文件。同一文件的并发未命中只下载一次，命中时直接从本地文件读取，分段读取同样使用缓存。
+ * 响应头和内容一起缓存，命中时随内容返回，按元数据解压等处理与内容始终对应同一版本。
+ * 索引只保存在内存中。每个实例在缓存目录下使用独立的子目录，并在其中的锁文件上持有文件锁，
+ * 多个实例或进程共用缓存目录时互不影响；启动时只清理锁已释放的子目录，即已退出的实例留下的文件
+ */
+@Slf4j
+public class DiskObjectCache {
+
+    private static final String SUFFIX = ".cache";
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private static final String LOCK_FILE = "instance.lock";
+
+    /** 刚创建的子目录可能还没来得及加锁，锁文件创建后这段时间内不清理 */
+    private static final long LOCK_GRACE = 60_000;
+
+    /** 本实例的子目录 */
+    private final Path directory;
+
+    private final FileChannel lockChannel;
+
+    private final long maxBytes;
+
+    private final long maxObjectBytes;
+
+    private final long revalidateAfter;
+
+    /** 按访问顺序排列，所有访问都在锁内 */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long totalBytes;
+
+    /** 正在下载或确认的文件 */
+    private final ConcurrentHashMap<String, CompletableFuture<Entry>> loading = new ConcurrentHashMap<>();
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * @param directory 缓存目录，本实例在其中创建独立的子目录，启动时清理已退出的实例留下的子目录
+     * @param maxBytes 缓存占用的最大字节数
+     * @param maxObjectBytes 单个文件的最大字节数，更大的文件不缓存
+     * @param revalidateAfter 缓存多久后读取前需要向minio确认（毫秒），为0时每次都确认
+     */
+    @SneakyThrows
+    public DiskObjectCache(Path directory, long maxBytes, long maxObjectBytes, long revalidateAfter) {
+        if (maxBytes < 1 || maxObjectBytes < 1 || maxObjectBytes > maxBytes || revalidateAfter < 0) {
+            throw new IllegalArgumentException("maxObjectBytes必须在1到maxBytes之间，revalidateAfter不能小于0");
+        }
+
+        Path root = Files.createDirectories(directory);
+        purgeStale(root);
+
+        this.directory = Files.createDirectory(root.resolve(IdUtil.fastSimpleUUID()));
+        this.lockChannel = FileChannel.open(this.directory.resolve(LOCK_FILE), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        lockChannel.lock();
+        this.maxBytes = maxBytes;
+        this.maxObjectBytes = maxObjectBytes;
+        this.revalidateAfter = revalidateAfter;
+    }
+
+    /**
+     * 读取整个文件
+     *
+     * @param fetcher 向minio请求文件
+     * @return 带有缓存时的响应头；文件较大不缓存时直接返回minio的响应流
+     */
+    @SneakyThrows
+    public GetObjectResponse get(String bucket, String objectName, Fetcher fetcher) {
+        Entry entry = lookup(key(bucket, objectName));
+        if (entry != null && !entry.isStale(revalidateAfter)) {
+            GetObjectResponse stream = open(bucket, objectName, entry, 0, entry.size);
+            if (stream != null) {
+                hitCount.incrementAndGet();
+                return stream;
+            }
+        }
+
+        missCount.incrementAndGet();
+        // 读取整个文件时返回的都是带有响应头的流
+        return (GetObjectResponse) load(bucket, objectName, entry, fetcher, 0, -1);
+    }
+
+    /**
+     * 读取文件的一段，只有整个文件已缓存时才从本地读取
+     *
+     * @param fetcher 向minio请求整个文件，缓存项需要确认时使用
+     * @return 文件未缓存时返回null，由调用方直接分段请求minio
+     */
+    @SneakyThrows
+    public InputStream get(String bucket, String objectName, long offset, long length, Fetcher fetcher) {
+        Entry entry = lookup(key(bucket, objectName));
+        if (entry == null) {
+            return null;
+        }
+        if (!entry.isStale(revalidateAfter)) {
+            InputStream stream = open(bucket, objectName, entry, offset, length);
+            if (stream != null) {
+                hitCount.incrementAndGet();
+                return stream;
+            }
+            return null;
+        }
+
+        missCount.incrementAndGet();
+        return load(bucket, objectName, entry, fetcher, offset, length);
+    }
+
+    /**
+     * 文件被上传、覆盖或删除后移除缓存，正在进行的下载不会再写入缓存
+     */
+    public void invalidate(String bucket, String objectName) {
+        String key = key(bucket, objectName);
+        loading.remove(key);
+
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.remove(key);
+            if (entry != null) {
+                totalBytes -= entry.size;
+            }
+        }
+        if (entry != null) {
+            delete(entry.file);
+        }
+    }
+
+    public void clear() {
+        Entry[] removed;
+        synchronized (entries) {
+            removed = entries.values().toArray(new Entry[0]);
+            entries.clear();
+            totalBytes = 0;
+        }
+        for (Entry entry : removed) {
+            delete(entry.file);
+        }
+    }
+
+    /**
+     * 删除本实例的缓存文件和子目录并释放锁
+     */
+    public void close() {
+        clear();
+        purge(directory);
+        try {
+            lockChannel.close();
+            Files.deleteIfExists(directory.resolve(LOCK_FILE));
+            Files.deleteIfExists(directory);
+        } catch (IOException e) {
+            log.warn("删除缓存目录{}失败", directory, e);
+        }
+    }
+
+    public long totalBytes() {
+        synchronized (entries) {
+            return totalBytes;
+        }
+    }
+
+    public long hitCount() {
+        return hitCount.get();
+    }
+
+    public long missCount() {
+        return missCount.get();
+    }
+
+    private Entry lookup(String key) {
+        synchronized (entries) {
+            return entries.get(key);
+        }
+    }
+
+    /**
+     * 下载或确认缓存项，同一文件只有一个调用方请求minio，其余等待结果
+     */
+    @SneakyThrows
+    private InputStream load(String bucket, String objectName, Entry cached, Fetcher fetcher, long offset, long length) {
+        String key = key(bucket, objectName);
+        CompletableFuture<Entry> future = new CompletableFuture<>();
+        CompletableFuture<Entry> existing = loading.putIfAbsent(key, future);
+        if (existing != null) {
+            Entry entry;
+            try {
+                entry = existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause();
+            }
+
+            // 文件过大或已被移除时自行请求
+            InputStream stream = entry == null ? null : open(bucket, objectName, entry, offset, length);
+            return stream != null ? stream : fetchDirect(fetcher, offset, length);
+        }
+
+        Entry entry;
+        GetObjectResponse response = null;
+        try {
+            response = fetcher.fetch(cached == null ? null : cached.etag);
+            if (response == null) {
+                // 未修改，继续使用本地文件
+                cached.validatedAt = System.currentTimeMillis();
+                entry = cached;
+            } else {
+                String contentLength = response.headers().get("Content-Length");
+                long size = contentLength == null ? -1 : Long.parseLong(contentLength);
+                if (size < 0 || size > maxObjectBytes) {
+                    loading.remove(key, future);
+                    future.complete(null);
+                    remove(key, cached);
+                    if (length < 0) {
+                        return response;
+                    }
+                    response.close();
+                    return fetchDirect(fetcher, offset, length);
+                }
+
+                entry = store(response, size);
+                response = null;
+            }
+        } catch (Throwable e) {
+            if (response != null) {
+                response.close();
+            }
+            loading.remove(key, future);
+            future.completeExceptionally(e);
+            throw e;
+        }
+
+        InputStream stream = open(bucket, objectName, entry, offset, length);
+        if (loading.remove(key, future)) {
+            if (entry != cached) {
+                put(key, entry);
+            }
+        } else if (entry != cached) {
+            // 下载期间文件被修改，本次结果只给已经在等待的调用方使用
+            delete(entry.file);
+        }
+        future.complete(entry);
+
+        return stream != null ? stream : fetchDirect(fetcher, offset, length);
+    }
+
+    private Entry store(GetObjectResponse response, long size) throws IOException {
+        Headers headers = response.headers();
+        String etag = headers.get("ETag");
+        String name = IdUtil.fastSimpleUUID();
+        Path temp = directory.resolve(name + TEMP_SUFFIX);
+        Path file = directory.resolve(name + SUFFIX);
+        try {
+            try (InputStream in = response; FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                long written = channel.transferFrom(Channels.newChannel(in), 0, size);
+                if (written != size || in.read() >= 0) {
+                    throw new IOException("文件长度与Content-Length不一致");
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            delete(temp);
+            throw e;
+        }
+
+        return new Entry(file, size, etag == null ? null : etag.replace("\"", ""), headers);
+    }
+
+    private void put(String key, Entry entry) {
+        List<Path> evicted = new ArrayList<>();
+        synchronized (entries) {
+            Entry previous = entries.put(key, entry);
+            totalBytes += entry.size;
+            if (previous != null) {
+                totalBytes -= previous.size;
+                evicted.add(previous.file);
+            }
+
+            Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+            while (totalBytes > maxBytes && iterator.hasNext()) {
+                Entry eldest = iterator.next().getValue();
+                if (eldest == entry) {
+                    continue;
+                }
+                iterator.remove();
+                totalBytes -= eldest.size;
+                evicted.add(eldest.file);
+            }
+        }
+
+        // 已打开的流在类unix系统上删除后仍可读取
+        evicted.forEach(DiskObjectCache::delete);
+    }
+
+    private void remove(String key, Entry entry) {
+        if (entry == null) {
+            return;
+        }
+
+        synchronized (entries) {
+            if (entries.remove(key, entry)) {
+                totalBytes -= entry.size;
+            }
+        }
+        delete(entry.file);
+    }
+
+    /**
+     * 打开本地文件，带有缓存时的响应头，文件已被淘汰删除时返回null
+     */
+    private static GetObjectResponse open(String bucket, String objectName, Entry entry, long offset, long length) throws IOException {
+        long end = length < 0 ? entry.size : Math.min(entry.size, offset + length);
+        if (offset < 0 || offset > entry.size) {
+            throw new IllegalArgumentException("offset超出文件长度");
+        }
+
+        try {
+            return new GetObjectResponse(entry.headers, bucket, null, objectName,
+                    new RegionInputStream(FileChannel.open(entry.file, StandardOpenOption.READ), offset, end));
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    private static InputStream fetchDirect(Fetcher fetcher, long offset, long length) throws Exception {
+        return length < 0 ? fetcher.fetch(null) : fetcher.fetch(offset, length);
+    }
+
+    /**
+     * 清理锁已释放的实例子目录，只处理带有锁文件的子目录，目录中的其他文件不动
+     */
+    private static void purgeStale(Path root) throws IOException {
+        try (DirectoryStream<Path> children = Files.newDirectoryStream(root, Files::isDirectory)) {
+            for (Path child : children) {
+                Path lockFile = child.resolve(LOCK_FILE);
+                try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.WRITE)) {
+                    if (System.currentTimeMillis() - Files.getLastModifiedTime(lockFile).toMillis() < LOCK_GRACE) {
+                        continue;
+                    }
+                    FileLock lock = channel.tryLock();
+                    if (lock == null) {
+                        continue;
+                    }
+                    purge(child);
+                    lock.release();
+                } catch (NoSuchFileException | OverlappingFileLockException e) {
+                    // 不是缓存实例的目录，或本进程中的其他实例正在使用
+                    continue;
+                }
+                delete(lockFile);
+                delete(child);
+            }
+        }
+    }
+
+    /**
+     * 只删除缓存创建的文件
+     */
+    private static void purge(Path directory) {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*{" + SUFFIX + "," + TEMP_SUFFIX + "}")) {
+            for (Path file : files) {
+                delete(file);
+            }
+        } catch (IOException e) {
+            log.warn("清理缓存目录{}失败", directory, e);
+        }
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("删除缓存文件{}失败", file, e);
+        }
+    }
+
+    private static String key(String bucket, String objectName) {
+        return bucket + '\n' + objectName;
+    }
+
+    /**
+     * 向minio请求文件
+     */
+    public interface Fetcher {
+
+        /**
+         * 请求整个文件
+         *
+         * @param etag 本地缓存的ETag，不为空时按If-None-Match请求
+         * @return 文件未修改时返回null
+         */
+        GetObjectResponse fetch(String etag) throws Exception;
+
+        /**
+         * 分段请求，文件不缓存时使用
+         */
+        InputStream fetch(long offset, long length) throws Exception;
+    }
+
+    private static class Entry {
+
+        private final Path file;
+
+        private final long size;
+
+        private final String etag;
+
+        /** 下载时的响应头，ETag未变时元数据不会变化，确认未修改后继续使用 */
+        private final Headers headers;
+
+        private volatile long validatedAt = System.currentTimeMillis();
+
+        private Entry(Path file, long size, String etag, Headers headers) {
+            this.file = file;
+            this.size = size;
+            this.etag = etag;
+            this.headers = headers;
+        }
+
+        private boolean isStale(long revalidateAfter) {
+            return etag == null || System.currentTimeMillis() - validatedAt >= revalidateAfter;
+        }
+    }
+
+    /**
+     * 按位置读取文件的一段，不改变其他读取方的位置
+     */
+    private static class RegionInputStream extends InputStream {
+
+        private final FileChannel channel;
+
+        private final long end;
+
+        private long position;
+
+        private RegionInputStream(FileChannel channel, long position, long end) {
+            this.channel = channel;
+            this.position = position;
+            this.end = end;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (position >= end) {
+                return -1;
+            }
+
+            int n = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, end - position)), position);
+            if (n > 0) {
+                position += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) {
+            long skipped = Math.max(0, Math.min(n, end - position));
+            position += skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, end - position);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.minio.cache;
+
+import cn.hutool.cache.impl.LRUCache;
+
+/**
+ * 进程内的元数据缓存，容量满时淘汰最久未使用的项，存在与不存在的结果分别设置有效期
+ */
+public class InMemoryStatObjectCache implements StatObjectCache {
+
+    private final LRUCache<String, CachedStat> cache;
+
+    private final long ttl;
+
+    private final long negativeTtl;
+
+    /**
+     * @param capacity 最多缓存的文件数
+     * @param ttl 文件存在时的缓存时间（毫秒）
+     * @param negativeTtl 文件不存在时的缓存时间（毫秒），为0时不缓存
+     */
+    public InMemoryStatObjectCache(int capacity, long ttl, long negativeTtl) {
+        if (capacity < 1 || ttl < 1 || negativeTtl < 0) {
+            throw new IllegalArgumentException("capacity和ttl必须大于0，negativeTtl不能小于0");
+        }
+
+        this.cache = new LRUCache<>(capacity);
+        this.ttl = ttl;
+        this.negativeTtl = negativeTtl;
+    }
+
+    @Override
+    public CachedStat get(String bucket, String objectName) {
+        // 不刷新访问时间，过期时间从写入时算起
+        return cache.get(key(bucket, objectName), false);
+    }
+
+    @Override
+    public void put(String bucket, String objectName, CachedStat stat) {
+        if (stat.exists()) {
+            cache.put(key(bucket, objectName), stat, ttl);
+        } else if (negativeTtl > 0) {
+            cache.put(key(bucket, objectName), stat, negativeTtl);
+        }
+    }
+
+    @Override
+    public void invalidate(String bucket, String objectName) {
+        cache.remove(key(bucket, objectName));
+    }
+
+    @Override
+    public void clear() {
+        cache.clear();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    public long hitCount() {
+        return cache.getHitCount();
+    }
+
+    public long missCount() {
+        return cache.getMissCount();
+    }
+
+    private static String key(String bucket, String objectName) {
+        return bucket + '\n' + objectName;
+    }
+}
@@ -0,0 +1,28 @@
+package com.minio.cache;
+
+/**
+ * 文件元数据缓存，保存statObject的结果（大小、etag、类型、修改时间）以及文件不存在的结果
+ *
+ * 默认实现为进程内的{@link InMemoryStatObjectCache}，可以注册自定义实现的Bean替换
+ */
+public interface StatObjectCache {
+
+    /**
+     * 获取缓存的结果
+     *
+     * @return 缓存的结果，未缓存或已过期时返回null
+     */
+    CachedStat get(String bucket, String objectName);
+
+    /**
+     * 缓存查询结果，文件不存在的结果按单独的有效期缓存
+     */
+    void put(String bucket, String objectName, CachedStat stat);
+
+    /**
+     * 文件被上传、覆盖或删除时使缓存失效
+     */
+    void invalidate(String bucket, String objectName);
+
+    void clear();
+}
@@ -0,0 +1,94 @@
+package com.minio.codec;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * 按块压缩，格式见BlockIndex
+ */
+class BlockCompressingInputStream extends EncodingInputStream {
+
+    private final InputStream source;
+
+    private final ObjectCodec codec;
+
+    private final byte[] block;
+
+    private final DataOutputStream out = new DataOutputStream(buffer);
+
+    private long[] offsets = new long[16];
+
+    private int blockCount;
+
+    /** 已输出的字节数 */
+    private long written;
+
+    private long rawLength;
+
+    BlockCompressingInputStream(InputStream source, ObjectCodec codec, int blockSize) {
+        this.source = source;
+        this.codec = codec;
+        this.block = new byte[blockSize];
+    }
+
+    @Override
+    protected boolean fill() throws IOException {
+        int n = readFully(source, block);
+        if (n > 0) {
+            if (blockCount == offsets.length) {
+                offsets = Arrays.copyOf(offsets, blockCount * 2);
+            }
+            offsets[blockCount++] = written;
+
+            // 先写入长度占位，压缩后按实际长度回填，压缩结果不再复制一次
+            out.writeInt(0);
+            int start = buffer.size();
+            try (OutputStream encoder = codec.encode(buffer)) {
+                encoder.write(block, 0, n);
+            }
+            int length = buffer.size() - start;
+            byte[] array = buffer.array();
+            array[start - 4] = (byte) (length >>> 24);
+            array[start - 3] = (byte) (length >>> 16);
+            array[start - 2] = (byte) (length >>> 8);
+            array[start - 1] = (byte) length;
+
+            written += Integer.BYTES + length;
+            rawLength += n;
+        }
+        if (n == block.length) {
+            return true;
+        }
+
+        out.writeInt(0);
+        for (int i = 0; i < blockCount; i++) {
+            out.writeLong(offsets[i]);
+        }
+        out.writeLong(rawLength);
+        out.writeInt(block.length);
+        out.writeInt(blockCount);
+        out.writeInt(BlockIndex.MAGIC);
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+
+    private static int readFully(InputStream stream, byte[] buffer) throws IOException {
+        int total = 0;
+        while (total < buffer.length) {
+            int read = stream.read(buffer, total, buffer.length - total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+
+        return total;
+    }
+}
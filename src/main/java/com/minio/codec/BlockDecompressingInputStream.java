@@ -0,0 +1,119 @@
+package com.minio.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 按顺序解压分块压缩的数据，读到结束标记或源流结束时结束；范围读取时源流只包含需要的块
+ */
+class BlockDecompressingInputStream extends InputStream {
+
+    private final DataInputStream in;
+
+    private final ObjectCodec codec;
+
+    private final byte[] block;
+
+    private byte[] compressed = new byte[0];
+
+    private int position;
+
+    private int limit;
+
+    private boolean finished;
+
+    BlockDecompressingInputStream(InputStream in, ObjectCodec codec, int blockSize) {
+        this.in = new DataInputStream(in);
+        this.codec = codec;
+        this.block = new byte[blockSize];
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+
+        while (position == limit) {
+            if (finished || !next()) {
+                finished = true;
+                return -1;
+            }
+        }
+
+        int n = Math.min(len, limit - position);
+        System.arraycopy(block, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        // 跳过已解压的部分，整块跳过时仍需解压，块的原文长度只有解压后才知道
+        long skipped = 0;
+        while (skipped < n) {
+            if (position == limit && (finished || !next())) {
+                finished = true;
+                break;
+            }
+            int step = (int) Math.min(n - skipped, limit - position);
+            position += step;
+            skipped += step;
+        }
+
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return limit - position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private boolean next() throws IOException {
+        int length;
+        try {
+            length = in.readInt();
+        } catch (EOFException e) {
+            return false;
+        }
+        if (length == 0) {
+            return false;
+        }
+        if (length < 0) {
+            throw new IOException("分块压缩数据已损坏");
+        }
+
+        if (compressed.length < length) {
+            compressed = new byte[length];
+        }
+        in.readFully(compressed, 0, length);
+
+        int total = 0;
+        try (InputStream decoder = codec.decode(new ByteArrayInputStream(compressed, 0, length))) {
+            while (total < block.length) {
+                int read = decoder.read(block, total, block.length - total);
+                if (read < 0) {
+                    break;
+                }
+                total += read;
+            }
+        }
+        position = 0;
+        limit = total;
+        return true;
+    }
+}
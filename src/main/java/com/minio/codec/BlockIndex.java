@@ -0,0 +1,85 @@
+package com.minio.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+
+/**
+ * 分块压缩格式的块索引
+ *
+ * 格式：每块blockSize字节原文单独压缩，写为[4字节压缩长度][压缩数据]；块之后是4字节的0，
+ * 然后是每块起始位置的8字节偏移，最后是20字节的结尾[8字节原文长度][4字节blockSize][4字节块数][4字节MAGIC]。
+ * 范围读取时先读结尾和索引，只请求并解压覆盖该范围的块
+ */
+class BlockIndex {
+
+    static final int MAGIC = 0x4D424C4B;
+
+    static final int TRAILER_LENGTH = 20;
+
+    /** 块大小上限，读取时防止元数据异常导致分配过大的缓冲区 */
+    static final int MAX_BLOCK_SIZE = 64 * 1024 * 1024;
+
+    final long rawLength;
+
+    final int blockSize;
+
+    /** 各块在对象中的起始位置 */
+    final long[] offsets;
+
+    /** 块数据结束的位置，即结束标记的起始位置 */
+    final long end;
+
+    private BlockIndex(long rawLength, int blockSize, long[] offsets, long end) {
+        this.rawLength = rawLength;
+        this.blockSize = blockSize;
+        this.offsets = offsets;
+        this.end = end;
+    }
+
+    /**
+     * 块数据结束之后的部分的长度
+     */
+    static int indexLength(int blockCount) {
+        return Integer.BYTES + blockCount * Long.BYTES + TRAILER_LENGTH;
+    }
+
+    /**
+     * 解析结尾
+     *
+     * @param trailer 对象最后TRAILER_LENGTH个字节
+     * @return 块数
+     */
+    static int blockCount(byte[] trailer, int blockSize) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(trailer));
+        in.readLong();
+        int size = in.readInt();
+        int count = in.readInt();
+        if (in.readInt() != MAGIC || size != blockSize || count < 0 || count > (Integer.MAX_VALUE - TRAILER_LENGTH - Integer.BYTES) / Long.BYTES) {
+            throw new IOException("对象不是分块压缩格式或已损坏");
+        }
+
+        return count;
+    }
+
+    /**
+     * 解析索引
+     *
+     * @param tail 对象最后indexLength(blockCount)个字节
+     * @param size 对象大小
+     */
+    static BlockIndex parse(byte[] tail, int blockCount, long size) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(tail));
+        if (in.readInt() != 0) {
+            throw new IOException("分块压缩对象的结束标记已损坏");
+        }
+        long[] offsets = new long[blockCount];
+        for (int i = 0; i < blockCount; i++) {
+            offsets[i] = in.readLong();
+        }
+        long rawLength = in.readLong();
+        int blockSize = in.readInt();
+
+        return new BlockIndex(rawLength, blockSize, offsets, size - tail.length);
+    }
+}
@@ -0,0 +1,42 @@
+package com.minio.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * 整体压缩成一个压缩流，读取时只能从头解压
+ */
+class CompressingInputStream extends EncodingInputStream {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final InputStream source;
+
+    private final OutputStream encoder;
+
+    private final byte[] chunk = new byte[CHUNK_SIZE];
+
+    CompressingInputStream(InputStream source, ObjectCodec codec) throws IOException {
+        this.source = source;
+        this.encoder = codec.encode(buffer);
+    }
+
+    @Override
+    protected boolean fill() throws IOException {
+        int n = source.read(chunk);
+        if (n < 0) {
+            // 写入压缩流的结尾
+            encoder.close();
+            return false;
+        }
+
+        encoder.write(chunk, 0, n);
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+}
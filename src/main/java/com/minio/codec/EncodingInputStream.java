@@ -0,0 +1,71 @@
+package com.minio.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 边读边压缩的输入流，缓冲区读完时由子类从源流读取下一段并写入压缩结果，
+ * 不需要额外的线程和管道，内存占用只有一段数据
+ */
+abstract class EncodingInputStream extends InputStream {
+
+    protected final Buffer buffer = new Buffer();
+
+    private int position;
+
+    private boolean finished;
+
+    /**
+     * 向buffer写入下一段压缩结果，可以不写入
+     *
+     * @return 源流已读完且压缩结果已全部写入时返回false
+     */
+    protected abstract boolean fill() throws IOException;
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+
+        while (position == buffer.size()) {
+            if (finished) {
+                return -1;
+            }
+            buffer.reset();
+            position = 0;
+            finished = !fill();
+        }
+
+        int n = Math.min(len, buffer.size() - position);
+        System.arraycopy(buffer.array(), position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return buffer.size() - position;
+    }
+
+    /**
+     * 可以直接访问内部数组的缓冲区
+     */
+    static class Buffer extends ByteArrayOutputStream {
+
+        Buffer() {
+            super(64 * 1024);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+    }
+}
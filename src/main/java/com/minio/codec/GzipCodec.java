@@ -0,0 +1,49 @@
+package com.minio.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * gzip，由JDK提供
+ */
+public class GzipCodec implements ObjectCodec {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final int level;
+
+    /**
+     * @param level 1到9，小于0时使用默认级别6
+     */
+    public GzipCodec(int level) {
+        if (level > 9) {
+            throw new IllegalArgumentException("gzip的level不能大于9");
+        }
+
+        this.level = level;
+    }
+
+    @Override
+    public String getName() {
+        return GZIP;
+    }
+
+    @Override
+    public OutputStream encode(OutputStream out) throws IOException {
+        return new GZIPOutputStream(out, BUFFER_SIZE) {
+            {
+                if (level >= 0) {
+                    def.setLevel(level);
+                }
+            }
+        };
+    }
+
+    @Override
+    public InputStream decode(InputStream in) throws IOException {
+        return new GZIPInputStream(in, BUFFER_SIZE);
+    }
+}
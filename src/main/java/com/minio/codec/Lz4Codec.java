@@ -0,0 +1,29 @@
+package com.minio.codec;
+
+import net.jpountz.lz4.LZ4FrameInputStream;
+import net.jpountz.lz4.LZ4FrameOutputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * lz4帧格式，压缩率低于gzip和zstd，压缩和解压最快，需要引入org.lz4:lz4-java
+ */
+public class Lz4Codec implements ObjectCodec {
+
+    @Override
+    public String getName() {
+        return LZ4;
+    }
+
+    @Override
+    public OutputStream encode(OutputStream out) throws IOException {
+        return new LZ4FrameOutputStream(out);
+    }
+
+    @Override
+    public InputStream decode(InputStream in) throws IOException {
+        return new LZ4FrameInputStream(in);
+    }
+}
@@ -0,0 +1,60 @@
+package com.minio.codec;
+
+import org.springframework.util.ClassUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * 压缩算法，名称记录在对象的元数据中，读取时按名称选择解压方式
+ */
+public interface ObjectCodec {
+
+    String GZIP = "gzip";
+
+    String ZSTD = "zstd";
+
+    String LZ4 = "lz4";
+
+    /**
+     * 写入元数据的算法名称
+     */
+    String getName();
+
+    /**
+     * 包装输出流，关闭返回的流时写完压缩数据的结尾，并关闭out
+     */
+    OutputStream encode(OutputStream out) throws IOException;
+
+    /**
+     * 包装输入流，关闭返回的流时关闭in
+     */
+    InputStream decode(InputStream in) throws IOException;
+
+    /**
+     * 按名称创建算法，zstd和lz4需要引入对应的依赖
+     *
+     * @param level 压缩级别，小于0时使用算法的默认级别，lz4忽略
+     */
+    static ObjectCodec of(String name, int level) {
+        ClassLoader classLoader = ObjectCodec.class.getClassLoader();
+        if (GZIP.equalsIgnoreCase(name)) {
+            return new GzipCodec(level);
+        }
+        if (ZSTD.equalsIgnoreCase(name)) {
+            if (!ClassUtils.isPresent("com.github.luben.zstd.ZstdOutputStream", classLoader)) {
+                throw new IllegalArgumentException("使用zstd需要引入com.github.luben:zstd-jni");
+            }
+            return new ZstdCodec(level);
+        }
+        if (LZ4.equalsIgnoreCase(name)) {
+            if (!ClassUtils.isPresent("net.jpountz.lz4.LZ4FrameOutputStream", classLoader)) {
+                throw new IllegalArgumentException("使用lz4需要引入org.lz4:lz4-java");
+            }
+            return new Lz4Codec();
+        }
+
+        throw new IllegalArgumentException("codec只支持" + GZIP + "、" + ZSTD + "和" + LZ4);
+    }
+}
@@ -0,0 +1,274 @@
+package com.minio.codec;
+
+import com.google.common.io.ByteStreams;
+import com.minio.enums.MimeTypeEnum;
+import com.minio.properties.MinioProperties;
+import okhttp3.Headers;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 上传和下载时的流式压缩
+ *
+ * 上传时按content-type选择压缩算法，边读边压缩，不需要把整个文件读入内存，算法和格式记录在对象的自定义元数据中；
+ * 读取时按元数据解压，没有元数据的对象原样返回。stream格式整体压缩，范围读取需要从头解压；
+ * block格式按块压缩并在末尾写入块索引，范围读取只请求和解压覆盖的块
+ */
+public class ObjectCompressor {
+
+    public static final String FRAMING_STREAM = "stream";
+
+    public static final String FRAMING_BLOCK = "block";
+
+    /** 压缩算法的元数据，即x-amz-meta-codec */
+    public static final String META_CODEC = "codec";
+
+    /** 分块压缩的块大小，stream格式没有该元数据 */
+    public static final String META_BLOCK_SIZE = "codec-block-size";
+
+    private static final String META_PREFIX = "x-amz-meta-";
+
+    private static final String NONE = "none";
+
+    /** 读取块索引时请求的结尾长度，块数不多时一次请求即可读到完整的索引 */
+    private static final int TAIL_LENGTH = 64 * 1024;
+
+    private final ObjectCodec codec;
+
+    /** 按content-type指定的算法，值为空表示不压缩 */
+    private final Map<String, ObjectCodec> codecs = new HashMap<>();
+
+    /** 为0时使用stream格式 */
+    private final int blockSize;
+
+    /** 解压使用的算法，按元数据中的名称创建 */
+    private final Map<String, ObjectCodec> decoders = new ConcurrentHashMap<>();
+
+    public ObjectCompressor(MinioProperties.Compression compression) {
+        if (!FRAMING_STREAM.equalsIgnoreCase(compression.getFraming()) && !FRAMING_BLOCK.equalsIgnoreCase(compression.getFraming())) {
+            throw new IllegalArgumentException("framing只支持" + FRAMING_STREAM + "和" + FRAMING_BLOCK);
+        }
+        long blockSize = compression.getBlockSize().toBytes();
+        if (FRAMING_BLOCK.equalsIgnoreCase(compression.getFraming()) && (blockSize < 1024 || blockSize > BlockIndex.MAX_BLOCK_SIZE)) {
+            throw new IllegalArgumentException("blockSize必须在1KB到64MB之间");
+        }
+
+        this.codec = ObjectCodec.of(compression.getCodec(), compression.getLevel());
+        for (Map.Entry<String, String> entry : compression.getCodecs().entrySet()) {
+            String name = entry.getValue();
+            codecs.put(normalize(entry.getKey()), NONE.equalsIgnoreCase(name) ? null : ObjectCodec.of(name, compression.getLevel()));
+        }
+        this.blockSize = FRAMING_BLOCK.equalsIgnoreCase(compression.getFraming()) ? (int) blockSize : 0;
+    }
+
+    /**
+     * 按content-type选择压缩算法
+     *
+     * @param contentType 可以带参数，例如text/csv; charset=utf-8
+     * @return 不压缩时返回null
+     */
+    public ObjectCodec select(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+
+        String mimeType = normalize(contentType);
+        if (codecs.containsKey(mimeType)) {
+            return codecs.get(mimeType);
+        }
+
+        return MimeTypeEnum.isCompressible(mimeType) ? codec : null;
+    }
+
+    /**
+     * 上传时附带的元数据请求头
+     */
+    public Map<String, String> headers(ObjectCodec codec) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put(META_PREFIX + META_CODEC, codec.getName());
+        if (blockSize > 0) {
+            headers.put(META_PREFIX + META_BLOCK_SIZE, String.valueOf(blockSize));
+        }
+
+        return headers;
+    }
+
+    /**
+     * 包装上传的流，读取返回的流得到压缩后的数据，长度事先未知
+     */
+    public InputStream encode(ObjectCodec codec, InputStream stream) throws IOException {
+        return blockSize > 0 ? new BlockCompressingInputStream(stream, codec, blockSize) : new CompressingInputStream(stream, codec);
+    }
+
+    /**
+     * 对象是否经过压缩
+     *
+     * @param userMetadata 对象的自定义元数据，键不带x-amz-meta-前缀
+     */
+    public boolean isEncoded(Map<String, String> userMetadata) {
+        return meta(userMetadata, META_CODEC) != null;
+    }
+
+    /**
+     * 解压整个对象
+     *
+     * @param userMetadata 对象的自定义元数据
+     * @param stored 对象的原始内容，未压缩时原样返回
+     */
+    public InputStream decode(Map<String, String> userMetadata, InputStream stored) throws IOException {
+        String name = meta(userMetadata, META_CODEC);
+        if (name == null) {
+            return stored;
+        }
+
+        ObjectCodec decoder = decoder(name);
+        int blockSize = blockSize(userMetadata);
+        return blockSize > 0 ? new BlockDecompressingInputStream(stored, decoder, blockSize) : decoder.decode(stored);
+    }
+
+    /**
+     * 读取原文中的一段
+     *
+     * @param userMetadata 对象的自定义元数据，对象必须经过压缩
+     * @param size 压缩后的对象大小
+     * @param offset 原文中的起始位置
+     * @param length 读取的长度
+     * @param fetcher 按压缩后的位置读取对象
+     */
+    public InputStream decodeRange(Map<String, String> userMetadata, long size, long offset, long length, RangeFetcher fetcher) throws Exception {
+        ObjectCodec decoder = decoder(meta(userMetadata, META_CODEC));
+        int blockSize = blockSize(userMetadata);
+        if (blockSize == 0) {
+            // 整体压缩只能从头解压，跳过前面的部分
+            InputStream stream = decoder.decode(fetcher.fetch(0, size));
+            ByteStreams.skipFully(stream, offset);
+            return ByteStreams.limit(stream, length);
+        }
+
+        BlockIndex index = readIndex(size, blockSize, fetcher);
+        if (length <= 0 || offset >= index.rawLength) {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+
+        long end = Math.min(index.rawLength, offset + length);
+        int first = (int) (offset / blockSize);
+        int last = (int) ((end - 1) / blockSize);
+        long from = index.offsets[first];
+        long to = last + 1 < index.offsets.length ? index.offsets[last + 1] : index.end;
+
+        InputStream stream = new BlockDecompressingInputStream(fetcher.fetch(from, to - from), decoder, blockSize);
+        ByteStreams.skipFully(stream, offset - (long) first * blockSize);
+        return ByteStreams.limit(stream, end - offset);
+    }
+
+    /**
+     * 从响应头中取出自定义元数据，键不带x-amz-meta-前缀
+     */
+    public static Map<String, String> userMetadata(Headers headers) {
+        Map<String, String> userMetadata = new HashMap<>();
+        for (String name : headers.names()) {
+            if (name.regionMatches(true, 0, META_PREFIX, 0, META_PREFIX.length())) {
+                userMetadata.put(name.substring(META_PREFIX.length()).toLowerCase(Locale.ROOT), headers.get(name));
+            }
+        }
+
+        return userMetadata;
+    }
+
+    /**
+     * 先读结尾，索引不在已读的部分中时再读一次
+     */
+    private static BlockIndex readIndex(long size, int blockSize, RangeFetcher fetcher) throws Exception {
+        if (size < BlockIndex.indexLength(0)) {
+            throw new IOException("对象不是分块压缩格式或已损坏");
+        }
+
+        byte[] tail = read(fetcher, size - Math.min(size, TAIL_LENGTH), (int) Math.min(size, TAIL_LENGTH));
+        int blockCount = BlockIndex.blockCount(Arrays.copyOfRange(tail, tail.length - BlockIndex.TRAILER_LENGTH, tail.length), blockSize);
+        int indexLength = BlockIndex.indexLength(blockCount);
+        if (indexLength > size) {
+            throw new IOException("对象不是分块压缩格式或已损坏");
+        }
+        if (indexLength <= tail.length) {
+            tail = Arrays.copyOfRange(tail, tail.length - indexLength, tail.length);
+        } else {
+            tail = read(fetcher, size - indexLength, indexLength);
+        }
+
+        return BlockIndex.parse(tail, blockCount, size);
+    }
+
+    private static byte[] read(RangeFetcher fetcher, long offset, int length) throws Exception {
+        byte[] bytes = new byte[length];
+        try (InputStream stream = fetcher.fetch(offset, length)) {
+            ByteStreams.readFully(stream, bytes);
+        }
+
+        return bytes;
+    }
+
+    private ObjectCodec decoder(String name) {
+        return decoders.computeIfAbsent(name.toLowerCase(Locale.ROOT), key -> ObjectCodec.of(key, -1));
+    }
+
+    private static int blockSize(Map<String, String> userMetadata) throws IOException {
+        String value = meta(userMetadata, META_BLOCK_SIZE);
+        if (value == null) {
+            return 0;
+        }
+
+        try {
+            int blockSize = Integer.parseInt(value);
+            if (blockSize > 0 && blockSize <= BlockIndex.MAX_BLOCK_SIZE) {
+                return blockSize;
+            }
+        } catch (NumberFormatException ignored) {
+            // 按损坏处理
+        }
+        throw new IOException("无效的" + META_BLOCK_SIZE + "：" + value);
+    }
+
+    /**
+     * SDK返回的元数据键保留服务端的大小写，不区分大小写查找
+     */
+    private static String meta(Map<String, String> userMetadata, String key) {
+        if (userMetadata == null) {
+            return null;
+        }
+
+        String value = userMetadata.get(key);
+        if (value != null) {
+            return value;
+        }
+        for (Map.Entry<String, String> entry : userMetadata.entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(key)) {
+                return entry.getValue();
+            }
+        }
+
+        return null;
+    }
+
+    private static String normalize(String contentType) {
+        int semicolon = contentType.indexOf(';');
+        String mimeType = semicolon < 0 ? contentType : contentType.substring(0, semicolon);
+        return mimeType.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 按压缩后的位置读取对象
+     */
+    @FunctionalInterface
+    public interface RangeFetcher {
+
+        InputStream fetch(long offset, long length) throws Exception;
+    }
+}
@@ -0,0 +1,44 @@
+package com.minio.codec;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.ZstdOutputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * zstd，压缩率接近gzip的高级别，速度快数倍，需要引入com.github.luben:zstd-jni
+ */
+public class ZstdCodec implements ObjectCodec {
+
+    private static final int DEFAULT_LEVEL = 3;
+
+    private final int level;
+
+    /**
+     * @param level 1到22，小于0时使用默认级别3
+     */
+    public ZstdCodec(int level) {
+        if (level > 22) {
+            throw new IllegalArgumentException("zstd的level不能大于22");
+        }
+
+        this.level = level < 0 ? DEFAULT_LEVEL : level;
+    }
+
+    @Override
+    public String getName() {
+        return ZSTD;
+    }
+
+    @Override
+    public OutputStream encode(OutputStream out) throws IOException {
+        return new ZstdOutputStream(out, level);
+    }
+
+    @Override
+    public InputStream decode(InputStream in) throws IOException {
+        return new ZstdInputStream(in);
+    }
+}
@@ -1,21 +1,156 @@
 package com.minio.config;
 
+import com.minio.cache.StatObjectCache;
+import com.minio.metrics.MicrometerMinioMetrics;
+import com.minio.metrics.MinioMetrics;
+import com.minio.pack.InMemoryPackIndex;
+import com.minio.pack.PackIndex;
+import com.minio.pack.RedisPackIndex;
 import com.minio.properties.MinioProperties;
+import com.minio.session.InMemoryUploadSessionStore;
+import com.minio.session.RedisUploadSessionStore;
+import com.minio.session.UploadSessionStore;
+import com.minio.session.UploadSessionSweeper;
+import com.minio.utils.MinioHttpClientFactory;
 import com.minio.utils.MinioTemplate;
-import org.springframework.beans.factory.annotation.Autowired;
+import com.minio.utils.ReactiveMinioTemplate;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.minio.MinioClient;
+import okhttp3.OkHttpClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
 
-@Configuration
+/**
+ * 配置了minio.endpoint时生效；不使用配置类代理，构造时不访问minio，存储桶检查见minio.bootstrap
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnClass(MinioClient.class)
+@ConditionalOnProperty(prefix = "minio", name = "endpoint")
 @EnableConfigurationProperties({MinioProperties.class})
 public class MinioAutoConfigure {
 
-    @Autowired
-    private MinioProperties minioProperties;
+    private final MinioProperties minioProperties;
 
+    public MinioAutoConfigure(MinioProperties minioProperties) {
+        this.minioProperties = minioProperties;
+    }
+
+    /**
+     * minio共用的http客户端，可以注册同名的Bean替换
+     */
+    @Bean
+    @ConditionalOnMissingBean(name = "minioHttpClient")
+    public OkHttpClient minioHttpClient() {
+        return MinioHttpClientFactory.create(minioProperties.getHttp());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public MinioTemplate minioTemplate(@Qualifier("minioHttpClient") OkHttpClient minioHttpClient,
+                                       ObjectProvider<UploadSessionStore> uploadSessionStore, ObjectProvider<StatObjectCache> statObjectCache,
+                                       ObjectProvider<MinioMetrics> minioMetrics, ObjectProvider<PackIndex> packIndex) {
+        MinioTemplate minioTemplate = new MinioTemplate(minioProperties, minioHttpClient);
+        minioMetrics.ifAvailable(minioTemplate::setMetrics);
+        minioTemplate.setUploadSessionStore(uploadSessionStore.getIfAvailable());
+        // 注册了自定义的元数据缓存时替换默认实现
+        statObjectCache.ifAvailable(minioTemplate::setStatObjectCache);
+        packIndex.ifAvailable(minioTemplate::setPackIndex);
+        return minioTemplate;
+    }
+
+    /**
+     * 分片上传会话存储，store=redis时使用redis，缺少StringRedisTemplate时启动失败；store=memory时保存在内存中
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "minio.session", name = "enabled", havingValue = "true")
+    public UploadSessionStore uploadSessionStore(ObjectProvider<StringRedisTemplate> redisTemplate) {
+        MinioProperties.Session session = minioProperties.getSession();
+        if ("redis".equalsIgnoreCase(session.getStore())) {
+            // 多实例按redis共享会话，退回内存存储会让续传和合并找不到其他实例创建的会话
+            StringRedisTemplate template = redisTemplate.getIfAvailable();
+            if (template == null) {
+                throw new IllegalStateException("minio.session.store=redis需要StringRedisTemplate，请引入spring-boot-starter-data-redis并配置redis");
+            }
+            return new RedisUploadSessionStore(template, session.getKeyPrefix());
+        }
+        if (!"memory".equalsIgnoreCase(session.getStore())) {
+            throw new IllegalArgumentException("minio.session.store只支持memory和redis");
+        }
+
+        return new InMemoryUploadSessionStore();
+    }
+
+    /**
+     * 小文件打包索引，store=redis时使用redis，缺少StringRedisTemplate时启动失败；store=memory时保存在内存中并在启动时从段索引文件重建
+     */
     @Bean
-    public MinioTemplate minioTemplate() {
-        return new MinioTemplate(minioProperties);
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "minio.pack", name = "enabled", havingValue = "true")
+    public PackIndex packIndex(ObjectProvider<StringRedisTemplate> redisTemplate) {
+        MinioProperties.Pack pack = minioProperties.getPack();
+        if ("redis".equalsIgnoreCase(pack.getStore())) {
+            // 多实例按redis共享索引，退回内存索引会让各实例看到不同的文件
+            StringRedisTemplate template = redisTemplate.getIfAvailable();
+            if (template == null) {
+                throw new IllegalStateException("minio.pack.store=redis需要StringRedisTemplate，请引入spring-boot-starter-data-redis并配置redis");
+            }
+            return new RedisPackIndex(template, pack.getKeyPrefix());
+        }
+        if (!"memory".equalsIgnoreCase(pack.getStore())) {
+            throw new IllegalArgumentException("minio.pack.store只支持memory和redis");
+        }
+
+        return new InMemoryPackIndex();
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "minio.session", name = "enabled", havingValue = "true")
+    public UploadSessionSweeper uploadSessionSweeper(UploadSessionStore uploadSessionStore, MinioTemplate minioTemplate) {
+        return new UploadSessionSweeper(uploadSessionStore, minioTemplate, minioProperties.getSession().getSweepInterval().toMillis());
+    }
+
+    /**
+     * 引入micrometer且存在MeterRegistry时记录各操作的耗时、传输字节数和连接池状态
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+    @ConditionalOnProperty(prefix = "minio.metrics", name = "enabled", havingValue = "true", matchIfMissing = true)
+    static class MinioMetricsConfigure {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public MinioMetrics minioMetrics(ObjectProvider<MeterRegistry> meterRegistry, MinioProperties minioProperties,
+                                         @Qualifier("minioHttpClient") OkHttpClient minioHttpClient) {
+            MeterRegistry registry = meterRegistry.getIfAvailable();
+            if (registry == null) {
+                return MinioMetrics.NOOP;
+            }
+
+            MicrometerMinioMetrics metrics = new MicrometerMinioMetrics(registry, minioProperties.getMetrics().isHistogram());
+            metrics.bindConnectionPool(minioHttpClient.connectionPool());
+            return metrics;
+        }
+    }
+
+    /**
+     * 引入webflux时提供非阻塞的ReactiveMinioTemplate
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = {"org.springframework.web.reactive.function.client.WebClient", "reactor.netty.http.client.HttpClient"})
+    static class ReactiveMinioConfigure {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public ReactiveMinioTemplate reactiveMinioTemplate(MinioProperties minioProperties) {
+            return new ReactiveMinioTemplate(minioProperties);
+        }
     }
 }
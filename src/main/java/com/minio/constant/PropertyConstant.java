@@ -4,4 +4,6 @@ public class PropertyConstant {
     public static final String prefix = "minio";
 
     public static final String bucket = "bucket";
+
+    public static final String region = "us-east-1";
 }
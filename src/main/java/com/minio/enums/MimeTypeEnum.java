@@ -5,7 +5,6 @@ import org.apache.commons.lang3.StringUtils;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
 
 public enum MimeTypeEnum {
 
@@ -182,6 +181,36 @@ public enum MimeTypeEnum {
      */
     private String fileType;
 
+    /**
+     * 嗅探文件类型需要读取的文件头长度
+     */
+    public static final int MAGIC_LENGTH = 264;
+
+    /**
+     * 按扩展名（含点，小写）开放寻址的索引，同一扩展名取先声明的类型
+     */
+    private static final MimeTypeEnum[] INDEX;
+
+    private static final int MASK;
+
+    static {
+        MimeTypeEnum[] values = values();
+        int capacity = Integer.highestOneBit(values.length * 4 - 1);
+        MimeTypeEnum[] index = new MimeTypeEnum[capacity];
+        for (MimeTypeEnum value : values) {
+            String extension = value.extension;
+            int slot = hash(extension, 0, extension.length()) & (capacity - 1);
+            while (index[slot] != null && !index[slot].extension.equals(extension)) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            if (index[slot] == null) {
+                index[slot] = value;
+            }
+        }
+        INDEX = index;
+        MASK = capacity - 1;
+    }
+
     MimeTypeEnum(String extension, String explain, String mimeType, String fileType) {
         this.extension = extension;
         this.explain = explain;
@@ -205,6 +234,42 @@ public enum MimeTypeEnum {
         return fileType;
     }
 
+    /**
+     * 内容是否值得压缩，文本类和未压缩的字体、位图压缩率高，图片、音视频和压缩包压缩后基本不变小
+     */
+    public boolean isCompressible() {
+        return isCompressible(mimeType);
+    }
+
+    /**
+     * 按content-type判断内容是否值得压缩
+     *
+     * @param mimeType 不带参数的content-type，小写
+     */
+    public static boolean isCompressible(String mimeType) {
+        if (mimeType == null) {
+            return false;
+        }
+        if (mimeType.startsWith("text/") || mimeType.endsWith("+json") || mimeType.endsWith("+xml")) {
+            return true;
+        }
+        switch (mimeType) {
+            case "application/json":
+            case "application/xml":
+            case "application/javascript":
+            case "application/rtf":
+            case "application/x-sh":
+            case "application/x-csh":
+            case "application/x-httpd-php":
+            case "font/otf":
+            case "font/ttf":
+            case "image/bmp":
+                return true;
+            default:
+                return false;
+        }
+    }
+
     /**
      * 判断所传数值是否包含于枚举当中
      *
@@ -212,13 +277,7 @@ public enum MimeTypeEnum {
      * @return
      */
     public static boolean isOutRangeMimeType(String extension) {
-        List<String> mimeTypeEnumList = toList().stream().map(MimeTypeEnum::getExtension).collect(Collectors.toList());
-
-        if (mimeTypeEnumList.contains(extension)) {
-            return true;
-        }
-
-        return false;
+        return findByExtension(extension) != null;
     }
 
     /**
@@ -233,15 +292,129 @@ public enum MimeTypeEnum {
         return list;
     }
 
+    /**
+     * 按扩展名查找，不区分大小写
+     *
+     * @param extension 带点的扩展名，例如.jpg
+     */
     public static MimeTypeEnum findByExtension(String extension) {
         if(StringUtils.isBlank(extension)){
             return null;
         }
 
-        for (MimeTypeEnum typesEnum : MimeTypeEnum.values()) {
-            if (extension.equals(typesEnum.getExtension())) {
-                return typesEnum;
+        return lookup(extension, 0, extension.length());
+    }
+
+    /**
+     * 按文件名的扩展名查找，不区分大小写，不创建新的字符串
+     *
+     * @param fileName 文件名或路径
+     * @return 没有扩展名或扩展名未知时返回null，以点开头的隐藏文件（如.png）视为没有扩展名
+     */
+    public static MimeTypeEnum findByFileName(String fileName) {
+        if (fileName == null) {
+            return null;
+        }
+
+        for (int i = fileName.length() - 1; i >= 0; i--) {
+            char c = fileName.charAt(i);
+            if (c == '.') {
+                if (i == 0 || fileName.charAt(i - 1) == '/' || fileName.charAt(i - 1) == '\\') {
+                    return null;
+                }
+                return lookup(fileName, i, fileName.length());
+            }
+            if (c == '/' || c == '\\') {
+                break;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * 按文件头的特征字节判断文件类型，用于没有扩展名的文件
+     *
+     * @param header 文件开头的字节，读取MAGIC_LENGTH个即可
+     * @param length 有效长度
+     * @return 无法识别时返回null
+     */
+    public static MimeTypeEnum sniff(byte[] header, int length) {
+        if (startsWith(header, length, 0, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return PNG;
+        }
+        if (startsWith(header, length, 0, 0xFF, 0xD8, 0xFF)) {
+            return JPG;
+        }
+        if (startsWith(header, length, 0, 'G', 'I', 'F', '8')) {
+            return GIF;
+        }
+        if (startsWith(header, length, 0, '%', 'P', 'D', 'F', '-')) {
+            return PDF;
+        }
+        if (startsWith(header, length, 0, 'R', 'I', 'F', 'F')) {
+            if (startsWith(header, length, 8, 'W', 'E', 'B', 'P')) {
+                return WEBP;
+            }
+            if (startsWith(header, length, 8, 'W', 'A', 'V', 'E')) {
+                return WAV;
             }
+            if (startsWith(header, length, 8, 'A', 'V', 'I', ' ')) {
+                return AVI;
+            }
+            return null;
+        }
+        if (startsWith(header, length, 0, 'P', 'K', 0x03, 0x04)) {
+            return ZIP;
+        }
+        if (startsWith(header, length, 0, 0x1F, 0x8B)) {
+            return GZ;
+        }
+        if (startsWith(header, length, 0, 'B', 'Z', 'h')) {
+            return BZ2;
+        }
+        if (startsWith(header, length, 0, '7', 'z', 0xBC, 0xAF, 0x27, 0x1C)) {
+            return MIME_7Z;
+        }
+        if (startsWith(header, length, 0, 'R', 'a', 'r', '!', 0x1A, 0x07)) {
+            return RAR;
+        }
+        if (startsWith(header, length, 0, 'B', 'M')) {
+            return BMP;
+        }
+        if (startsWith(header, length, 0, 'I', 'I', 0x2A, 0x00) || startsWith(header, length, 0, 'M', 'M', 0x00, 0x2A)) {
+            return TIFF;
+        }
+        if (startsWith(header, length, 0, 0x00, 0x00, 0x01, 0x00)) {
+            return ICO;
+        }
+        if (startsWith(header, length, 0, 'I', 'D', '3') || startsWith(header, length, 0, 0xFF, 0xFB)) {
+            return MP3;
+        }
+        if (startsWith(header, length, 0, 'O', 'g', 'g', 'S')) {
+            return OGX;
+        }
+        if (startsWith(header, length, 0, 0x1A, 0x45, 0xDF, 0xA3)) {
+            return WEBM;
+        }
+        if (startsWith(header, length, 0, 'w', 'O', 'F', 'F')) {
+            return WOFF;
+        }
+        if (startsWith(header, length, 0, 'w', 'O', 'F', '2')) {
+            return WOFF2;
+        }
+        if (startsWith(header, length, 0, 0xD0, 0xCF, 0x11, 0xE0, 0xA1, 0xB1, 0x1A, 0xE1)) {
+            // Word、Excel、PowerPoint的旧格式共用OLE2容器，无法进一步区分
+            return BIN;
+        }
+        if (startsWith(header, length, 0, '{', '\\', 'r', 't', 'f')) {
+            return RTF;
+        }
+        if (startsWith(header, length, 0, '<', '?', 'x', 'm', 'l')) {
+            return XML;
+        }
+        if (startsWith(header, length, 257, 'u', 's', 't', 'a', 'r')) {
+            return TAR;
         }
 
         return null;
@@ -275,4 +448,47 @@ public enum MimeTypeEnum {
 
         return "file";
     }
-}
\ No newline at end of file
+
+    private static MimeTypeEnum lookup(String s, int start, int end) {
+        int slot = hash(s, start, end) & MASK;
+        MimeTypeEnum candidate;
+        while ((candidate = INDEX[slot]) != null) {
+            String extension = candidate.extension;
+            if (extension.length() == end - start && extension.regionMatches(true, 0, s, start, end - start)) {
+                return candidate;
+            }
+            slot = (slot + 1) & MASK;
+        }
+
+        return null;
+    }
+
+    /**
+     * 按小写字母计算的哈希，扩展名都是ASCII字符
+     */
+    private static int hash(String s, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                c += 'a' - 'A';
+            }
+            h = 31 * h + c;
+        }
+
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean startsWith(byte[] header, int length, int offset, int... magic) {
+        if (length < offset + magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if ((header[offset + i] & 0xFF) != magic[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
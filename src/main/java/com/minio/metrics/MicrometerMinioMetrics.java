@@ -0,0 +1,172 @@
+package com.minio.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import com.minio.resilience.CircuitBreaker;
+import okhttp3.ConnectionPool;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToLongFunction;
+
+/**
+ * 基于micrometer的指标实现
+ *
+ * 计时器和计数器按(操作, 存储桶)注册一次后缓存在按操作序号索引的列表和Map中，记录时只做一次Map查找，不产生新对象。
+ * 指标：
+ * minio.operation：计时器，标签operation、bucket、outcome
+ * minio.operation.active：在途操作数，标签operation
+ * minio.transfer.bytes：传输字节数，标签bucket、direction
+ * minio.http.connections：连接池连接数，标签state
+ * minio.resilience.retries、minio.resilience.hedges、minio.resilience.rejections：重试、对冲和熔断拒绝次数，标签operation
+ * minio.circuit.transitions：熔断器状态变化次数，标签endpoint、state
+ * minio.cache.requests：缓存查询次数，标签cache、result
+ */
+public class MicrometerMinioMetrics implements MinioMetrics {
+
+    private static final String NO_BUCKET = "none";
+
+    private static final Operation[] OPERATIONS = Operation.values();
+
+    private final MeterRegistry registry;
+
+    private final boolean histogram;
+
+    /** 按操作序号索引，值为存储桶到[成功, 失败]计时器的映射 */
+    private final List<ConcurrentHashMap<String, Timer[]>> timers;
+
+    private final AtomicInteger[] active;
+
+    /** 按操作序号索引的[重试, 对冲, 拒绝]计数器 */
+    private final Counter[][] resilience;
+
+    /** 存储桶到[上传, 下载]计数器的映射 */
+    private final ConcurrentHashMap<String, Counter[]> transfers = new ConcurrentHashMap<>();
+
+    /**
+     * @param histogram 是否发布耗时分布的直方图
+     */
+    public MicrometerMinioMetrics(MeterRegistry registry, boolean histogram) {
+        this.registry = registry;
+        this.histogram = histogram;
+        this.timers = new ArrayList<>(OPERATIONS.length);
+        this.active = new AtomicInteger[OPERATIONS.length];
+        this.resilience = new Counter[OPERATIONS.length][];
+        for (Operation operation : OPERATIONS) {
+            timers.add(new ConcurrentHashMap<>());
+            active[operation.ordinal()] = registry.gauge("minio.operation.active",
+                    Tags.of("operation", operation.tag()), new AtomicInteger());
+            resilience[operation.ordinal()] = new Counter[]{
+                    registry.counter("minio.resilience.retries", "operation", operation.tag()),
+                    registry.counter("minio.resilience.hedges", "operation", operation.tag()),
+                    registry.counter("minio.resilience.rejections", "operation", operation.tag())};
+        }
+    }
+
+    /**
+     * 注册http连接池的连接数
+     */
+    public void bindConnectionPool(ConnectionPool connectionPool) {
+        Gauge.builder("minio.http.connections", connectionPool, ConnectionPool::connectionCount)
+                .tag("state", "total").register(registry);
+        Gauge.builder("minio.http.connections", connectionPool, ConnectionPool::idleConnectionCount)
+                .tag("state", "idle").register(registry);
+    }
+
+    @Override
+    public long start(Operation operation) {
+        active[operation.ordinal()].incrementAndGet();
+        return System.nanoTime();
+    }
+
+    @Override
+    public void stop(Operation operation, String bucket, long start, boolean success) {
+        long elapsed = System.nanoTime() - start;
+        active[operation.ordinal()].decrementAndGet();
+
+        String key = bucket == null ? NO_BUCKET : bucket;
+        ConcurrentHashMap<String, Timer[]> buckets = timers.get(operation.ordinal());
+        Timer[] pair = buckets.get(key);
+        if (pair == null) {
+            pair = buckets.computeIfAbsent(key, b -> new Timer[]{timer(operation, b, "success"), timer(operation, b, "error")});
+        }
+        pair[success ? 0 : 1].record(elapsed, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void uploaded(String bucket, long bytes) {
+        if (bytes > 0) {
+            transfers(bucket)[0].increment(bytes);
+        }
+    }
+
+    @Override
+    public void downloaded(String bucket, long bytes) {
+        if (bytes > 0) {
+            transfers(bucket)[1].increment(bytes);
+        }
+    }
+
+    @Override
+    public void retried(Operation operation) {
+        resilience[operation.ordinal()][0].increment();
+    }
+
+    @Override
+    public void hedged(Operation operation) {
+        resilience[operation.ordinal()][1].increment();
+    }
+
+    @Override
+    public void rejected(Operation operation) {
+        resilience[operation.ordinal()][2].increment();
+    }
+
+    @Override
+    public void circuitStateChanged(String endpoint, CircuitBreaker.State state) {
+        // 状态变化很少，直接按标签查找
+        registry.counter("minio.circuit.transitions", "endpoint", endpoint, "state", state.name().toLowerCase()).increment();
+    }
+
+    @Override
+    public <T> void bindCache(String cache, T target, ToLongFunction<T> hits, ToLongFunction<T> misses) {
+        FunctionCounter.builder("minio.cache.requests", target, hits::applyAsLong)
+                .tag("cache", cache).tag("result", "hit").register(registry);
+        FunctionCounter.builder("minio.cache.requests", target, misses::applyAsLong)
+                .tag("cache", cache).tag("result", "miss").register(registry);
+    }
+
+    private Timer timer(Operation operation, String bucket, String outcome) {
+        return Timer.builder("minio.operation")
+                .tag("operation", operation.tag())
+                .tag("bucket", bucket)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram(histogram)
+                .register(registry);
+    }
+
+    private Counter[] transfers(String bucket) {
+        String key = bucket == null ? NO_BUCKET : bucket;
+        Counter[] pair = transfers.get(key);
+        if (pair == null) {
+            pair = transfers.computeIfAbsent(key, b -> new Counter[]{counter(b, "upload"), counter(b, "download")});
+        }
+
+        return pair;
+    }
+
+    private Counter counter(String bucket, String direction) {
+        return Counter.builder("minio.transfer.bytes")
+                .baseUnit("bytes")
+                .tag("bucket", bucket)
+                .tag("direction", direction)
+                .register(registry);
+    }
+}
@@ -0,0 +1,94 @@
+package com.minio.metrics;
+
+import com.minio.resilience.CircuitBreaker;
+
+import java.util.function.ToLongFunction;
+
+/**
+ * 操作指标
+ *
+ * 调用方式固定为先start再在finally中stop，开始时间以long传递，不创建计时对象
+ */
+public interface MinioMetrics {
+
+    /**
+     * 不记录任何指标，未引入micrometer或关闭指标时使用
+     */
+    MinioMetrics NOOP = new MinioMetrics() {
+        @Override
+        public long start(Operation operation) {
+            return 0;
+        }
+
+        @Override
+        public void stop(Operation operation, String bucket, long start, boolean success) {
+        }
+
+        @Override
+        public void uploaded(String bucket, long bytes) {
+        }
+
+        @Override
+        public void downloaded(String bucket, long bytes) {
+        }
+    };
+
+    /**
+     * 操作开始，在途数加一
+     *
+     * @return 开始时间，传给stop
+     */
+    long start(Operation operation);
+
+    /**
+     * 操作结束，在途数减一并记录耗时
+     *
+     * @param bucket 存储桶，可为空
+     * @param start start返回的开始时间
+     * @param success 是否成功
+     */
+    void stop(Operation operation, String bucket, long start, boolean success);
+
+    /**
+     * 记录上传字节数
+     */
+    void uploaded(String bucket, long bytes);
+
+    /**
+     * 记录下载字节数
+     */
+    void downloaded(String bucket, long bytes);
+
+    /**
+     * 瞬时故障后重试一次
+     */
+    default void retried(Operation operation) {
+    }
+
+    /**
+     * 发出一次对冲请求
+     */
+    default void hedged(Operation operation) {
+    }
+
+    /**
+     * 熔断期间直接拒绝一次请求
+     */
+    default void rejected(Operation operation) {
+    }
+
+    /**
+     * 端点的熔断器状态变化
+     */
+    default void circuitStateChanged(String endpoint, CircuitBreaker.State state) {
+    }
+
+    /**
+     * 注册缓存的命中和未命中次数，读取指标时才调用函数取值
+     *
+     * @param cache 缓存名称
+     * @param target 取值的对象，函数读取其当前的计数
+     */
+    default <T> void bindCache(String cache, T target, ToLongFunction<T> hits, ToLongFunction<T> misses) {
+    }
+}
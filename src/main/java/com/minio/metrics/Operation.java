@@ -0,0 +1,37 @@
+package com.minio.metrics;
+
+/**
+ * 记录指标的操作类型
+ */
+public enum Operation {
+
+    PUT("put"),
+
+    GET("get"),
+
+    STAT("stat"),
+
+    BUCKET("bucket"),
+
+    PRESIGN("presign"),
+
+    MULTIPART_INIT("multipart_init"),
+
+    MERGE("merge"),
+
+    LIST_PARTS("list_parts"),
+
+    REMOVE("remove"),
+
+    COPY("copy");
+
+    private final String tag;
+
+    Operation(String tag) {
+        this.tag = tag;
+    }
+
+    public String tag() {
+        return tag;
+    }
+}
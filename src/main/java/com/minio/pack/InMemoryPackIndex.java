@@ -0,0 +1,108 @@
+package com.minio.pack;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 内存中的打包索引，只对当前实例可见，重启后从段文件的索引文件重建
+ *
+ * 查询不加锁；登记、删除和压缩相关的修改串行执行，保证文件和段文件的对应关系一致
+ */
+public class InMemoryPackIndex implements PackIndex {
+
+    private final Map<String, PackedObject> objects = new ConcurrentHashMap<>();
+
+    /** 段文件及曾经写入其中的文件名称，有效的文件需要再对照objects */
+    private final Map<String, Segment> segments = new ConcurrentHashMap<>();
+
+    @Override
+    public synchronized boolean add(PackSegment segment, List<PackedObject> objects) {
+        Segment state = segments.computeIfAbsent(segment.getName(), name -> new Segment(segment));
+        boolean all = true;
+        for (PackedObject object : objects) {
+            PackedObject existing = this.objects.get(object.getName());
+            if (existing != null && existing.getSegment().compareTo(segment.getName()) > 0) {
+                all = false;
+                continue;
+            }
+            this.objects.put(object.getName(), object);
+            state.names.add(object.getName());
+        }
+
+        return all;
+    }
+
+    @Override
+    public PackedObject get(String name) {
+        return objects.get(name);
+    }
+
+    @Override
+    public synchronized PackedObject remove(String name) {
+        return objects.remove(name);
+    }
+
+    @Override
+    public synchronized boolean relocate(PackedObject from, PackedObject to) {
+        Segment state = segments.get(to.getSegment());
+        if (state == null || !objects.replace(from.getName(), from, to)) {
+            return false;
+        }
+
+        state.names.add(to.getName());
+        return true;
+    }
+
+    @Override
+    public synchronized List<PackedObject> objects(String segment) {
+        Segment state = segments.get(segment);
+        if (state == null) {
+            return new ArrayList<>();
+        }
+
+        List<PackedObject> live = new ArrayList<>(state.names.size());
+        for (String name : state.names) {
+            PackedObject object = objects.get(name);
+            if (object != null && object.getSegment().equals(segment)) {
+                live.add(object);
+            }
+        }
+
+        return live;
+    }
+
+    @Override
+    public List<PackSegment> segments() {
+        List<PackSegment> list = new ArrayList<>(segments.size());
+        for (Segment state : segments.values()) {
+            list.add(state.segment);
+        }
+
+        return list;
+    }
+
+    @Override
+    public synchronized void removeSegment(String segment) {
+        segments.remove(segment);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return segments.isEmpty();
+    }
+
+    private static class Segment {
+
+        private final PackSegment segment;
+
+        private final Set<String> names = new HashSet<>();
+
+        private Segment(PackSegment segment) {
+            this.segment = segment;
+        }
+    }
+}
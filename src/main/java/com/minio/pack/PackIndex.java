@@ -0,0 +1,58 @@
+package com.minio.pack;
+
+import java.util.List;
+
+/**
+ * 小文件打包索引，记录每个文件位于哪个段文件的哪一段
+ */
+public interface PackIndex {
+
+    /**
+     * 登记写入完成的段文件，同名文件指向新的位置，原位置的内容成为可回收的空间。
+     * 段文件名按创建时间排序，同名文件已位于名称更大的段中时保留原位置，较早创建的段上传得较晚时不会覆盖新内容
+     *
+     * @return 有文件因此未登记时返回false，段的索引文件需要按索引重写
+     */
+    boolean add(PackSegment segment, List<PackedObject> objects);
+
+    /**
+     * 查询文件位置
+     *
+     * @return 文件未打包或已删除时返回null
+     */
+    PackedObject get(String name);
+
+    /**
+     * 删除文件
+     *
+     * @return 被删除的文件，不存在时返回null
+     */
+    PackedObject remove(String name);
+
+    /**
+     * 文件仍在原位置时改为指向新位置，用于压缩
+     *
+     * @return 文件已被删除或覆盖时返回false
+     */
+    boolean relocate(PackedObject from, PackedObject to);
+
+    /**
+     * 查询段文件中仍然有效的文件
+     */
+    List<PackedObject> objects(String segment);
+
+    /**
+     * 所有已登记的段文件
+     */
+    List<PackSegment> segments();
+
+    /**
+     * 删除段文件的登记，段文件中不应再有有效的文件
+     */
+    void removeSegment(String segment);
+
+    /**
+     * 没有登记任何段文件，此时从段文件的索引文件重建
+     */
+    boolean isEmpty();
+}
@@ -0,0 +1,24 @@
+package com.minio.pack;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 段文件，由多个小文件首尾相接组成
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PackSegment {
+
+    /**
+     * 段文件的对象名称
+     */
+    private String name;
+
+    /**
+     * 段文件大小，包含已删除和被覆盖的文件
+     */
+    private long size;
+}
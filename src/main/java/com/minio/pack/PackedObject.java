@@ -0,0 +1,28 @@
+package com.minio.pack;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 打包在段文件中的小文件，内容位于段文件的[offset, offset + length)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PackedObject {
+
+    /**
+     * 文件名称
+     */
+    private String name;
+
+    /**
+     * 所在的段文件
+     */
+    private String segment;
+
+    private long offset;
+
+    private long length;
+}
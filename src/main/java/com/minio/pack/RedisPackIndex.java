@@ -0,0 +1,148 @@
+package com.minio.pack;
+
+import com.alibaba.fastjson.JSON;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 基于Redis的打包索引，多实例共享
+ *
+ * 文件位置以JSON保存在哈希{prefix}objects，段文件大小保存在哈希{prefix}segments，
+ * 写入过每个段文件的文件名称保存在集合{prefix}segment:{segment}。删除和压缩时的比较替换用脚本保证原子性
+ */
+public class RedisPackIndex implements PackIndex {
+
+    private static final RedisScript<String> REMOVE = new DefaultRedisScript<>(
+            "local v = redis.call('HGET', KEYS[1], ARGV[1]) "
+                    + "if v then redis.call('HDEL', KEYS[1], ARGV[1]) end "
+                    + "return v", String.class);
+
+    /** 同名文件已位于名称更大的段中时不覆盖，返回未登记的数量 */
+    private static final RedisScript<Long> ADD = new DefaultRedisScript<>(
+            "local skipped = 0 "
+                    + "for i = 2, #ARGV, 2 do "
+                    + "local v = redis.call('HGET', KEYS[1], ARGV[i]) "
+                    + "if v and cjson.decode(v)['segment'] > ARGV[1] then skipped = skipped + 1 "
+                    + "else redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1]) end "
+                    + "end "
+                    + "return skipped", Long.class);
+
+    private static final RedisScript<Long> RELOCATE = new DefaultRedisScript<>(
+            "if redis.call('HGET', KEYS[1], ARGV[1]) == ARGV[2] then "
+                    + "redis.call('HSET', KEYS[1], ARGV[1], ARGV[3]) redis.call('SADD', KEYS[2], ARGV[1]) return 1 end "
+                    + "return 0", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final String prefix;
+
+    private final String objectsKey;
+
+    private final String segmentsKey;
+
+    public RedisPackIndex(StringRedisTemplate redisTemplate, String prefix) {
+        this.redisTemplate = redisTemplate;
+        this.prefix = prefix;
+        this.objectsKey = prefix + "objects";
+        this.segmentsKey = prefix + "segments";
+    }
+
+    @Override
+    public boolean add(PackSegment segment, List<PackedObject> objects) {
+        redisTemplate.opsForHash().put(segmentsKey, segment.getName(), String.valueOf(segment.getSize()));
+        if (objects.isEmpty()) {
+            return true;
+        }
+
+        String[] names = new String[objects.size()];
+        Object[] args = new Object[objects.size() * 2 + 1];
+        args[0] = segment.getName();
+        for (int i = 0; i < names.length; i++) {
+            PackedObject object = objects.get(i);
+            names[i] = object.getName();
+            args[i * 2 + 1] = object.getName();
+            args[i * 2 + 2] = JSON.toJSONString(object);
+        }
+        // 先登记名称再写入位置，压缩时不会漏掉文件
+        redisTemplate.opsForSet().add(membersKey(segment.getName()), names);
+        Long skipped = redisTemplate.execute(ADD, Collections.singletonList(objectsKey), args);
+        return skipped == null || skipped == 0;
+    }
+
+    @Override
+    public PackedObject get(String name) {
+        Object json = redisTemplate.opsForHash().get(objectsKey, name);
+        return json == null ? null : JSON.parseObject(json.toString(), PackedObject.class);
+    }
+
+    @Override
+    public PackedObject remove(String name) {
+        String json = redisTemplate.execute(REMOVE, Collections.singletonList(objectsKey), name);
+        return json == null ? null : JSON.parseObject(json, PackedObject.class);
+    }
+
+    @Override
+    public boolean relocate(PackedObject from, PackedObject to) {
+        Long relocated = redisTemplate.execute(RELOCATE, Arrays.asList(objectsKey, membersKey(to.getSegment())),
+                from.getName(), JSON.toJSONString(from), JSON.toJSONString(to));
+        return relocated != null && relocated == 1;
+    }
+
+    @Override
+    public List<PackedObject> objects(String segment) {
+        Set<String> members = redisTemplate.opsForSet().members(membersKey(segment));
+        if (members == null || members.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Object> names = new ArrayList<>(members);
+        List<Object> values = redisTemplate.opsForHash().multiGet(objectsKey, names);
+        List<PackedObject> live = new ArrayList<>(values.size());
+        for (Object json : values) {
+            if (json == null) {
+                continue;
+            }
+            PackedObject object = JSON.parseObject(json.toString(), PackedObject.class);
+            if (object.getSegment().equals(segment)) {
+                live.add(object);
+            }
+        }
+
+        return live;
+    }
+
+    @Override
+    public List<PackSegment> segments() {
+        Map<Object, Object> entries = redisTemplate.opsForHash().entries(segmentsKey);
+        List<PackSegment> segments = new ArrayList<>(entries.size());
+        for (Map.Entry<Object, Object> entry : entries.entrySet()) {
+            segments.add(new PackSegment(entry.getKey().toString(), Long.parseLong(entry.getValue().toString())));
+        }
+
+        return segments;
+    }
+
+    @Override
+    public void removeSegment(String segment) {
+        redisTemplate.opsForHash().delete(segmentsKey, segment);
+        redisTemplate.delete(membersKey(segment));
+    }
+
+    @Override
+    public boolean isEmpty() {
+        Long size = redisTemplate.opsForHash().size(segmentsKey);
+        return size == null || size == 0;
+    }
+
+    private String membersKey(String segment) {
+        return prefix + "segment:" + segment;
+    }
+}
@@ -0,0 +1,606 @@
+package com.minio.pack;
+
+import cn.hutool.core.io.IoUtil;
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import com.alibaba.fastjson.JSON;
+import com.minio.properties.MinioProperties;
+import com.minio.utils.CustomMinioClient;
+import io.minio.GetObjectArgs;
+import io.minio.ListObjectsArgs;
+import io.minio.PutObjectArgs;
+import io.minio.RemoveObjectArgs;
+import io.minio.Result;
+import io.minio.messages.Item;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 小文件打包
+ *
+ * 小文件先追加到内存中的段，段写满segmentSize或等待flushInterval后作为一个对象上传，同时上传记录段内文件位置的索引文件，
+ * 之后按范围读取。同一时段写入的文件共用一次上传，写入返回的future在所在的段上传完成后完成。
+ * 删除只修改索引，定时压缩把有效内容不足compactThreshold的段中仍有效的文件搬到新的段，
+ * 搬空的段在下一次压缩时删除，给读取旧位置的请求留出时间。
+ *
+ * 打包索引为空时按段的创建顺序读取索引文件重建，后写入的位置覆盖先写入的。每个索引文件只列出段中仍有效的文件：
+ * 文件被覆盖、搬走或删除后重写原来所在段的索引文件，重写失败的段在下一次删除或压缩前重试，
+ * 删除在所有待重写的索引文件写入后才返回，重建时已删除或被覆盖的文件不会恢复
+ */
+@Slf4j
+public class SmallObjectPacker {
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private static final String INDEX_SUFFIX = ".idx";
+
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd").withZone(ZoneOffset.UTC);
+
+    private final CustomMinioClient customMinioClient;
+
+    private final PackIndex index;
+
+    private final String bucket;
+
+    private final String prefix;
+
+    private final int maxObjectSize;
+
+    private final int segmentSize;
+
+    private final long flushInterval;
+
+    private final double compactThreshold;
+
+    /** 区分不同实例写入的段文件 */
+    private final String instanceId = String.format("%08x", ThreadLocalRandom.current().nextInt());
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final ScheduledExecutorService scheduler;
+
+    private volatile CompletableFuture<Void> loaded;
+
+    /** 正在写入的段，为空时由下一次写入创建 */
+    private Segment current;
+
+    /** 已封闭、正在上传的段 */
+    private final List<Segment> flushing = new CopyOnWriteArrayList<>();
+
+    /** 同一段文件的索引文件串行重写 */
+    private final ConcurrentHashMap<String, Object> indexFileLocks = new ConcurrentHashMap<>();
+
+    /** 需要重写但上次重写失败的索引文件对应的段 */
+    private final Set<String> staleIndexFiles = ConcurrentHashMap.newKeySet();
+
+    private final Object compactLock = new Object();
+
+    /** 上一次压缩时已经没有有效文件的段 */
+    private Set<String> emptySegments = new HashSet<>();
+
+    /**
+     * @param bucket 段文件所在的存储桶
+     */
+    public SmallObjectPacker(CustomMinioClient customMinioClient, PackIndex index, String bucket, MinioProperties.Pack pack) {
+        long maxObjectSize = pack.getMaxObjectSize().toBytes();
+        long segmentSize = pack.getSegmentSize().toBytes();
+        if (maxObjectSize < 1 || segmentSize < maxObjectSize || segmentSize > Integer.MAX_VALUE / 2) {
+            throw new IllegalArgumentException("maxObjectSize必须大于0且不超过segmentSize，segmentSize不能超过1GB");
+        }
+        if (pack.getFlushInterval().toMillis() < 1) {
+            throw new IllegalArgumentException("flushInterval必须大于0");
+        }
+        if (pack.getCompactThreshold() < 0 || pack.getCompactThreshold() >= 1) {
+            throw new IllegalArgumentException("compactThreshold必须在0到1之间");
+        }
+
+        this.customMinioClient = customMinioClient;
+        this.index = index;
+        this.bucket = bucket;
+        this.prefix = pack.getPrefix();
+        this.maxObjectSize = (int) maxObjectSize;
+        this.segmentSize = (int) segmentSize;
+        this.flushInterval = pack.getFlushInterval().toMillis();
+        this.compactThreshold = pack.getCompactThreshold();
+
+        this.scheduler = Executors.newScheduledThreadPool(2,
+                ThreadFactoryBuilder.create().setNamePrefix("minio-pack-").setDaemon(true).build());
+        this.loaded = CompletableFuture.runAsync(this::load, scheduler);
+        long compactInterval = pack.getCompactInterval().toMillis();
+        if (compactInterval > 0) {
+            scheduler.scheduleWithFixedDelay(() -> {
+                try {
+                    compact();
+                } catch (Exception e) {
+                    log.warn("小文件段压缩失败", e);
+                }
+            }, compactInterval, compactInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public String getBucket() {
+        return bucket;
+    }
+
+    public int getMaxObjectSize() {
+        return maxObjectSize;
+    }
+
+    /**
+     * 写入一个小文件，所在的段上传完成后返回的future完成
+     *
+     * @param length 小于maxObjectSize
+     */
+    public CompletableFuture<PackedObject> write(String name, byte[] data, int length) {
+        if (length >= maxObjectSize) {
+            throw new IllegalArgumentException("打包的文件必须小于" + maxObjectSize + "字节");
+        }
+        awaitLoaded();
+
+        Segment segment;
+        PackedObject object;
+        synchronized (this) {
+            if (current == null) {
+                Segment created = new Segment(newSegmentName(), segmentSize + maxObjectSize);
+                current = created;
+                scheduler.schedule(() -> seal(created), flushInterval, TimeUnit.MILLISECONDS);
+            }
+            segment = current;
+            object = segment.append(name, data, length);
+            if (segment.position >= segmentSize) {
+                seal(segment);
+            }
+        }
+
+        return segment.flushed.thenApply(v -> object);
+    }
+
+    /**
+     * 还未上传完成的文件内容
+     *
+     * @return 文件不在缓冲区中时返回null
+     */
+    public byte[] pending(String name) {
+        synchronized (this) {
+            byte[] data = current == null ? null : current.read(name);
+            if (data != null) {
+                return data;
+            }
+        }
+
+        // 后封闭的段中的内容更新
+        Segment[] segments = flushing.toArray(new Segment[0]);
+        for (int i = segments.length - 1; i >= 0; i--) {
+            byte[] data = segments[i].read(name);
+            if (data != null) {
+                return data;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * 查询已上传的文件位置，还在缓冲区中的文件等所在的段上传完成
+     *
+     * @return 文件未打包或已删除时返回null
+     */
+    public PackedObject locate(String name) {
+        awaitLoaded();
+        awaitFlush(name);
+        return index.get(name);
+    }
+
+    /**
+     * 删除文件，还在缓冲区中的文件等所在的段上传完成后删除
+     *
+     * @return 被删除的文件，未打包时返回null
+     */
+    @SneakyThrows
+    public PackedObject remove(String name) {
+        awaitLoaded();
+        awaitFlush(name);
+
+        PackedObject removed = index.remove(name);
+        // 之前重写失败的索引文件里可能还有该文件的旧位置
+        rewriteStaleIndexFiles();
+        if (removed != null) {
+            // 不经过待重写集合，上传线程正在重写同一个段时也等本次删除写入后再返回
+            try {
+                writeIndexFile(removed.getSegment());
+            } catch (Exception e) {
+                staleIndexFiles.add(removed.getSegment());
+                throw e;
+            }
+        }
+
+        return removed;
+    }
+
+    /**
+     * 压缩有效内容不足的段，删除上一次压缩时已经为空的段
+     */
+    public void compact() throws Exception {
+        awaitLoaded();
+        rewriteStaleIndexFiles();
+        synchronized (compactLock) {
+            Set<String> empty = new HashSet<>();
+            for (PackSegment segment : index.segments()) {
+                List<PackedObject> live = index.objects(segment.getName());
+                if (live.isEmpty()) {
+                    if (emptySegments.contains(segment.getName())) {
+                        deleteSegment(segment.getName());
+                    } else {
+                        empty.add(segment.getName());
+                    }
+                    continue;
+                }
+
+                long liveBytes = 0;
+                for (PackedObject object : live) {
+                    liveBytes += object.getLength();
+                }
+                if (liveBytes < segment.getSize() * compactThreshold) {
+                    relocate(segment.getName(), live);
+                    empty.add(segment.getName());
+                }
+            }
+            emptySegments = empty;
+        }
+    }
+
+    /**
+     * 上传缓冲区中的文件后关闭
+     */
+    public void shutdown() {
+        Segment segment;
+        synchronized (this) {
+            segment = current;
+        }
+        if (segment != null) {
+            seal(segment);
+        }
+
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("小文件段上传超时，缓冲区中的文件未写入");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 封闭段并提交上传，已封闭的段不重复提交
+     */
+    private synchronized void seal(Segment segment) {
+        if (current != segment) {
+            return;
+        }
+
+        current = null;
+        flushing.add(segment);
+        scheduler.execute(() -> flush(segment));
+    }
+
+    private void flush(Segment segment) {
+        try {
+            List<PackedObject> objects = new ArrayList<>(segment.objects.values());
+            put(segment.name, segment.data, segment.position);
+            byte[] json = JSON.toJSONBytes(objects);
+            put(indexFileName(segment.name), json, json.length);
+
+            Set<String> superseded = new HashSet<>();
+            for (PackedObject object : objects) {
+                PackedObject previous = index.get(object.getName());
+                if (previous != null) {
+                    superseded.add(previous.getSegment());
+                }
+            }
+            if (!index.add(new PackSegment(segment.name, segment.position), objects)) {
+                // 更新的段先上传完成，本段索引文件中的同名文件不能在重建时覆盖新内容
+                staleIndexFiles.add(segment.name);
+            }
+
+            // 新段已登记，旧段的索引文件重写失败只需之后重试，不影响本次写入；
+            // 重写完成后才通知写入方，之后的删除不会被旧段的重写覆盖
+            staleIndexFiles.addAll(superseded);
+            try {
+                rewriteStaleIndexFiles();
+            } catch (Exception e) {
+                log.warn("小文件段的索引文件重写失败，稍后重试", e);
+            }
+            segment.flushed.complete(null);
+        } catch (Throwable e) {
+            log.warn("小文件段{}上传失败", segment.name, e);
+            segment.flushed.completeExceptionally(e);
+        } finally {
+            flushing.remove(segment);
+        }
+    }
+
+    /**
+     * 文件还在缓冲区中时等待所在的段上传，上传失败时文件不在索引中
+     */
+    private void awaitFlush(String name) {
+        CompletableFuture<Void> pending = pendingFlush(name);
+        if (pending == null) {
+            return;
+        }
+
+        try {
+            pending.join();
+        } catch (CompletionException ignored) {
+            // 由写入方处理
+        }
+    }
+
+    /**
+     * 等待当前已存在的段上传，它们的名称都小于之后创建的段，登记后才能和新段按名称比较
+     */
+    private void awaitEarlierSegments() {
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        synchronized (this) {
+            if (current != null) {
+                pending.add(current.flushed);
+                seal(current);
+            }
+        }
+        for (Segment segment : flushing) {
+            pending.add(segment.flushed);
+        }
+
+        for (CompletableFuture<Void> flushed : pending) {
+            try {
+                flushed.join();
+            } catch (CompletionException ignored) {
+                // 上传失败的段中的文件不在索引中
+            }
+        }
+    }
+
+    private CompletableFuture<Void> pendingFlush(String name) {
+        synchronized (this) {
+            if (current != null && current.objects.containsKey(name)) {
+                return current.flushed;
+            }
+        }
+
+        Segment[] segments = flushing.toArray(new Segment[0]);
+        for (int i = segments.length - 1; i >= 0; i--) {
+            if (segments[i].objects.containsKey(name)) {
+                return segments[i].flushed;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * 把仍有效的文件搬到新的段，搬运期间被删除或覆盖的文件保持不变
+     */
+    private void relocate(String segment, List<PackedObject> live) throws Exception {
+        byte[] source;
+        try (InputStream stream = customMinioClient.getObject(GetObjectArgs.builder().bucket(bucket).object(segment).build())) {
+            source = IoUtil.readBytes(stream, false);
+        }
+
+        live.sort(Comparator.comparingLong(PackedObject::getOffset));
+        long total = 0;
+        for (PackedObject object : live) {
+            total += object.getLength();
+        }
+
+        String target = newSegmentName();
+        byte[] data = new byte[(int) total];
+        List<PackedObject> moved = new ArrayList<>(live.size());
+        int position = 0;
+        for (PackedObject object : live) {
+            System.arraycopy(source, (int) object.getOffset(), data, position, (int) object.getLength());
+            moved.add(new PackedObject(object.getName(), target, position, object.getLength()));
+            position += (int) object.getLength();
+        }
+
+        put(target, data, position);
+        byte[] json = JSON.toJSONBytes(moved);
+        put(indexFileName(target), json, json.length);
+        index.add(new PackSegment(target, position), Collections.emptyList());
+        awaitEarlierSegments();
+
+        boolean changed = false;
+        for (int i = 0; i < live.size(); i++) {
+            if (!index.relocate(live.get(i), moved.get(i))) {
+                changed = true;
+            }
+        }
+        // 新段的索引文件不能让搬运期间被删除或覆盖的文件在重建时复活
+        if (changed) {
+            staleIndexFiles.add(target);
+        }
+        // 原来的段在下一次压缩时才删除，搬走的文件要先从它的索引文件中去掉
+        staleIndexFiles.add(segment);
+        rewriteStaleIndexFiles();
+    }
+
+    private void deleteSegment(String segment) throws Exception {
+        customMinioClient.removeObject(RemoveObjectArgs.builder().bucket(bucket).object(segment).build());
+        customMinioClient.removeObject(RemoveObjectArgs.builder().bucket(bucket).object(indexFileName(segment)).build());
+        index.removeSegment(segment);
+        indexFileLocks.remove(segment);
+        staleIndexFiles.remove(segment);
+    }
+
+    /**
+     * 重写所有待重写的索引文件，失败的段留待下次重试
+     */
+    private void rewriteStaleIndexFiles() throws Exception {
+        for (String segment : staleIndexFiles.toArray(new String[0])) {
+            // 先移出再重写，重写期间再次标记的段不会被漏掉
+            staleIndexFiles.remove(segment);
+            try {
+                writeIndexFile(segment);
+            } catch (Exception e) {
+                staleIndexFiles.add(segment);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 按索引中仍有效的文件重写段的索引文件
+     */
+    private void writeIndexFile(String segment) throws Exception {
+        synchronized (indexFileLocks.computeIfAbsent(segment, name -> new Object())) {
+            byte[] json = JSON.toJSONBytes(index.objects(segment));
+            put(indexFileName(segment), json, json.length);
+        }
+    }
+
+    /**
+     * 索引为空时按段文件的创建顺序读取索引文件，段文件名以创建时间开头，后写入的位置覆盖先写入的
+     */
+    @SneakyThrows
+    private void load() {
+        if (!index.isEmpty()) {
+            return;
+        }
+
+        List<String> indexFiles = new ArrayList<>();
+        for (Result<Item> result : customMinioClient.listObjects(ListObjectsArgs.builder().bucket(bucket).prefix(prefix).recursive(true).build())) {
+            String name = result.get().objectName();
+            if (name.endsWith(INDEX_SUFFIX)) {
+                indexFiles.add(name);
+            }
+        }
+        Collections.sort(indexFiles);
+
+        for (String indexFile : indexFiles) {
+            List<PackedObject> objects;
+            try (InputStream stream = customMinioClient.getObject(GetObjectArgs.builder().bucket(bucket).object(indexFile).build())) {
+                objects = JSON.parseArray(new String(IoUtil.readBytes(stream, false), StandardCharsets.UTF_8), PackedObject.class);
+            }
+            // 末尾的文件被删除时大小会偏小，只影响压缩的时机
+            long size = 0;
+            for (PackedObject object : objects) {
+                size = Math.max(size, object.getOffset() + object.getLength());
+            }
+            index.add(new PackSegment(segmentName(indexFile), size), objects);
+        }
+        if (!indexFiles.isEmpty()) {
+            log.info("从{}个索引文件重建小文件打包索引", indexFiles.size());
+        }
+    }
+
+    /**
+     * 等待索引重建完成，重建失败时重新发起
+     */
+    private void awaitLoaded() {
+        CompletableFuture<Void> future = loaded;
+        if (future.isCompletedExceptionally()) {
+            synchronized (this) {
+                if (loaded == future) {
+                    loaded = CompletableFuture.runAsync(this::load, scheduler);
+                }
+                future = loaded;
+            }
+        }
+
+        future.join();
+    }
+
+    private void put(String objectName, byte[] data, int length) throws Exception {
+        customMinioClient.putObject(PutObjectArgs.builder().bucket(bucket).object(objectName)
+                .stream(new ByteArrayInputStream(data, 0, length), length, -1)
+                .contentType("application/octet-stream")
+                .build());
+    }
+
+    /**
+     * 段文件名按创建时间排序：{prefix}{日期}/{毫秒时间戳}-{实例}-{序号}.seg
+     */
+    private String newSegmentName() {
+        long now = System.currentTimeMillis();
+        return prefix + DAY_FORMAT.format(Instant.ofEpochMilli(now)) + "/" + String.format("%013d-%s-%010d", now, instanceId, sequence.incrementAndGet())
+                + SEGMENT_SUFFIX;
+    }
+
+    private static String indexFileName(String segment) {
+        return segment.substring(0, segment.length() - SEGMENT_SUFFIX.length()) + INDEX_SUFFIX;
+    }
+
+    private static String segmentName(String indexFile) {
+        return indexFile.substring(0, indexFile.length() - INDEX_SUFFIX.length()) + SEGMENT_SUFFIX;
+    }
+
+    /**
+     * 内存中的段，缓冲区按需倍增，封闭后不再修改
+     */
+    private static class Segment {
+
+        private static final int INITIAL_CAPACITY = 64 * 1024;
+
+        private final String name;
+
+        private final int capacity;
+
+        private byte[] data;
+
+        private int position;
+
+        /** 同名文件只保留最后一次写入 */
+        private final Map<String, PackedObject> objects = new LinkedHashMap<>();
+
+        private final CompletableFuture<Void> flushed = new CompletableFuture<>();
+
+        private Segment(String name, int capacity) {
+            this.name = name;
+            this.capacity = capacity;
+            this.data = new byte[Math.min(INITIAL_CAPACITY, capacity)];
+        }
+
+        private PackedObject append(String objectName, byte[] bytes, int length) {
+            if (position + length > data.length) {
+                data = Arrays.copyOf(data, Math.min(capacity, Math.max(data.length * 2, position + length)));
+            }
+            System.arraycopy(bytes, 0, data, position, length);
+            PackedObject object = new PackedObject(objectName, name, position, length);
+            objects.put(objectName, object);
+            position += length;
+            return object;
+        }
+
+        private byte[] read(String objectName) {
+            PackedObject object = objects.get(objectName);
+            if (object == null) {
+                return null;
+            }
+
+            return Arrays.copyOfRange(data, (int) object.getOffset(), (int) (object.getOffset() + object.getLength()));
+        }
+    }
+}
@@ -1,10 +1,18 @@
 package com.minio.properties;
 
 import com.minio.constant.PropertyConstant;
+import com.minio.utils.ChecksumAlgorithm;
 import lombok.Data;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @Data
 @Component
@@ -18,4 +26,630 @@ public class MinioProperties {
     private String secretKey;
 
     private String bucket = PropertyConstant.bucket;
+
+    /**
+     * 区域，为空时按minio服务端默认的us-east-1处理
+     */
+    private String region;
+
+    /**
+     * 启动时的存储桶检查配置
+     */
+    private Bootstrap bootstrap = new Bootstrap();
+
+    /**
+     * http连接配置
+     */
+    private Http http = new Http();
+
+    /**
+     * 多节点负载均衡配置
+     */
+    private Cluster cluster = new Cluster();
+
+    /**
+     * 预签名配置
+     */
+    private Presign presign = new Presign();
+
+    /**
+     * 服务端分片上传配置
+     */
+    private Upload upload = new Upload();
+
+    /**
+     * 并行分段下载配置
+     */
+    private Download download = new Download();
+
+    /**
+     * 分片合并配置
+     */
+    private Merge merge = new Merge();
+
+    /**
+     * 分片上传会话配置
+     */
+    private Session session = new Session();
+
+    /**
+     * 文件元数据缓存配置
+     */
+    private StatCache statCache = new StatCache();
+
+    /**
+     * 文件内容本地磁盘缓存配置
+     */
+    private ObjectCache objectCache = new ObjectCache();
+
+    /**
+     * 批量删除配置
+     */
+    private Delete delete = new Delete();
+
+    /**
+     * 服务端复制配置
+     */
+    private Copy copy = new Copy();
+
+    /**
+     * 小文件打包配置
+     */
+    private Pack pack = new Pack();
+
+    /**
+     * 上传和下载时的流式压缩
+     */
+    private Compression compression = new Compression();
+
+    /**
+     * 对象列举配置
+     */
+    private Listing listing = new Listing();
+
+    /**
+     * 指标配置
+     */
+    private Metrics metrics = new Metrics();
+
+    /**
+     * 批量操作配置
+     */
+    private Bulk bulk = new Bulk();
+
+    /**
+     * 幂等请求的重试配置
+     */
+    private Retry retry = new Retry();
+
+    /**
+     * GET和HEAD的对冲请求配置
+     */
+    private Hedge hedge = new Hedge();
+
+    /**
+     * 端点熔断配置
+     */
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    @Data
+    public static class Bootstrap {
+
+        /**
+         * 检查存储桶的时机：async在后台检查，不阻塞启动；sync启动时等待检查完成；lazy第一次写入时检查；none不检查。
+         * 除none外，写入这些存储桶前都会等待检查完成
+         */
+        private String mode = "async";
+
+        /**
+         * 除默认存储桶外需要确保存在的存储桶，多个存储桶并行检查
+         */
+        private List<String> buckets = new ArrayList<>();
+    }
+
+    @Data
+    public static class Http {
+
+        /**
+         * 连接池保留的最大空闲连接数
+         */
+        private int maxIdleConnections = 64;
+
+        /**
+         * 空闲连接的保活时间
+         */
+        private Duration keepAlive = Duration.ofMinutes(5);
+
+        /**
+         * OkHttp调度器的异步请求最大并发数。SDK的请求都是同步调用，不受此限制，并发由各线程池的大小决定；
+         * 这里只限制连接预热等异步请求
+         */
+        private int maxRequests = 256;
+
+        /**
+         * OkHttp调度器对同一主机异步请求的最大并发数，同样不限制SDK的同步请求；
+         * 同时作为ReactiveMinioTemplate连接池的最大连接数
+         */
+        private int maxRequestsPerHost = 128;
+
+        /**
+         * 连接超时
+         */
+        private Duration connectTimeout = Duration.ofSeconds(10);
+
+        /**
+         * 读超时，两次读到数据之间的最长间隔
+         */
+        private Duration readTimeout = Duration.ofMinutes(5);
+
+        /**
+         * 写超时，两次写出数据之间的最长间隔
+         */
+        private Duration writeTimeout = Duration.ofMinutes(5);
+
+        /**
+         * 整个请求的超时，为0时不限制
+         */
+        private Duration callTimeout = Duration.ZERO;
+
+        /**
+         * 连接失败时是否自动重试
+         */
+        private boolean retryOnConnectionFailure = true;
+
+        /**
+         * 是否启用HTTP/2，需要服务端支持
+         */
+        private boolean http2 = false;
+
+        /**
+         * socket发送缓冲区大小，为空时使用系统默认值
+         */
+        private DataSize sendBufferSize;
+
+        /**
+         * socket接收缓冲区大小，为空时使用系统默认值
+         */
+        private DataSize receiveBufferSize;
+
+        /**
+         * 启动时预先建立的连接数，为0时不预热
+         */
+        private int prewarmConnections = 0;
+    }
+
+    @Data
+    public static class Cluster {
+
+        /**
+         * 各节点地址，配置后发往endpoint的请求在这些节点间负载均衡；endpoint仍用于签名和生成预签名地址
+         */
+        private List<String> endpoints = new ArrayList<>();
+
+        /**
+         * 负载均衡方式：p2c（随机取两个节点选在途请求较少的）、least-outstanding（在途请求最少的节点）
+         */
+        private String balancer = "p2c";
+
+        /**
+         * 健康检查地址
+         */
+        private String healthCheckPath = "/minio/health/live";
+
+        /**
+         * 健康检查间隔，检查失败的节点移出轮转，直到再次检查成功
+         */
+        private Duration healthCheckInterval = Duration.ofSeconds(5);
+
+        /**
+         * 健康检查超时
+         */
+        private Duration healthCheckTimeout = Duration.ofSeconds(2);
+    }
+
+    @Data
+    public static class Presign {
+
+        /**
+         * 分片数量达到该值时并行生成分片上传地址
+         */
+        private int parallelThreshold = 2000;
+
+        /**
+         * 预览地址有效期，最长7天
+         */
+        private Duration previewExpiry = Duration.ofDays(7);
+
+        /**
+         * 缓存的预览地址剩余有效期不足该值时重新签名
+         */
+        private Duration refreshBefore = Duration.ofDays(1);
+
+        /**
+         * 预览地址缓存容量，为0时不缓存
+         */
+        private int cacheSize = 10000;
+
+        /**
+         * 生成预览地址前是否先检查文件是否存在
+         */
+        private boolean checkExists = true;
+    }
+
+    @Data
+    public static class Upload {
+
+        /**
+         * 分片大小，不小于5MB，小于该值的文件直接单次上传
+         */
+        private DataSize partSize = DataSize.ofMegabytes(16);
+
+        /**
+         * 单个文件同时上传的分片数
+         */
+        private int concurrency = 4;
+
+        /**
+         * 所有上传共享的分片缓冲区个数，决定分片上传占用的最大内存（bufferCount * partSize）
+         */
+        private int bufferCount = 8;
+
+        /**
+         * 上传时计算的校验和算法，随请求头发送由服务端校验，为空时不计算；大文件建议使用CRC32C
+         */
+        private ChecksumAlgorithm checksum;
+    }
+
+    @Data
+    public static class Download {
+
+        /**
+         * 每个分段的大小
+         */
+        private DataSize rangeSize = DataSize.ofMegabytes(8);
+
+        /**
+         * 单个文件同时下载的分段数，输出到流时也是乱序缓冲的分段上限
+         */
+        private int concurrency = 4;
+
+        /**
+         * 分段失败后的重试次数
+         */
+        private int maxRetries = 3;
+
+        /**
+         * 下载线程数，所有下载共享
+         */
+        private int threads = 16;
+    }
+
+    @Data
+    public static class Merge {
+
+        /**
+         * 每次查询的分片数，S3协议单页最多1000
+         */
+        private int pageSize = 1000;
+
+        /**
+         * 异步合并的线程数
+         */
+        private int concurrency = 8;
+
+        /**
+         * 异步合并的排队上限，队列满时由调用线程执行
+         */
+        private int queueCapacity = 1000;
+    }
+
+    @Data
+    public static class Session {
+
+        /**
+         * 是否记录分片上传会话，开启后支持断点续传
+         */
+        private boolean enabled = false;
+
+        /**
+         * 会话存储方式：memory、redis
+         */
+        private String store = "memory";
+
+        /**
+         * 会话有效期，过期未合并的分片上传会被取消
+         */
+        private Duration ttl = Duration.ofDays(1);
+
+        /**
+         * 清理过期会话的间隔
+         */
+        private Duration sweepInterval = Duration.ofMinutes(10);
+
+        /**
+         * redis键前缀
+         */
+        private String keyPrefix = "minio:upload:";
+    }
+
+    @Data
+    public static class StatCache {
+
+        /**
+         * 缓存的文件数，为0时不缓存。多实例部署时其他实例的写入只能等缓存过期后才可见
+         */
+        private int size = 0;
+
+        /**
+         * 文件存在时的缓存时间
+         */
+        private Duration ttl = Duration.ofSeconds(30);
+
+        /**
+         * 文件不存在时的缓存时间，为0时不缓存
+         */
+        private Duration negativeTtl = Duration.ofSeconds(5);
+    }
+
+    @Data
+    public static class ObjectCache {
+
+        /**
+         * 缓存占用的最大磁盘空间，为0时不缓存
+         */
+        private DataSize maxSize = DataSize.ofBytes(0);
+
+        /**
+         * 单个文件的最大缓存大小，更大的文件直接读取minio
+         */
+        private DataSize maxObjectSize = DataSize.ofMegabytes(16);
+
+        /**
+         * 缓存目录，为空时使用系统临时目录下的minio-cache；每个实例使用其中独立的子目录，可以多个实例共用
+         */
+        private String directory;
+
+        /**
+         * 缓存超过该时间后，读取前先用ETag向minio确认文件未修改，为0时每次都确认
+         */
+        private Duration revalidateAfter = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Delete {
+
+        /**
+         * 每次批量删除的对象数，S3协议单次最多1000
+         */
+        private int batchSize = 1000;
+
+        /**
+         * 同时执行的批量删除请求数
+         */
+        private int concurrency = 4;
+    }
+
+    @Data
+    public static class Copy {
+
+        /**
+         * 分片复制的分片大小，5MB到2.5GB，小于该值的对象用一次CopyObject复制
+         */
+        private DataSize partSize = DataSize.ofMegabytes(128);
+
+        /**
+         * 单个对象同时复制的分片数
+         */
+        private int concurrency = 8;
+
+        /**
+         * 分片复制的线程数，所有复制共享
+         */
+        private int threads = 16;
+
+        /**
+         * 复制前缀时同时复制的对象数
+         */
+        private int objectConcurrency = 16;
+    }
+
+    @Data
+    public static class Pack {
+
+        /**
+         * 是否把upload(String, InputStream)写入的小文件打包进段文件。getObject、范围读取、下载、stat、复制、删除和批量读取、删除透明处理；
+         * 打包的文件没有独立的对象，不能生成预览和预签名地址，不出现在列举结果中（因此也不参与copyPrefix和purgePrefix），不能作为合成的源文件
+         */
+        private boolean enabled = false;
+
+        /**
+         * 打包索引存储方式：memory、redis。memory只对当前实例可见，重启后从段文件的索引文件重建；redis需要StringRedisTemplate
+         */
+        private String store = "memory";
+
+        /**
+         * redis键前缀
+         */
+        private String keyPrefix = "minio:pack:";
+
+        /**
+         * 段文件在默认存储桶中的前缀
+         */
+        private String prefix = "pack/";
+
+        /**
+         * 小于该大小的文件打包写入
+         */
+        private DataSize maxObjectSize = DataSize.ofKilobytes(64);
+
+        /**
+         * 段写到该大小后上传
+         */
+        private DataSize segmentSize = DataSize.ofMegabytes(16);
+
+        /**
+         * 段未写满时最长等待时间，也是打包写入的最长延迟
+         */
+        private Duration flushInterval = Duration.ofMillis(200);
+
+        /**
+         * 压缩间隔，为0时不压缩；多实例共享redis索引时只在一个实例上开启
+         */
+        private Duration compactInterval = Duration.ofHours(1);
+
+        /**
+         * 有效内容低于段大小的该比例时压缩
+         */
+        private double compactThreshold = 0.5;
+    }
+
+    @Data
+    public static class Compression {
+
+        /**
+         * 是否在上传时按文件类型压缩，读取时按对象的元数据透明解压。预签名地址直接读取存储的内容，
+         * 因此返回预览地址的upload(MultipartFile)和uploadObject不压缩
+         */
+        private boolean enabled = false;
+
+        /**
+         * 压缩算法：gzip、zstd、lz4，zstd和lz4需要引入对应的依赖
+         */
+        private String codec = "gzip";
+
+        /**
+         * 压缩级别，小于0时使用算法的默认级别
+         */
+        private int level = -1;
+
+        /**
+         * 按content-type指定压缩算法，none表示不压缩，例如codecs[text/csv]=zstd；
+         * 未指定的类型由MimeTypeEnum判断是否值得压缩，值得压缩时使用codec
+         */
+        private Map<String, String> codecs = new HashMap<>();
+
+        /**
+         * 压缩格式：stream整体压缩，压缩率最高，范围读取需要从头解压；block按块压缩，范围读取只解压覆盖的块
+         */
+        private String framing = "stream";
+
+        /**
+         * block格式的块大小，1KB到64MB，越大压缩率越高，范围读取多读的数据也越多
+         */
+        private DataSize blockSize = DataSize.ofMegabytes(1);
+    }
+
+    @Data
+    public static class Listing {
+
+        /**
+         * 每页的对象数，S3协议单页最多1000
+         */
+        private int pageSize = 1000;
+
+        /**
+         * 并行列举时同时列举的前缀数，所有列举共享
+         */
+        private int concurrency = 8;
+
+        /**
+         * 并行列举时等待消费的对象数上限
+         */
+        private int queueCapacity = 10000;
+
+        /**
+         * 并行列举时调用方超过该时间未消费且队列已满，视为已放弃，停止列举并释放线程
+         */
+        private Duration idleTimeout = Duration.ofMinutes(1);
+    }
+
+    @Data
+    public static class Metrics {
+
+        /**
+         * 存在MeterRegistry时是否记录指标
+         */
+        private boolean enabled = true;
+
+        /**
+         * 是否发布耗时分布的直方图
+         */
+        private boolean histogram = true;
+    }
+
+    @Data
+    public static class Bulk {
+
+        /**
+         * 是否使用虚拟线程执行批量操作，JVM不支持时退回线程池
+         */
+        private boolean virtualThreads = false;
+
+        /**
+         * 同时执行的最大请求数
+         */
+        private int maxConcurrency = 256;
+
+        /**
+         * 不使用虚拟线程时线程池的线程数
+         */
+        private int threads = 32;
+    }
+
+    @Data
+    public static class Retry {
+
+        /**
+         * 最多尝试的次数，包括第一次请求，为1时不重试
+         */
+        private int maxAttempts = 3;
+
+        /**
+         * 第一次重试前的最长等待时间，之后每次翻倍，实际等待时间在0到该值之间随机
+         */
+        private Duration initialBackoff = Duration.ofMillis(100);
+
+        /**
+         * 重试前的最长等待时间
+         */
+        private Duration maxBackoff = Duration.ofSeconds(2);
+    }
+
+    @Data
+    public static class Hedge {
+
+        /**
+         * 是否开启对冲请求，开启后GET和HEAD在线程池中执行
+         */
+        private boolean enabled = false;
+
+        /**
+         * 超过近期耗时的该分位数仍未返回时发出对冲请求
+         */
+        private double percentile = 0.95;
+
+        /**
+         * 发出对冲请求前的最短等待时间，避免耗时普遍很短时频繁对冲
+         */
+        private Duration minDelay = Duration.ofMillis(20);
+
+        /**
+         * 对冲线程池的最大线程数，线程用完时请求在调用线程中执行，不再对冲
+         */
+        private int maxThreads = 64;
+    }
+
+    @Data
+    public static class CircuitBreaker {
+
+        /**
+         * 连续出现该次数的瞬时故障后熔断，为0时不熔断
+         */
+        private int failureThreshold = 10;
+
+        /**
+         * 熔断持续时间，之后放行一个探测请求
+         */
+        private Duration openDuration = Duration.ofSeconds(10);
+    }
 }
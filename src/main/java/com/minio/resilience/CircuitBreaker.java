@@ -0,0 +1,137 @@
+package com.minio.resilience;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 单个端点的熔断器
+ *
+ * 连续failureThreshold次瞬时故障后打开，打开期间的请求直接失败；openMillis之后进入半开状态，
+ * 只放行一个探测请求，成功则关闭，失败则重新打开。只有瞬时故障计入失败，文件不存在等业务错误说明端点正常
+ */
+public class CircuitBreaker {
+
+    public enum State {
+
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+
+    private final long openMillis;
+
+    private final AtomicInteger failures = new AtomicInteger();
+
+    /** 半开状态下是否已有探测请求在途 */
+    private final AtomicBoolean probing = new AtomicBoolean();
+
+    private volatile State state = State.CLOSED;
+
+    private volatile long openedAt;
+
+    private volatile StateListener listener;
+
+    /**
+     * @param failureThreshold 打开前连续失败的次数，为0时不熔断
+     * @param openMillis 打开后多久允许探测
+     */
+    public CircuitBreaker(int failureThreshold, long openMillis) {
+        if (failureThreshold < 0 || openMillis < 0) {
+            throw new IllegalArgumentException("failureThreshold和openDuration不能小于0");
+        }
+
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public void setListener(StateListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 请求前调用，返回false时请求应直接失败；返回true时请求结束后必须调用onSuccess、onFailure或release
+     */
+    public boolean tryAcquire() {
+        if (failureThreshold == 0) {
+            return true;
+        }
+
+        State current = state;
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.OPEN) {
+            if (System.currentTimeMillis() - openedAt < openMillis) {
+                return false;
+            }
+            transition(State.OPEN, State.HALF_OPEN);
+        }
+
+        return probing.compareAndSet(false, true);
+    }
+
+    public void onSuccess() {
+        if (failureThreshold == 0) {
+            return;
+        }
+
+        failures.set(0);
+        if (state == State.HALF_OPEN) {
+            transition(State.HALF_OPEN, State.CLOSED);
+            probing.set(false);
+        }
+    }
+
+    /**
+     * 请求没有得到结果就结束时调用（例如抛出Error），不改变状态，只释放探测名额
+     */
+    public void release() {
+        if (failureThreshold == 0) {
+            return;
+        }
+
+        probing.set(false);
+    }
+
+    public void onFailure() {
+        if (failureThreshold == 0) {
+            return;
+        }
+
+        if (state == State.HALF_OPEN) {
+            transition(State.HALF_OPEN, State.OPEN);
+            probing.set(false);
+        } else if (failures.incrementAndGet() >= failureThreshold) {
+            transition(State.CLOSED, State.OPEN);
+        }
+    }
+
+    private synchronized void transition(State from, State to) {
+        if (state != from) {
+            return;
+        }
+
+        if (to == State.OPEN) {
+            openedAt = System.currentTimeMillis();
+        }
+        state = to;
+        failures.set(0);
+        StateListener current = listener;
+        if (current != null) {
+            current.onStateChange(to);
+        }
+    }
+
+    /**
+     * 状态变化的回调，用于记录指标
+     */
+    @FunctionalInterface
+    public interface StateListener {
+
+        void onStateChange(State state);
+    }
+}
@@ -0,0 +1,15 @@
+package com.minio.resilience;
+
+import java.io.IOException;
+
+/**
+ * 端点熔断期间请求直接失败时抛出，不会被重试
+ */
+public class CircuitBreakerOpenException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public CircuitBreakerOpenException(String endpoint) {
+        super("minio端点" + endpoint + "已熔断，请稍后重试");
+    }
+}
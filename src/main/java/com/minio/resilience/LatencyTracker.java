@@ -0,0 +1,64 @@
+package com.minio.resilience;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 最近一段请求耗时的分位数
+ *
+ * 耗时写入固定大小的环形数组，每记录RECOMPUTE_INTERVAL次重新排序计算一次分位数，
+ * 读取时只返回上次的结果，不在请求路径上排序
+ */
+class LatencyTracker {
+
+    /** 参与计算的最近样本数 */
+    private static final int WINDOW = 1024;
+
+    /** 样本不足时不返回分位数 */
+    private static final int MIN_SAMPLES = 100;
+
+    private static final int RECOMPUTE_INTERVAL = 64;
+
+    private final AtomicLongArray samples = new AtomicLongArray(WINDOW);
+
+    private final AtomicInteger count = new AtomicInteger();
+
+    private final double percentile;
+
+    private volatile long threshold = -1;
+
+    /**
+     * @param percentile 分位数，0到1之间
+     */
+    LatencyTracker(double percentile) {
+        this.percentile = percentile;
+    }
+
+    void record(long nanos) {
+        int index = count.getAndIncrement();
+        samples.set(index & (WINDOW - 1), nanos);
+        // 计数溢出为负数后窗口早已写满
+        if ((index & (RECOMPUTE_INTERVAL - 1)) == 0 && (index < 0 || index >= MIN_SAMPLES)) {
+            recompute(index < 0 ? WINDOW : Math.min(index + 1, WINDOW));
+        }
+    }
+
+    /**
+     * @return 最近的分位数耗时（毫秒），样本不足时返回-1
+     */
+    long threshold() {
+        return threshold;
+    }
+
+    private void recompute(int size) {
+        long[] sorted = new long[size];
+        for (int i = 0; i < size; i++) {
+            sorted[i] = samples.get(i);
+        }
+        Arrays.sort(sorted);
+
+        threshold = TimeUnit.NANOSECONDS.toMillis(sorted[(int) Math.min(size - 1, (long) (size * percentile))]);
+    }
+}
@@ -0,0 +1,348 @@
+package com.minio.resilience;
+
+import cn.hutool.core.thread.ExecutorBuilder;
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import com.minio.metrics.MinioMetrics;
+import com.minio.metrics.Operation;
+import com.minio.properties.MinioProperties;
+import io.minio.errors.ErrorResponseException;
+import io.minio.errors.ServerException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 对minio请求的重试、对冲和熔断
+ *
+ * 幂等请求遇到瞬时故障（网络异常、5xx、SlowDown等）时按带抖动的指数退避重试；
+ * 开启对冲时，GET和HEAD在超过近期耗时分位数仍未返回时再发出一个相同的请求，取先成功的结果，另一个结果被丢弃，
+ * 对冲线程池有上限，用完时请求在调用线程中执行或不再发出对冲请求；
+ * 端点连续出现瞬时故障时熔断，熔断期间请求直接失败，不再占用连接和线程
+ */
+public class MinioResilience {
+
+    /** 视为瞬时故障的错误码 */
+    private static final Set<String> TRANSIENT_CODES = new HashSet<>(Arrays.asList(
+            "InternalError", "ServiceUnavailable", "SlowDown", "RequestTimeout", "XMinioServerNotInitialized"));
+
+    private final String endpoint;
+
+    private final int maxAttempts;
+
+    private final long initialBackoffMillis;
+
+    private final long maxBackoffMillis;
+
+    private final boolean hedge;
+
+    private final long hedgeMinDelayMillis;
+
+    /** 按操作序号索引的耗时分位数，未开启对冲时为空 */
+    private final LatencyTracker[] latencies;
+
+    private final ExecutorService hedgeExecutor;
+
+    private final CircuitBreaker circuitBreaker;
+
+    private volatile MinioMetrics metrics = MinioMetrics.NOOP;
+
+    public MinioResilience(String endpoint, MinioProperties.Retry retry, MinioProperties.Hedge hedge, MinioProperties.CircuitBreaker circuitBreaker) {
+        if (retry.getMaxAttempts() < 1) {
+            throw new IllegalArgumentException("maxAttempts必须大于0");
+        }
+        if (hedge.getPercentile() <= 0 || hedge.getPercentile() >= 1) {
+            throw new IllegalArgumentException("percentile必须在0到1之间");
+        }
+        if (hedge.isEnabled() && hedge.getMaxThreads() < 2) {
+            throw new IllegalArgumentException("maxThreads不能小于2");
+        }
+
+        this.endpoint = endpoint;
+        this.maxAttempts = retry.getMaxAttempts();
+        this.initialBackoffMillis = retry.getInitialBackoff().toMillis();
+        this.maxBackoffMillis = retry.getMaxBackoff().toMillis();
+        this.hedge = hedge.isEnabled();
+        this.hedgeMinDelayMillis = hedge.getMinDelay().toMillis();
+        this.latencies = new LatencyTracker[Operation.values().length];
+        this.hedgeExecutor = this.hedge ? ExecutorBuilder.create()
+                .setCorePoolSize(0)
+                .setMaxPoolSize(hedge.getMaxThreads())
+                .setKeepAliveTime(60, TimeUnit.SECONDS)
+                .setWorkQueue(new SynchronousQueue<>())
+                .setThreadFactory(ThreadFactoryBuilder.create().setNamePrefix("minio-hedge-").setDaemon(true).build())
+                .build() : null;
+        if (this.hedge) {
+            for (Operation operation : Operation.values()) {
+                latencies[operation.ordinal()] = new LatencyTracker(hedge.getPercentile());
+            }
+        }
+        this.circuitBreaker = new CircuitBreaker(circuitBreaker.getFailureThreshold(), circuitBreaker.getOpenDuration().toMillis());
+        this.circuitBreaker.setListener(state -> metrics.circuitStateChanged(endpoint, state));
+    }
+
+    public void setMetrics(MinioMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * 执行幂等请求，瞬时故障时重试
+     */
+    public <T> T retry(Operation operation, Call<T> call) throws Exception {
+        return execute(operation, call, null);
+    }
+
+    /**
+     * 执行只读请求，瞬时故障时重试；开启对冲时慢请求会发出第二个请求
+     *
+     * @param discard 释放未被采用的结果，例如关闭响应流，可为空
+     */
+    public <T> T hedge(Operation operation, Call<T> call, Discard<T> discard) throws Exception {
+        if (!hedge) {
+            return execute(operation, call, null);
+        }
+
+        Discard<T> release = discard == null ? value -> { } : discard;
+        return execute(operation, call, release);
+    }
+
+    public void shutdown() {
+        if (hedgeExecutor != null) {
+            hedgeExecutor.shutdown();
+        }
+    }
+
+    private <T> T execute(Operation operation, Call<T> call, Discard<T> discard) throws Exception {
+        int attempt = 1;
+        while (true) {
+            try {
+                return discard == null ? attempt(operation, call) : hedged(operation, call, discard);
+            } catch (Exception e) {
+                if (attempt >= maxAttempts || !isTransient(e) || Thread.currentThread().isInterrupted()) {
+                    throw e;
+                }
+            }
+
+            metrics.retried(operation);
+            // 完全抖动：在[0, min(上限, 初始值 * 2^(attempt-1))]中随机等待，避免重试同时到达
+            long ceiling = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 20));
+            sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+            attempt++;
+        }
+    }
+
+    /**
+     * 经过熔断器执行一次请求
+     */
+    private <T> T attempt(Operation operation, Call<T> call) throws Exception {
+        if (!circuitBreaker.tryAcquire()) {
+            metrics.rejected(operation);
+            throw new CircuitBreakerOpenException(endpoint);
+        }
+
+        long start = System.nanoTime();
+        boolean finished = false;
+        try {
+            T value = call.call();
+            finished = true;
+            circuitBreaker.onSuccess();
+            record(operation, start);
+            return value;
+        } catch (Exception e) {
+            finished = true;
+            if (Thread.currentThread().isInterrupted()) {
+                // 调用方中断不能说明端点的状态
+                circuitBreaker.release();
+            } else if (isTransient(e)) {
+                circuitBreaker.onFailure();
+            } else {
+                // 业务错误说明端点正常响应
+                circuitBreaker.onSuccess();
+                record(operation, start);
+            }
+            throw e;
+        } finally {
+            if (!finished) {
+                // Error不能说明端点的状态，只释放探测名额，避免熔断器一直停在半开
+                circuitBreaker.release();
+            }
+        }
+    }
+
+    private <T> T hedged(Operation operation, Call<T> call, Discard<T> discard) throws Exception {
+        long delay = latencies[operation.ordinal()].threshold();
+        if (delay < 0) {
+            return attempt(operation, call);
+        }
+
+        CompletableFuture<T> primary;
+        try {
+            primary = submit(operation, call);
+        } catch (RejectedExecutionException e) {
+            // 对冲线程池已满，直接在调用线程中执行
+            return attempt(operation, call);
+        }
+        try {
+            return primary.get(Math.max(delay, hedgeMinDelayMillis), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // 超过分位数仍未返回，发出对冲请求
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            primary.thenAccept(value -> release(discard, value));
+            throw interrupted();
+        }
+
+        CompletableFuture<T> backup;
+        try {
+            backup = submit(operation, call);
+        } catch (RejectedExecutionException e) {
+            // 对冲线程池已满，继续等待第一个请求
+            return await(primary, discard);
+        }
+
+        metrics.hedged(operation);
+        CompletableFuture<T> winner = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(2);
+        race(primary, winner, pending, discard);
+        race(backup, winner, pending, discard);
+        return await(winner, discard);
+    }
+
+    /**
+     * 等待结果，被中断时之后返回的结果会被释放
+     */
+    private static <T> T await(CompletableFuture<T> future, Discard<T> discard) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            future.thenAccept(value -> release(discard, value));
+            throw interrupted();
+        }
+    }
+
+    /**
+     * 第一个成功的结果被采用，其余成功的结果被释放；全部失败时采用最后一个失败
+     */
+    private static <T> void race(CompletableFuture<T> future, CompletableFuture<T> winner, AtomicInteger pending, Discard<T> discard) {
+        future.whenComplete((value, error) -> {
+            if (error == null) {
+                if (!winner.complete(value)) {
+                    release(discard, value);
+                }
+            } else if (pending.decrementAndGet() == 0) {
+                winner.completeExceptionally(error);
+            }
+        });
+    }
+
+    private <T> CompletableFuture<T> submit(Operation operation, Call<T> call) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return attempt(operation, call);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, hedgeExecutor);
+    }
+
+    private void record(Operation operation, long start) {
+        LatencyTracker tracker = latencies[operation.ordinal()];
+        if (tracker != null) {
+            tracker.record(System.nanoTime() - start);
+        }
+    }
+
+    private static <T> void release(Discard<T> discard, T value) {
+        try {
+            discard.discard(value);
+        } catch (Exception ignored) {
+            // 丢弃的结果释放失败不影响已采用的结果
+        }
+    }
+
+    /**
+     * 网络异常（包括连接、读取和调用超时）、5xx和限流属于瞬时故障，熔断本身和线程中断不重试。
+     * SocketTimeoutException和OkHttp的调用超时也是InterruptedIOException，只有当前线程已被中断时才按中断处理
+     */
+    public static boolean isTransient(Throwable e) {
+        if (e instanceof CircuitBreakerOpenException) {
+            return false;
+        }
+        if (e instanceof InterruptedIOException && Thread.currentThread().isInterrupted()) {
+            return false;
+        }
+        if (e instanceof IOException || e instanceof ServerException) {
+            return true;
+        }
+        if (e instanceof ErrorResponseException) {
+            ErrorResponseException error = (ErrorResponseException) e;
+            if (error.response() != null && error.response().code() >= 500) {
+                return true;
+            }
+            return error.errorResponse() != null && TRANSIENT_CODES.contains(error.errorResponse().code());
+        }
+
+        return false;
+    }
+
+    private static Exception unwrap(Throwable e) {
+        if (e instanceof CompletionException && e.getCause() != null) {
+            e = e.getCause();
+        }
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+
+        return (Exception) e;
+    }
+
+    private static void sleep(long millis) throws InterruptedIOException {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            throw interrupted();
+        }
+    }
+
+    private static InterruptedIOException interrupted() {
+        Thread.currentThread().interrupt();
+        return new InterruptedIOException("等待minio请求时被中断");
+    }
+
+    /**
+     * 一次minio请求
+     */
+    @FunctionalInterface
+    public interface Call<T> {
+
+        T call() throws Exception;
+    }
+
+    /**
+     * 释放未被采用的结果
+     */
+    @FunctionalInterface
+    public interface Discard<T> {
+
+        void discard(T value) throws Exception;
+    }
+}
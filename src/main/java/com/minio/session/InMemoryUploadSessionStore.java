@@ -0,0 +1,73 @@
+package com.minio.session;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 基于内存的会话存储，只适用于单实例部署
+ */
+public class InMemoryUploadSessionStore implements UploadSessionStore {
+
+    private final Map<String, Entry> sessions = new ConcurrentHashMap<>();
+
+    @Override
+    public void save(UploadSession session) {
+        sessions.put(session.getUploadId(), new Entry(session));
+    }
+
+    @Override
+    public UploadSession get(String uploadId) {
+        Entry entry = sessions.get(uploadId);
+        return entry == null ? null : entry.session;
+    }
+
+    @Override
+    public void completePart(String uploadId, int partNumber) {
+        Entry entry = sessions.get(uploadId);
+        if (entry != null) {
+            entry.parts.add(partNumber);
+        }
+    }
+
+    @Override
+    public Set<Integer> completedParts(String uploadId) {
+        Entry entry = sessions.get(uploadId);
+        return entry == null ? Collections.emptySet() : new HashSet<>(entry.parts);
+    }
+
+    @Override
+    public void remove(String uploadId) {
+        sessions.remove(uploadId);
+    }
+
+    @Override
+    public List<UploadSession> pollExpired(long now, int limit) {
+        List<UploadSession> expired = new ArrayList<>();
+        Iterator<Entry> iterator = sessions.values().iterator();
+        while (iterator.hasNext() && expired.size() < limit) {
+            Entry entry = iterator.next();
+            if (entry.session.getExpireTime() <= now && sessions.remove(entry.session.getUploadId(), entry)) {
+                expired.add(entry.session);
+            }
+        }
+
+        return expired;
+    }
+
+    private static class Entry {
+
+        private final UploadSession session;
+
+        private final Set<Integer> parts = ConcurrentHashMap.newKeySet();
+
+        private Entry(UploadSession session) {
+            this.session = session;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.minio.session;
+
+import com.alibaba.fastjson.JSON;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于Redis的会话存储，多实例共享
+ *
+ * 会话以JSON保存在{prefix}session:{uploadId}，已完成的分片保存在集合{prefix}parts:{uploadId}，
+ * 过期时间记录在有序集合{prefix}expire中供清理任务查询。键本身的过期时间比会话多留一段，
+ * 保证清理任务取到会话时数据还在
+ */
+public class RedisUploadSessionStore implements UploadSessionStore {
+
+    private static final long RETENTION = TimeUnit.DAYS.toMillis(1);
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final String prefix;
+
+    private final String expireKey;
+
+    public RedisUploadSessionStore(StringRedisTemplate redisTemplate, String prefix) {
+        this.redisTemplate = redisTemplate;
+        this.prefix = prefix;
+        this.expireKey = prefix + "expire";
+    }
+
+    @Override
+    public void save(UploadSession session) {
+        long ttl = ttl(session);
+        redisTemplate.opsForValue().set(sessionKey(session.getUploadId()), JSON.toJSONString(session), ttl, TimeUnit.MILLISECONDS);
+        redisTemplate.opsForZSet().add(expireKey, session.getUploadId(), session.getExpireTime());
+    }
+
+    @Override
+    public UploadSession get(String uploadId) {
+        String json = redisTemplate.opsForValue().get(sessionKey(uploadId));
+        return json == null ? null : JSON.parseObject(json, UploadSession.class);
+    }
+
+    @Override
+    public void completePart(String uploadId, int partNumber) {
+        String partsKey = partsKey(uploadId);
+        Long added = redisTemplate.opsForSet().add(partsKey, String.valueOf(partNumber));
+        if (added != null && added > 0) {
+            Long ttl = redisTemplate.getExpire(sessionKey(uploadId), TimeUnit.MILLISECONDS);
+            if (ttl != null && ttl > 0) {
+                redisTemplate.expire(partsKey, ttl, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    @Override
+    public Set<Integer> completedParts(String uploadId) {
+        Set<String> members = redisTemplate.opsForSet().members(partsKey(uploadId));
+        if (members == null || members.isEmpty()) {
+            return Collections.emptySet();
+        }
+
+        Set<Integer> parts = new HashSet<>(members.size() * 2);
+        for (String member : members) {
+            parts.add(Integer.valueOf(member));
+        }
+
+        return parts;
+    }
+
+    @Override
+    public void remove(String uploadId) {
+        redisTemplate.delete(sessionKey(uploadId));
+        redisTemplate.delete(partsKey(uploadId));
+        redisTemplate.opsForZSet().remove(expireKey, uploadId);
+    }
+
+    @Override
+    public List<UploadSession> pollExpired(long now, int limit) {
+        Set<String> uploadIds = redisTemplate.opsForZSet().rangeByScore(expireKey, 0, now, 0, limit);
+        if (uploadIds == null || uploadIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<UploadSession> expired = new ArrayList<>(uploadIds.size());
+        for (String uploadId : uploadIds) {
+            // 从有序集合中删除成功的实例才负责清理
+            Long removed = redisTemplate.opsForZSet().remove(expireKey, uploadId);
+            if (removed == null || removed == 0) {
+                continue;
+            }
+
+            UploadSession session = get(uploadId);
+            redisTemplate.delete(sessionKey(uploadId));
+            redisTemplate.delete(partsKey(uploadId));
+            if (session != null) {
+                expired.add(session);
+            }
+        }
+
+        return expired;
+    }
+
+    private long ttl(UploadSession session) {
+        return Math.max(session.getExpireTime() - System.currentTimeMillis(), 0) + RETENTION;
+    }
+
+    private String sessionKey(String uploadId) {
+        return prefix + "session:" + uploadId;
+    }
+
+    private String partsKey(String uploadId) {
+        return prefix + "parts:" + uploadId;
+    }
+}
@@ -0,0 +1,45 @@
+package com.minio.session;
+
+import lombok.Data;
+
+/**
+ * 分片上传会话
+ */
+@Data
+public class UploadSession {
+
+    /**
+     * 上传ID
+     */
+    private String uploadId;
+
+    /**
+     * 存储桶
+     */
+    private String bucket;
+
+    /**
+     * 文件目录名(可选)/文件名
+     */
+    private String objectName;
+
+    /**
+     * 文件的content-type
+     */
+    private String contentType;
+
+    /**
+     * 总分片数
+     */
+    private int totalPart;
+
+    /**
+     * 创建时间，毫秒时间戳
+     */
+    private long createTime;
+
+    /**
+     * 过期时间，毫秒时间戳，过期后未合并的分片会被清理
+     */
+    private long expireTime;
+}
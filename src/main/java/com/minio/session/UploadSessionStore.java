@@ -0,0 +1,45 @@
+package com.minio.session;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 分片上传会话存储，记录会话信息和已完成的分片，断点续传时不需要再查询minio
+ */
+public interface UploadSessionStore {
+
+    /**
+     * 保存会话
+     */
+    void save(UploadSession session);
+
+    /**
+     * 查询会话
+     *
+     * @return 会话不存在时返回null
+     */
+    UploadSession get(String uploadId);
+
+    /**
+     * 记录已完成的分片
+     */
+    void completePart(String uploadId, int partNumber);
+
+    /**
+     * 查询已完成的分片序号
+     */
+    Set<Integer> completedParts(String uploadId);
+
+    /**
+     * 删除会话及其分片记录
+     */
+    void remove(String uploadId);
+
+    /**
+     * 取出并删除已过期的会话，多个实例同时清理时每个会话只会被一个实例取到
+     *
+     * @param now 当前时间，毫秒时间戳
+     * @param limit 最多返回的个数
+     */
+    List<UploadSession> pollExpired(long now, int limit);
+}
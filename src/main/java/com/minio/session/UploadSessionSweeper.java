@@ -0,0 +1,68 @@
+package com.minio.session;
+
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import com.minio.utils.MinioTemplate;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 定时清理过期的上传会话，取消对应的分片上传
+ */
+@Slf4j
+public class UploadSessionSweeper {
+
+    private static final int BATCH_SIZE = 100;
+
+    private final UploadSessionStore uploadSessionStore;
+
+    private final MinioTemplate minioTemplate;
+
+    private final long interval;
+
+    private ScheduledExecutorService scheduler;
+
+    public UploadSessionSweeper(UploadSessionStore uploadSessionStore, MinioTemplate minioTemplate, long interval) {
+        this.uploadSessionStore = uploadSessionStore;
+        this.minioTemplate = minioTemplate;
+        this.interval = interval;
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                ThreadFactoryBuilder.create().setNamePrefix("minio-session-sweeper-").setDaemon(true).build());
+        scheduler.scheduleWithFixedDelay(this::sweep, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 取消所有已过期的分片上传
+     */
+    public void sweep() {
+        try {
+            List<UploadSession> expired;
+            do {
+                expired = uploadSessionStore.pollExpired(System.currentTimeMillis(), BATCH_SIZE);
+                for (UploadSession session : expired) {
+                    try {
+                        minioTemplate.abortMultipartUpload(session.getBucket(), session.getObjectName(), session.getUploadId());
+                    } catch (Exception e) {
+                        log.warn("取消过期的分片上传失败，uploadId：{}", session.getUploadId(), e);
+                    }
+                }
+            } while (expired.size() == BATCH_SIZE);
+        } catch (Exception e) {
+            log.warn("清理过期的上传会话失败", e);
+        }
+    }
+}
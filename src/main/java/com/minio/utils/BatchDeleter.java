@@ -0,0 +1,156 @@
+package com.minio.utils;
+
+import io.minio.errors.ErrorResponseException;
+import io.minio.messages.DeleteError;
+import io.minio.messages.DeleteObject;
+import lombok.SneakyThrows;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.function.BiConsumer;
+
+/**
+ * 批量删除
+ *
+ * 边遍历对象名边按batchSize分组，每组一次multi-delete请求，同时执行concurrency组。
+ * 内存中最多保留concurrency + 1组对象名，删除失败的对象逐个记录在结果中，整组请求失败时组内的对象都记为失败
+ */
+public class BatchDeleter {
+
+    /** 单次multi-delete最多1000个对象 */
+    public static final int MAX_BATCH_SIZE = 1000;
+
+    private final CustomMinioClient customMinioClient;
+
+    private final ExecutorService executor;
+
+    private final int batchSize;
+
+    private final int concurrency;
+
+    private final BiConsumer<String, String> onDeleted;
+
+    /**
+     * @param onDeleted 对象删除成功后的回调，参数为存储桶和对象名，用于清理缓存，可为空
+     */
+    public BatchDeleter(CustomMinioClient customMinioClient, ExecutorService executor, int batchSize, int concurrency, BiConsumer<String, String> onDeleted) {
+        if (batchSize < 1 || batchSize > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("batchSize必须在1到1000之间");
+        }
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("concurrency必须大于0");
+        }
+
+        this.customMinioClient = customMinioClient;
+        this.executor = executor;
+        this.batchSize = batchSize;
+        this.concurrency = concurrency;
+        this.onDeleted = onDeleted;
+    }
+
+    /**
+     * 删除对象，单组请求失败不影响其他组
+     *
+     * @param bucket 存储桶
+     * @param objectNames 对象名，按需遍历
+     * @return 删除结果
+     */
+    @SneakyThrows
+    public RemoveObjectsResult delete(String bucket, Iterator<String> objectNames) {
+        RemoveObjectsResult result = new RemoveObjectsResult();
+        Semaphore inFlight = new Semaphore(concurrency);
+
+        try {
+            List<String> batch = new ArrayList<>(batchSize);
+            while (objectNames.hasNext()) {
+                batch.add(objectNames.next());
+                if (batch.size() == batchSize || !objectNames.hasNext()) {
+                    inFlight.acquire();
+                    List<String> submitted = batch;
+                    batch = new ArrayList<>(batchSize);
+                    try {
+                        executor.execute(() -> {
+                            try {
+                                deleteBatch(bucket, submitted, result);
+                            } catch (Throwable e) {
+                                failBatch(bucket, submitted, e, result);
+                            } finally {
+                                inFlight.release();
+                            }
+                        });
+                    } catch (Throwable e) {
+                        inFlight.release();
+                        throw e;
+                    }
+                }
+            }
+        } finally {
+            // 拿到全部许可即所有批次已结束
+            inFlight.acquireUninterruptibly(concurrency);
+        }
+
+        return result;
+    }
+
+    /**
+     * 整组请求失败时不知道哪些对象已被删除，组内的对象都记为失败，可以按结果重试
+     */
+    private static void failBatch(String bucket, List<String> objectNames, Throwable cause, RemoveObjectsResult result) {
+        List<DeleteError> errors = new ArrayList<>(objectNames.size());
+        for (String objectName : objectNames) {
+            errors.add(new BatchDeleteError(bucket, objectName, cause));
+        }
+
+        synchronized (result) {
+            result.getErrors().addAll(errors);
+        }
+    }
+
+    private void deleteBatch(String bucket, List<String> objectNames, RemoveObjectsResult result) throws Exception {
+        List<DeleteObject> objects = new ArrayList<>(objectNames.size());
+        for (String objectName : objectNames) {
+            objects.add(new DeleteObject(objectName));
+        }
+
+        List<DeleteError> errors = customMinioClient.deleteObjects(bucket, null, objects, true, false, null, null).result().errorList();
+
+        Set<String> failed = new HashSet<>();
+        for (DeleteError error : errors) {
+            failed.add(error.objectName());
+        }
+        if (onDeleted != null) {
+            for (String objectName : objectNames) {
+                if (!failed.contains(objectName)) {
+                    onDeleted.accept(bucket, objectName);
+                }
+            }
+        }
+
+        synchronized (result) {
+            result.setDeleted(result.getDeleted() + objectNames.size() - errors.size());
+            result.getErrors().addAll(errors);
+        }
+    }
+
+    /**
+     * 整组请求失败时组内每个对象的错误，错误码取自服务端的错误响应，没有响应时为异常类名
+     */
+    static class BatchDeleteError extends DeleteError {
+
+        private static final long serialVersionUID = 1L;
+
+        BatchDeleteError(String bucket, String objectName, Throwable cause) {
+            this.code = cause instanceof ErrorResponseException
+                    ? ((ErrorResponseException) cause).errorResponse().code()
+                    : cause.getClass().getSimpleName();
+            this.message = cause.getMessage();
+            this.bucketName = bucket;
+            this.objectName = objectName;
+        }
+    }
+}
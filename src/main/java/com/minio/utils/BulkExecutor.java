@@ -0,0 +1,147 @@
+package com.minio.utils;
+
+import cn.hutool.core.thread.ExecutorBuilder;
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 批量操作的执行器
+ *
+ * 开启虚拟线程且运行在支持虚拟线程的JVM上时，每个对象一个虚拟线程，同时执行的数量由信号量限制；
+ * 否则退回固定大小的线程池。项目按Java 8编译，虚拟线程执行器通过反射在运行时获取
+ */
+@Slf4j
+public class BulkExecutor {
+
+    private final ExecutorService executor;
+
+    private final Semaphore limiter;
+
+    private final boolean virtual;
+
+    /**
+     * @param virtualThreads 是否尝试使用虚拟线程
+     * @param maxConcurrency 同时执行的最大数量
+     * @param threads 不支持虚拟线程时线程池的线程数
+     */
+    public BulkExecutor(boolean virtualThreads, int maxConcurrency, int threads) {
+        if (maxConcurrency < 1 || threads < 1) {
+            throw new IllegalArgumentException("maxConcurrency和threads必须大于0");
+        }
+
+        ExecutorService virtualExecutor = virtualThreads ? newVirtualThreadPerTaskExecutor() : null;
+        this.virtual = virtualExecutor != null;
+        this.limiter = new Semaphore(maxConcurrency);
+        this.executor = virtual ? virtualExecutor : ExecutorBuilder.create()
+                .setCorePoolSize(Math.min(threads, maxConcurrency))
+                .setMaxPoolSize(Math.min(threads, maxConcurrency))
+                .setWorkQueue(new LinkedBlockingQueue<>())
+                .setThreadFactory(ThreadFactoryBuilder.create().setNamePrefix("minio-bulk-").setDaemon(true).build())
+                .build();
+    }
+
+    /**
+     * 是否正在使用虚拟线程
+     */
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * 对每个对象执行一次操作，等待全部结束后返回，单个对象失败不影响其他对象
+     *
+     * @param objectNames 对象名
+     * @param operation 对单个对象的操作
+     */
+    public <T> BulkResult<T> execute(Collection<String> objectNames, Operation<T> operation) throws InterruptedException {
+        List<String> names = new ArrayList<>(objectNames);
+        Object[] outcomes = new Object[names.size()];
+        boolean[] failed = new boolean[names.size()];
+        CountDownLatch latch = new CountDownLatch(names.size());
+
+        for (int i = 0; i < names.size(); i++) {
+            int index = i;
+            String objectName = names.get(i);
+            // 线程池模式下先拿许可再提交，避免队列中堆积过多任务
+            if (!virtual) {
+                limiter.acquire();
+            }
+            try {
+                executor.execute(() -> {
+                    try {
+                        if (virtual) {
+                            limiter.acquire();
+                        }
+                        try {
+                            outcomes[index] = operation.apply(objectName);
+                        } finally {
+                            limiter.release();
+                        }
+                    } catch (Throwable e) {
+                        outcomes[index] = e;
+                        failed[index] = true;
+                    } finally {
+                        latch.countDown();
+                    }
+                });
+            } catch (Throwable e) {
+                limiter.release();
+                outcomes[index] = e;
+                failed[index] = true;
+                latch.countDown();
+            }
+        }
+
+        latch.await();
+
+        BulkResult<T> result = new BulkResult<>();
+        for (int i = 0; i < names.size(); i++) {
+            if (failed[i]) {
+                result.getErrors().put(names.get(i), (Throwable) outcomes[i]);
+            } else {
+                @SuppressWarnings("unchecked")
+                T value = (T) outcomes[i];
+                result.getResults().put(names.get(i), value);
+            }
+        }
+
+        return result;
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * JDK 21起Executors.newVirtualThreadPerTaskExecutor可用，JDK 19、20未开启预览特性时会抛出异常
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            log.info("当前JVM不支持虚拟线程，批量操作使用线程池执行");
+        } catch (Exception e) {
+            log.info("虚拟线程不可用，批量操作使用线程池执行：{}", e.toString());
+        }
+
+        return null;
+    }
+
+    /**
+     * 对单个对象的操作
+     */
+    @FunctionalInterface
+    public interface Operation<T> {
+
+        T apply(String objectName) throws Exception;
+    }
+}
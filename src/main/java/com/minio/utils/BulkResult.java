@@ -0,0 +1,27 @@
+package com.minio.utils;
+
+import lombok.Data;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 批量操作结果，按传入的顺序保存每个对象的结果或失败原因
+ */
+@Data
+public class BulkResult<T> {
+
+    /**
+     * 成功的对象及结果
+     */
+    private Map<String, T> results = new LinkedHashMap<>();
+
+    /**
+     * 失败的对象及原因
+     */
+    private Map<String, Throwable> errors = new LinkedHashMap<>();
+
+    public boolean isSuccess() {
+        return errors.isEmpty();
+    }
+}
@@ -0,0 +1,206 @@
+package com.minio.utils;
+
+import com.google.common.hash.Hashing;
+import lombok.SneakyThrows;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.List;
+import java.util.zip.Checksum;
+
+/**
+ * 上传时计算的校验和算法
+ *
+ * 校验和随请求头发送，由服务端校验。分片上传时每个分片单独计算，整个对象的校验和按S3的规则
+ * 由各分片校验和拼接后再计算一次，不需要再读一遍文件。CRC32C和SHA256在创建分片上传时通过x-amz-checksum-algorithm声明，
+ * 合并时随各分片一起提交校验和，由服务端核对；MD5只能由服务端校验各分片的Content-MD5，组合值即分片上传对象的ETag。
+ * CRC32C在JDK9及以上使用JDK的实现，有硬件指令加速，速度接近内存带宽；SHA256和MD5受限于摘要算法本身，大文件上传建议使用CRC32C
+ */
+public enum ChecksumAlgorithm {
+
+    CRC32C("x-amz-checksum-crc32c", "CRC32C"),
+
+    SHA256("x-amz-checksum-sha256", "SHA256"),
+
+    /**
+     * 通过Content-MD5校验
+     */
+    MD5("Content-MD5", null);
+
+    /** 创建分片上传时声明校验和算法的请求头 */
+    public static final String ALGORITHM_HEADER = "x-amz-checksum-algorithm";
+
+    /** JDK9及以上的CRC32C，低版本为空时使用guava的实现 */
+    private static final MethodHandle CRC32C_CONSTRUCTOR;
+
+    private static final MethodHandle CRC32C_UPDATE_BUFFER;
+
+    static {
+        MethodHandle constructor = null;
+        MethodHandle update = null;
+        try {
+            Class<?> type = Class.forName("java.util.zip.CRC32C");
+            constructor = MethodHandles.publicLookup().findConstructor(type, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Checksum.class));
+            update = MethodHandles.publicLookup().findVirtual(Checksum.class, "update", MethodType.methodType(void.class, ByteBuffer.class));
+        } catch (ReflectiveOperationException e) {
+            // JDK8没有CRC32C
+        }
+        CRC32C_CONSTRUCTOR = constructor;
+        CRC32C_UPDATE_BUFFER = update;
+    }
+
+    private final String header;
+
+    private final String algorithm;
+
+    ChecksumAlgorithm(String header, String algorithm) {
+        this.header = header;
+        this.algorithm = algorithm;
+    }
+
+    /**
+     * 携带校验和的请求头
+     */
+    public String getHeader() {
+        return header;
+    }
+
+    /**
+     * x-amz-checksum-algorithm的取值，MD5不能在创建分片上传时声明，返回null
+     */
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    public Hasher newHasher() {
+        switch (this) {
+            case CRC32C:
+                return CRC32C_CONSTRUCTOR == null ? new GuavaCrc32cHasher() : new JdkCrc32cHasher();
+            case SHA256:
+                return new DigestHasher("SHA-256");
+            default:
+                return new DigestHasher("MD5");
+        }
+    }
+
+    /**
+     * 计算一段数据的校验和
+     */
+    public byte[] digest(byte[] data, int offset, int length) {
+        Hasher hasher = newHasher();
+        hasher.update(data, offset, length);
+        return hasher.digest();
+    }
+
+    /**
+     * 按S3的规则计算分片上传整个对象的校验和：各分片校验和拼接后再计算一次，后缀为分片数
+     */
+    public String composite(List<byte[]> partDigests) {
+        Hasher hasher = newHasher();
+        for (byte[] partDigest : partDigests) {
+            hasher.update(partDigest, 0, partDigest.length);
+        }
+
+        return encode(hasher.digest()) + "-" + partDigests.size();
+    }
+
+    public static String encode(byte[] digest) {
+        return Base64.getEncoder().encodeToString(digest);
+    }
+
+    /**
+     * 增量计算校验和，非线程安全
+     */
+    public interface Hasher {
+
+        void update(byte[] data, int offset, int length);
+
+        /**
+         * 读取buffer中剩余的数据
+         */
+        void update(ByteBuffer buffer);
+
+        byte[] digest();
+    }
+
+    private static class DigestHasher implements Hasher {
+
+        private final MessageDigest digest;
+
+        @SneakyThrows
+        private DigestHasher(String algorithm) {
+            this.digest = MessageDigest.getInstance(algorithm);
+        }
+
+        @Override
+        public void update(byte[] data, int offset, int length) {
+            digest.update(data, offset, length);
+        }
+
+        @Override
+        public void update(ByteBuffer buffer) {
+            digest.update(buffer);
+        }
+
+        @Override
+        public byte[] digest() {
+            return digest.digest();
+        }
+    }
+
+    private static class JdkCrc32cHasher implements Hasher {
+
+        private final Checksum checksum;
+
+        @SneakyThrows
+        private JdkCrc32cHasher() {
+            this.checksum = (Checksum) CRC32C_CONSTRUCTOR.invokeExact();
+        }
+
+        @Override
+        public void update(byte[] data, int offset, int length) {
+            checksum.update(data, offset, length);
+        }
+
+        @Override
+        @SneakyThrows
+        public void update(ByteBuffer buffer) {
+            CRC32C_UPDATE_BUFFER.invokeExact(checksum, buffer);
+        }
+
+        @Override
+        public byte[] digest() {
+            return toBytes((int) checksum.getValue());
+        }
+    }
+
+    private static class GuavaCrc32cHasher implements Hasher {
+
+        private final com.google.common.hash.Hasher hasher = Hashing.crc32c().newHasher();
+
+        @Override
+        public void update(byte[] data, int offset, int length) {
+            hasher.putBytes(data, offset, length);
+        }
+
+        @Override
+        public void update(ByteBuffer buffer) {
+            hasher.putBytes(buffer);
+        }
+
+        @Override
+        public byte[] digest() {
+            // asInt即CRC值，S3要求按大端编码
+            return toBytes(hasher.hash().asInt());
+        }
+    }
+
+    private static byte[] toBytes(int value) {
+        return new byte[]{(byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value};
+    }
+}
@@ -0,0 +1,27 @@
+package com.minio.utils;
+
+import lombok.Data;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 批量复制结果
+ */
+@Data
+public class CopyObjectsResult {
+
+    /**
+     * 复制成功的对象数
+     */
+    private long copied;
+
+    /**
+     * 复制失败的源对象及原因
+     */
+    private Map<String, Throwable> errors = new LinkedHashMap<>();
+
+    public boolean isSuccess() {
+        return errors.isEmpty();
+    }
+}
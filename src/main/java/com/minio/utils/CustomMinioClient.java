@@ -1,23 +1,106 @@
 package com.minio.utils;
 
 import com.google.common.collect.Multimap;
+import com.minio.metrics.Operation;
+import com.minio.resilience.MinioResilience;
+import io.minio.AbortMultipartUploadResponse;
+import io.minio.BucketExistsArgs;
 import io.minio.CreateMultipartUploadResponse;
+import io.minio.DeleteObjectsResponse;
+import io.minio.GetObjectArgs;
+import io.minio.GetObjectResponse;
 import io.minio.ListPartsResponse;
 import io.minio.MinioClient;
 import io.minio.ObjectWriteResponse;
+import io.minio.StatObjectArgs;
+import io.minio.StatObjectResponse;
+import io.minio.UploadPartCopyResponse;
+import io.minio.UploadPartResponse;
+import io.minio.Xml;
 import io.minio.errors.*;
+import io.minio.http.Method;
+import io.minio.messages.CompleteMultipartUploadOutput;
+import io.minio.messages.DeleteObject;
+import io.minio.messages.ErrorResponse;
 import io.minio.messages.Part;
+import lombok.SneakyThrows;
+import okhttp3.Response;
+import org.simpleframework.xml.Element;
+import org.simpleframework.xml.ElementList;
+import org.simpleframework.xml.Namespace;
+import org.simpleframework.xml.Root;
 import org.springframework.context.annotation.Bean;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
 
+/**
+ * 开放分片上传相关的接口；传入MinioResilience时，幂等请求在瞬时故障后重试，GET和HEAD可对冲，所有经过的请求受熔断器保护
+ */
 public class CustomMinioClient extends MinioClient {
 
+    /**
+     * 重试、对冲和熔断，为空时直接请求
+     */
+    private final MinioResilience resilience;
+
     public CustomMinioClient(MinioClient client) {
+        this(client, null);
+    }
+
+    public CustomMinioClient(MinioClient client, MinioResilience resilience) {
         super(client);
+        this.resilience = resilience;
+    }
+
+    /**
+     * 签名使用的区域，与SDK的处理一致：配置了区域时直接返回，否则查询存储桶所在的区域并缓存
+     */
+    public String resolveRegion(String bucket) throws ErrorResponseException, InsufficientDataException, InternalException, InvalidKeyException, InvalidResponseException, IOException, NoSuchAlgorithmException, ServerException, XmlParserException {
+        return getRegion(bucket, null);
+    }
+
+    /**
+     * 查询文件元数据，可重试、可对冲
+     */
+    @Override
+    @SneakyThrows
+    public StatObjectResponse statObject(StatObjectArgs args) throws ErrorResponseException, InsufficientDataException, InternalException, InvalidKeyException, InvalidResponseException, IOException, NoSuchAlgorithmException, ServerException, XmlParserException {
+        if (resilience == null) {
+            return super.statObject(args);
+        }
+
+        return resilience.hedge(Operation.STAT, () -> super.statObject(args), null);
+    }
+
+    /**
+     * 获取文件流，可重试、可对冲，只覆盖收到响应头之前的阶段，未被采用的响应会被关闭
+     */
+    @Override
+    @SneakyThrows
+    public GetObjectResponse getObject(GetObjectArgs args) throws ErrorResponseException, InsufficientDataException, InternalException, InvalidKeyException, InvalidResponseException, IOException, NoSuchAlgorithmException, ServerException, XmlParserException {
+        if (resilience == null) {
+            return super.getObject(args);
+        }
+
+        return resilience.hedge(Operation.GET, () -> super.getObject(args), GetObjectResponse::close);
+    }
+
+    /**
+     * 查询存储桶是否存在，可重试
+     */
+    @Override
+    @SneakyThrows
+    public boolean bucketExists(BucketExistsArgs args) throws ErrorResponseException, InsufficientDataException, InternalException, InvalidKeyException, InvalidResponseException, IOException, NoSuchAlgorithmException, ServerException, XmlParserException {
+        if (resilience == null) {
+            return super.bucketExists(args);
+        }
+
+        return resilience.retry(Operation.BUCKET, () -> super.bucketExists(args));
     }
 
     /**
@@ -50,6 +133,40 @@ public class CustomMinioClient extends MinioClient {
         return super.completeMultipartUpload(bucketName, region, objectName, uploadId, parts, extraHeaders, extraQueryParams);
     }
 
+    /**
+     * 完成分片上传，同时提交各分片的校验和，由服务端与上传分片时的校验和逐一核对
+     *
+     * @param bucketName        存储桶
+     * @param region            区域
+     * @param objectName        对象名
+     * @param uploadId          上传ID
+     * @param parts             分片
+     * @param checksumAlgorithm 创建分片上传时声明的算法，为空或不能声明的算法（MD5）时不提交校验和
+     * @param partChecksums     按分片顺序排列的校验和（base64）
+     */
+    public ObjectWriteResponse completeMultipartUploadWithChecksums(String bucketName, String region, String objectName, String uploadId, Part[] parts, ChecksumAlgorithm checksumAlgorithm, List<String> partChecksums) throws NoSuchAlgorithmException, InsufficientDataException, IOException, InvalidKeyException, ServerException, XmlParserException, ErrorResponseException, InternalException, InvalidResponseException {
+        if (checksumAlgorithm == null || checksumAlgorithm.getAlgorithm() == null) {
+            return completeMultipartUpload(bucketName, region, objectName, uploadId, parts, null, null);
+        }
+        if (partChecksums == null || partChecksums.size() != parts.length) {
+            throw new IllegalArgumentException("分片校验和的数量与分片数不一致");
+        }
+
+        Multimap<String, String> queryParams = newMultimap("uploadId", uploadId);
+        try (Response response = execute(Method.POST, bucketName, objectName, getRegion(bucketName, region), httpHeaders(null), queryParams,
+                new ChecksumCompleteMultipartUpload(checksumAlgorithm, parts, partChecksums), 0)) {
+            // 与SDK的处理一致，合并失败时服务端也可能返回200并在响应体中给出错误
+            String body = response.body().string();
+            if (!body.trim().isEmpty() && Xml.validate(ErrorResponse.class, body)) {
+                throw new ErrorResponseException(Xml.unmarshal(ErrorResponse.class, body), response, null);
+            }
+
+            CompleteMultipartUploadOutput output = Xml.unmarshal(CompleteMultipartUploadOutput.class, body);
+            return new ObjectWriteResponse(response.headers(), output.bucket(), output.location(), output.object(), output.etag(),
+                    response.header("x-amz-version-id"));
+        }
+    }
+
     /**
      * 查询分片数据
      *
@@ -60,7 +177,135 @@ public class CustomMinioClient extends MinioClient {
      * @param extraHeaders     额外消息头
      * @param extraQueryParams 额外查询参数
      */
+    @SneakyThrows
     public ListPartsResponse listMultipart(String bucketName, String region, String objectName, Integer maxParts, Integer partNumberMarker, String uploadId, Multimap<String, String> extraHeaders, Multimap<String, String> extraQueryParams) throws NoSuchAlgorithmException, InsufficientDataException, IOException, InvalidKeyException, ServerException, XmlParserException, ErrorResponseException, InternalException, InvalidResponseException {
-        return super.listParts(bucketName, region, objectName, maxParts, partNumberMarker, uploadId, extraHeaders, extraQueryParams);
+        if (resilience == null) {
+            return super.listParts(bucketName, region, objectName, maxParts, partNumberMarker, uploadId, extraHeaders, extraQueryParams);
+        }
+
+        return resilience.retry(Operation.LIST_PARTS,
+                () -> super.listParts(bucketName, region, objectName, maxParts, partNumberMarker, uploadId, extraHeaders, extraQueryParams));
+    }
+
+    /**
+     * 上传单个分片
+     *
+     * @param bucketName       存储桶
+     * @param region           区域
+     * @param objectName       对象名
+     * @param data             分片数据，支持InputStream、RandomAccessFile、byte[]
+     * @param length           分片长度
+     * @param uploadId         上传ID
+     * @param partNumber       分片序号
+     * @param extraHeaders     额外消息头
+     * @param extraQueryParams 额外查询参数
+     */
+    @Override
+    @SneakyThrows
+    public UploadPartResponse uploadPart(String bucketName, String region, String objectName, Object data, long length, String uploadId, int partNumber, Multimap<String, String> extraHeaders, Multimap<String, String> extraQueryParams) throws NoSuchAlgorithmException, InsufficientDataException, IOException, InvalidKeyException, ServerException, XmlParserException, ErrorResponseException, InternalException, InvalidResponseException {
+        // 同一分片序号重复上传会覆盖，只有byte[]可以重新读取
+        if (resilience == null || !(data instanceof byte[])) {
+            return super.uploadPart(bucketName, region, objectName, data, length, uploadId, partNumber, extraHeaders, extraQueryParams);
+        }
+
+        return resilience.retry(Operation.PUT,
+                () -> super.uploadPart(bucketName, region, objectName, data, length, uploadId, partNumber, extraHeaders, extraQueryParams));
+    }
+
+    /**
+     * 从已有对象复制一段作为分片，数据只在服务端传输，可重试
+     *
+     * @param bucketName       存储桶
+     * @param region           区域
+     * @param objectName       对象名
+     * @param uploadId         上传ID
+     * @param partNumber       分片序号
+     * @param headers          复制源x-amz-copy-source、范围x-amz-copy-source-range等消息头
+     * @param extraQueryParams 额外查询参数
+     */
+    @Override
+    @SneakyThrows
+    public UploadPartCopyResponse uploadPartCopy(String bucketName, String region, String objectName, String uploadId, int partNumber, Multimap<String, String> headers, Multimap<String, String> extraQueryParams) throws NoSuchAlgorithmException, InsufficientDataException, IOException, InvalidKeyException, ServerException, XmlParserException, ErrorResponseException, InternalException, InvalidResponseException {
+        if (resilience == null) {
+            return super.uploadPartCopy(bucketName, region, objectName, uploadId, partNumber, headers, extraQueryParams);
+        }
+
+        return resilience.retry(Operation.COPY,
+                () -> super.uploadPartCopy(bucketName, region, objectName, uploadId, partNumber, headers, extraQueryParams));
+    }
+
+    /**
+     * 取消分片上传，清理已上传的分片
+     *
+     * @param bucketName       存储桶
+     * @param region           区域
+     * @param objectName       对象名
+     * @param uploadId         上传ID
+     * @param extraHeaders     额外消息头
+     * @param extraQueryParams 额外查询参数
+     */
+    @Override
+    public AbortMultipartUploadResponse abortMultipartUpload(String bucketName, String region, String objectName, String uploadId, Multimap<String, String> extraHeaders, Multimap<String, String> extraQueryParams) throws NoSuchAlgorithmException, InsufficientDataException, IOException, InvalidKeyException, ServerException, XmlParserException, ErrorResponseException, InternalException, InvalidResponseException {
+        return super.abortMultipartUpload(bucketName, region, objectName, uploadId, extraHeaders, extraQueryParams);
+    }
+
+    /**
+     * 批量删除，单次最多1000个对象
+     *
+     * @param bucketName           存储桶
+     * @param region               区域
+     * @param objectList           要删除的对象
+     * @param quiet                为true时只返回删除失败的对象
+     * @param bypassGovernanceMode 是否绕过治理模式的保留策略
+     * @param extraHeaders         额外消息头
+     * @param extraQueryParams     额外查询参数
+     */
+    @Override
+    public DeleteObjectsResponse deleteObjects(String bucketName, String region, List<DeleteObject> objectList, boolean quiet, boolean bypassGovernanceMode, Multimap<String, String> extraHeaders, Multimap<String, String> extraQueryParams) throws NoSuchAlgorithmException, InsufficientDataException, IOException, InvalidKeyException, ServerException, XmlParserException, ErrorResponseException, InternalException, InvalidResponseException {
+        return super.deleteObjects(bucketName, region, objectList, quiet, bypassGovernanceMode, extraHeaders, extraQueryParams);
+    }
+
+    /**
+     * 带分片校验和的合并请求体，minio-java的Part不能携带校验和
+     */
+    @Root(name = "CompleteMultipartUpload")
+    @Namespace(reference = "http://s3.amazonaws.com/doc/2006-03-01/")
+    static class ChecksumCompleteMultipartUpload {
+
+        @ElementList(name = "Part", inline = true)
+        private List<ChecksumPart> parts;
+
+        ChecksumCompleteMultipartUpload(ChecksumAlgorithm checksumAlgorithm, Part[] parts, List<String> partChecksums) {
+            this.parts = new ArrayList<>(parts.length);
+            for (int i = 0; i < parts.length; i++) {
+                this.parts.add(new ChecksumPart(parts[i], checksumAlgorithm, partChecksums.get(i)));
+            }
+        }
+    }
+
+    /**
+     * 合并请求中的分片，未使用的算法对应的元素为空，不会输出
+     */
+    @Root(name = "Part")
+    static class ChecksumPart {
+
+        @Element(name = "PartNumber")
+        private int partNumber;
+
+        @Element(name = "ETag")
+        private String etag;
+
+        @Element(name = "ChecksumCRC32C", required = false)
+        private String checksumCrc32c;
+
+        @Element(name = "ChecksumSHA256", required = false)
+        private String checksumSha256;
+
+        ChecksumPart(Part part, ChecksumAlgorithm checksumAlgorithm, String checksum) {
+            this.partNumber = part.partNumber();
+            this.etag = part.etag();
+            this.checksumCrc32c = checksumAlgorithm == ChecksumAlgorithm.CRC32C ? checksum : null;
+            this.checksumSha256 = checksumAlgorithm == ChecksumAlgorithm.SHA256 ? checksum : null;
+        }
     }
-}
\ No newline at end of file
+}
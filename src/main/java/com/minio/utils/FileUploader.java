@@ -0,0 +1,383 @@
+package com.minio.utils;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+import io.minio.ObjectWriteResponse;
+import io.minio.Xml;
+import io.minio.errors.ErrorResponseException;
+import io.minio.http.Method;
+import io.minio.messages.ErrorResponse;
+import io.minio.messages.Part;
+import lombok.SneakyThrows;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.BufferedSink;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 本地文件上传
+ *
+ * 请求体由FileChannel.transferTo按位置分段写入http连接，不需要把整个分片读入内存，也不需要预先计算分片摘要。
+ * 大文件按分片并行上传，各分片按位置读取同一个FileChannel，任一分片失败时取消整个分片上传。
+ * 校验和需要在请求头中先于请求体发送，开启校验和时各分片在上传线程中读入内存，读取的同时计算校验和，
+ * 再从内存发送，文件只读一遍，内存占用为concurrency个分片；创建分片上传时声明算法，合并时提交各分片的校验和
+ */
+public class FileUploader {
+
+    /** 开启校验和时每次读取的长度 */
+    private static final int CHECKSUM_BUFFER_SIZE = 1024 * 1024;
+
+    /** 读取文件的堆外缓冲区，每个上传线程一个，读取时不需要再经过JDK的临时缓冲区 */
+    private static final ThreadLocal<ByteBuffer> CHECKSUM_BUFFER = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(CHECKSUM_BUFFER_SIZE));
+
+    private final OkHttpClient httpClient;
+
+    private final CustomMinioClient customMinioClient;
+
+    private final MinioPresigner minioPresigner;
+
+    private final ExecutorService executor;
+
+    private final long partSize;
+
+    private final int concurrency;
+
+    /**
+     * 校验和算法，为空时不计算
+     */
+    private final ChecksumAlgorithm checksumAlgorithm;
+
+    public FileUploader(OkHttpClient httpClient, CustomMinioClient customMinioClient, MinioPresigner minioPresigner,
+                        ExecutorService executor, long partSize, int concurrency) {
+        this(httpClient, customMinioClient, minioPresigner, executor, partSize, concurrency, null);
+    }
+
+    /**
+     * @param checksumAlgorithm 校验和算法，为空时不计算
+     */
+    public FileUploader(OkHttpClient httpClient, CustomMinioClient customMinioClient, MinioPresigner minioPresigner,
+                        ExecutorService executor, long partSize, int concurrency, ChecksumAlgorithm checksumAlgorithm) {
+        if (partSize < MultipartUploader.MIN_PART_SIZE) {
+            throw new IllegalArgumentException("partSize不能小于5MB");
+        }
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("concurrency必须大于0");
+        }
+
+        this.httpClient = httpClient;
+        this.customMinioClient = customMinioClient;
+        this.minioPresigner = minioPresigner;
+        this.executor = executor;
+        this.partSize = partSize;
+        this.concurrency = concurrency;
+        this.checksumAlgorithm = checksumAlgorithm;
+    }
+
+    /**
+     * 上传本地文件，文件名称相同会覆盖
+     *
+     * @param bucket 存储桶
+     * @param objectName 对象名
+     * @param file 本地文件
+     * @param contentType 文件类型，可为空
+     * @return 上传结果，开启校验时带有校验和
+     */
+    @SneakyThrows
+    public UploadResult upload(String bucket, String objectName, Path file, String contentType) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < partSize) {
+                PartContent content = read(channel, 0, size, contentType);
+                Map<String, String> checksumHeaders = checksumHeaders(content.digest);
+                Request request = request(minioPresigner.presign(Method.PUT, bucket, objectName, MinioPresigner.REQUEST_EXPIRY, null, checksumHeaders),
+                        content.body, checksumHeaders);
+                try (Response response = execute(request, bucket, objectName)) {
+                    return new UploadResult(response.headers(), bucket, null, objectName,
+                            trimEtag(response.header("ETag")), response.header("x-amz-version-id"),
+                            size, checksumAlgorithm, content.digest == null ? null : ChecksumAlgorithm.encode(content.digest), null);
+                }
+            }
+
+            return uploadParts(bucket, objectName, channel, size, contentType);
+        }
+    }
+
+    @SneakyThrows
+    private UploadResult uploadParts(String bucket, String objectName, FileChannel channel, long size, String contentType) {
+        // 文件过大时放大分片，保证不超过分片数上限
+        long actualPartSize = Math.max(partSize, (size + MultipartUploader.MAX_PARTS - 1) / MultipartUploader.MAX_PARTS);
+        int partCount = (int) ((size + actualPartSize - 1) / actualPartSize);
+
+        Multimap<String, String> headers = HashMultimap.create();
+        if (contentType != null) {
+            headers.put("Content-Type", contentType);
+        }
+        if (checksumAlgorithm != null && checksumAlgorithm.getAlgorithm() != null) {
+            headers.put(ChecksumAlgorithm.ALGORITHM_HEADER, checksumAlgorithm.getAlgorithm());
+        }
+        String uploadId = customMinioClient.createMultipartUpload(bucket, null, objectName, headers, null).result().uploadId();
+
+        List<Future<UploadedPart>> futures = new ArrayList<>(partCount);
+        Semaphore inFlight = new Semaphore(concurrency);
+        AtomicBoolean failed = new AtomicBoolean();
+        try {
+            for (int partNumber = 1; partNumber <= partCount && !failed.get(); partNumber++) {
+                long position = (partNumber - 1) * actualPartSize;
+                long length = Math.min(actualPartSize, size - position);
+
+                inFlight.acquire();
+                futures.add(executor.submit(uploadPart(bucket, objectName, uploadId, partNumber,
+                        channel, position, length, inFlight, failed)));
+            }
+
+            Part[] parts = new Part[futures.size()];
+            List<byte[]> digests = new ArrayList<>(parts.length);
+            for (int i = 0; i < parts.length; i++) {
+                UploadedPart uploaded = futures.get(i).get();
+                parts[i] = uploaded.part;
+                digests.add(uploaded.digest);
+            }
+
+            List<String> partChecksums = null;
+            if (checksumAlgorithm != null) {
+                partChecksums = new ArrayList<>(digests.size());
+                for (byte[] digest : digests) {
+                    partChecksums.add(ChecksumAlgorithm.encode(digest));
+                }
+            }
+            ObjectWriteResponse response = customMinioClient.completeMultipartUploadWithChecksums(bucket, null, objectName, uploadId, parts,
+                    checksumAlgorithm, partChecksums);
+            if (checksumAlgorithm == null) {
+                return new UploadResult(response, size, null, null, null);
+            }
+
+            return new UploadResult(response, size, checksumAlgorithm, checksumAlgorithm.composite(digests), partChecksums);
+        } catch (Throwable e) {
+            abort(bucket, objectName, uploadId, futures);
+            throw e instanceof ExecutionException ? e.getCause() : e;
+        }
+    }
+
+    private Callable<UploadedPart> uploadPart(String bucket, String objectName, String uploadId, int partNumber,
+                                              FileChannel channel, long position, long length, Semaphore inFlight, AtomicBoolean failed) {
+        return () -> {
+            try {
+                PartContent content = read(channel, position, length, null);
+                Map<String, String> checksumHeaders = checksumHeaders(content.digest);
+
+                Map<String, String> params = new HashMap<>(4);
+                params.put("uploadId", uploadId);
+                params.put("partNumber", String.valueOf(partNumber));
+                Request request = request(minioPresigner.presign(Method.PUT, bucket, objectName, MinioPresigner.REQUEST_EXPIRY, params, checksumHeaders),
+                        content.body, checksumHeaders);
+                try (Response response = execute(request, bucket, objectName)) {
+                    return new UploadedPart(new Part(partNumber, trimEtag(response.header("ETag"))), content.digest);
+                }
+            } catch (Throwable e) {
+                failed.set(true);
+                throw e;
+            } finally {
+                inFlight.release();
+            }
+        };
+    }
+
+    /**
+     * 等待已提交的分片结束后再取消，避免取消之后仍有分片写入
+     */
+    private void abort(String bucket, String objectName, String uploadId, List<Future<UploadedPart>> futures) {
+        for (Future<UploadedPart> future : futures) {
+            try {
+                future.get();
+            } catch (Exception ignored) {
+                // 失败原因由调用方处理
+            }
+        }
+
+        try {
+            customMinioClient.abortMultipartUpload(bucket, null, objectName, uploadId, null, null);
+        } catch (Exception ignored) {
+            // 取消失败时残留的分片由存储桶生命周期规则清理
+        }
+    }
+
+    /**
+     * 文件中一段区域的请求体，未开启校验时由transferTo发送；开启校验时按位置读入内存，读取的同时计算校验和，不改变channel的位置
+     */
+    private PartContent read(FileChannel channel, long position, long length, String contentType) throws IOException {
+        if (checksumAlgorithm == null) {
+            return new PartContent(new FileRegionBody(channel, position, length, contentType), null);
+        }
+        if (length > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("开启校验和时分片不能超过2GB");
+        }
+
+        byte[] data = new byte[(int) length];
+        ChecksumAlgorithm.Hasher hasher = checksumAlgorithm.newHasher();
+        ByteBuffer buffer = CHECKSUM_BUFFER.get();
+        int read = 0;
+        while (read < length) {
+            buffer.clear();
+            if (length - read < buffer.capacity()) {
+                buffer.limit((int) (length - read));
+            }
+            int count = channel.read(buffer, position + read);
+            if (count < 0) {
+                throw new IOException("文件在上传过程中被截断");
+            }
+            buffer.flip();
+            hasher.update(buffer.duplicate());
+            buffer.get(data, read, count);
+            read += count;
+        }
+
+        return new PartContent(RequestBody.create(data, contentType == null ? null : MediaType.parse(contentType)), hasher.digest());
+    }
+
+    /**
+     * 携带校验和的请求头，同时纳入预签名
+     */
+    private Map<String, String> checksumHeaders(byte[] digest) {
+        if (digest == null) {
+            return null;
+        }
+
+        return Collections.singletonMap(checksumAlgorithm.getHeader(), ChecksumAlgorithm.encode(digest));
+    }
+
+    private static Request request(String url, RequestBody body, Map<String, String> headers) {
+        Request.Builder builder = new Request.Builder().url(url).put(body);
+        if (headers != null) {
+            for (Map.Entry<String, String> entry : headers.entrySet()) {
+                builder.header(entry.getKey(), entry.getValue());
+            }
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * 发出请求，失败时按SDK的方式抛出ErrorResponseException
+     */
+    private Response execute(Request request, String bucket, String objectName) throws IOException, ErrorResponseException {
+        Response response = httpClient.newCall(request).execute();
+        if (response.isSuccessful()) {
+            return response;
+        }
+
+        try {
+            String body = response.body() == null ? "" : response.body().string();
+            ErrorResponse error;
+            try {
+                error = Xml.unmarshal(ErrorResponse.class, body);
+            } catch (Exception e) {
+                error = new ErrorResponse(String.valueOf(response.code()), response.message(), bucket, objectName,
+                        request.url().encodedPath(), response.header("x-amz-request-id"), response.header("x-amz-id-2"));
+            }
+            throw new ErrorResponseException(error, response, null);
+        } finally {
+            response.close();
+        }
+    }
+
+    private static String trimEtag(String etag) {
+        if (etag == null) {
+            return null;
+        }
+
+        return etag.replace("\"", "");
+    }
+
+    /**
+     * 已上传的分片及其校验和，未开启校验时digest为空
+     */
+    private static class UploadedPart {
+
+        private final Part part;
+
+        private final byte[] digest;
+
+        private UploadedPart(Part part, byte[] digest) {
+            this.part = part;
+            this.digest = digest;
+        }
+    }
+
+    /**
+     * 分片的请求体及其校验和，未开启校验时digest为空
+     */
+    private static class PartContent {
+
+        private final RequestBody body;
+
+        private final byte[] digest;
+
+        private PartContent(RequestBody body, byte[] digest) {
+            this.body = body;
+            this.digest = digest;
+        }
+    }
+
+    /**
+     * 文件中一段区域作为请求体，重试时可以重新写出
+     */
+    private static class FileRegionBody extends RequestBody {
+
+        private final FileChannel channel;
+
+        private final long position;
+
+        private final long length;
+
+        private final MediaType contentType;
+
+        private FileRegionBody(FileChannel channel, long position, long length, String contentType) {
+            this.channel = channel;
+            this.position = position;
+            this.length = length;
+            this.contentType = contentType == null ? null : MediaType.parse(contentType);
+        }
+
+        @Override
+        public MediaType contentType() {
+            return contentType;
+        }
+
+        @Override
+        public long contentLength() {
+            return length;
+        }
+
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            // 按位置读取，不改变channel的位置，多个分片可以同时读取
+            long written = 0;
+            while (written < length) {
+                long count = channel.transferTo(position + written, length - written, sink);
+                if (count <= 0) {
+                    throw new IOException("文件在上传过程中被截断");
+                }
+                written += count;
+            }
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package com.minio.utils;
+
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 多个minio节点之间的负载均衡
+ *
+ * 作为OkHttp拦截器，把发往主地址的请求改写到选中的节点，Host请求头保持主地址，签名不受影响，
+ * 因此SDK请求和预签名请求共用一个客户端即可分散到各节点。节点按最少在途请求或二选一（p2c）选择，
+ * 在途数从发出请求到响应体关闭为止；带uploadId的请求按uploadId固定到同一节点。
+ * 请求出现网络异常或健康检查失败的节点移出轮转，由定时的健康检查恢复；全部不可用时仍在所有节点中选择
+ */
+@Slf4j
+public class MinioEndpointPool implements Interceptor {
+
+    public static final String LEAST_OUTSTANDING = "least-outstanding";
+
+    public static final String POWER_OF_TWO = "p2c";
+
+    private final HttpUrl primary;
+
+    private final String hostHeader;
+
+    private final List<Node> nodes;
+
+    private final boolean leastOutstanding;
+
+    private final OkHttpClient healthClient;
+
+    private final String healthCheckPath;
+
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * @param primary 签名使用的主地址，发往其他地址的请求不改写
+     * @param endpoints 各节点地址
+     * @param balancer 负载均衡方式：p2c、least-outstanding
+     * @param httpClient 健康检查使用的客户端，不能包含本拦截器
+     * @param healthCheckPath 健康检查地址
+     * @param healthCheckInterval 健康检查间隔（毫秒）
+     * @param healthCheckTimeout 健康检查超时（毫秒）
+     */
+    public MinioEndpointPool(String primary, List<String> endpoints, String balancer, OkHttpClient httpClient,
+                             String healthCheckPath, long healthCheckInterval, long healthCheckTimeout) {
+        if (!POWER_OF_TWO.equalsIgnoreCase(balancer) && !LEAST_OUTSTANDING.equalsIgnoreCase(balancer)) {
+            throw new IllegalArgumentException("balancer只支持" + POWER_OF_TWO + "和" + LEAST_OUTSTANDING);
+        }
+        if (healthCheckInterval < 1) {
+            throw new IllegalArgumentException("healthCheckInterval必须大于0");
+        }
+
+        this.primary = parse(primary);
+        this.hostHeader = hostHeader(this.primary);
+        List<Node> list = new ArrayList<>(endpoints.size());
+        for (String endpoint : endpoints) {
+            list.add(new Node(parse(endpoint), list.size()));
+        }
+        if (list.isEmpty()) {
+            throw new IllegalArgumentException("endpoints不能为空");
+        }
+        this.nodes = Collections.unmodifiableList(list);
+        this.leastOutstanding = LEAST_OUTSTANDING.equalsIgnoreCase(balancer);
+        this.healthClient = httpClient.newBuilder().callTimeout(healthCheckTimeout, TimeUnit.MILLISECONDS).build();
+        this.healthCheckPath = healthCheckPath;
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                ThreadFactoryBuilder.create().setNamePrefix("minio-health-").setDaemon(true).build());
+        scheduler.scheduleWithFixedDelay(this::checkHealth, healthCheckInterval, healthCheckInterval, TimeUnit.MILLISECONDS);
+    }
+
+    public List<Node> getNodes() {
+        return nodes;
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        HttpUrl url = request.url();
+        if (!url.host().equals(primary.host()) || url.port() != primary.port()) {
+            return chain.proceed(request);
+        }
+
+        Node node = select(url.queryParameter("uploadId"));
+        HttpUrl target = url.newBuilder().scheme(node.url.scheme()).host(node.url.host()).port(node.url.port()).build();
+        Request.Builder builder = request.newBuilder().url(target);
+        // SDK已按主地址设置Host并签名，预签名请求由这里补上
+        if (request.header("Host") == null) {
+            builder.header("Host", hostHeader);
+        }
+
+        node.outstanding.incrementAndGet();
+        Response response;
+        try {
+            response = chain.proceed(builder.build());
+        } catch (IOException e) {
+            node.outstanding.decrementAndGet();
+            node.markDown(e);
+            throw e;
+        }
+
+        ResponseBody body = response.body();
+        if (body == null) {
+            node.outstanding.decrementAndGet();
+            return response;
+        }
+
+        return response.newBuilder().body(new TrackedBody(body, node)).build();
+    }
+
+    /**
+     * 带uploadId时按最高随机权重（rendezvous hashing）固定节点，节点增减只影响其上的uploadId
+     */
+    private Node select(String uploadId) {
+        List<Node> candidates = healthy();
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+
+        if (uploadId != null) {
+            Node best = null;
+            int bestWeight = 0;
+            for (Node node : candidates) {
+                int weight = mix(uploadId.hashCode() ^ node.seed);
+                if (best == null || weight > bestWeight) {
+                    best = node;
+                    bestWeight = weight;
+                }
+            }
+            return best;
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (!leastOutstanding) {
+            // 随机取两个不同的节点，选在途数较少的
+            int i = random.nextInt(candidates.size());
+            int j = random.nextInt(candidates.size() - 1);
+            if (j >= i) {
+                j++;
+            }
+            Node first = candidates.get(i);
+            Node second = candidates.get(j);
+            return second.outstanding.get() < first.outstanding.get() ? second : first;
+        }
+
+        // 从随机位置开始扫描，在途数相同时不总是落在第一个节点
+        int offset = random.nextInt(candidates.size());
+        Node best = null;
+        for (int i = 0; i < candidates.size(); i++) {
+            Node node = candidates.get((offset + i) % candidates.size());
+            if (best == null || node.outstanding.get() < best.outstanding.get()) {
+                best = node;
+            }
+        }
+        return best;
+    }
+
+    private List<Node> healthy() {
+        List<Node> healthy = null;
+        for (Node node : nodes) {
+            if (!node.healthy) {
+                if (healthy == null) {
+                    healthy = new ArrayList<>(nodes.subList(0, node.index));
+                }
+            } else if (healthy != null) {
+                healthy.add(node);
+            }
+        }
+
+        if (healthy == null) {
+            return nodes;
+        }
+
+        return healthy.isEmpty() ? nodes : healthy;
+    }
+
+    private void checkHealth() {
+        for (Node node : nodes) {
+            Request request = new Request.Builder().url(node.url.resolve(healthCheckPath)).get().build();
+            try (Response response = healthClient.newCall(request).execute()) {
+                if (response.isSuccessful()) {
+                    if (!node.healthy) {
+                        log.info("minio节点{}恢复", node.url);
+                    }
+                    node.healthy = true;
+                } else {
+                    node.markDown(new IOException("健康检查返回" + response.code()));
+                }
+            } catch (Exception e) {
+                node.markDown(e);
+            }
+        }
+    }
+
+    private static HttpUrl parse(String endpoint) {
+        HttpUrl url = HttpUrl.parse(endpoint);
+        if (url == null) {
+            throw new IllegalArgumentException("无效的minio地址：" + endpoint);
+        }
+
+        return url;
+    }
+
+    private static String hostHeader(HttpUrl url) {
+        String host = url.host().contains(":") ? "[" + url.host() + "]" : url.host();
+        return url.port() == HttpUrl.defaultPort(url.scheme()) ? host : host + ":" + url.port();
+    }
+
+    /**
+     * murmur3的fmix32，打散String.hashCode的低位
+     */
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    /**
+     * 单个节点
+     */
+    public static class Node {
+
+        private final HttpUrl url;
+
+        private final int index;
+
+        private final int seed;
+
+        private final AtomicInteger outstanding = new AtomicInteger();
+
+        private volatile boolean healthy = true;
+
+        private Node(HttpUrl url, int index) {
+            this.url = url;
+            this.index = index;
+            this.seed = mix(url.toString().hashCode());
+        }
+
+        public String getEndpoint() {
+            return url.toString();
+        }
+
+        public int getOutstanding() {
+            return outstanding.get();
+        }
+
+        public boolean isHealthy() {
+            return healthy;
+        }
+
+        private void markDown(Exception e) {
+            if (healthy) {
+                log.warn("minio节点{}不可用，移出轮转：{}", url, e.getMessage());
+            }
+            healthy = false;
+        }
+    }
+
+    /**
+     * 响应体关闭时减少节点的在途数
+     */
+    private static class TrackedBody extends ResponseBody {
+
+        private final ResponseBody delegate;
+
+        private final BufferedSource source;
+
+        private TrackedBody(ResponseBody delegate, Node node) {
+            this.delegate = delegate;
+            AtomicBoolean closed = new AtomicBoolean();
+            this.source = Okio.buffer(new ForwardingSource(delegate.source()) {
+                @Override
+                public void close() throws IOException {
+                    if (closed.compareAndSet(false, true)) {
+                        node.outstanding.decrementAndGet();
+                    }
+                    super.close();
+                }
+            });
+        }
+
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return delegate.contentLength();
+        }
+
+        @Override
+        public BufferedSource source() {
+            return source;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.minio.utils;
+
+import com.minio.properties.MinioProperties;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import javax.net.SocketFactory;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按配置创建minio使用的OkHttpClient
+ *
+ * SDK默认的客户端只保留5个空闲连接，高并发时连接反复建立和关闭，HTTPS下每次都要重新握手。
+ * 这里按配置放大连接池和调度器，并可以设置socket缓冲区和启动时预先建立连接
+ */
+@Slf4j
+public final class MinioHttpClientFactory {
+
+    private MinioHttpClientFactory() {
+    }
+
+    public static OkHttpClient create(MinioProperties.Http http) {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(http.getMaxRequests());
+        dispatcher.setMaxRequestsPerHost(http.getMaxRequestsPerHost());
+
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(http.getMaxIdleConnections(), http.getKeepAlive().toMillis(), TimeUnit.MILLISECONDS))
+                .dispatcher(dispatcher)
+                .connectTimeout(http.getConnectTimeout())
+                .readTimeout(http.getReadTimeout())
+                .writeTimeout(http.getWriteTimeout())
+                .callTimeout(http.getCallTimeout())
+                .retryOnConnectionFailure(http.isRetryOnConnectionFailure())
+                // 与SDK默认保持一致，HTTP/2需服务端通过ALPN协商
+                .protocols(http.isHttp2() ? Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1) : Collections.singletonList(Protocol.HTTP_1_1));
+
+        int sendBufferSize = http.getSendBufferSize() == null ? 0 : (int) http.getSendBufferSize().toBytes();
+        int receiveBufferSize = http.getReceiveBufferSize() == null ? 0 : (int) http.getReceiveBufferSize().toBytes();
+        if (sendBufferSize > 0 || receiveBufferSize > 0) {
+            builder.socketFactory(new BufferedSocketFactory(SocketFactory.getDefault(), sendBufferSize, receiveBufferSize));
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * 并发发送若干个请求，让连接池提前建立连接（包括TLS握手），最多等待一个连接超时时间
+     *
+     * @param client http客户端
+     * @param endpoint minio服务地址
+     * @param connections 预先建立的连接数
+     */
+    public static void prewarm(OkHttpClient client, String endpoint, int connections) {
+        if (connections < 1) {
+            return;
+        }
+
+        // 匿名HEAD请求会被拒绝，但连接已经建立并放回连接池
+        Request request = new Request.Builder().url(endpoint).head().build();
+        CountDownLatch latch = new CountDownLatch(connections);
+        for (int i = 0; i < connections; i++) {
+            client.newCall(request).enqueue(new Callback() {
+                @Override
+                public void onFailure(Call call, IOException e) {
+                    log.warn("minio连接预热失败：{}", e.getMessage());
+                    latch.countDown();
+                }
+
+                @Override
+                public void onResponse(Call call, Response response) {
+                    response.close();
+                    latch.countDown();
+                }
+            });
+        }
+
+        try {
+            if (!latch.await(client.connectTimeoutMillis() + client.readTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("minio连接预热超时");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 创建socket后设置收发缓冲区大小
+     */
+    private static class BufferedSocketFactory extends SocketFactory {
+
+        private final SocketFactory delegate;
+
+        private final int sendBufferSize;
+
+        private final int receiveBufferSize;
+
+        private BufferedSocketFactory(SocketFactory delegate, int sendBufferSize, int receiveBufferSize) {
+            this.delegate = delegate;
+            this.sendBufferSize = sendBufferSize;
+            this.receiveBufferSize = receiveBufferSize;
+        }
+
+        @Override
+        public Socket createSocket() throws IOException {
+            return configure(delegate.createSocket());
+        }
+
+        @Override
+        public Socket createSocket(String host, int port) throws IOException {
+            return configure(delegate.createSocket(host, port));
+        }
+
+        @Override
+        public Socket createSocket(String host, int port, InetAddress localHost, int localPort) throws IOException {
+            return configure(delegate.createSocket(host, port, localHost, localPort));
+        }
+
+        @Override
+        public Socket createSocket(InetAddress host, int port) throws IOException {
+            return configure(delegate.createSocket(host, port));
+        }
+
+        @Override
+        public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort) throws IOException {
+            return configure(delegate.createSocket(address, port, localAddress, localPort));
+        }
+
+        private Socket configure(Socket socket) throws IOException {
+            // 接收缓冲区需要在连接前设置才能影响TCP窗口协商
+            if (sendBufferSize > 0) {
+                socket.setSendBufferSize(sendBufferSize);
+            }
+            if (receiveBufferSize > 0) {
+                socket.setReceiveBufferSize(receiveBufferSize);
+            }
+
+            return socket;
+        }
+    }
+}
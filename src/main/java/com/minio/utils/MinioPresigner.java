@@ -0,0 +1,445 @@
+package com.minio.utils;
+
+import io.minio.http.Method;
+import lombok.SneakyThrows;
+import okhttp3.HttpUrl;
+import org.apache.commons.lang3.StringUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.IntStream;
+
+/**
+ * 离线预签名工具，按AWS Signature V4生成path-style的预签名地址，不产生任何网络请求
+ *
+ * 签名密钥按(日期, 区域, 服务)缓存，批量生成时共享同一时间戳和规范请求前缀的摘要状态，
+ * 每个地址只需要对变化的部分（分片序号或对象名）及其后的尾部做一次摘要和一次HMAC。
+ * 没有配置区域时由RegionResolver按存储桶查询，与MinioClient的处理一致
+ */
+public class MinioPresigner {
+
+    private static final String ALGORITHM = "AWS4-HMAC-SHA256";
+
+    private static final String SERVICE = "s3";
+
+    private static final String TERMINATOR = "aws4_request";
+
+    private static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+
+    private static final String HMAC_SHA256 = "HmacSHA256";
+
+    private static final DateTimeFormatter AMZ_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+
+    private static final DateTimeFormatter SIGNER_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /** 预签名地址最长有效期：7天 */
+    public static final int MAX_EXPIRY = 7 * 24 * 3600;
+
+    /** 内部请求的签名有效期，只需覆盖请求发出前的时间 */
+    public static final int REQUEST_EXPIRY = 900;
+
+    private final String baseUrl;
+
+    private final String host;
+
+    private final RegionResolver regionResolver;
+
+    private final String accessKey;
+
+    private final String secretKey;
+
+    private final int parallelThreshold;
+
+    /** 按区域缓存的当天签名密钥 */
+    private final ConcurrentMap<String, SigningKey> signingKeys = new ConcurrentHashMap<>();
+
+    /**
+     * @param region 签名使用的区域，不能为空；区域未知时使用RegionResolver
+     */
+    public MinioPresigner(String endpoint, String region, String accessKey, String secretKey, int parallelThreshold) {
+        this(endpoint, fixedRegion(region), accessKey, secretKey, parallelThreshold);
+    }
+
+    /**
+     * @param regionResolver 按存储桶取得签名使用的区域，例如查询存储桶所在区域
+     */
+    public MinioPresigner(String endpoint, RegionResolver regionResolver, String accessKey, String secretKey, int parallelThreshold) {
+        HttpUrl url = HttpUrl.parse(endpoint);
+        if (url == null) {
+            throw new IllegalArgumentException("endpoint格式错误：" + endpoint);
+        }
+
+        String host = url.host();
+        if (url.port() != HttpUrl.defaultPort(url.scheme())) {
+            host = host + ":" + url.port();
+        }
+
+        this.host = host;
+        this.baseUrl = url.scheme() + "://" + host;
+        this.regionResolver = regionResolver;
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * 生成单个预签名地址
+     *
+     * @param method 请求方法
+     * @param bucket 存储桶
+     * @param objectName 对象名
+     * @param expiry 有效期（秒）
+     * @param extraQueryParams 额外查询参数，可为空
+     * @return 预签名地址
+     */
+    public String presign(Method method, String bucket, String objectName, int expiry, Map<String, String> extraQueryParams) {
+        return batch(method, bucket, objectName, expiry, extraQueryParams, null, null).sign(null);
+    }
+
+    /**
+     * 生成单个预签名地址，并把指定的请求头纳入签名，发送请求时必须携带相同的请求头
+     *
+     * @param method 请求方法
+     * @param bucket 存储桶
+     * @param objectName 对象名
+     * @param expiry 有效期（秒）
+     * @param extraQueryParams 额外查询参数，可为空
+     * @param signedHeaders 需要签名的请求头，例如x-amz-checksum-crc32c
+     * @return 预签名地址
+     */
+    public String presign(Method method, String bucket, String objectName, int expiry, Map<String, String> extraQueryParams, Map<String, String> signedHeaders) {
+        return batch(method, bucket, objectName, expiry, extraQueryParams, null, signedHeaders).sign(null);
+    }
+
+    /**
+     * 批量生成分片上传地址，partNumber从1到totalPart
+     *
+     * @param bucket 存储桶
+     * @param objectName 对象名
+     * @param uploadId 上传ID
+     * @param totalPart 总分片数
+     * @param expiry 有效期（秒）
+     * @return 按分片顺序排列的上传地址
+     */
+    public List<String> presignParts(String bucket, String objectName, String uploadId, int totalPart, int expiry) {
+        if (totalPart < 1 || totalPart > MultipartUploader.MAX_PARTS) {
+            throw new IllegalArgumentException("totalPart必须在1到" + MultipartUploader.MAX_PARTS + "之间");
+        }
+
+        int[] partNumbers = new int[totalPart];
+        for (int i = 0; i < totalPart; i++) {
+            partNumbers[i] = i + 1;
+        }
+
+        return presignParts(bucket, objectName, uploadId, partNumbers, expiry);
+    }
+
+    /**
+     * 批量生成指定分片的上传地址
+     *
+     * @param bucket 存储桶
+     * @param objectName 对象名
+     * @param uploadId 上传ID
+     * @param partNumbers 分片序号
+     * @param expiry 有效期（秒）
+     * @return 与partNumbers顺序一致的上传地址
+     */
+    public List<String> presignParts(String bucket, String objectName, String uploadId, int[] partNumbers, int expiry) {
+        Map<String, String> params = new TreeMap<>();
+        params.put("uploadId", uploadId);
+        Batch batch = batch(Method.PUT, bucket, objectName, expiry, params, "partNumber", null);
+
+        String[] urls = new String[partNumbers.length];
+        IntStream range = IntStream.range(0, partNumbers.length);
+        if (partNumbers.length >= parallelThreshold) {
+            range = range.parallel();
+        }
+        range.forEach(i -> urls[i] = batch.sign(String.valueOf(partNumbers[i])));
+
+        return Arrays.asList(urls);
+    }
+
+    /**
+     * 批量生成同一存储桶下多个对象的预签名地址，例如相册一页的缩略图
+     *
+     * @param method 请求方法
+     * @param bucket 存储桶
+     * @param objectNames 对象名，重复的只签名一次
+     * @param expiry 有效期（秒）
+     * @return 对象名到预签名地址的映射，按传入顺序排列
+     */
+    public Map<String, String> presignObjects(Method method, String bucket, Collection<String> objectNames, int expiry) {
+        Batch batch = batch(method, bucket, null, expiry, null, null, null);
+
+        String[] names = objectNames.toArray(new String[0]);
+        String[] urls = new String[names.length];
+        IntStream range = IntStream.range(0, names.length);
+        if (names.length >= parallelThreshold) {
+            range = range.parallel();
+        }
+        range.forEach(i -> urls[i] = batch.sign(encodePath(names[i])));
+
+        Map<String, String> result = new LinkedHashMap<>((int) (names.length / 0.75f) + 1);
+        for (int i = 0; i < names.length; i++) {
+            result.put(names[i], urls[i]);
+        }
+
+        return result;
+    }
+
+    /**
+     * 为同一时间戳、同一方法下的一组请求准备共享的签名状态
+     *
+     * @param objectName 对象名，为空表示每个地址的对象名不同，此时variableParam也必须为空
+     * @param variableParam 每个地址取值不同的查询参数名，为空表示没有变化的参数
+     * @param signedHeaders 除host外需要签名的请求头，可为空
+     */
+    @SneakyThrows
+    Batch batch(Method method, String bucket, String objectName, int expiry, Map<String, String> extraQueryParams, String variableParam,
+                Map<String, String> signedHeaders) {
+        if (expiry < 1 || expiry > MAX_EXPIRY) {
+            throw new IllegalArgumentException("expiry必须在1到" + MAX_EXPIRY + "秒之间");
+        }
+
+        String region = regionResolver.resolve(bucket);
+        ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        String amzDate = now.format(AMZ_DATE_FORMAT);
+        String date = now.format(SIGNER_DATE_FORMAT);
+        String scope = date + "/" + region + "/" + SERVICE + "/" + TERMINATOR;
+
+        Map<String, String> query = new TreeMap<>();
+        query.put("X-Amz-Algorithm", ALGORITHM);
+        query.put("X-Amz-Credential", encode(accessKey + "/" + scope));
+        query.put("X-Amz-Date", amzDate);
+        query.put("X-Amz-Expires", String.valueOf(expiry));
+        // 规范请求头按小写名称排序
+        Map<String, String> headers = new TreeMap<>();
+        headers.put("host", host);
+        if (signedHeaders != null) {
+            for (Map.Entry<String, String> entry : signedHeaders.entrySet()) {
+                headers.put(entry.getKey().toLowerCase(), entry.getValue().trim());
+            }
+        }
+        StringBuilder canonicalHeaders = new StringBuilder();
+        for (Map.Entry<String, String> entry : headers.entrySet()) {
+            canonicalHeaders.append(entry.getKey()).append(':').append(entry.getValue()).append('\n');
+        }
+        String signedHeaderNames = String.join(";", headers.keySet());
+        query.put("X-Amz-SignedHeaders", encode(signedHeaderNames));
+        if (extraQueryParams != null) {
+            for (Map.Entry<String, String> entry : extraQueryParams.entrySet()) {
+                query.put(encode(entry.getKey()), encode(entry.getValue()));
+            }
+        }
+        if (variableParam != null) {
+            query.put(encode(variableParam), null);
+        }
+
+        // 以变化参数的取值为界，把规范查询串拆成前后两段
+        StringBuilder head = new StringBuilder();
+        StringBuilder tail = new StringBuilder();
+        StringBuilder current = head;
+        boolean first = true;
+        for (Map.Entry<String, String> entry : query.entrySet()) {
+            if (!first) {
+                current.append('&');
+            }
+            first = false;
+            current.append(entry.getKey()).append('=');
+            if (entry.getValue() == null) {
+                current = tail;
+            } else {
+                current.append(entry.getValue());
+            }
+        }
+
+        String path = "/" + encode(bucket) + "/";
+        String requestHeaders = "\n" + canonicalHeaders + "\n" + signedHeaderNames + "\n" + UNSIGNED_PAYLOAD;
+        String requestHead;
+        String requestTail;
+        String urlHead;
+        String urlTail;
+        if (objectName == null) {
+            // 对象名变化时以对象路径为界拆分，整个查询串都在变化部分之后
+            requestHead = method.name() + "\n" + path;
+            requestTail = "\n" + head + requestHeaders;
+            urlHead = baseUrl + path;
+            urlTail = "?" + head;
+        } else {
+            path += encodePath(objectName);
+            requestHead = method.name() + "\n" + path + "\n" + head;
+            requestTail = tail + requestHeaders;
+            urlHead = baseUrl + path + "?" + head;
+            urlTail = tail.toString();
+        }
+
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        digest.update(requestHead.getBytes(StandardCharsets.UTF_8));
+
+        Mac mac = Mac.getInstance(HMAC_SHA256);
+        mac.init(new SecretKeySpec(signingKey(date, region), HMAC_SHA256));
+        mac.update((ALGORITHM + "\n" + amzDate + "\n" + scope + "\n").getBytes(StandardCharsets.UTF_8));
+
+        return new Batch(urlHead, urlTail, requestTail, digest, mac);
+    }
+
+    /**
+     * 签名密钥只与日期、区域和服务相关，同一天内复用
+     */
+    private byte[] signingKey(String date, String region) throws Exception {
+        SigningKey cached = signingKeys.get(region);
+        if (cached != null && cached.date.equals(date)) {
+            return cached.key;
+        }
+
+        byte[] key = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), date);
+        key = hmac(key, region);
+        key = hmac(key, SERVICE);
+        key = hmac(key, TERMINATOR);
+
+        signingKeys.put(region, new SigningKey(date, key));
+
+        return key;
+    }
+
+    private static RegionResolver fixedRegion(String region) {
+        if (StringUtils.isBlank(region)) {
+            throw new IllegalArgumentException("region不能为空，区域未知时使用RegionResolver");
+        }
+
+        return bucket -> region;
+    }
+
+    private static byte[] hmac(byte[] key, String data) throws Exception {
+        Mac mac = Mac.getInstance(HMAC_SHA256);
+        mac.init(new SecretKeySpec(key, HMAC_SHA256));
+        return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String hex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0x0f];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0x0f];
+        }
+
+        return new String(chars);
+    }
+
+    /**
+     * 按SigV4的规则编码，只保留字母、数字和-_.~
+     */
+    static String encode(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        StringBuilder builder = new StringBuilder(bytes.length + 16);
+        for (byte b : bytes) {
+            char c = (char) (b & 0xff);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == '~') {
+                builder.append(c);
+            } else {
+                builder.append('%').append(Character.toUpperCase(HEX[(b >> 4) & 0x0f])).append(Character.toUpperCase(HEX[b & 0x0f]));
+            }
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * 对象名按路径编码，保留分隔符“/”
+     */
+    static String encodePath(String objectName) {
+        StringBuilder builder = new StringBuilder(objectName.length() + 16);
+        int start = 0;
+        int index;
+        while ((index = objectName.indexOf('/', start)) >= 0) {
+            builder.append(encode(objectName.substring(start, index))).append('/');
+            start = index + 1;
+        }
+        builder.append(encode(objectName.substring(start)));
+
+        return builder.toString();
+    }
+
+    /**
+     * 按存储桶取得签名使用的区域
+     */
+    @FunctionalInterface
+    public interface RegionResolver {
+
+        String resolve(String bucket) throws Exception;
+    }
+
+    private static class SigningKey {
+
+        private final String date;
+
+        private final byte[] key;
+
+        private SigningKey(String date, byte[] key) {
+            this.date = date;
+            this.key = key;
+        }
+    }
+
+    /**
+     * 一批预签名地址共享的状态，摘要和HMAC在每次签名时克隆，可以被多个线程同时使用
+     */
+    static class Batch {
+
+        private final String urlHead;
+
+        private final String urlTail;
+
+        private final byte[] requestTail;
+
+        private final MessageDigest digest;
+
+        private final Mac mac;
+
+        private Batch(String urlHead, String urlTail, String requestTail, MessageDigest digest, Mac mac) {
+            this.urlHead = urlHead;
+            this.urlTail = urlTail;
+            this.requestTail = requestTail.getBytes(StandardCharsets.UTF_8);
+            this.digest = digest;
+            this.mac = mac;
+        }
+
+        /**
+         * @param value 变化参数的取值或对象路径，已编码；没有变化的部分时传null
+         */
+        @SneakyThrows
+        String sign(String value) {
+            MessageDigest requestDigest = (MessageDigest) digest.clone();
+            if (value != null) {
+                requestDigest.update(value.getBytes(StandardCharsets.UTF_8));
+            }
+            requestDigest.update(requestTail);
+
+            Mac requestMac = (Mac) mac.clone();
+            String signature = hex(requestMac.doFinal(hex(requestDigest.digest()).getBytes(StandardCharsets.UTF_8)));
+
+            StringBuilder url = new StringBuilder(urlHead.length() + urlTail.length() + 96).append(urlHead);
+            if (value != null) {
+                url.append(value);
+            }
+
+            return url.append(urlTail).append("&X-Amz-Signature=").append(signature).toString();
+        }
+    }
+}
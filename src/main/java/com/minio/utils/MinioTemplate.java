@@ -1,45 +1,358 @@
 package com.minio.utils;
 
+import cn.hutool.core.io.IoUtil;
+import cn.hutool.core.thread.ExecutorBuilder;
+import cn.hutool.core.thread.ThreadFactoryBuilder;
 import com.alibaba.fastjson.JSONObject;
+import com.google.common.collect.Iterators;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingInputStream;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Multimap;
+import com.minio.cache.CachedStat;
+import com.minio.cache.DiskObjectCache;
+import com.minio.cache.InMemoryStatObjectCache;
+import com.minio.cache.StatObjectCache;
+import com.minio.codec.ObjectCodec;
+import com.minio.codec.ObjectCompressor;
 import com.minio.enums.MimeTypeEnum;
+import com.minio.metrics.MinioMetrics;
+import com.minio.metrics.Operation;
+import com.minio.pack.PackIndex;
+import com.minio.pack.PackedObject;
+import com.minio.pack.SmallObjectPacker;
 import com.minio.properties.MinioProperties;
+import com.minio.resilience.MinioResilience;
+import com.minio.session.UploadSession;
+import com.minio.session.UploadSessionStore;
 import io.minio.*;
 import io.minio.errors.*;
 import io.minio.http.Method;
+import io.minio.messages.Item;
+import io.minio.messages.ListPartsResult;
 import io.minio.messages.Part;
+import lombok.Getter;
 import lombok.Setter;
 import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Headers;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * 文件服务器工具类
  */
+@Slf4j
 public class MinioTemplate {
 
+    public static final String BOOTSTRAP_ASYNC = "async";
+
+    public static final String BOOTSTRAP_SYNC = "sync";
+
+    public static final String BOOTSTRAP_LAZY = "lazy";
+
+    public static final String BOOTSTRAP_NONE = "none";
+
     @Autowired
     private MinioProperties minioProperties;
 
     @Autowired(required = false)
     private CustomMinioClient customMinioClient;
 
+    private OkHttpClient httpClient;
+
+    /**
+     * 多节点负载均衡，未配置节点时为空
+     */
+    @Getter
+    private MinioEndpointPool endpointPool;
+
+    private MinioPresigner minioPresigner;
+
+    /**
+     * 预览地址缓存，未开启时为空
+     */
+    @Getter
+    private PresignedUrlCache presignedUrlCache;
+
+    /**
+     * 文件元数据缓存，为空时每次查询都请求minio
+     */
+    @Setter
+    private StatObjectCache statObjectCache;
+
+    /**
+     * 正在查询的元数据，同一文件的并发查询共享一次请求
+     */
+    private final ConcurrentHashMap<String, CompletableFuture<CachedStat>> statLoading = new ConcurrentHashMap<>();
+
+    /**
+     * 文件内容的本地磁盘缓存，未开启时为空
+     */
+    @Getter
+    private DiskObjectCache objectCache;
+
+    /**
+     * 上传和下载时的流式压缩，未开启时为空
+     */
+    private ObjectCompressor compressor;
+
+    private ExecutorService uploadExecutor;
+
+    private MultipartUploader multipartUploader;
+
+    private FileUploader fileUploader;
+
+    private ExecutorService downloadExecutor;
+
+    private RangedDownloader rangedDownloader;
+
+    private ExecutorService mergeExecutor;
+
+    private ExecutorService deleteExecutor;
+
+    private BatchDeleter batchDeleter;
+
+    private ExecutorService copyExecutor;
+
+    private ExecutorService copyObjectExecutor;
+
+    private ObjectCopier objectCopier;
+
+    private ExecutorService listExecutor;
+
+    private ObjectLister objectLister;
+
+    private BulkExecutor bulkExecutor;
+
+    /**
+     * 需要确保存在的存储桶，mode为none时为空
+     */
+    private Set<String> ensureBuckets;
+
+    /**
+     * 存储桶的检查结果，同一存储桶的并发检查共享一次请求，失败的结果不保留
+     */
+    private final ConcurrentHashMap<String, CompletableFuture<Boolean>> bucketChecks = new ConcurrentHashMap<>();
+
+    private ExecutorService bootstrapExecutor;
+
+    /**
+     * 请求的重试、对冲和熔断
+     */
+    @Getter
+    private MinioResilience resilience;
+
+    /**
+     * 操作指标，默认不记录
+     */
+    private MinioMetrics metrics = MinioMetrics.NOOP;
+
+    /**
+     * 分片上传会话存储，为空时不记录会话
+     */
+    @Setter
+    private UploadSessionStore uploadSessionStore;
+
+    /**
+     * 小文件打包，未开启时为空
+     */
+    @Getter
+    private SmallObjectPacker packer;
+
     public MinioTemplate(MinioProperties minioProperties) {
+        this(minioProperties, MinioHttpClientFactory.create(minioProperties.getHttp()));
+    }
+
+    /**
+     * @param httpClient 共享的http客户端，连接池和超时由调用方配置
+     */
+    public MinioTemplate(MinioProperties minioProperties, OkHttpClient httpClient) {
         this.minioProperties = minioProperties;
-        this.customMinioClient = new CustomMinioClient(MinioClient.builder().endpoint(minioProperties.getEndpoint()).credentials(minioProperties.getAccessKey(), minioProperties.getSecretKey()).build());
+
+        // 配置了多个节点时，所有请求经过负载均衡拦截器，连接池和调度器仍与传入的客户端共享
+        MinioProperties.Cluster cluster = minioProperties.getCluster();
+        if (!cluster.getEndpoints().isEmpty()) {
+            this.endpointPool = new MinioEndpointPool(minioProperties.getEndpoint(), cluster.getEndpoints(), cluster.getBalancer(), httpClient,
+                    cluster.getHealthCheckPath(), cluster.getHealthCheckInterval().toMillis(), cluster.getHealthCheckTimeout().toMillis());
+            httpClient = httpClient.newBuilder().addInterceptor(endpointPool).build();
+        }
+        this.httpClient = httpClient;
+
+        MinioClient.Builder builder = MinioClient.builder().endpoint(minioProperties.getEndpoint()).credentials(minioProperties.getAccessKey(), minioProperties.getSecretKey())
+                .httpClient(httpClient);
+        if (StringUtils.isNotBlank(minioProperties.getRegion())) {
+            builder.region(minioProperties.getRegion());
+        }
+        this.resilience = new MinioResilience(minioProperties.getEndpoint(), minioProperties.getRetry(),
+                minioProperties.getHedge(), minioProperties.getCircuitBreaker());
+        this.customMinioClient = new CustomMinioClient(builder.build(), resilience);
+        // 没有配置区域时与SDK一样按存储桶查询，签名才能被其他区域的服务端接受
+        MinioPresigner.RegionResolver regionResolver = StringUtils.isNotBlank(minioProperties.getRegion())
+                ? bucket -> minioProperties.getRegion() : customMinioClient::resolveRegion;
+        this.minioPresigner = new MinioPresigner(minioProperties.getEndpoint(), regionResolver,
+                minioProperties.getAccessKey(), minioProperties.getSecretKey(), minioProperties.getPresign().getParallelThreshold());
+
+        MinioProperties.Presign presign = minioProperties.getPresign();
+        if (presign.getPreviewExpiry().getSeconds() > MinioPresigner.MAX_EXPIRY) {
+            throw new IllegalArgumentException("预览地址有效期不能超过7天");
+        }
+        if (presign.getCacheSize() > 0) {
+            this.presignedUrlCache = new PresignedUrlCache(presign.getCacheSize(),
+                    presign.getPreviewExpiry().toMillis(), presign.getRefreshBefore().toMillis());
+        }
+
+        MinioProperties.StatCache statCache = minioProperties.getStatCache();
+        if (statCache.getSize() > 0) {
+            this.statObjectCache = new InMemoryStatObjectCache(statCache.getSize(),
+                    statCache.getTtl().toMillis(), statCache.getNegativeTtl().toMillis());
+        }
+
+        MinioProperties.ObjectCache objectCache = minioProperties.getObjectCache();
+        if (objectCache.getMaxSize().toBytes() > 0) {
+            String directory = StringUtils.isNotBlank(objectCache.getDirectory()) ? objectCache.getDirectory()
+                    : System.getProperty("java.io.tmpdir") + File.separator + "minio-cache";
+            this.objectCache = new DiskObjectCache(Paths.get(directory), objectCache.getMaxSize().toBytes(),
+                    objectCache.getMaxObjectSize().toBytes(), objectCache.getRevalidateAfter().toMillis());
+        }
+
+        if (minioProperties.getCompression().isEnabled()) {
+            this.compressor = new ObjectCompressor(minioProperties.getCompression());
+        }
+
+        // 同时在途的分片不会超过缓冲区个数，线程数与之保持一致
+        MinioProperties.Upload upload = minioProperties.getUpload();
+        this.uploadExecutor = ExecutorBuilder.create()
+                .setCorePoolSize(upload.getBufferCount())
+                .setMaxPoolSize(upload.getBufferCount())
+                .setWorkQueue(new LinkedBlockingQueue<>())
+                .setThreadFactory(ThreadFactoryBuilder.create().setNamePrefix("minio-upload-").setDaemon(true).build())
+                .build();
+        this.multipartUploader = new MultipartUploader(customMinioClient, uploadExecutor,
+                upload.getPartSize().toBytes(), upload.getConcurrency(), upload.getBufferCount(), upload.getChecksum());
+        this.fileUploader = new FileUploader(httpClient, customMinioClient, minioPresigner, uploadExecutor,
+                upload.getPartSize().toBytes(), upload.getConcurrency(), upload.getChecksum());
+
+        MinioProperties.Download download = minioProperties.getDownload();
+        this.downloadExecutor = ExecutorBuilder.create()
+                .setCorePoolSize(download.getThreads())
+                .setMaxPoolSize(download.getThreads())
+                .setWorkQueue(new LinkedBlockingQueue<>())
+                .setThreadFactory(ThreadFactoryBuilder.create().setNamePrefix("minio-download-").setDaemon(true).build())
+                .build();
+        this.rangedDownloader = new RangedDownloader(customMinioClient, downloadExecutor,
+                download.getRangeSize().toBytes(), download.getConcurrency(), download.getMaxRetries());
+
+        MinioProperties.Merge merge = minioProperties.getMerge();
+        this.mergeExecutor = ExecutorBuilder.create()
+                .setCorePoolSize(merge.getConcurrency())
+                .setMaxPoolSize(merge.getConcurrency())
+                .useArrayBlockingQueue(merge.getQueueCapacity())
+                .setHandler(new ThreadPoolExecutor.CallerRunsPolicy())
+                .setThreadFactory(ThreadFactoryBuilder.create().setNamePrefix("minio-merge-").setDaemon(true).build())
+                .build();
+
+        // 每次删除自行限制在途批次，队列中不会堆积
+        MinioProperties.Delete delete = minioProperties.getDelete();
+        this.deleteExecutor = ExecutorBuilder.create()
+                .setCorePoolSize(delete.getConcurrency())
+                .setMaxPoolSize(delete.getConcurrency())
+                .setWorkQueue(new LinkedBlockingQueue<>())
+                .setThreadFactory(ThreadFactoryBuilder.create().setNamePrefix("minio-delete-").setDaemon(true).build())
+                .build();
+        this.batchDeleter = new BatchDeleter(customMinioClient, deleteExecutor, delete.getBatchSize(), delete.getConcurrency(), this::evict);
+
+        // 复制前缀时对象和分片分别在两个线程池中执行，等待分片的对象线程不会占满分片线程池
+        MinioProperties.Copy copy = minioProperties.getCopy();
+        this.copyExecutor = ExecutorBuilder.create()
+                .setCorePoolSize(copy.getThreads())
+                .setMaxPoolSize(copy.getThreads())
+                .setWorkQueue(new LinkedBlockingQueue<>())
+                .setThreadFactory(ThreadFactoryBuilder.create().setNamePrefix("minio-copy-").setDaemon(true).build())
+                .build();
+        this.copyObjectExecutor = ExecutorBuilder.create()
+                .setCorePoolSize(copy.getObjectConcurrency())
+                .setMaxPoolSize(copy.getObjectConcurrency())
+                .setWorkQueue(new LinkedBlockingQueue<>())
+                .setThreadFactory(ThreadFactoryBuilder.create().setNamePrefix("minio-copy-object-").setDaemon(true).build())
+                .build();
+        this.objectCopier = new ObjectCopier(customMinioClient, copyExecutor, copyObjectExecutor,
+                copy.getPartSize().toBytes(), copy.getConcurrency(), copy.getObjectConcurrency());
+
+        MinioProperties.Listing listing = minioProperties.getListing();
+        this.listExecutor = ExecutorBuilder.create()
+                .setCorePoolSize(listing.getConcurrency())
+                .setMaxPoolSize(listing.getConcurrency())
+                .setWorkQueue(new LinkedBlockingQueue<>())
+                .setThreadFactory(ThreadFactoryBuilder.create().setNamePrefix("minio-list-").setDaemon(true).build())
+                .build();
+        this.objectLister = new ObjectLister(customMinioClient, listExecutor, listing.getPageSize(), listing.getConcurrency(), listing.getQueueCapacity(),
+                listing.getIdleTimeout().toMillis());
+
+        MinioProperties.Bulk bulk = minioProperties.getBulk();
+        this.bulkExecutor = new BulkExecutor(bulk.isVirtualThreads(), bulk.getMaxConcurrency(), bulk.getThreads());
+
+        MinioProperties.Bootstrap bootstrap = minioProperties.getBootstrap();
+        String mode = bootstrap.getMode();
+        if (!BOOTSTRAP_ASYNC.equalsIgnoreCase(mode) && !BOOTSTRAP_SYNC.equalsIgnoreCase(mode)
+                && !BOOTSTRAP_LAZY.equalsIgnoreCase(mode) && !BOOTSTRAP_NONE.equalsIgnoreCase(mode)) {
+            throw new IllegalArgumentException("bootstrap.mode只支持async、sync、lazy和none");
+        }
+        this.ensureBuckets = new LinkedHashSet<>();
+        if (!BOOTSTRAP_NONE.equalsIgnoreCase(mode)) {
+            ensureBuckets.add(minioProperties.getBucket());
+            ensureBuckets.addAll(bootstrap.getBuckets());
+        }
+        this.bootstrapExecutor = ExecutorBuilder.create()
+                .setCorePoolSize(4)
+                .setMaxPoolSize(4)
+                .setKeepAliveTime(60, TimeUnit.SECONDS)
+                .setAllowCoreThreadTimeOut(true)
+                .setWorkQueue(new LinkedBlockingQueue<>())
+                .setThreadFactory(ThreadFactoryBuilder.create().setNamePrefix("minio-bootstrap-").setDaemon(true).build())
+                .build();
     }
 
     /**
@@ -52,7 +365,7 @@ public class MinioTemplate {
         try {
             found = customMinioClient.bucketExists(BucketExistsArgs.builder().bucket(bucketName).build());
         } catch (Exception e) {
-            e.printStackTrace();
+            log.warn("查询存储桶{}失败", bucketName, e);
             return false;
         }
 
@@ -69,7 +382,7 @@ public class MinioTemplate {
                     .bucket(bucketName)
                     .build());
         } catch (Exception e) {
-            e.printStackTrace();
+            log.warn("创建存储桶{}失败", bucketName, e);
             return false;
         }
 
@@ -87,12 +400,130 @@ public class MinioTemplate {
     }
 
     /**
-     * 不存在存储桶，则新建一个
+     * 删除存储桶
+     *
+     * @param bucketname bucket名称
+     * @param force 为true时先删除桶内所有对象
+     */
+    @SneakyThrows
+    public void removeBucket(String bucketname, boolean force) {
+        if (force) {
+            RemoveObjectsResult result = purgePrefix(bucketname, "");
+            if (!result.isSuccess()) {
+                throw new IllegalStateException("存储桶中有" + result.getErrors().size() + "个对象删除失败：" + result.getErrors().get(0));
+            }
+        }
+
+        removeBucket(bucketname);
+    }
+
+    /**
+     * 预热连接并检查存储桶，不存在则新建；只有sync模式会在启动时等待minio响应
      */
     @PostConstruct
     public void init() {
-        if (!bucketExists(minioProperties.getBucket())) {
-            makeBucket(minioProperties.getBucket());
+        String mode = minioProperties.getBootstrap().getMode();
+        int prewarmConnections = minioProperties.getHttp().getPrewarmConnections();
+        if (BOOTSTRAP_SYNC.equalsIgnoreCase(mode)) {
+            MinioHttpClientFactory.prewarm(httpClient, minioProperties.getEndpoint(), prewarmConnections);
+            Map<String, CompletableFuture<Boolean>> checks = new LinkedHashMap<>();
+            ensureBuckets.forEach(bucketName -> checks.put(bucketName, ensureBucket(bucketName)));
+            // sync模式下存储桶不可用时启动失败
+            checks.forEach((bucketName, check) -> {
+                if (!check.join()) {
+                    throw new IllegalStateException("存储桶" + bucketName + "不存在且创建失败");
+                }
+            });
+            return;
+        }
+
+        if (prewarmConnections > 0) {
+            bootstrapExecutor.execute(() -> MinioHttpClientFactory.prewarm(httpClient, minioProperties.getEndpoint(), prewarmConnections));
+        }
+        if (BOOTSTRAP_ASYNC.equalsIgnoreCase(mode)) {
+            ensureBuckets.forEach(this::ensureBucket);
+        }
+    }
+
+    /**
+     * 确保存储桶存在，不存在则新建
+     *
+     * @param bucketName bucket名称
+     * @return 存储桶存在或创建成功时为true
+     */
+    public CompletableFuture<Boolean> ensureBucket(String bucketName) {
+        CompletableFuture<Boolean> check = bucketChecks.computeIfAbsent(bucketName,
+                name -> CompletableFuture.supplyAsync(() -> bucketExists(name) || makeBucket(name), bootstrapExecutor));
+        // 失败的检查在下次使用时重新发起
+        check.thenAccept(exists -> {
+            if (!exists) {
+                bucketChecks.remove(bucketName, check);
+            }
+        });
+
+        return check;
+    }
+
+    /**
+     * 写入需要确保存在的存储桶前等待检查完成，lazy模式下由第一次写入发起检查
+     *
+     * @throws IllegalStateException 存储桶不存在且创建失败时，下一次写入重新检查
+     */
+    private void awaitBucket(String bucketName) {
+        if (ensureBuckets.contains(bucketName) && !ensureBucket(bucketName).join()) {
+            throw new IllegalStateException("存储桶" + bucketName + "不存在且创建失败");
+        }
+    }
+
+    /**
+     * 设置指标，同时注册已开启的缓存的命中次数；元数据缓存按当前的实现取值，替换为自定义实现后不再计数
+     */
+    public void setMetrics(MinioMetrics metrics) {
+        this.metrics = metrics;
+        resilience.setMetrics(metrics);
+
+        if (presignedUrlCache != null) {
+            metrics.bindCache("presign", presignedUrlCache, PresignedUrlCache::hitCount, PresignedUrlCache::missCount);
+        }
+        if (statObjectCache != null) {
+            metrics.bindCache("stat", this, t -> t.statObjectCache instanceof InMemoryStatObjectCache ? ((InMemoryStatObjectCache) t.statObjectCache).hitCount() : 0,
+                    t -> t.statObjectCache instanceof InMemoryStatObjectCache ? ((InMemoryStatObjectCache) t.statObjectCache).missCount() : 0);
+        }
+        if (objectCache != null) {
+            metrics.bindCache("object", objectCache, DiskObjectCache::hitCount, DiskObjectCache::missCount);
+        }
+    }
+
+    /**
+     * 开启小文件打包，默认存储桶中通过upload(String, InputStream)写入的小文件打包进段文件
+     */
+    public void setPackIndex(PackIndex packIndex) {
+        this.packer = new SmallObjectPacker(customMinioClient, packIndex, minioProperties.getBucket(), minioProperties.getPack());
+    }
+
+    /**
+     * 上传缓冲中的小文件，关闭上传、下载、合并、删除、复制、列举、批量操作、启动检查、对冲请求线程池和节点健康检查，删除本地缓存文件
+     */
+    @PreDestroy
+    public void destroy() {
+        if (packer != null) {
+            packer.shutdown();
+        }
+        if (endpointPool != null) {
+            endpointPool.shutdown();
+        }
+        resilience.shutdown();
+        uploadExecutor.shutdown();
+        downloadExecutor.shutdown();
+        mergeExecutor.shutdown();
+        deleteExecutor.shutdown();
+        copyExecutor.shutdown();
+        copyObjectExecutor.shutdown();
+        listExecutor.shutdown();
+        bulkExecutor.shutdown();
+        bootstrapExecutor.shutdown();
+        if (objectCache != null) {
+            objectCache.close();
         }
     }
 
@@ -103,11 +534,11 @@ public class MinioTemplate {
      */
     @SneakyThrows
     public StatObjectResponse fileExited(String filename) {
-        return customMinioClient.statObject(StatObjectArgs.builder().bucket(minioProperties.getBucket()).object(filename).build());
+        return stat(minioProperties.getBucket(), filename);
     }
 
     /**
-     * 获取文件流
+     * 获取文件流，开启本地缓存时优先读取缓存，打包的文件从所在的段文件读取，压缩的对象读取时解压
      *
      * @param bucket 存储桶名称
      * @param objectName 文件名称
@@ -115,8 +546,35 @@ public class MinioTemplate {
      */
     public InputStream getObject(String bucket, String objectName)
             throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, ErrorResponseException {
-        return customMinioClient
-                .getObject(GetObjectArgs.builder().bucket(bucket).object(objectName).build());
+        if (packer != null && packer.getBucket().equals(bucket)) {
+            InputStream packed = getPacked(objectName);
+            if (packed != null) {
+                return packed;
+            }
+        }
+
+        long start = metrics.start(Operation.GET);
+        boolean success = false;
+        try {
+            GetObjectResponse response;
+            InputStream stream;
+            if (objectCache == null) {
+                response = customMinioClient.getObject(GetObjectArgs.builder().bucket(bucket).object(objectName).build());
+                stream = countDownloaded(bucket, response);
+            } else {
+                // 命中时返回缓存时的响应头，元数据和内容对应同一版本
+                response = objectCache.get(bucket, objectName, fetcher(bucket, objectName));
+                stream = response;
+            }
+            // 压缩算法从响应头的元数据中取得，不需要额外查询
+            if (compressor != null) {
+                stream = decode(ObjectCompressor.userMetadata(response.headers()), stream);
+            }
+            success = true;
+            return stream;
+        } finally {
+            metrics.stop(Operation.GET, bucket, start, success);
+        }
     }
 
     /**
@@ -134,8 +592,21 @@ public class MinioTemplate {
      * @param totalPart 总分片数
      * @return
      */
-    @SneakyThrows
     public Map<String, Object> initMultiPartUpload(String bucketName, String objectName, int totalPart, String fileType) {
+        awaitBucket(bucketName);
+        long start = metrics.start(Operation.MULTIPART_INIT);
+        boolean success = false;
+        try {
+            Map<String, Object> result = doInitMultiPartUpload(bucketName, objectName, totalPart, fileType);
+            success = true;
+            return result;
+        } finally {
+            metrics.stop(Operation.MULTIPART_INIT, bucketName, start, success);
+        }
+    }
+
+    @SneakyThrows
+    private Map<String, Object> doInitMultiPartUpload(String bucketName, String objectName, int totalPart, String fileType) {
         Map<String, Object> result = new HashMap<>();
 
         // 设置header可以用来更改文件的content-type，用来避免MP4文件的链接被迅雷自动劫持，导致视频无法播放
@@ -148,32 +619,111 @@ public class MinioTemplate {
 
         result.put("uploadId", uploadId);
 
-        List<String> partList = new ArrayList<>();
-        Map<String, String> reqParams = new HashMap<>();
+        // 签名密钥和规范请求前缀在整批分片间共享，不再逐个调用getPresignedObjectUrl
+        List<String> partList = minioPresigner.presignParts(bucketName, objectName, uploadId, totalPart, (int) TimeUnit.DAYS.toSeconds(1));
 
-//            reqParams.put("response-content-type", "application/json");
-        reqParams.put("uploadId", uploadId);
+        result.put("uploadUrls", partList);
 
-        for (int i = 1; i <= totalPart; i++) {
-            reqParams.put("partNumber", String.valueOf(i));
+        if (uploadSessionStore != null) {
+            long now = System.currentTimeMillis();
+            UploadSession session = new UploadSession();
+            session.setUploadId(uploadId);
+            session.setBucket(bucketName);
+            session.setObjectName(objectName);
+            session.setContentType(fileType);
+            session.setTotalPart(totalPart);
+            session.setCreateTime(now);
+            session.setExpireTime(now + minioProperties.getSession().getTtl().toMillis());
+            uploadSessionStore.save(session);
+        }
 
-            String uploadUrl = customMinioClient.getPresignedObjectUrl(
-                    GetPresignedObjectUrlArgs.builder()
-                            .method(Method.PUT)
-                            .bucket(bucketName)
-                            .object(objectName)
-                            .expiry(1, TimeUnit.DAYS)
-                            .extraQueryParams(reqParams)
-                            .build());
+        return result;
+    }
+
+    /**
+     * 记录已上传完成的分片，供断点续传时跳过
+     * @param uploadId
+     * @param partNumber 分片序号，从1到会话的总分片数
+     */
+    public void completePart(String uploadId, int partNumber) {
+        UploadSessionStore store = requireSessionStore();
+        UploadSession session = requireSession(store, uploadId);
+        if (partNumber < 1 || partNumber > session.getTotalPart()) {
+            throw new IllegalArgumentException("partNumber必须在1到" + session.getTotalPart() + "之间");
+        }
+
+        store.completePart(uploadId, partNumber);
+    }
+
+    /**
+     * 断点续传，从会话存储中取出已完成的分片，只为未完成的分片重新生成上传地址，不访问minio
+     * @param uploadId
+     * @return uploadId、已完成的分片序号completedParts、未完成的分片序号pendingParts及其上传地址uploadUrls
+     */
+    public Map<String, Object> resumeMultiPartUpload(String uploadId) {
+        UploadSessionStore store = requireSessionStore();
+        UploadSession session = requireSession(store, uploadId);
 
-            partList.add(uploadUrl);
+        // 只认会话范围内的分片，范围外的记录不影响待上传的分片
+        Set<Integer> completed = new TreeSet<>();
+        int[] pending = new int[session.getTotalPart()];
+        int index = 0;
+        Set<Integer> recorded = store.completedParts(uploadId);
+        for (int partNumber = 1; partNumber <= session.getTotalPart(); partNumber++) {
+            if (recorded.contains(partNumber)) {
+                completed.add(partNumber);
+            } else {
+                pending[index++] = partNumber;
+            }
         }
+        pending = Arrays.copyOf(pending, index);
 
-        result.put("uploadUrls", partList);
+        // 地址有效期不超过会话剩余时间
+        long remaining = TimeUnit.MILLISECONDS.toSeconds(session.getExpireTime() - System.currentTimeMillis());
+        int expiry = (int) Math.max(1, Math.min(remaining, TimeUnit.DAYS.toSeconds(1)));
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("uploadId", uploadId);
+        result.put("completedParts", completed);
+        result.put("pendingParts", pending);
+        result.put("uploadUrls", minioPresigner.presignParts(session.getBucket(), session.getObjectName(), uploadId, pending, expiry));
 
         return result;
     }
 
+    /**
+     * 取消分片上传，已上传的分片会被删除
+     * @param bucketName
+     * @param objectName 文件目录名(可选)/文件名
+     * @param uploadId
+     */
+    @SneakyThrows
+    public void abortMultipartUpload(String bucketName, String objectName, String uploadId) {
+        customMinioClient.abortMultipartUpload(bucketName, null, objectName, uploadId, null, null);
+
+        if (uploadSessionStore != null) {
+            uploadSessionStore.remove(uploadId);
+        }
+    }
+
+    private static UploadSession requireSession(UploadSessionStore store, String uploadId) {
+        UploadSession session = store.get(uploadId);
+        // 存储按有效期清理的时机不确定，过期未清理的会话同样拒绝
+        if (session == null || session.getExpireTime() <= System.currentTimeMillis()) {
+            throw new IllegalArgumentException("上传会话不存在或已过期：" + uploadId);
+        }
+
+        return session;
+    }
+
+    private UploadSessionStore requireSessionStore() {
+        if (uploadSessionStore == null) {
+            throw new IllegalStateException("未开启分片上传会话，请配置minio.session.enabled=true");
+        }
+
+        return uploadSessionStore;
+    }
+
     /**
      * 分片合并
      * @param bucketName
@@ -181,21 +731,91 @@ public class MinioTemplate {
      * @param uploadId
      * @return
      */
-    @SneakyThrows
     public ObjectWriteResponse mergeMultipartUpload(String bucketName, String objectName, String uploadId) {
-        Part[] parts = new Part[10000];
-        //此方法注意2020.02.04之前的minio服务端有bug
-        ListPartsResponse partResult = customMinioClient.listMultipart(bucketName, null, objectName, 10000, 0, uploadId, null, null);
-        int partNumber = 1;
+        UploadSession session = uploadSessionStore == null ? null : uploadSessionStore.get(uploadId);
+
+        return mergeMultipartUpload(bucketName, objectName, uploadId, session == null ? 0 : session.getTotalPart());
+    }
+
+    /**
+     * 分片合并，分页查询已上传的分片，校验分片序号从1开始连续后再合并
+     * @param bucketName
+     * @param objectName 文件目录名(可选)/文件名，这里要和获取文件分片地址的时候保持一致
+     * @param uploadId
+     * @param totalPart 总分片数，大于0时同时校验分片数量
+     * @return
+     */
+    public ObjectWriteResponse mergeMultipartUpload(String bucketName, String objectName, String uploadId, int totalPart) {
+        long start = metrics.start(Operation.MERGE);
+        boolean success = false;
+        try {
+            ObjectWriteResponse response = doMergeMultipartUpload(bucketName, objectName, uploadId, totalPart);
+            success = true;
+            return response;
+        } finally {
+            metrics.stop(Operation.MERGE, bucketName, start, success);
+        }
+    }
+
+    @SneakyThrows
+    private ObjectWriteResponse doMergeMultipartUpload(String bucketName, String objectName, String uploadId, int totalPart) {
+        List<Part> parts = listParts(bucketName, objectName, uploadId, totalPart);
+
+        if (parts.isEmpty()) {
+            throw new IllegalStateException("没有已上传的分片");
+        }
+        if (totalPart > 0 && parts.size() != totalPart) {
+            throw new IllegalStateException("分片未上传完成，已上传" + parts.size() + "片，共" + totalPart + "片");
+        }
+
+        ObjectWriteResponse response = customMinioClient.completeMultipartUpload(bucketName, null, objectName, uploadId, parts.toArray(new Part[0]), null, null);
+        written(bucketName, objectName);
 
-        for (Part part : partResult.result().partList()) {
-            parts[partNumber - 1] = new Part(partNumber, part.etag());
-            partNumber++;
+        if (uploadSessionStore != null) {
+            uploadSessionStore.remove(uploadId);
         }
 
-        ObjectWriteResponse completeMultipartUpload = customMinioClient.completeMultipartUpload(bucketName, null, objectName, uploadId, parts, null, null);
+        return response;
+    }
+
+    /**
+     * 异步分片合并，由合并线程池执行，排队已满时在调用线程中执行
+     * @param bucketName
+     * @param objectName 文件目录名(可选)/文件名，这里要和获取文件分片地址的时候保持一致
+     * @param uploadId
+     * @return
+     */
+    public CompletableFuture<ObjectWriteResponse> mergeMultipartUploadAsync(String bucketName, String objectName, String uploadId) {
+        return CompletableFuture.supplyAsync(() -> mergeMultipartUpload(bucketName, objectName, uploadId), mergeExecutor);
+    }
+
+    /**
+     * 按partNumberMarker分页查询已上传的分片
+     * @param expectedParts 预期的分片数，用于确定列表容量，未知时传0
+     * @return 按分片序号排列的分片，只包含合并需要的序号和etag
+     */
+    private List<Part> listParts(String bucketName, String objectName, String uploadId, int expectedParts) throws Exception {
+        int pageSize = minioProperties.getMerge().getPageSize();
+        List<Part> parts = new ArrayList<>(expectedParts > 0 ? expectedParts : pageSize);
+        int partNumberMarker = 0;
+
+        while (true) {
+            //此方法注意2020.02.04之前的minio服务端有bug
+            ListPartsResult result = customMinioClient.listMultipart(bucketName, null, objectName, pageSize, partNumberMarker, uploadId, null, null).result();
+
+            for (Part part : result.partList()) {
+                int expected = parts.size() + 1;
+                if (part.partNumber() != expected) {
+                    throw new IllegalStateException("分片不连续，缺少第" + expected + "片");
+                }
+                parts.add(new Part(part.partNumber(), part.etag()));
+            }
 
-        return completeMultipartUpload;
+            if (!result.isTruncated() || result.partList().isEmpty()) {
+                return parts;
+            }
+            partNumberMarker = result.nextPartNumberMarker();
+        }
     }
 
     /**
@@ -214,25 +834,55 @@ public class MinioTemplate {
     /**
      * 文件上传
      * @param file 文件
-     * @return Boolean
+     * @return 预览地址
      */
-    @SneakyThrows
     public String upload(MultipartFile file) {
-        // 修饰过的文件名 非源文件名
-        String suffix = file.getOriginalFilename().substring(file.getOriginalFilename().lastIndexOf("."));
-        String fullPath = MimeTypeEnum.getClassifyType(suffix) + "/" + file.getOriginalFilename();
+        return uploadObject(file).getUrl();
+    }
 
-        PutObjectArgs objectArgs = PutObjectArgs.builder().bucket(minioProperties.getBucket()).object(fullPath)
-                .stream(file.getInputStream(), file.getSize(),-1).contentType(file.getContentType()).build();
+    /**
+     * 文件上传，开启minio.upload.checksum时校验和在上传的同时计算。返回的预览地址直接读取存储的内容，不压缩
+     * @param file 文件
+     * @return 上传结果，带有文件大小、校验和及预览地址
+     */
+    @SneakyThrows
+    public UploadResult uploadObject(MultipartFile file) {
+        // 修饰过的文件名 非源文件名，没有扩展名时按文件头判断类型
+        MimeTypeEnum mimeType = MimeTypeEnum.findByFileName(file.getOriginalFilename());
+        if (mimeType == null) {
+            try (InputStream stream = file.getInputStream()) {
+                byte[] header = IoUtil.readBytes(stream, MimeTypeEnum.MAGIC_LENGTH);
+                mimeType = MimeTypeEnum.sniff(header, header.length);
+            }
+        }
+        String fullPath = (mimeType == null ? "file" : mimeType.getFileType()) + "/" + file.getOriginalFilename();
+        String contentType = file.getContentType();
+        if (mimeType != null && (contentType == null || "application/octet-stream".equals(contentType))) {
+            contentType = mimeType.getMimeType();
+        }
 
-        //文件名称相同会覆盖
-        customMinioClient.putObject(objectArgs);
+        //文件名称相同会覆盖，大文件按分片并行上传
+        awaitBucket(minioProperties.getBucket());
+        long start = metrics.start(Operation.PUT);
+        boolean success = false;
+        UploadResult result;
+        try (InputStream stream = file.getInputStream()) {
+            result = multipartUploader.upload(minioProperties.getBucket(), fullPath, stream, file.getSize(), contentType);
+            metrics.uploaded(minioProperties.getBucket(), result.getSize());
+            success = true;
+        } finally {
+            metrics.stop(Operation.PUT, minioProperties.getBucket(), start, success);
+        }
+        written(minioProperties.getBucket(), fullPath);
 
-        return preview(minioProperties.getBucket(), fullPath);
+        result.setUrl(preview(minioProperties.getBucket(), fullPath));
+        return result;
     }
 
     /**
-     * 使用putObject上传一个文件到文件分类
+     * 上传一个文件到文件分类，流的长度未知，读满一个分片后按分片上传；开启打包时小文件写入段文件，
+     * 等所在的段上传完成后返回，最多等待flushInterval，单线程连续写入小文件时应使用{@link #uploadAsync}；
+     * 开启压缩时按扩展名对应的类型边读边压缩
      *
      * @param fileName ： 文件名
      * @param stream   ： 文件流
@@ -240,58 +890,327 @@ public class MinioTemplate {
      */
     @SneakyThrows
     public void upload(String fileName, InputStream stream) throws IOException {
-        PutObjectArgs objectArgs = PutObjectArgs.builder().bucket(minioProperties.getBucket()).object(fileName)
-                .stream(stream, stream.available(), -1).build();
-
-        //文件名称相同会覆盖
-        customMinioClient.putObject(objectArgs);
+        try {
+            uploadAsync(fileName, stream).join();
+        } catch (CompletionException e) {
+            throw e.getCause();
+        }
     }
 
     /**
-     * 上传本地文件
+     * 异步上传一个文件到文件分类。开启打包时小文件写入缓冲区后立即返回，所在的段上传完成后future完成，
+     * 多个小文件共用一次段上传；其他文件在当前线程上传完成后返回已完成的future
      *
-     * @param bucket 存储桶
-     * @param objectName 对象名称
-     * @param fileName 本地文件路径
+     * @param fileName 文件名
+     * @param stream 文件流，返回前读取完毕
+     * @return 上传完成或失败时完成
      */
-    public ObjectWriteResponse putObject(String bucket, String objectName,
-                                                String fileName)
-            throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, ErrorResponseException {
-        return customMinioClient.uploadObject(
-                UploadObjectArgs.builder()
-                        .bucket(bucket).object(objectName).filename(fileName).build());
+    public CompletableFuture<Void> uploadAsync(String fileName, InputStream stream) {
+        try {
+            return doUpload(fileName, stream);
+        } catch (IOException | RuntimeException e) {
+            CompletableFuture<Void> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
     }
 
-    /**
-     * 创建文件夹或目录
-     *
-     * @param bucket 存储桶
-     * @param objectName 目录路径
-     */
-    public ObjectWriteResponse putDirObject(String bucket, String objectName)
-            throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, ErrorResponseException {
-        return customMinioClient.putObject(
-                PutObjectArgs.builder().bucket(bucket).object(objectName).stream(
-                                new ByteArrayInputStream(new byte[]{}), 0, -1)
-                        .build());
+    private CompletableFuture<Void> doUpload(String fileName, InputStream stream) throws IOException {
+        //文件名称相同会覆盖
+        awaitBucket(minioProperties.getBucket());
+        if (packer != null) {
+            // 读满maxObjectSize之前结束的流打包写入，否则连同已读的部分按分片上传；缓冲区按读到的大小增长
+            byte[] head = ByteStreams.toByteArray(ByteStreams.limit(stream, packer.getMaxObjectSize()));
+            if (head.length < packer.getMaxObjectSize()) {
+                return uploadPacked(fileName, head);
+            }
+            stream = new SequenceInputStream(new ByteArrayInputStream(head), stream);
+        }
+
+        String contentType = null;
+        Map<String, String> headers = null;
+        if (compressor != null) {
+            MimeTypeEnum mimeType = MimeTypeEnum.findByFileName(fileName);
+            ObjectCodec codec = mimeType == null ? null : compressor.select(mimeType.getMimeType());
+            if (codec != null) {
+                contentType = mimeType.getMimeType();
+                headers = compressor.headers(codec);
+                stream = compressor.encode(codec, stream);
+            }
+        }
+
+        // available()只是不阻塞可读的字节数，不能作为文件大小
+        CountingInputStream counting = new CountingInputStream(stream);
+        long start = metrics.start(Operation.PUT);
+        boolean success = false;
+        try {
+            multipartUploader.upload(minioProperties.getBucket(), fileName, counting, -1, contentType, headers);
+            metrics.uploaded(minioProperties.getBucket(), counting.getCount());
+            success = true;
+        } finally {
+            metrics.stop(Operation.PUT, minioProperties.getBucket(), start, success);
+        }
+        written(minioProperties.getBucket(), fileName);
+
+        return CompletableFuture.completedFuture(null);
     }
 
     /**
-     * 预览
-     * @param fileName 是上传图片的fullPath=>eg:2021-12/27/typora-setup-x64.exe
-     * @return
+     * 打包写入，所在的段上传完成后返回的future完成
      */
-    @SneakyThrows
-    public String preview(String bucket, String fileName) {
-        customMinioClient.statObject(StatObjectArgs.builder().bucket(bucket).object(fileName).build());
+    private CompletableFuture<Void> uploadPacked(String fileName, byte[] data) {
+        String bucket = minioProperties.getBucket();
+        long start = metrics.start(Operation.PUT);
+        CompletableFuture<PackedObject> packed;
+        try {
+            packed = packer.write(fileName, data, data.length);
+        } catch (RuntimeException e) {
+            metrics.stop(Operation.PUT, bucket, start, false);
+            throw e;
+        }
 
-        return customMinioClient.getPresignedObjectUrl(GetPresignedObjectUrlArgs.builder().method(Method.GET).bucket(bucket).expiry(7, TimeUnit.DAYS).object(fileName).build());
+        return packed.whenComplete((object, e) -> {
+            if (e == null) {
+                metrics.uploaded(bucket, data.length);
+                evict(bucket, fileName);
+            }
+            metrics.stop(Operation.PUT, bucket, start, e == null);
+        }).thenAccept(object -> {
+        });
     }
 
     /**
-     * 断点下载
+     * 打包的文件从缓冲区或段文件的对应范围读取
      *
-     * @param bucket bucket名称
+     * @return 文件未打包时返回null
+     */
+    private InputStream getPacked(String objectName)
+            throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, ErrorResponseException {
+        byte[] pending = packer.pending(objectName);
+        if (pending != null) {
+            return new ByteArrayInputStream(pending);
+        }
+
+        PackedObject packed = packer.locate(objectName);
+        if (packed == null) {
+            return null;
+        }
+
+        return getPackedRange(packed, 0, packed.getLength());
+    }
+
+    /**
+     * 查询打包的文件，不在打包的存储桶中或未打包时返回null
+     */
+    private PackedObject packed(String bucket, String objectName) {
+        return packer != null && packer.getBucket().equals(bucket) ? packer.locate(objectName) : null;
+    }
+
+    /**
+     * 读取打包的文件中的一段，超出文件的部分截断
+     */
+    private InputStream getPackedRange(PackedObject packed, long offset, long length)
+            throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, ErrorResponseException {
+        long from = Math.min(Math.max(offset, 0), packed.getLength());
+        long count = Math.min(length, packed.getLength() - from);
+        if (count <= 0) {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+
+        return getStoredRange(minioProperties.getBucket(), packed.getSegment(), packed.getOffset() + from, count);
+    }
+
+    /**
+     * 上传本地文件
+     *
+     * @param bucket 存储桶
+     * @param objectName 对象名称
+     * @param fileName 本地文件路径
+     */
+    public UploadResult putObject(String bucket, String objectName,
+                                                String fileName)
+            throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, ErrorResponseException {
+        return putObject(bucket, objectName, Paths.get(fileName));
+    }
+
+    /**
+     * 上传本地文件，请求体直接从文件写入连接，大文件按分片并行上传；开启压缩且文件类型值得压缩时边读边压缩上传
+     *
+     * @param bucket 存储桶
+     * @param objectName 对象名称
+     * @param file 本地文件
+     * @return 上传结果，开启minio.upload.checksum时带有校验和
+     */
+    @SneakyThrows
+    public UploadResult putObject(String bucket, String objectName, Path file) {
+        String contentType = Files.probeContentType(file);
+        if (contentType == null) {
+            MimeTypeEnum mimeType = MimeTypeEnum.findByFileName(file.getFileName().toString());
+            contentType = mimeType == null ? "application/octet-stream" : mimeType.getMimeType();
+        }
+        ObjectCodec codec = compressor == null ? null : compressor.select(contentType);
+
+        awaitBucket(bucket);
+        long start = metrics.start(Operation.PUT);
+        boolean success = false;
+        UploadResult response;
+        try {
+            if (codec == null) {
+                response = fileUploader.upload(bucket, objectName, file, contentType);
+            } else {
+                try (InputStream stream = Files.newInputStream(file)) {
+                    response = multipartUploader.upload(bucket, objectName, compressor.encode(codec, stream), -1, contentType, compressor.headers(codec));
+                }
+            }
+            metrics.uploaded(bucket, response.getSize());
+            success = true;
+        } finally {
+            metrics.stop(Operation.PUT, bucket, start, success);
+        }
+        written(bucket, objectName);
+
+        return response;
+    }
+
+    /**
+     * 创建文件夹或目录
+     *
+     * @param bucket 存储桶
+     * @param objectName 目录路径
+     */
+    public ObjectWriteResponse putDirObject(String bucket, String objectName)
+            throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, ErrorResponseException {
+        awaitBucket(bucket);
+        long start = metrics.start(Operation.PUT);
+        boolean success = false;
+        ObjectWriteResponse response;
+        try {
+            response = customMinioClient.putObject(
+                    PutObjectArgs.builder().bucket(bucket).object(objectName).stream(
+                                    new ByteArrayInputStream(new byte[]{}), 0, -1)
+                            .build());
+            success = true;
+        } finally {
+            metrics.stop(Operation.PUT, bucket, start, success);
+        }
+        written(bucket, objectName);
+
+        return response;
+    }
+
+    /**
+     * 预览，地址在剩余有效期充足时直接从缓存返回；开启存在性检查时只在重新签名前检查一次。
+     * 打包的文件没有单独的对象，不能生成预览地址；压缩存储的对象通过地址读到的是压缩后的内容
+     * @param fileName 是上传图片的fullPath=>eg:2021-12/27/typora-setup-x64.exe
+     * @return
+     */
+    public String preview(String bucket, String fileName) {
+        if (packed(bucket, fileName) != null) {
+            throw new IllegalArgumentException("打包的文件不能生成预览地址：" + fileName);
+        }
+
+        long start = metrics.start(Operation.PRESIGN);
+        boolean success = false;
+        try {
+            Supplier<String> signer = () -> signPreview(bucket, fileName);
+            String url = presignedUrlCache == null ? signer.get() : presignedUrlCache.get(Method.GET, bucket, fileName, signer);
+            success = true;
+            return url;
+        } finally {
+            metrics.stop(Operation.PRESIGN, bucket, start, success);
+        }
+    }
+
+    @SneakyThrows
+    private String signPreview(String bucket, String fileName) {
+        MinioProperties.Presign presign = minioProperties.getPresign();
+        if (presign.isCheckExists()) {
+            stat(bucket, fileName);
+        }
+
+        return minioPresigner.presign(Method.GET, bucket, fileName, (int) presign.getPreviewExpiry().getSeconds(), null);
+    }
+
+    /**
+     * 批量生成预签名地址，整批共享时间戳和签名密钥，不请求minio，也不检查文件是否存在
+     *
+     * @param bucket bucket名称
+     * @param objectNames 文件名称
+     * @param method 请求方法，预览为GET
+     * @param expiry 有效期，最长7天
+     * @return 文件名称到预签名地址的映射，按传入顺序排列
+     */
+    public Map<String, String> presignBatch(String bucket, Collection<String> objectNames, Method method, Duration expiry) {
+        long start = metrics.start(Operation.PRESIGN);
+        boolean success = false;
+        try {
+            Map<String, String> urls = minioPresigner.presignObjects(method, bucket, objectNames, (int) Math.min(expiry.getSeconds(), Integer.MAX_VALUE));
+            success = true;
+            return urls;
+        } finally {
+            metrics.stop(Operation.PRESIGN, bucket, start, success);
+        }
+    }
+
+    /**
+     * 批量生成预签名地址，先并发查询文件是否存在，只为存在的文件签名；打包的文件不能签名，按失败返回
+     *
+     * @param bucket bucket名称
+     * @param objectNames 文件名称
+     * @param method 请求方法，预览为GET
+     * @param expiry 有效期，最长7天
+     * @return 按传入顺序排列的预签名地址，不存在或查询失败的文件及原因
+     */
+    @SneakyThrows
+    public BulkResult<String> presignExisting(String bucket, Collection<String> objectNames, Method method, Duration expiry) {
+        BulkResult<StatObjectResponse> stats = bulkExecutor.execute(objectNames, objectName -> {
+            if (packed(bucket, objectName) != null) {
+                throw new IllegalArgumentException("打包的文件不能生成预签名地址：" + objectName);
+            }
+            return stat(bucket, objectName);
+        });
+
+        BulkResult<String> result = new BulkResult<>();
+        result.setResults(presignBatch(bucket, stats.getResults().keySet(), method, expiry));
+        result.setErrors(stats.getErrors());
+        return result;
+    }
+
+    /**
+     * 文件被未打包的内容覆盖后，从打包索引中删除同名文件，再清除缓存
+     */
+    private void written(String bucket, String objectName) {
+        if (packer != null && packer.getBucket().equals(bucket)) {
+            // 之前打包写入的同名文件不能遮住新文件；上传已经成功，索引文件重写失败时旧段留到下次删除或上传时重试
+            try {
+                packer.remove(objectName);
+            } catch (Exception e) {
+                log.warn("从打包索引中删除{}失败", objectName, e);
+            }
+        }
+        evict(bucket, objectName);
+    }
+
+    /**
+     * 文件被上传、覆盖或删除后清除对应的预览地址、元数据和本地文件缓存
+     */
+    private void evict(String bucket, String objectName) {
+        if (presignedUrlCache != null) {
+            presignedUrlCache.invalidate(bucket, objectName);
+        }
+        if (statObjectCache != null) {
+            statLoading.remove(bucket + '\n' + objectName);
+            statObjectCache.invalidate(bucket, objectName);
+        }
+        if (objectCache != null) {
+            objectCache.invalidate(bucket, objectName);
+        }
+    }
+
+    /**
+     * 断点下载，压缩的对象按原文中的位置读取，打包的文件从段文件的对应范围读取
+     *
+     * @param bucket bucket名称
      * @param objectName 文件名称
      * @param offset 起始字节的位置
      * @param length 要读取的长度
@@ -299,9 +1218,273 @@ public class MinioTemplate {
      */
     public InputStream getObject(String bucket, String objectName, long offset, long length)
             throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, ErrorResponseException {
-        return customMinioClient.getObject(
-                GetObjectArgs.builder().bucket(bucket).object(objectName).offset(offset).length(length)
-                        .build());
+        PackedObject packed = packed(bucket, objectName);
+        if (packed != null) {
+            return getPackedRange(packed, offset, length);
+        }
+        if (compressor != null) {
+            // 位置和长度按原文计算，压缩的对象需要先取得元数据
+            StatObjectResponse stat = stat(bucket, objectName);
+            if (compressor.isEncoded(stat.userMetadata())) {
+                return getDecodedRange(bucket, objectName, stat, offset, length);
+            }
+        }
+
+        return getStoredRange(bucket, objectName, offset, length);
+    }
+
+    /**
+     * 按存储的内容读取一段，不解压
+     */
+    private InputStream getStoredRange(String bucket, String objectName, long offset, long length)
+            throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, ErrorResponseException {
+        long start = metrics.start(Operation.GET);
+        boolean success = false;
+        try {
+            InputStream stream = objectCache == null ? null : objectCache.get(bucket, objectName, offset, length, fetcher(bucket, objectName));
+            if (stream == null) {
+                stream = countDownloaded(bucket, customMinioClient.getObject(
+                        GetObjectArgs.builder().bucket(bucket).object(objectName).offset(offset).length(length)
+                                .build()));
+            }
+            success = true;
+            return stream;
+        } finally {
+            metrics.stop(Operation.GET, bucket, start, success);
+        }
+    }
+
+    /**
+     * 读取压缩对象原文中的一段，block格式只请求覆盖该段的块
+     */
+    @SneakyThrows
+    private InputStream getDecodedRange(String bucket, String objectName, StatObjectResponse stat, long offset, long length) {
+        long start = metrics.start(Operation.GET);
+        boolean success = false;
+        try {
+            InputStream stream = compressor.decodeRange(stat.userMetadata(), stat.size(), offset, length,
+                    (from, count) -> countDownloaded(bucket, customMinioClient.getObject(
+                            GetObjectArgs.builder().bucket(bucket).object(objectName).offset(from).length(count).build())));
+            success = true;
+            return stream;
+        } finally {
+            metrics.stop(Operation.GET, bucket, start, success);
+        }
+    }
+
+    /**
+     * 按元数据解压，失败时关闭原始的流
+     */
+    private InputStream decode(Map<String, String> userMetadata, InputStream stream) throws IOException {
+        try {
+            return compressor.decode(userMetadata, stream);
+        } catch (IOException | RuntimeException e) {
+            stream.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 本地缓存未命中或需要确认时请求minio，带ETag时文件未修改返回null
+     */
+    private DiskObjectCache.Fetcher fetcher(String bucket, String objectName) {
+        return new DiskObjectCache.Fetcher() {
+            @Override
+            public GetObjectResponse fetch(String etag) throws Exception {
+                GetObjectResponse response = null;
+                if (etag != null) {
+                    // SDK把304当作无效响应抛出，条件请求直接发出
+                    Request request = new Request.Builder()
+                            .url(minioPresigner.presign(Method.GET, bucket, objectName, MinioPresigner.REQUEST_EXPIRY, null))
+                            .header("If-None-Match", "\"" + etag + "\"")
+                            .build();
+                    Response conditional = httpClient.newCall(request).execute();
+                    if (conditional.code() == 304) {
+                        conditional.close();
+                        return null;
+                    }
+                    if (conditional.isSuccessful()) {
+                        response = new GetObjectResponse(conditional.headers(), bucket, minioProperties.getRegion(), objectName, conditional.body().byteStream());
+                    } else {
+                        // 失败时按SDK的方式重新请求，抛出对应的异常
+                        conditional.close();
+                    }
+                }
+                if (response == null) {
+                    response = customMinioClient.getObject(GetObjectArgs.builder().bucket(bucket).object(objectName).build());
+                }
+
+                String contentLength = response.headers().get("Content-Length");
+                if (contentLength != null) {
+                    metrics.downloaded(bucket, Long.parseLong(contentLength));
+                }
+                return response;
+            }
+
+            @Override
+            public InputStream fetch(long offset, long length) throws Exception {
+                return countDownloaded(bucket, customMinioClient.getObject(
+                        GetObjectArgs.builder().bucket(bucket).object(objectName).offset(offset).length(length).build()));
+            }
+        };
+    }
+
+    /**
+     * 流关闭时记录读取的字节数
+     */
+    private InputStream countDownloaded(String bucket, InputStream stream) {
+        if (metrics == MinioMetrics.NOOP) {
+            return stream;
+        }
+
+        return new FilterInputStream(stream) {
+            private long count;
+
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) {
+                    count++;
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = super.read(b, off, len);
+                if (n > 0) {
+                    count += n;
+                }
+                return n;
+            }
+
+            @Override
+            public void close() throws IOException {
+                metrics.downloaded(bucket, count);
+                count = 0;
+                super.close();
+            }
+        };
+    }
+
+    /**
+     * 多连接分段下载到本地文件，已存在的文件会被覆盖；下载失败时删除不完整的文件。打包的文件一次读取
+     *
+     * @param bucket bucket名称
+     * @param objectName 文件名称
+     * @param target 本地文件路径
+     * @param listener 进度回调，可为空
+     * @return 文件大小
+     */
+    public long download(String bucket, String objectName, Path target, ProgressListener listener) throws IOException {
+        PackedObject packed = packed(bucket, objectName);
+        boolean encoded = packed == null && isEncoded(bucket, objectName);
+        boolean complete = false;
+        try {
+            long size;
+            if (packed != null) {
+                try (OutputStream out = Files.newOutputStream(target)) {
+                    size = downloadPacked(packed, out, listener);
+                }
+            } else if (encoded) {
+                try (OutputStream out = Files.newOutputStream(target)) {
+                    size = downloadDecoded(bucket, objectName, out, listener);
+                }
+            } else {
+                size = downloadRanged(bucket, objectName, target, listener);
+            }
+            complete = true;
+            return size;
+        } finally {
+            if (!complete) {
+                Files.deleteIfExists(target);
+            }
+        }
+    }
+
+    private long downloadRanged(String bucket, String objectName, Path target, ProgressListener listener) throws IOException {
+        long start = metrics.start(Operation.GET);
+        boolean success = false;
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = rangedDownloader.download(bucket, objectName, channel, listener);
+            metrics.downloaded(bucket, size);
+            success = true;
+            return size;
+        } finally {
+            metrics.stop(Operation.GET, bucket, start, success);
+        }
+    }
+
+    /**
+     * 多连接分段下载，按顺序写入输出流，打包的文件一次读取
+     *
+     * @param bucket bucket名称
+     * @param objectName 文件名称
+     * @param out 输出流，由调用方关闭
+     * @param listener 进度回调，可为空
+     * @return 文件大小
+     */
+    public long download(String bucket, String objectName, OutputStream out, ProgressListener listener) {
+        PackedObject packed = packed(bucket, objectName);
+        if (packed != null) {
+            return downloadPacked(packed, out, listener);
+        }
+        if (isEncoded(bucket, objectName)) {
+            return downloadDecoded(bucket, objectName, out, listener);
+        }
+
+        long start = metrics.start(Operation.GET);
+        boolean success = false;
+        try {
+            long size = rangedDownloader.download(bucket, objectName, out, listener);
+            metrics.downloaded(bucket, size);
+            success = true;
+            return size;
+        } finally {
+            metrics.stop(Operation.GET, bucket, start, success);
+        }
+    }
+
+    /**
+     * 开启压缩时按元数据判断对象是否经过压缩
+     */
+    private boolean isEncoded(String bucket, String objectName) {
+        return compressor != null && compressor.isEncoded(stat(bucket, objectName).userMetadata());
+    }
+
+    /**
+     * 压缩的对象不能按位置分段写入，解压后按顺序写入，原文大小事先未知，进度回调的总字节数为-1
+     */
+    @SneakyThrows
+    private long downloadDecoded(String bucket, String objectName, OutputStream out, ProgressListener listener) {
+        return transfer(getObject(bucket, objectName), out, listener, -1);
+    }
+
+    @SneakyThrows
+    private long downloadPacked(PackedObject packed, OutputStream out, ProgressListener listener) {
+        return transfer(getPackedRange(packed, 0, packed.getLength()), out, listener, packed.getLength());
+    }
+
+    /**
+     * 按顺序写入输出流，完成后关闭输入流
+     *
+     * @param total 进度回调的总字节数，未知时为-1
+     */
+    private static long transfer(InputStream input, OutputStream out, ProgressListener listener, long total) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        long transferred = 0;
+        try (InputStream stream = input) {
+            int n;
+            while ((n = stream.read(buffer)) >= 0) {
+                out.write(buffer, 0, n);
+                transferred += n;
+                if (listener != null) {
+                    listener.onProgress(transferred, total);
+                }
+            }
+        }
+
+        return transferred;
     }
 
     /**
@@ -312,8 +1495,85 @@ public class MinioTemplate {
      */
     public StatObjectResponse statObject(String bucket, String objectName)
             throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, ErrorResponseException {
-        return customMinioClient
-                .statObject(StatObjectArgs.builder().bucket(bucket).object(objectName).build());
+        return stat(bucket, objectName);
+    }
+
+    /**
+     * 查询文件元数据，优先读取缓存；未命中时同一文件的并发查询只请求一次minio，文件不存在的结果同样缓存
+     */
+    private StatObjectResponse stat(String bucket, String objectName) {
+        long start = metrics.start(Operation.STAT);
+        boolean success = false;
+        try {
+            PackedObject packed = packed(bucket, objectName);
+            StatObjectResponse response = packed == null ? loadStat(bucket, objectName) : packedStat(bucket, packed);
+            success = true;
+            return response;
+        } finally {
+            metrics.stop(Operation.STAT, bucket, start, success);
+        }
+    }
+
+    /**
+     * 打包的文件的元数据，大小为文件本身的长度，ETag由段文件的ETag和文件在段中的位置组成，修改时间为段的上传时间
+     */
+    private StatObjectResponse packedStat(String bucket, PackedObject packed) {
+        StatObjectResponse segment = loadStat(minioProperties.getBucket(), packed.getSegment());
+        Headers headers = new Headers.Builder()
+                .add("Content-Type", "application/octet-stream")
+                .add("Content-Length", String.valueOf(packed.getLength()))
+                .add("ETag", "\"" + segment.etag() + "-" + packed.getOffset() + "\"")
+                .add("Last-Modified", segment.headers().get("Last-Modified"))
+                .build();
+
+        return new StatObjectResponse(headers, bucket, segment.region(), packed.getName());
+    }
+
+    @SneakyThrows
+    private StatObjectResponse loadStat(String bucket, String objectName) {
+        if (statObjectCache == null) {
+            return customMinioClient.statObject(StatObjectArgs.builder().bucket(bucket).object(objectName).build());
+        }
+
+        CachedStat cached = statObjectCache.get(bucket, objectName);
+        if (cached != null) {
+            return cached.response();
+        }
+
+        String key = bucket + '\n' + objectName;
+        CompletableFuture<CachedStat> loading = new CompletableFuture<>();
+        CompletableFuture<CachedStat> existing = statLoading.putIfAbsent(key, loading);
+        if (existing != null) {
+            try {
+                return existing.join().response();
+            } catch (CompletionException e) {
+                throw e.getCause();
+            }
+        }
+
+        try {
+            try {
+                cached = CachedStat.of(customMinioClient.statObject(StatObjectArgs.builder().bucket(bucket).object(objectName).build()));
+            } catch (ErrorResponseException e) {
+                String code = e.errorResponse().code();
+                if (!"NoSuchKey".equals(code) && !"NoSuchObject".equals(code)) {
+                    throw e;
+                }
+                cached = CachedStat.notFound(e);
+            }
+
+            // 查询期间文件被修改时evict已移除加载项，此时的结果可能过时，不写入缓存
+            if (statLoading.remove(key, loading)) {
+                statObjectCache.put(bucket, objectName, cached);
+            }
+            loading.complete(cached);
+        } catch (Throwable e) {
+            statLoading.remove(key, loading);
+            loading.completeExceptionally(e);
+            throw e;
+        }
+
+        return cached.response();
     }
 
     /**
@@ -324,7 +1584,222 @@ public class MinioTemplate {
      */
     public void removeObject(String bucket, String objectName)
             throws IOException, InvalidKeyException, InvalidResponseException, InsufficientDataException, NoSuchAlgorithmException, ServerException, InternalException, XmlParserException, ErrorResponseException {
-        customMinioClient
-                .removeObject(RemoveObjectArgs.builder().bucket(bucket).object(objectName).build());
+        long start = metrics.start(Operation.REMOVE);
+        boolean success = false;
+        try {
+            // 打包的文件只从索引删除，同名的未打包文件仍需删除
+            if (packer != null && packer.getBucket().equals(bucket)) {
+                packer.remove(objectName);
+            }
+            customMinioClient
+                    .removeObject(RemoveObjectArgs.builder().bucket(bucket).object(objectName).build());
+            success = true;
+        } finally {
+            metrics.stop(Operation.REMOVE, bucket, start, success);
+        }
+        evict(bucket, objectName);
+    }
+
+    /**
+     * 批量删除文件，每1000个合并为一次请求，多个请求并行执行
+     *
+     * @param bucket bucket名称
+     * @param objectNames 文件名称，按需遍历，不会一次性加载
+     * @return 删除成功的数量和删除失败的文件
+     */
+    public RemoveObjectsResult removeObjects(String bucket, Iterable<String> objectNames) {
+        return removeObjects(bucket, objectNames.iterator());
+    }
+
+    private RemoveObjectsResult removeObjects(String bucket, Iterator<String> objectNames) {
+        if (packer != null && packer.getBucket().equals(bucket)) {
+            // 打包的文件只从索引删除，同名的未打包文件仍需删除
+            objectNames = Iterators.transform(objectNames, objectName -> {
+                packer.remove(objectName);
+                return objectName;
+            });
+        }
+
+        long start = metrics.start(Operation.REMOVE);
+        boolean success = false;
+        try {
+            RemoveObjectsResult result = batchDeleter.delete(bucket, objectNames);
+            success = result.isSuccess();
+            return result;
+        } finally {
+            metrics.stop(Operation.REMOVE, bucket, start, success);
+        }
+    }
+
+    /**
+     * 服务端复制文件，数据不经过本地；大文件按分片并行复制。打包的文件没有单独的对象，读出后上传
+     *
+     * @param sourceBucket 源bucket名称
+     * @param sourceObject 源文件名称
+     * @param bucket 目标bucket名称
+     * @param objectName 目标文件名称
+     */
+    public ObjectWriteResponse copyObject(String sourceBucket, String sourceObject, String bucket, String objectName) {
+        awaitBucket(bucket);
+        long start = metrics.start(Operation.COPY);
+        boolean success = false;
+        ObjectWriteResponse response;
+        try {
+            PackedObject packed = packed(sourceBucket, sourceObject);
+            response = packed == null ? objectCopier.copy(sourceBucket, sourceObject, bucket, objectName) : copyPacked(packed, bucket, objectName);
+            success = true;
+        } finally {
+            metrics.stop(Operation.COPY, bucket, start, success);
+        }
+        written(bucket, objectName);
+
+        return response;
+    }
+
+    @SneakyThrows
+    private ObjectWriteResponse copyPacked(PackedObject packed, String bucket, String objectName) {
+        try (InputStream stream = getPackedRange(packed, 0, packed.getLength())) {
+            return multipartUploader.upload(bucket, objectName, stream, packed.getLength(), "application/octet-stream");
+        }
+    }
+
+    /**
+     * 移动文件，服务端复制后删除源文件
+     *
+     * @param sourceBucket 源bucket名称
+     * @param sourceObject 源文件名称
+     * @param bucket 目标bucket名称
+     * @param objectName 目标文件名称
+     */
+    @SneakyThrows
+    public ObjectWriteResponse moveObject(String sourceBucket, String sourceObject, String bucket, String objectName) {
+        if (sourceBucket.equals(bucket) && sourceObject.equals(objectName)) {
+            throw new IllegalArgumentException("源文件和目标文件相同");
+        }
+
+        ObjectWriteResponse response = copyObject(sourceBucket, sourceObject, bucket, objectName);
+        removeObject(sourceBucket, sourceObject);
+
+        return response;
+    }
+
+    /**
+     * 服务端合成文件，按顺序拼接多个源文件（或其中一段），除最后一个外每段不能小于5MB
+     *
+     * @param bucket 目标bucket名称
+     * @param objectName 目标文件名称
+     * @param sources 源文件
+     */
+    public ObjectWriteResponse composeObject(String bucket, String objectName, List<ComposeSource> sources) {
+        awaitBucket(bucket);
+        long start = metrics.start(Operation.COPY);
+        boolean success = false;
+        ObjectWriteResponse response;
+        try {
+            response = objectCopier.compose(bucket, objectName, sources);
+            success = true;
+        } finally {
+            metrics.stop(Operation.COPY, bucket, start, success);
+        }
+        written(bucket, objectName);
+
+        return response;
+    }
+
+    /**
+     * 复制前缀下的所有文件，边列举边复制，多个文件同时复制
+     *
+     * @param sourceBucket 源bucket名称
+     * @param sourcePrefix 源前缀，为空字符串时复制整个存储桶
+     * @param bucket 目标bucket名称
+     * @param targetPrefix 目标前缀，替换文件名中的源前缀，同一存储桶内和源前缀不能互相包含
+     * @return 复制成功的数量和复制失败的文件
+     */
+    public CopyObjectsResult copyPrefix(String sourceBucket, String sourcePrefix, String bucket, String targetPrefix) {
+        awaitBucket(bucket);
+        long start = metrics.start(Operation.COPY);
+        boolean success = false;
+        try (Stream<Item> items = listObjects(sourceBucket, sourcePrefix, true)) {
+            CopyObjectsResult result = objectCopier.copyAll(sourceBucket, sourcePrefix, items.iterator(), bucket, targetPrefix, this::written);
+            success = result.isSuccess();
+            return result;
+        } finally {
+            metrics.stop(Operation.COPY, bucket, start, success);
+        }
+    }
+
+    /**
+     * 列举文件，按页懒加载，只在消费到页尾时请求下一页
+     *
+     * @param bucket bucket名称
+     * @param prefix 文件前缀，可为空
+     * @param recursive 为false时只列举一级，下一级目录以isDir的项返回
+     * @return 按文件名排序的流
+     */
+    public Stream<Item> listObjects(String bucket, String prefix, boolean recursive) {
+        return objectLister.list(bucket, prefix, recursive);
+    }
+
+    /**
+     * 并行列举前缀下的所有文件，按下一级目录拆分后由多个线程同时列举，适合文件数量巨大的存储桶。
+     * 结果不保证顺序，使用完毕后应关闭返回的流
+     *
+     * @param bucket bucket名称
+     * @param prefix 文件前缀，可为空
+     * @return 无序的流
+     */
+    public Stream<Item> listObjectsParallel(String bucket, String prefix) {
+        return objectLister.listParallel(bucket, prefix);
+    }
+
+    /**
+     * 删除前缀下的所有文件，边分页列举边删除
+     *
+     * @param bucket bucket名称
+     * @param prefix 文件前缀，为空字符串时清空存储桶
+     * @return 删除成功的数量和删除失败的文件
+     */
+    public RemoveObjectsResult purgePrefix(String bucket, String prefix) {
+        return removeObjects(bucket, listObjects(bucket, prefix, true).map(Item::objectName).iterator());
+    }
+
+    /**
+     * 批量查询文件信息，单个文件失败不影响其他文件
+     *
+     * @param bucket bucket名称
+     * @param objectNames 文件名称
+     * @return 按传入顺序排列的文件信息和失败原因
+     */
+    @SneakyThrows
+    public BulkResult<StatObjectResponse> statObjects(String bucket, Collection<String> objectNames) {
+        return bulkExecutor.execute(objectNames, objectName -> stat(bucket, objectName));
+    }
+
+    /**
+     * 批量读取文件内容，适合小文件
+     *
+     * @param bucket bucket名称
+     * @param objectNames 文件名称
+     * @return 按传入顺序排列的文件内容和失败原因
+     */
+    @SneakyThrows
+    public BulkResult<byte[]> getObjects(String bucket, Collection<String> objectNames) {
+        return bulkExecutor.execute(objectNames, objectName -> {
+            try (InputStream stream = getObject(bucket, objectName)) {
+                return IoUtil.readBytes(stream, false);
+            }
+        });
+    }
+
+    /**
+     * 批量上传本地文件
+     *
+     * @param bucket bucket名称
+     * @param files 对象名称到本地文件的映射
+     * @return 按传入顺序排列的上传结果和失败原因
+     */
+    @SneakyThrows
+    public BulkResult<ObjectWriteResponse> putObjects(String bucket, Map<String, Path> files) {
+        return bulkExecutor.execute(files.keySet(), objectName -> putObject(bucket, objectName, files.get(objectName)));
     }
 }
@@ -0,0 +1,391 @@
+package com.minio.utils;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+import io.minio.ObjectWriteResponse;
+import io.minio.PutObjectArgs;
+import io.minio.messages.Part;
+import lombok.SneakyThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 服务端并行分片上传
+ *
+ * 从输入流按分片大小读入可复用的缓冲区，每个文件同时上传concurrency个分片；
+ * 缓冲区由所有上传共享，用完时读取线程阻塞等待，以此限制内存占用。任一分片失败时取消整个分片上传。
+ * 开启校验和时由上传线程从已读入的缓冲区计算，随分片请求头发送，不会再读一遍输入流；
+ * 创建分片上传时声明算法，合并时提交各分片的校验和，由服务端核对。
+ * 流先读入按需增长的小缓冲区，在SMALL_LIMIT以内结束的直接上传，不占用分片缓冲区
+ */
+public class MultipartUploader {
+
+    /** 单个对象最多10000个分片 */
+    public static final int MAX_PARTS = 10000;
+
+    /** 除最后一片外，分片不能小于5MB */
+    public static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+
+    /** 流先按需读入的上限，超过后换用分片缓冲区 */
+    private static final int SMALL_LIMIT = 1024 * 1024;
+
+    private static final int SMALL_INITIAL = 8 * 1024;
+
+    private final CustomMinioClient customMinioClient;
+
+    private final ExecutorService executor;
+
+    private final int partSize;
+
+    private final int concurrency;
+
+    private final BufferPool bufferPool;
+
+    /**
+     * 校验和算法，为空时不计算
+     */
+    private final ChecksumAlgorithm checksumAlgorithm;
+
+    public MultipartUploader(CustomMinioClient customMinioClient, ExecutorService executor, long partSize, int concurrency, int bufferCount) {
+        this(customMinioClient, executor, partSize, concurrency, bufferCount, null);
+    }
+
+    /**
+     * @param checksumAlgorithm 校验和算法，为空时不计算
+     */
+    public MultipartUploader(CustomMinioClient customMinioClient, ExecutorService executor, long partSize, int concurrency, int bufferCount,
+                             ChecksumAlgorithm checksumAlgorithm) {
+        if (partSize < MIN_PART_SIZE || partSize > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("partSize必须在5MB到2GB之间");
+        }
+        if (concurrency < 1 || bufferCount < 1) {
+            throw new IllegalArgumentException("concurrency和bufferCount必须大于0");
+        }
+
+        this.customMinioClient = customMinioClient;
+        this.executor = executor;
+        this.partSize = (int) partSize;
+        this.concurrency = concurrency;
+        this.bufferPool = new BufferPool(bufferCount, this.partSize);
+        this.checksumAlgorithm = checksumAlgorithm;
+    }
+
+    /**
+     * 上传文件流，文件名称相同会覆盖
+     *
+     * @param bucket 存储桶
+     * @param objectName 对象名
+     * @param stream 文件流，由调用方关闭
+     * @param size 文件大小，未知时传-1
+     * @param contentType 文件类型，可为空
+     * @return 上传结果，开启校验时带有校验和
+     */
+    public UploadResult upload(String bucket, String objectName, InputStream stream, long size, String contentType) {
+        return upload(bucket, objectName, stream, size, contentType, null);
+    }
+
+    /**
+     * 上传文件流，文件名称相同会覆盖
+     *
+     * @param bucket 存储桶
+     * @param objectName 对象名
+     * @param stream 文件流，由调用方关闭
+     * @param size 文件大小，未知时传-1
+     * @param contentType 文件类型，可为空
+     * @param extraHeaders 附加的请求头，例如x-amz-meta-开头的自定义元数据，可为空
+     * @return 上传结果，开启校验时带有校验和
+     */
+    @SneakyThrows
+    public UploadResult upload(String bucket, String objectName, InputStream stream, long size, String contentType,
+                               Map<String, String> extraHeaders) {
+        // 已知的小文件没有必要经过缓冲区，需要校验和时先读入缓冲区计算
+        if (checksumAlgorithm == null && size >= 0 && size < partSize) {
+            return new UploadResult(putObject(bucket, objectName, stream, size, contentType, null, extraHeaders), size, null, null, null);
+        }
+
+        // 先读入按需增长的小缓冲区，流在SMALL_LIMIT以内结束时不占用分片缓冲区
+        byte[] small = new byte[size >= 0 ? (int) Math.max(1, Math.min(size, SMALL_LIMIT)) : SMALL_INITIAL];
+        int length = 0;
+        boolean ended = false;
+        while (!ended && length < SMALL_LIMIT) {
+            if (length == small.length) {
+                small = Arrays.copyOf(small, Math.min(small.length * 2, SMALL_LIMIT));
+            }
+            int read = stream.read(small, length, small.length - length);
+            if (read < 0) {
+                ended = true;
+            } else {
+                length += read;
+                ended = size >= 0 && length >= size;
+            }
+        }
+        if (ended) {
+            String checksum = checksumAlgorithm == null ? null : ChecksumAlgorithm.encode(checksumAlgorithm.digest(small, 0, length));
+            ObjectWriteResponse response = putObject(bucket, objectName, new ByteArrayInputStream(small, 0, length), length, contentType, checksum, extraHeaders);
+            return new UploadResult(response, length, checksumAlgorithm, checksum, null);
+        }
+
+        byte[] buffer = bufferPool.acquire();
+        try {
+            System.arraycopy(small, 0, buffer, 0, length);
+            length += readFully(stream, buffer, length);
+        } catch (Throwable e) {
+            bufferPool.release(buffer);
+            throw e;
+        }
+
+        if (length < partSize) {
+            try {
+                String checksum = checksumAlgorithm == null ? null : ChecksumAlgorithm.encode(checksumAlgorithm.digest(buffer, 0, length));
+                ObjectWriteResponse response = putObject(bucket, objectName, new ByteArrayInputStream(buffer, 0, length), length, contentType, checksum, extraHeaders);
+                return new UploadResult(response, length, checksumAlgorithm, checksum, null);
+            } finally {
+                bufferPool.release(buffer);
+            }
+        }
+
+        Multimap<String, String> headers = HashMultimap.create();
+        if (contentType != null) {
+            headers.put("Content-Type", contentType);
+        }
+        if (extraHeaders != null) {
+            extraHeaders.forEach(headers::put);
+        }
+        if (checksumAlgorithm != null && checksumAlgorithm.getAlgorithm() != null) {
+            headers.put(ChecksumAlgorithm.ALGORITHM_HEADER, checksumAlgorithm.getAlgorithm());
+        }
+
+        String uploadId;
+        try {
+            uploadId = customMinioClient.createMultipartUpload(bucket, null, objectName, headers, null).result().uploadId();
+        } catch (Throwable e) {
+            bufferPool.release(buffer);
+            throw e;
+        }
+
+        List<Future<UploadedPart>> futures = new ArrayList<>();
+        Semaphore inFlight = new Semaphore(concurrency);
+        AtomicBoolean failed = new AtomicBoolean();
+        long total = 0;
+        try {
+            int partNumber = 1;
+            while (true) {
+                inFlight.acquire();
+                futures.add(executor.submit(uploadPart(bucket, objectName, uploadId, partNumber, buffer, length, inFlight, failed)));
+                buffer = null;
+                total += length;
+
+                if (length < partSize || (size >= 0 && (long) partNumber * partSize >= size) || failed.get()) {
+                    break;
+                }
+                if (++partNumber > MAX_PARTS) {
+                    throw new IllegalArgumentException("分片数超过" + MAX_PARTS + "，请调大partSize");
+                }
+
+                buffer = bufferPool.acquire();
+                length = readFully(stream, buffer);
+                if (length == 0) {
+                    break;
+                }
+            }
+
+            Part[] parts = new Part[futures.size()];
+            List<byte[]> digests = new ArrayList<>(parts.length);
+            for (int i = 0; i < parts.length; i++) {
+                UploadedPart uploaded = futures.get(i).get();
+                parts[i] = uploaded.part;
+                digests.add(uploaded.digest);
+            }
+
+            List<String> partChecksums = partChecksums(digests);
+            ObjectWriteResponse response = customMinioClient.completeMultipartUploadWithChecksums(bucket, null, objectName, uploadId, parts,
+                    checksumAlgorithm, partChecksums);
+            return result(response, total, digests, partChecksums);
+        } catch (Throwable e) {
+            abort(bucket, objectName, uploadId, futures);
+            throw e instanceof ExecutionException ? e.getCause() : e;
+        } finally {
+            if (buffer != null) {
+                bufferPool.release(buffer);
+            }
+        }
+    }
+
+    private ObjectWriteResponse putObject(String bucket, String objectName, InputStream stream, long size, String contentType,
+                                          String checksum, Map<String, String> extraHeaders) throws Exception {
+        PutObjectArgs.Builder builder = PutObjectArgs.builder().bucket(bucket).object(objectName).stream(stream, size, -1);
+        if (contentType != null) {
+            builder.contentType(contentType);
+        }
+        if (checksum != null || extraHeaders != null) {
+            Map<String, String> headers = extraHeaders == null ? new HashMap<>() : new HashMap<>(extraHeaders);
+            if (checksum != null) {
+                headers.put(checksumAlgorithm.getHeader(), checksum);
+            }
+            builder.headers(headers);
+        }
+
+        return customMinioClient.putObject(builder.build());
+    }
+
+    private Callable<UploadedPart> uploadPart(String bucket, String objectName, String uploadId, int partNumber,
+                                              byte[] buffer, int length, Semaphore inFlight, AtomicBoolean failed) {
+        return () -> {
+            try {
+                // 在上传线程中计算，分片的校验和与上传并行
+                byte[] digest = null;
+                Multimap<String, String> headers = null;
+                if (checksumAlgorithm != null) {
+                    digest = checksumAlgorithm.digest(buffer, 0, length);
+                    headers = HashMultimap.create();
+                    headers.put(checksumAlgorithm.getHeader(), ChecksumAlgorithm.encode(digest));
+                }
+
+                String etag = customMinioClient.uploadPart(bucket, null, objectName, buffer, length, uploadId, partNumber, headers, null).etag();
+                return new UploadedPart(new Part(partNumber, etag), digest);
+            } catch (Throwable e) {
+                failed.set(true);
+                throw e;
+            } finally {
+                bufferPool.release(buffer);
+                inFlight.release();
+            }
+        };
+    }
+
+    private UploadResult result(ObjectWriteResponse response, long size, List<byte[]> digests, List<String> partChecksums) {
+        if (checksumAlgorithm == null) {
+            return new UploadResult(response, size, null, null, null);
+        }
+
+        return new UploadResult(response, size, checksumAlgorithm, checksumAlgorithm.composite(digests), partChecksums);
+    }
+
+    private List<String> partChecksums(List<byte[]> digests) {
+        if (checksumAlgorithm == null) {
+            return null;
+        }
+
+        List<String> partChecksums = new ArrayList<>(digests.size());
+        for (byte[] digest : digests) {
+            partChecksums.add(ChecksumAlgorithm.encode(digest));
+        }
+
+        return partChecksums;
+    }
+
+    /**
+     * 等待已提交的分片结束后再取消，避免取消之后仍有分片写入
+     */
+    private void abort(String bucket, String objectName, String uploadId, List<Future<UploadedPart>> futures) {
+        for (Future<UploadedPart> future : futures) {
+            try {
+                future.get();
+            } catch (Exception ignored) {
+                // 失败原因由调用方处理
+            }
+        }
+
+        try {
+            customMinioClient.abortMultipartUpload(bucket, null, objectName, uploadId, null, null);
+        } catch (Exception ignored) {
+            // 取消失败时残留的分片由存储桶生命周期规则清理
+        }
+    }
+
+    /**
+     * 读满缓冲区或读到流末尾
+     */
+    static int readFully(InputStream stream, byte[] buffer) throws IOException {
+        return readFully(stream, buffer, 0);
+    }
+
+    /**
+     * 从offset开始读满缓冲区或读到流末尾
+     *
+     * @return 本次读取的字节数
+     */
+    private static int readFully(InputStream stream, byte[] buffer, int offset) throws IOException {
+        int total = 0;
+        while (offset + total < buffer.length) {
+            int read = stream.read(buffer, offset + total, buffer.length - offset - total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+
+        return total;
+    }
+
+    /**
+     * 已上传的分片及其校验和，未开启校验时digest为空
+     */
+    private static class UploadedPart {
+
+        private final Part part;
+
+        private final byte[] digest;
+
+        private UploadedPart(Part part, byte[] digest) {
+            this.part = part;
+            this.digest = digest;
+        }
+    }
+
+    /**
+     * 固定上限的分片缓冲区池，按需分配，用完时阻塞
+     */
+    private static class BufferPool {
+
+        private final BlockingQueue<byte[]> idle;
+
+        private final AtomicInteger allocated = new AtomicInteger();
+
+        private final int capacity;
+
+        private final int bufferSize;
+
+        private BufferPool(int capacity, int bufferSize) {
+            this.idle = new ArrayBlockingQueue<>(capacity);
+            this.capacity = capacity;
+            this.bufferSize = bufferSize;
+        }
+
+        private byte[] acquire() throws InterruptedException {
+            byte[] buffer = idle.poll();
+            if (buffer != null) {
+                return buffer;
+            }
+
+            int current;
+            while ((current = allocated.get()) < capacity) {
+                if (allocated.compareAndSet(current, current + 1)) {
+                    return new byte[bufferSize];
+                }
+            }
+
+            return idle.take();
+        }
+
+        private void release(byte[] buffer) {
+            idle.offer(buffer);
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package com.minio.utils;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+import io.minio.ComposeSource;
+import io.minio.CopyObjectArgs;
+import io.minio.CopySource;
+import io.minio.ObjectWriteResponse;
+import io.minio.StatObjectArgs;
+import io.minio.StatObjectResponse;
+import io.minio.messages.Item;
+import io.minio.messages.Part;
+import lombok.SneakyThrows;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+
+/**
+ * 服务端复制与合成
+ *
+ * 数据只在minio内部传输。小于一个分片的对象用一次CopyObject完成；更大的对象和合成按分片大小拆成若干段，
+ * 通过分片上传的UploadPartCopy并行复制，任一分片失败时取消整个分片上传。复制前缀时边列举边复制，
+ * 同时复制objectConcurrency个对象，因此同一存储桶内目标前缀不能位于源前缀之下，否则新复制的对象会再次被列举
+ */
+public class ObjectCopier {
+
+    /** 分片复制时从源对象带到目标对象的请求头，自定义元数据另外处理 */
+    private static final String[] COPIED_HEADERS = {"Content-Type", "Content-Encoding", "Content-Disposition", "Content-Language",
+            "Cache-Control", "Expires"};
+
+    /** UploadPartCopy单个分片最大5GB，分片最大为两倍partSize */
+    public static final long MAX_PART_SIZE = 5L * 1024 * 1024 * 1024 / 2;
+
+    private final CustomMinioClient customMinioClient;
+
+    private final ExecutorService partExecutor;
+
+    private final ExecutorService objectExecutor;
+
+    private final long partSize;
+
+    private final int concurrency;
+
+    private final int objectConcurrency;
+
+    /**
+     * @param partExecutor 执行分片复制的线程池
+     * @param objectExecutor 复制前缀时执行单个对象复制的线程池，不能与partExecutor相同
+     * @param partSize 分片大小，也是使用分片复制的阈值
+     * @param concurrency 单个对象同时复制的分片数
+     * @param objectConcurrency 复制前缀时同时复制的对象数
+     */
+    public ObjectCopier(CustomMinioClient customMinioClient, ExecutorService partExecutor, ExecutorService objectExecutor,
+                        long partSize, int concurrency, int objectConcurrency) {
+        if (partSize < MultipartUploader.MIN_PART_SIZE || partSize > MAX_PART_SIZE) {
+            throw new IllegalArgumentException("partSize必须在5MB到2.5GB之间");
+        }
+        if (concurrency < 1 || objectConcurrency < 1) {
+            throw new IllegalArgumentException("concurrency和objectConcurrency必须大于0");
+        }
+
+        this.customMinioClient = customMinioClient;
+        this.partExecutor = partExecutor;
+        this.objectExecutor = objectExecutor;
+        this.partSize = partSize;
+        this.concurrency = concurrency;
+        this.objectConcurrency = objectConcurrency;
+    }
+
+    /**
+     * 复制单个对象，保留文件类型、内容编码等请求头和自定义元数据
+     */
+    @SneakyThrows
+    public ObjectWriteResponse copy(String sourceBucket, String sourceObject, String bucket, String objectName) {
+        StatObjectResponse stat = customMinioClient.statObject(StatObjectArgs.builder().bucket(sourceBucket).object(sourceObject).build());
+        if (stat.size() < partSize) {
+            return copySmall(sourceBucket, sourceObject, bucket, objectName);
+        }
+
+        List<Segment> segments = new ArrayList<>();
+        split(sourceBucket, sourceObject, stat.etag(), 0, stat.size(), segments);
+        return copyParts(bucket, objectName, headers(stat), segments);
+    }
+
+    /**
+     * 把多个对象（或其中一段）按顺序合成为一个对象，除最后一个外每段不能小于5MB
+     *
+     * @param sources 源对象，offset和length为空时取整个对象
+     */
+    @SneakyThrows
+    public ObjectWriteResponse compose(String bucket, String objectName, List<ComposeSource> sources) {
+        if (sources.isEmpty()) {
+            throw new IllegalArgumentException("sources不能为空");
+        }
+
+        List<Segment> segments = new ArrayList<>();
+        StatObjectResponse first = null;
+        for (int i = 0; i < sources.size(); i++) {
+            ComposeSource source = sources.get(i);
+            StatObjectResponse stat = customMinioClient.statObject(StatObjectArgs.builder().bucket(source.bucket()).object(source.object()).build());
+            if (first == null) {
+                first = stat;
+            }
+
+            long offset = source.offset() == null ? 0 : source.offset();
+            long length = source.length() == null ? stat.size() - offset : source.length();
+            if (offset < 0 || length < 0 || offset + length > stat.size()) {
+                throw new IllegalArgumentException(source.object() + "的范围超出对象大小" + stat.size());
+            }
+            if (i < sources.size() - 1 && length < MultipartUploader.MIN_PART_SIZE) {
+                throw new IllegalArgumentException(source.object() + "不是最后一个源对象，长度不能小于5MB");
+            }
+            split(source.bucket(), source.object(), stat.etag(), offset, length, segments);
+        }
+
+        // 合成结果的类型和元数据取自第一个源对象
+        return copyParts(bucket, objectName, headers(first), segments);
+    }
+
+    /**
+     * 复制列举出的对象，单个对象失败不影响其他对象
+     *
+     * @param items 源对象，按需遍历
+     * @param sourcePrefix 源前缀，替换为targetPrefix得到目标对象名
+     * @param onCopied 对象复制成功后的回调，参数为目标存储桶和对象名，可为空
+     * @throws IllegalArgumentException 同一存储桶内源前缀和目标前缀互相包含时
+     */
+    @SneakyThrows
+    public CopyObjectsResult copyAll(String sourceBucket, String sourcePrefix, Iterator<Item> items, String bucket, String targetPrefix,
+                                     BiConsumer<String, String> onCopied) {
+        // 边列举边复制，目标在源前缀之下时新对象会被再次列举和复制，永远不会结束；
+        // 源在目标前缀之下时，a/b/b/x复制到a/b/x会覆盖还没复制的源对象
+        if (sourceBucket.equals(bucket) && (targetPrefix.startsWith(sourcePrefix) || sourcePrefix.startsWith(targetPrefix))) {
+            throw new IllegalArgumentException("同一存储桶内源前缀" + sourcePrefix + "和目标前缀" + targetPrefix + "不能互相包含");
+        }
+
+        CopyObjectsResult result = new CopyObjectsResult();
+        Semaphore inFlight = new Semaphore(objectConcurrency);
+
+        try {
+            while (items.hasNext()) {
+                Item item = items.next();
+                if (item.isDir()) {
+                    continue;
+                }
+
+                String sourceObject = item.objectName();
+                String objectName = targetPrefix + sourceObject.substring(sourcePrefix.length());
+                inFlight.acquire();
+                try {
+                    objectExecutor.execute(() -> {
+                        try {
+                            // 列举结果已带有大小，小对象直接交给CopyObject
+                            if (item.size() < partSize) {
+                                copySmall(sourceBucket, sourceObject, bucket, objectName);
+                            } else {
+                                copy(sourceBucket, sourceObject, bucket, objectName);
+                            }
+                            if (onCopied != null) {
+                                onCopied.accept(bucket, objectName);
+                            }
+                            synchronized (result) {
+                                result.setCopied(result.getCopied() + 1);
+                            }
+                        } catch (Throwable e) {
+                            synchronized (result) {
+                                result.getErrors().put(sourceObject, e);
+                            }
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+                } catch (Throwable e) {
+                    inFlight.release();
+                    throw e;
+                }
+            }
+        } finally {
+            // 拿到全部许可即所有对象已结束
+            inFlight.acquireUninterruptibly(objectConcurrency);
+        }
+
+        return result;
+    }
+
+    @SneakyThrows
+    private ObjectWriteResponse copySmall(String sourceBucket, String sourceObject, String bucket, String objectName) {
+        return customMinioClient.copyObject(CopyObjectArgs.builder().bucket(bucket).object(objectName)
+                .source(CopySource.builder().bucket(sourceBucket).object(sourceObject).build())
+                .build());
+    }
+
+    /**
+     * 按partSize拆分一段数据，余数并入最后一片，保证除最后一片外不小于5MB
+     */
+    private void split(String bucket, String objectName, String etag, long offset, long length, List<Segment> segments) {
+        // 空的段不产生分片
+        if (length == 0) {
+            return;
+        }
+
+        // 分片过多时放大分片
+        long size = Math.max(partSize, (length + MultipartUploader.MAX_PARTS - 1) / MultipartUploader.MAX_PARTS);
+        long count = Math.max(1, length / size);
+        for (long i = 0; i < count; i++) {
+            long start = offset + i * size;
+            long end = i == count - 1 ? offset + length : start + size;
+            segments.add(new Segment(bucket, objectName, etag, start, end - start));
+        }
+        if (segments.size() > MultipartUploader.MAX_PARTS) {
+            throw new IllegalArgumentException("分片数超过" + MultipartUploader.MAX_PARTS + "，请调大partSize");
+        }
+    }
+
+    private ObjectWriteResponse copyParts(String bucket, String objectName, Multimap<String, String> headers, List<Segment> segments) throws Throwable {
+        if (segments.isEmpty()) {
+            throw new IllegalArgumentException("源对象的内容为空");
+        }
+
+        String uploadId = customMinioClient.createMultipartUpload(bucket, null, objectName, headers, null).result().uploadId();
+
+        List<Future<Part>> futures = new ArrayList<>(segments.size());
+        Semaphore inFlight = new Semaphore(concurrency);
+        AtomicBoolean failed = new AtomicBoolean();
+        try {
+            for (int i = 0; i < segments.size() && !failed.get(); i++) {
+                inFlight.acquire();
+                futures.add(partExecutor.submit(copyPart(bucket, objectName, uploadId, i + 1, segments.get(i), inFlight, failed)));
+            }
+
+            Part[] parts = new Part[futures.size()];
+            for (int i = 0; i < parts.length; i++) {
+                parts[i] = futures.get(i).get();
+            }
+
+            return customMinioClient.completeMultipartUpload(bucket, null, objectName, uploadId, parts, null, null);
+        } catch (Throwable e) {
+            abort(bucket, objectName, uploadId, futures);
+            throw e instanceof ExecutionException ? e.getCause() : e;
+        }
+    }
+
+    private Callable<Part> copyPart(String bucket, String objectName, String uploadId, int partNumber, Segment segment,
+                                    Semaphore inFlight, AtomicBoolean failed) {
+        return () -> {
+            try {
+                Multimap<String, String> headers = HashMultimap.create();
+                headers.put("x-amz-copy-source", "/" + segment.bucket + "/" + MinioPresigner.encodePath(segment.objectName));
+                headers.put("x-amz-copy-source-range", "bytes=" + segment.offset + "-" + (segment.offset + segment.length - 1));
+                // 复制期间源对象被覆盖时失败，而不是拼出混合的内容
+                if (segment.etag != null) {
+                    headers.put("x-amz-copy-source-if-match", segment.etag);
+                }
+
+                String etag = customMinioClient.uploadPartCopy(bucket, null, objectName, uploadId, partNumber, headers, null).result().etag();
+                return new Part(partNumber, etag);
+            } catch (Throwable e) {
+                failed.set(true);
+                throw e;
+            } finally {
+                inFlight.release();
+            }
+        };
+    }
+
+    /**
+     * 等待已提交的分片结束后再取消，避免取消之后仍有分片写入
+     */
+    private void abort(String bucket, String objectName, String uploadId, List<Future<Part>> futures) {
+        for (Future<Part> future : futures) {
+            try {
+                future.get();
+            } catch (Exception ignored) {
+                // 失败原因由调用方处理
+            }
+        }
+
+        try {
+            customMinioClient.abortMultipartUpload(bucket, null, objectName, uploadId, null, null);
+        } catch (Exception ignored) {
+            // 取消失败时残留的分片由存储桶生命周期规则清理
+        }
+    }
+
+    /**
+     * 源对象的文件类型、内容编码等请求头和自定义元数据，与CopyObject保留的内容一致
+     */
+    private static Multimap<String, String> headers(StatObjectResponse stat) {
+        Multimap<String, String> headers = HashMultimap.create();
+        for (String name : COPIED_HEADERS) {
+            String value = stat.headers().get(name);
+            if (value != null) {
+                headers.put(name, value);
+            }
+        }
+        Map<String, String> userMetadata = stat.userMetadata() == null ? Collections.emptyMap() : stat.userMetadata();
+        for (Map.Entry<String, String> entry : userMetadata.entrySet()) {
+            headers.put("x-amz-meta-" + entry.getKey(), entry.getValue());
+        }
+
+        return headers;
+    }
+
+    /**
+     * 源对象中的一段，对应目标的一个分片
+     */
+    private static class Segment {
+
+        private final String bucket;
+
+        private final String objectName;
+
+        private final String etag;
+
+        private final long offset;
+
+        private final long length;
+
+        private Segment(String bucket, String objectName, String etag, long offset, long length) {
+            this.bucket = bucket;
+            this.objectName = objectName;
+            this.etag = etag;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
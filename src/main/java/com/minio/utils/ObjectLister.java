@@ -0,0 +1,234 @@
+package com.minio.utils;
+
+import io.minio.ListObjectsArgs;
+import io.minio.Result;
+import io.minio.messages.Item;
+import lombok.SneakyThrows;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 对象列举
+ *
+ * 顺序列举时按页懒加载，只在消费到页尾时请求下一页。并行列举时按分隔符列出下一级前缀，
+ * 每个前缀由一个线程递归列举，结果经有界队列交给调用方，消费慢于列举时列举线程等待，内存占用固定。
+ * 调用方没有关闭流就不再消费时，列举线程等待超过idleTimeout后停止
+ */
+public class ObjectLister {
+
+    private final CustomMinioClient customMinioClient;
+
+    private final ExecutorService executor;
+
+    private final int pageSize;
+
+    private final int concurrency;
+
+    private final int queueCapacity;
+
+    private final long idleTimeout;
+
+    /**
+     * @param idleTimeout 并行列举时调用方超过该时间（毫秒）未消费则停止列举
+     */
+    public ObjectLister(CustomMinioClient customMinioClient, ExecutorService executor, int pageSize, int concurrency, int queueCapacity,
+                        long idleTimeout) {
+        if (pageSize < 1 || pageSize > 1000) {
+            throw new IllegalArgumentException("pageSize必须在1到1000之间");
+        }
+        if (concurrency < 1 || queueCapacity < 1 || idleTimeout < 1) {
+            throw new IllegalArgumentException("concurrency、queueCapacity和idleTimeout必须大于0");
+        }
+
+        this.customMinioClient = customMinioClient;
+        this.executor = executor;
+        this.pageSize = pageSize;
+        this.concurrency = concurrency;
+        this.queueCapacity = queueCapacity;
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * 按对象名顺序列举，按页懒加载
+     *
+     * @param bucket 存储桶
+     * @param prefix 前缀，可为空
+     * @param recursive 为false时只列举一级，下一级目录以isDir的项返回
+     */
+    public Stream<Item> list(String bucket, String prefix, boolean recursive) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator(bucket, prefix, recursive),
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * 按下一级前缀并行递归列举，结果不保证顺序。使用完毕后应关闭返回的流，以便提前结束时停止列举；
+     * 未关闭时列举线程在调用方停止消费idleTimeout后停止，之后再消费会抛出异常
+     *
+     * @param bucket 存储桶
+     * @param prefix 前缀，可为空
+     */
+    public Stream<Item> listParallel(String bucket, String prefix) {
+        FanOut fanOut = new FanOut(bucket, prefix);
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(fanOut, Spliterator.NONNULL), false)
+                .onClose(fanOut::cancel);
+    }
+
+    private Iterator<Item> iterator(String bucket, String prefix, boolean recursive) {
+        ListObjectsArgs.Builder builder = ListObjectsArgs.builder().bucket(bucket).recursive(recursive).maxKeys(pageSize);
+        if (prefix != null) {
+            builder.prefix(prefix);
+        }
+        Iterator<Result<Item>> results = customMinioClient.listObjects(builder.build()).iterator();
+
+        return new Iterator<Item>() {
+            @Override
+            public boolean hasNext() {
+                return results.hasNext();
+            }
+
+            @Override
+            public Item next() {
+                return get(results.next());
+            }
+        };
+    }
+
+    @SneakyThrows
+    private static Item get(Result<Item> result) {
+        return result.get();
+    }
+
+    /**
+     * 一次并行列举：调用方线程在消费时顺带列出下一级，目录交给列举线程，同时在途的目录不超过concurrency个。
+     * 下一级列举不占用线程池，多个并行列举共享线程池时不会互相等待
+     */
+    private class FanOut implements Iterator<Item> {
+
+        private final String bucket;
+
+        private final Iterator<Item> level;
+
+        private final BlockingQueue<Item> queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        /** 正在列举的目录数 */
+        private final AtomicInteger active = new AtomicInteger();
+
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        private volatile boolean cancelled;
+
+        /** 调用方最近一次消费的时间，列举线程据此判断调用方是否已放弃 */
+        private volatile long consumedAt = System.nanoTime();
+
+        private boolean levelDone;
+
+        private Item next;
+
+        private FanOut(String bucket, String prefix) {
+            this.bucket = bucket;
+            this.level = iterator(bucket, prefix, false);
+        }
+
+        private void listPrefix(String subPrefix) {
+            try {
+                Iterator<Item> items = iterator(bucket, subPrefix, true);
+                while (!cancelled && items.hasNext()) {
+                    Item item = items.next();
+                    while (!cancelled && !queue.offer(item, 100, TimeUnit.MILLISECONDS)) {
+                        // 调用方消费较慢，等待队列空出位置；长时间未消费时停止，避免线程一直阻塞
+                        if (System.nanoTime() - consumedAt > TimeUnit.MILLISECONDS.toNanos(idleTimeout)) {
+                            throw new IllegalStateException("并行列举超过" + idleTimeout + "毫秒未被消费，已停止");
+                        }
+                    }
+                }
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+                cancelled = true;
+            } finally {
+                active.decrementAndGet();
+            }
+        }
+
+        private void cancel() {
+            cancelled = true;
+            queue.clear();
+        }
+
+        @Override
+        @SneakyThrows
+        public boolean hasNext() {
+            while (next == null) {
+                consumedAt = System.nanoTime();
+                if (failure.get() != null) {
+                    cancel();
+                    throw failure.get();
+                }
+
+                Item item = queue.poll();
+                if (item != null) {
+                    next = item;
+                    break;
+                }
+
+                if (!levelDone && active.get() < concurrency) {
+                    if (level.hasNext()) {
+                        item = level.next();
+                        if (item.isDir()) {
+                            active.incrementAndGet();
+                            String subPrefix = item.objectName();
+                            try {
+                                executor.execute(() -> listPrefix(subPrefix));
+                            } catch (Throwable e) {
+                                active.decrementAndGet();
+                                throw e;
+                            }
+                        } else {
+                            next = item;
+                        }
+                        continue;
+                    }
+                    levelDone = true;
+                }
+
+                if (levelDone && active.get() == 0) {
+                    // 列举线程在退出前已放入全部结果
+                    next = queue.poll();
+                    if (next == null) {
+                        if (failure.get() != null) {
+                            throw failure.get();
+                        }
+                        return false;
+                    }
+                    break;
+                }
+
+                next = queue.poll(100, TimeUnit.MILLISECONDS);
+            }
+
+            return true;
+        }
+
+        @Override
+        public Item next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            Item item = next;
+            next = null;
+            return item;
+        }
+    }
+}
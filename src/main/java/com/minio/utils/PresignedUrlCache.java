@@ -0,0 +1,80 @@
+package com.minio.utils;
+
+import cn.hutool.cache.impl.LRUCache;
+import io.minio.http.Method;
+
+import java.util.function.Supplier;
+
+/**
+ * 预签名地址缓存，按(存储桶, 对象, 请求方法)缓存，容量满时淘汰最久未使用的地址
+ *
+ * 缓存时长为地址有效期减去提前刷新时间，剩余有效期不足时视为未命中并重新签名，
+ * 保证返回给调用方的地址至少还有refreshBefore的有效期
+ */
+public class PresignedUrlCache {
+
+    private final LRUCache<String, String> cache;
+
+    private final long timeout;
+
+    /**
+     * @param capacity 最多缓存的地址数
+     * @param expiry 地址有效期（毫秒）
+     * @param refreshBefore 提前刷新时间（毫秒），必须小于有效期
+     */
+    public PresignedUrlCache(int capacity, long expiry, long refreshBefore) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity必须大于0");
+        }
+        if (refreshBefore < 0 || refreshBefore >= expiry) {
+            throw new IllegalArgumentException("refreshBefore必须小于地址有效期");
+        }
+
+        this.cache = new LRUCache<>(capacity);
+        this.timeout = expiry - refreshBefore;
+    }
+
+    /**
+     * 获取缓存的地址，未命中或即将过期时调用signer重新签名
+     */
+    public String get(Method method, String bucket, String objectName, Supplier<String> signer) {
+        String key = key(method, bucket, objectName);
+        // 不刷新访问时间，否则频繁访问的地址永远不会过期
+        String url = cache.get(key, false);
+        if (url == null) {
+            url = signer.get();
+            cache.put(key, url, timeout);
+        }
+
+        return url;
+    }
+
+    /**
+     * 使对象的所有缓存地址失效
+     */
+    public void invalidate(String bucket, String objectName) {
+        for (Method method : Method.values()) {
+            cache.remove(key(method, bucket, objectName));
+        }
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    public long hitCount() {
+        return cache.getHitCount();
+    }
+
+    public long missCount() {
+        return cache.getMissCount();
+    }
+
+    private static String key(Method method, String bucket, String objectName) {
+        return method.name() + '\n' + bucket + '\n' + objectName;
+    }
+}
@@ -0,0 +1,14 @@
+package com.minio.utils;
+
+/**
+ * 传输进度回调，可能在多个传输线程中并发调用
+ */
+@FunctionalInterface
+public interface ProgressListener {
+
+    /**
+     * @param transferred 已传输的字节数
+     * @param total 总字节数，下载压缩的对象时事先未知，为-1
+     */
+    void onProgress(long transferred, long total);
+}
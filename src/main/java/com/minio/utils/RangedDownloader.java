@@ -0,0 +1,263 @@
+package com.minio.utils;
+
+import com.minio.resilience.MinioResilience;
+import io.minio.GetObjectArgs;
+import io.minio.StatObjectArgs;
+import io.minio.StatObjectResponse;
+import lombok.SneakyThrows;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 并行分段下载
+ *
+ * 先查询对象大小，再按分段大小切分，用多个连接同时读取各段。写入文件时按位置直接写，
+ * 写入输出流时按顺序交付，乱序到达的分段最多缓存concurrency个。读取中途连接断开时从断点处续传，
+ * 对象已变化、不存在等错误和写入本地失败直接抛出
+ */
+public class RangedDownloader {
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final CustomMinioClient customMinioClient;
+
+    private final ExecutorService executor;
+
+    private final int rangeSize;
+
+    private final int concurrency;
+
+    private final int maxRetries;
+
+    public RangedDownloader(CustomMinioClient customMinioClient, ExecutorService executor, long rangeSize, int concurrency, int maxRetries) {
+        if (rangeSize < 1 || rangeSize > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("rangeSize必须在1字节到2GB之间");
+        }
+        if (concurrency < 1 || maxRetries < 0) {
+            throw new IllegalArgumentException("concurrency必须大于0，maxRetries不能小于0");
+        }
+
+        this.customMinioClient = customMinioClient;
+        this.executor = executor;
+        this.rangeSize = (int) rangeSize;
+        this.concurrency = concurrency;
+        this.maxRetries = maxRetries;
+    }
+
+    /**
+     * 下载到文件通道，各分段按位置写入，不改变通道的当前位置
+     *
+     * @param bucket 存储桶
+     * @param objectName 对象名
+     * @param channel 可写的文件通道，由调用方关闭
+     * @param listener 进度回调，可为空
+     * @return 对象大小
+     */
+    @SneakyThrows
+    public long download(String bucket, String objectName, FileChannel channel, ProgressListener listener) {
+        StatObjectResponse stat = customMinioClient.statObject(StatObjectArgs.builder().bucket(bucket).object(objectName).build());
+        long size = stat.size();
+        int rangeCount = rangeCount(size);
+        Progress progress = new Progress(size, listener);
+
+        AtomicInteger nextRange = new AtomicInteger();
+        AtomicBoolean failed = new AtomicBoolean();
+        List<Future<?>> workers = new ArrayList<>();
+        for (int i = 0; i < Math.min(concurrency, rangeCount); i++) {
+            workers.add(executor.submit(() -> {
+                int range;
+                while (!failed.get() && (range = nextRange.getAndIncrement()) < rangeCount) {
+                    long start = (long) range * rangeSize;
+                    long length = Math.min(rangeSize, size - start);
+                    try {
+                        fetch(bucket, objectName, stat.etag(), start, length, (position, data, count) -> {
+                            ByteBuffer buffer = ByteBuffer.wrap(data, 0, count);
+                            while (buffer.hasRemaining()) {
+                                position += channel.write(buffer, position);
+                            }
+                            progress.add(count);
+                        });
+                    } catch (Exception e) {
+                        failed.set(true);
+                        throw e;
+                    }
+                }
+
+                return null;
+            }));
+        }
+
+        await(workers);
+
+        return size;
+    }
+
+    /**
+     * 按顺序下载到输出流
+     *
+     * @param bucket 存储桶
+     * @param objectName 对象名
+     * @param out 输出流，由调用方关闭
+     * @param listener 进度回调，可为空
+     * @return 对象大小
+     */
+    @SneakyThrows
+    public long download(String bucket, String objectName, OutputStream out, ProgressListener listener) {
+        StatObjectResponse stat = customMinioClient.statObject(StatObjectArgs.builder().bucket(bucket).object(objectName).build());
+        long size = stat.size();
+        int rangeCount = rangeCount(size);
+        Progress progress = new Progress(size, listener);
+
+        Deque<Future<byte[]>> window = new ArrayDeque<>(concurrency);
+        int submitted = 0;
+        try {
+            for (int written = 0; written < rangeCount; written++) {
+                while (submitted < rangeCount && window.size() < concurrency) {
+                    long start = (long) submitted * rangeSize;
+                    int length = (int) Math.min(rangeSize, size - start);
+                    window.addLast(executor.submit(() -> {
+                        byte[] data = new byte[length];
+                        fetch(bucket, objectName, stat.etag(), start, length, (position, chunk, count) -> {
+                            System.arraycopy(chunk, 0, data, (int) (position - start), count);
+                            progress.add(count);
+                        });
+                        return data;
+                    }));
+                    submitted++;
+                }
+
+                out.write(window.removeFirst().get());
+            }
+        } catch (Throwable e) {
+            for (Future<byte[]> future : window) {
+                future.cancel(true);
+            }
+            throw e instanceof ExecutionException ? e.getCause() : e;
+        }
+
+        return size;
+    }
+
+    private int rangeCount(long size) {
+        long count = (size + rangeSize - 1) / rangeSize;
+        if (count > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("分段数过多，请调大rangeSize");
+        }
+
+        return (int) count;
+    }
+
+    /**
+     * 读取一个分段，读取中途断开后从已读到的位置继续，最多重试maxRetries次。
+     * 打开请求的瞬时故障已由MinioResilience重试，这里不再叠加重试
+     */
+    private void fetch(String bucket, String objectName, String etag, long start, long length, RangeSink sink) throws Exception {
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        long done = 0;
+        int attempt = 0;
+        while (true) {
+            GetObjectArgs args = GetObjectArgs.builder().bucket(bucket).object(objectName)
+                    .offset(start + done).length(length - done).matchETag(etag).build();
+            InputStream response = customMinioClient.getObject(args);
+            try (InputStream in = response) {
+                int read;
+                while (done < length && (read = in.read(buffer, 0, (int) Math.min(buffer.length, length - done))) > 0) {
+                    try {
+                        sink.write(start + done, buffer, read);
+                    } catch (IOException e) {
+                        throw new SinkException(e);
+                    }
+                    done += read;
+                }
+                if (done < length) {
+                    throw new IOException("分段数据不完整，期望" + length + "字节，实际" + done + "字节");
+                }
+
+                return;
+            } catch (SinkException e) {
+                // 本地写入失败重试也无法恢复
+                throw e.getCause();
+            } catch (Exception e) {
+                if (attempt++ >= maxRetries || !MinioResilience.isTransient(e) || Thread.currentThread().isInterrupted()) {
+                    throw e;
+                }
+                TimeUnit.MILLISECONDS.sleep(100L << Math.min(attempt, 6));
+            }
+        }
+    }
+
+    private static void await(List<Future<?>> workers) throws Throwable {
+        Throwable failure = null;
+        for (Future<?> worker : workers) {
+            try {
+                worker.get();
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause();
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    @FunctionalInterface
+    private interface RangeSink {
+
+        void write(long position, byte[] data, int count) throws IOException;
+    }
+
+    /**
+     * 区分写入本地失败和读取失败
+     */
+    private static class SinkException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private SinkException(IOException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized IOException getCause() {
+            return (IOException) super.getCause();
+        }
+    }
+
+    private static class Progress {
+
+        private final AtomicLong transferred = new AtomicLong();
+
+        private final long total;
+
+        private final ProgressListener listener;
+
+        private Progress(long total, ProgressListener listener) {
+            this.total = total;
+            this.listener = listener;
+        }
+
+        private void add(long count) {
+            long current = transferred.addAndGet(count);
+            if (listener != null) {
+                listener.onProgress(current, total);
+            }
+        }
+    }
+}
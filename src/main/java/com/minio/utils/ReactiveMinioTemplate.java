@@ -0,0 +1,432 @@
+package com.minio.utils;
+
+import cn.hutool.core.io.IoUtil;
+import com.minio.constant.PropertyConstant;
+import com.minio.enums.MimeTypeEnum;
+import com.minio.properties.MinioProperties;
+import io.minio.ObjectWriteResponse;
+import io.minio.StatObjectResponse;
+import io.minio.Xml;
+import io.minio.http.Method;
+import io.minio.messages.CompleteMultipartUpload;
+import io.minio.messages.CompleteMultipartUploadOutput;
+import io.minio.messages.ErrorResponse;
+import io.minio.messages.InitiateMultipartUploadResult;
+import io.minio.messages.ListPartsResult;
+import io.minio.messages.LocationConstraint;
+import io.minio.messages.Part;
+import io.netty.channel.ChannelOption;
+import okhttp3.Headers;
+import org.apache.commons.lang3.StringUtils;
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.codec.multipart.FilePart;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 非阻塞的文件服务器工具类，与{@link MinioTemplate}的常用方法一一对应
+ *
+ * minio 8.3.0的SDK只有阻塞客户端，这里请求在本地用{@link MinioPresigner}签名，再交给基于netty的WebClient发送，
+ * 请求在途期间不占用线程。没有配置区域时，与SDK一样先查询存储桶所在的区域再签名。
+ * 预览地址缓存、元数据缓存和上传会话只在{@link MinioTemplate}中维护，两者混用时互不感知
+ */
+public class ReactiveMinioTemplate {
+
+    private final MinioProperties minioProperties;
+
+    private final MinioPresigner minioPresigner;
+
+    /** 查询存储桶区域的签名工具，配置了区域时为空 */
+    private final MinioPresigner locationPresigner;
+
+    /** 已查询到的存储桶区域 */
+    private final ConcurrentMap<String, String> regions = new ConcurrentHashMap<>();
+
+    private final ConnectionProvider connectionProvider;
+
+    private final WebClient webClient;
+
+    public ReactiveMinioTemplate(MinioProperties minioProperties) {
+        this.minioProperties = minioProperties;
+        int parallelThreshold = minioProperties.getPresign().getParallelThreshold();
+        if (StringUtils.isNotBlank(minioProperties.getRegion())) {
+            this.minioPresigner = new MinioPresigner(minioProperties.getEndpoint(), minioProperties.getRegion(),
+                    minioProperties.getAccessKey(), minioProperties.getSecretKey(), parallelThreshold);
+            this.locationPresigner = null;
+        } else {
+            // 查询区域的请求按SDK的约定以us-east-1签名
+            this.minioPresigner = new MinioPresigner(minioProperties.getEndpoint(), this::cachedRegion,
+                    minioProperties.getAccessKey(), minioProperties.getSecretKey(), parallelThreshold);
+            this.locationPresigner = new MinioPresigner(minioProperties.getEndpoint(), PropertyConstant.region,
+                    minioProperties.getAccessKey(), minioProperties.getSecretKey(), parallelThreshold);
+        }
+
+        MinioProperties.Http http = minioProperties.getHttp();
+        this.connectionProvider = ConnectionProvider.builder("minio")
+                .maxConnections(http.getMaxRequestsPerHost())
+                .pendingAcquireMaxCount(-1)
+                .maxIdleTime(http.getKeepAlive())
+                .build();
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) http.getConnectTimeout().toMillis())
+                .responseTimeout(http.getReadTimeout());
+        this.webClient = WebClient.builder().clientConnector(new ReactorClientHttpConnector(httpClient)).build();
+    }
+
+    /**
+     * 释放连接池
+     */
+    @PreDestroy
+    public void destroy() {
+        connectionProvider.dispose();
+    }
+
+    /**
+     * 文件上传，先转存到临时文件以确定大小，再上传到文件分类目录
+     * @param file 文件
+     * @return 预览地址
+     */
+    public Mono<String> upload(FilePart file) {
+        String filename = file.filename();
+        MediaType contentType = file.headers().getContentType();
+
+        return Mono.fromCallable(() -> Files.createTempFile("minio-upload-", null))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(temp -> file.transferTo(temp)
+                        .then(Mono.fromCallable(() -> mimeType(filename, temp)).subscribeOn(Schedulers.boundedElastic()))
+                        .flatMap(mimeType -> {
+                            String fullPath = mimeType.map(MimeTypeEnum::getFileType).orElse("file") + "/" + filename;
+                            String type = contentType == null ? null : contentType.toString();
+                            if (mimeType.isPresent() && (type == null || MediaType.APPLICATION_OCTET_STREAM_VALUE.equals(type))) {
+                                type = mimeType.get().getMimeType();
+                            }
+
+                            return putObject(minioProperties.getBucket(), fullPath,
+                                    DataBufferUtils.read(temp, new DefaultDataBufferFactory(), 64 * 1024), temp.toFile().length(), type)
+                                    .thenReturn(fullPath);
+                        })
+                        .doFinally(signal -> delete(temp)))
+                .flatMap(fullPath -> preview(minioProperties.getBucket(), fullPath));
+    }
+
+    /**
+     * 按扩展名判断文件类型，没有扩展名时读取文件头判断
+     */
+    private static Optional<MimeTypeEnum> mimeType(String filename, Path file) throws IOException {
+        MimeTypeEnum mimeType = MimeTypeEnum.findByFileName(filename);
+        if (mimeType == null) {
+            try (InputStream stream = Files.newInputStream(file)) {
+                byte[] header = IoUtil.readBytes(stream, MimeTypeEnum.MAGIC_LENGTH);
+                mimeType = MimeTypeEnum.sniff(header, header.length);
+            }
+        }
+
+        return Optional.ofNullable(mimeType);
+    }
+
+    /**
+     * 上传文件流，文件名称相同会覆盖
+     *
+     * @param bucket 存储桶
+     * @param objectName 对象名
+     * @param content 文件内容
+     * @param size 文件大小，S3协议要求上传前确定
+     * @param contentType 文件类型，可为空
+     */
+    public Mono<ObjectWriteResponse> putObject(String bucket, String objectName, Publisher<DataBuffer> content, long size, String contentType) {
+        return resolveRegion(bucket).then(Mono.defer(() -> webClient.put().uri(presign(Method.PUT, bucket, objectName, null))
+                .headers(headers -> {
+                    headers.setContentLength(size);
+                    if (contentType != null) {
+                        headers.set(HttpHeaders.CONTENT_TYPE, contentType);
+                    }
+                })
+                .body(BodyInserters.fromDataBuffers(content))
+                .retrieve()
+                .toBodilessEntity()
+                .map(entity -> new ObjectWriteResponse(toHeaders(entity.getHeaders()), bucket, minioProperties.getRegion(), objectName,
+                        trimEtag(entity.getHeaders().getETag()), entity.getHeaders().getFirst("x-amz-version-id")))));
+    }
+
+    /**
+     * 获取文件流，订阅后才发出请求，数据块用完后需要调用方释放
+     *
+     * @param bucket 存储桶名称
+     * @param objectName 文件名称
+     */
+    public Flux<DataBuffer> getObject(String bucket, String objectName) {
+        return getObject(bucket, objectName, 0, -1);
+    }
+
+    /**
+     * 断点下载
+     *
+     * @param bucket bucket名称
+     * @param objectName 文件名称
+     * @param offset 起始字节的位置
+     * @param length 要读取的长度，小于0时读到文件末尾，为0时不发出请求
+     */
+    public Flux<DataBuffer> getObject(String bucket, String objectName, long offset, long length) {
+        // bytes=offset-(offset-1)不是合法的范围
+        if (length == 0) {
+            return Flux.empty();
+        }
+
+        return resolveRegion(bucket).thenMany(Flux.defer(() -> webClient.get().uri(presign(Method.GET, bucket, objectName, null))
+                .headers(headers -> {
+                    if (offset > 0 || length >= 0) {
+                        headers.set(HttpHeaders.RANGE, "bytes=" + offset + "-" + (length >= 0 ? String.valueOf(offset + length - 1) : ""));
+                    }
+                })
+                .retrieve()
+                .bodyToFlux(DataBuffer.class)));
+    }
+
+    /**
+     * 获取文件信息，文件不存在时以WebClientResponseException.NotFound结束
+     *
+     * @param bucket bucket名称
+     * @param objectName 文件名称
+     */
+    public Mono<StatObjectResponse> statObject(String bucket, String objectName) {
+        return resolveRegion(bucket).then(Mono.defer(() -> webClient.head().uri(presign(Method.HEAD, bucket, objectName, null))
+                .retrieve()
+                .toBodilessEntity()
+                .map(entity -> new StatObjectResponse(toHeaders(entity.getHeaders()), bucket, minioProperties.getRegion(), objectName))));
+    }
+
+    /**
+     * 预览，开启存在性检查时先查询文件信息
+     * @param fileName 是上传图片的fullPath=>eg:2021-12/27/typora-setup-x64.exe
+     */
+    public Mono<String> preview(String bucket, String fileName) {
+        MinioProperties.Presign presign = minioProperties.getPresign();
+        Mono<String> sign = Mono.fromSupplier(() ->
+                minioPresigner.presign(Method.GET, bucket, fileName, (int) presign.getPreviewExpiry().getSeconds(), null));
+
+        return presign.isCheckExists() ? statObject(bucket, fileName).then(sign) : resolveRegion(bucket).then(sign);
+    }
+
+    /**
+     * 创建分片上传，返回uploadId和各分片的上传地址
+     *
+     * @param bucketName 存储桶
+     * @param objectName 文件目录名(可选)/文件名
+     * @param totalPart 总分片数
+     * @param fileType 文件类型，可为空
+     */
+    public Mono<Map<String, Object>> initMultiPartUpload(String bucketName, String objectName, int totalPart, String fileType) {
+        return resolveRegion(bucketName).then(Mono.defer(() -> webClient.post().uri(presign(Method.POST, bucketName, objectName, Collections.singletonMap("uploads", "")))
+                .headers(headers -> {
+                    if (fileType != null) {
+                        headers.set(HttpHeaders.CONTENT_TYPE, fileType);
+                    }
+                })
+                .retrieve()
+                .bodyToMono(String.class)
+                .map(body -> {
+                    String uploadId = unmarshal(InitiateMultipartUploadResult.class, body).uploadId();
+
+                    Map<String, Object> result = new HashMap<>();
+                    result.put("uploadId", uploadId);
+                    result.put("uploadUrls", minioPresigner.presignParts(bucketName, objectName, uploadId, totalPart, (int) TimeUnit.DAYS.toSeconds(1)));
+                    return result;
+                })));
+    }
+
+    /**
+     * 分片合并，分页查询已上传的分片，校验分片序号从1开始连续后再合并
+     * @param bucketName
+     * @param objectName 文件目录名(可选)/文件名，这里要和获取文件分片地址的时候保持一致
+     * @param uploadId
+     */
+    public Mono<ObjectWriteResponse> mergeMultipartUpload(String bucketName, String objectName, String uploadId) {
+        return resolveRegion(bucketName).then(Mono.defer(() -> mergeListedParts(bucketName, objectName, uploadId)));
+    }
+
+    private Mono<ObjectWriteResponse> mergeListedParts(String bucketName, String objectName, String uploadId) {
+        return listParts(bucketName, objectName, uploadId, 0)
+                .expand(page -> page.isTruncated() && !page.partList().isEmpty()
+                        ? listParts(bucketName, objectName, uploadId, page.nextPartNumberMarker())
+                        : Mono.empty())
+                .concatMapIterable(ListPartsResult::partList)
+                .collectList()
+                .flatMap(listed -> {
+                    List<Part> parts = new ArrayList<>(listed.size());
+                    for (Part part : listed) {
+                        int expected = parts.size() + 1;
+                        if (part.partNumber() != expected) {
+                            return Mono.error(new IllegalStateException("分片不连续，缺少第" + expected + "片"));
+                        }
+                        parts.add(new Part(part.partNumber(), part.etag()));
+                    }
+                    if (parts.isEmpty()) {
+                        return Mono.error(new IllegalStateException("没有已上传的分片"));
+                    }
+
+                    return completeMultipartUpload(bucketName, objectName, uploadId, parts.toArray(new Part[0]));
+                });
+    }
+
+    /**
+     * 删除文件
+     *
+     * @param bucket bucket名称
+     * @param objectName 文件名称
+     */
+    public Mono<Void> removeObject(String bucket, String objectName) {
+        return resolveRegion(bucket).then(Mono.defer(() -> webClient.delete().uri(presign(Method.DELETE, bucket, objectName, null))
+                .retrieve()
+                .toBodilessEntity()
+                .then()));
+    }
+
+    private Mono<ListPartsResult> listParts(String bucketName, String objectName, String uploadId, int partNumberMarker) {
+        Map<String, String> params = new TreeMap<>();
+        params.put("uploadId", uploadId);
+        params.put("max-parts", String.valueOf(minioProperties.getMerge().getPageSize()));
+        if (partNumberMarker > 0) {
+            params.put("part-number-marker", String.valueOf(partNumberMarker));
+        }
+        return webClient.get().uri(presign(Method.GET, bucketName, objectName, params))
+                .retrieve()
+                .bodyToMono(String.class)
+                .map(body -> unmarshal(ListPartsResult.class, body));
+    }
+
+    private Mono<ObjectWriteResponse> completeMultipartUpload(String bucketName, String objectName, String uploadId, Part[] parts) {
+        return Mono.fromCallable(() -> Xml.marshal(new CompleteMultipartUpload(parts)))
+                .flatMap(xml -> webClient.method(HttpMethod.POST).uri(presign(Method.POST, bucketName, objectName, Collections.singletonMap("uploadId", uploadId)))
+                        .contentType(MediaType.APPLICATION_XML)
+                        .bodyValue(xml)
+                        .retrieve()
+                        .toEntity(String.class))
+                .map(entity -> {
+                    String body = entity.getBody();
+                    // 与SDK的处理一致，合并失败时服务端也可能返回200并在响应体中给出错误
+                    if (body == null || body.trim().isEmpty()) {
+                        throw new IllegalStateException("分片合并失败：响应为空");
+                    }
+                    if (isErrorResponse(body)) {
+                        ErrorResponse error = unmarshal(ErrorResponse.class, body);
+                        throw new IllegalStateException("分片合并失败：" + error.code() + " " + error.message());
+                    }
+
+                    CompleteMultipartUploadOutput output = unmarshal(CompleteMultipartUploadOutput.class, body);
+                    return new ObjectWriteResponse(toHeaders(entity.getHeaders()), bucketName, minioProperties.getRegion(), objectName,
+                            trimEtag(output.etag()), entity.getHeaders().getFirst("x-amz-version-id"));
+                });
+    }
+
+    /**
+     * 没有配置区域且尚未查询过时，查询存储桶所在的区域
+     */
+    private Mono<Void> resolveRegion(String bucket) {
+        if (locationPresigner == null || regions.containsKey(bucket)) {
+            return Mono.empty();
+        }
+
+        return Mono.defer(() -> webClient.get()
+                .uri(URI.create(locationPresigner.presign(Method.GET, bucket, null, MinioPresigner.REQUEST_EXPIRY, Collections.singletonMap("location", ""))))
+                .retrieve()
+                .bodyToMono(String.class)
+                .map(body -> StringUtils.defaultIfBlank(unmarshal(LocationConstraint.class, body).location(), PropertyConstant.region))
+                .defaultIfEmpty(PropertyConstant.region)
+                .doOnNext(region -> regions.put(bucket, region))
+                .then());
+    }
+
+    private String cachedRegion(String bucket) {
+        String region = regions.get(bucket);
+        if (region == null) {
+            throw new IllegalStateException("存储桶" + bucket + "的区域尚未查询");
+        }
+
+        return region;
+    }
+
+    /**
+     * 在发出请求时签名，避免订阅较晚时签名已过期
+     */
+    private URI presign(Method method, String bucket, String objectName, Map<String, String> params) {
+        return URI.create(minioPresigner.presign(method, bucket, objectName, MinioPresigner.REQUEST_EXPIRY, params));
+    }
+
+    private static <T> T unmarshal(Class<T> type, String body) {
+        try {
+            return Xml.unmarshal(type, body);
+        } catch (Exception e) {
+            throw new IllegalStateException("无法解析minio的响应：" + body, e);
+        }
+    }
+
+    private static boolean isErrorResponse(String body) {
+        try {
+            return Xml.validate(ErrorResponse.class, body);
+        } catch (Exception e) {
+            // 不是合法的xml时按正常响应解析，解析失败时再报错
+            return false;
+        }
+    }
+
+    private static Headers toHeaders(HttpHeaders httpHeaders) {
+        Headers.Builder builder = new Headers.Builder();
+        httpHeaders.forEach((name, values) -> values.forEach(value -> builder.add(name, value)));
+        return builder.build();
+    }
+
+    private static String trimEtag(String etag) {
+        if (etag == null) {
+            return null;
+        }
+
+        return etag.replace("\"", "");
+    }
+
+    private static void delete(Path temp) {
+        Schedulers.boundedElastic().schedule(() -> {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (Exception ignored) {
+                // 临时文件删除失败不影响上传结果
+            }
+        });
+    }
+
+    /**
+     * 判断请求失败的原因是否为文件不存在
+     */
+    public static boolean isNotFound(Throwable e) {
+        return e instanceof WebClientResponseException.NotFound;
+    }
+}
@@ -0,0 +1,28 @@
+package com.minio.utils;
+
+import io.minio.messages.DeleteError;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量删除结果
+ */
+@Data
+public class RemoveObjectsResult {
+
+    /**
+     * 删除成功的对象数
+     */
+    private long deleted;
+
+    /**
+     * 删除失败的对象及原因
+     */
+    private List<DeleteError> errors = new ArrayList<>();
+
+    public boolean isSuccess() {
+        return errors.isEmpty();
+    }
+}
@@ -0,0 +1,56 @@
+package com.minio.utils;
+
+import io.minio.ObjectWriteResponse;
+import lombok.Getter;
+import lombok.Setter;
+import okhttp3.Headers;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 上传结果，在ObjectWriteResponse的基础上带有文件大小和上传时计算的校验和
+ */
+@Getter
+public class UploadResult extends ObjectWriteResponse {
+
+    /**
+     * 文件大小
+     */
+    private final long size;
+
+    /**
+     * 校验和算法，未开启校验时为空
+     */
+    private final ChecksumAlgorithm checksumAlgorithm;
+
+    /**
+     * 整个对象的校验和（base64），分片上传时为各分片校验和的组合，后缀为分片数
+     */
+    private final String checksum;
+
+    /**
+     * 按分片顺序排列的分片校验和（base64），单次上传时为空
+     */
+    private final List<String> partChecksums;
+
+    /**
+     * 预览地址，只在上传到文件分类时返回
+     */
+    @Setter
+    private String url;
+
+    public UploadResult(ObjectWriteResponse response, long size, ChecksumAlgorithm checksumAlgorithm, String checksum, List<String> partChecksums) {
+        this(response.headers(), response.bucket(), response.region(), response.object(), response.etag(), response.versionId(),
+                size, checksumAlgorithm, checksum, partChecksums);
+    }
+
+    public UploadResult(Headers headers, String bucket, String region, String object, String etag, String versionId,
+                        long size, ChecksumAlgorithm checksumAlgorithm, String checksum, List<String> partChecksums) {
+        super(headers, bucket, region, object, etag, versionId);
+        this.size = size;
+        this.checksumAlgorithm = checksumAlgorithm;
+        this.checksum = checksum;
+        this.partChecksums = partChecksums == null ? Collections.emptyList() : partChecksums;
+    }
+}
@@ -0,0 +1,136 @@
+package com.minio.cache;
+
+import io.minio.GetObjectResponse;
+import okhttp3.Headers;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DiskObjectCacheTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void servesRepeatedReadsFromDisk() throws Exception {
+        DiskObjectCache cache = new DiskObjectCache(root, 1024, 1024, 60_000);
+        CountingFetcher fetcher = new CountingFetcher("hello");
+
+        assertThat(read(cache.get("bucket", "a", fetcher))).isEqualTo("hello");
+        assertThat(read(cache.get("bucket", "a", fetcher))).isEqualTo("hello");
+        assertThat(read(cache.get("bucket", "a", 1, 3, fetcher))).isEqualTo("ell");
+
+        assertThat(fetcher.calls.get()).isEqualTo(1);
+        assertThat(cache.hitCount()).isEqualTo(2);
+        assertThat(cache.missCount()).isEqualTo(1);
+        cache.close();
+    }
+
+    @Test
+    void hitsReturnHeadersStoredWithContent() throws Exception {
+        DiskObjectCache cache = new DiskObjectCache(root, 1024, 1024, 0);
+        CountingFetcher fetcher = new CountingFetcher("hello");
+        read(cache.get("bucket", "a", fetcher));
+
+        // 确认未修改时继续使用缓存时的元数据
+        GetObjectResponse revalidated = cache.get("bucket", "a", new DiskObjectCache.Fetcher() {
+            @Override
+            public GetObjectResponse fetch(String etag) {
+                assertThat(etag).isEqualTo("etag");
+                return null;
+            }
+
+            @Override
+            public InputStream fetch(long offset, long length) {
+                throw new AssertionError();
+            }
+        });
+
+        assertThat(revalidated.headers().get("x-amz-meta-codec")).isEqualTo("gzip");
+        assertThat(read(revalidated)).isEqualTo("hello");
+        cache.close();
+    }
+
+    @Test
+    void instancesSharingDirectoryKeepTheirFiles() throws Exception {
+        DiskObjectCache first = new DiskObjectCache(root, 1024, 1024, 60_000);
+        read(first.get("bucket", "a", new CountingFetcher("first")));
+
+        DiskObjectCache second = new DiskObjectCache(root, 1024, 1024, 60_000);
+        CountingFetcher fetcher = new CountingFetcher("changed");
+
+        // 第二个实例启动时不能删除第一个实例的缓存文件
+        assertThat(read(first.get("bucket", "a", fetcher))).isEqualTo("first");
+        assertThat(fetcher.calls.get()).isZero();
+        first.close();
+        second.close();
+    }
+
+    @Test
+    void purgesDirectoriesOfExitedInstances() throws Exception {
+        Path stale = Files.createDirectory(root.resolve("stale"));
+        Path lockFile = Files.createFile(stale.resolve("instance.lock"));
+        Files.createFile(stale.resolve("x.cache"));
+        Files.setLastModifiedTime(lockFile, FileTime.fromMillis(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1)));
+        Path unrelated = Files.createDirectory(root.resolve("unrelated"));
+        Files.createFile(unrelated.resolve("y.cache"));
+        Path userFile = Files.createFile(root.resolve("z.cache"));
+
+        DiskObjectCache cache = new DiskObjectCache(root, 1024, 1024, 60_000);
+
+        assertThat(stale).doesNotExist();
+        assertThat(unrelated.resolve("y.cache")).exists();
+        assertThat(userFile).exists();
+        cache.close();
+        try (Stream<Path> children = Files.list(root)) {
+            assertThat(children).containsExactlyInAnyOrder(unrelated, userFile);
+        }
+    }
+
+    private static String read(InputStream stream) throws Exception {
+        try (InputStream in = stream) {
+            byte[] bytes = new byte[64];
+            int length = 0;
+            int read;
+            while ((read = in.read(bytes, length, bytes.length - length)) > 0) {
+                length += read;
+            }
+            return new String(bytes, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static class CountingFetcher implements DiskObjectCache.Fetcher {
+
+        private final byte[] content;
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        private CountingFetcher(String content) {
+            this.content = content.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public GetObjectResponse fetch(String etag) {
+            calls.incrementAndGet();
+            Headers headers = Headers.of("Content-Length", String.valueOf(content.length), "ETag", "\"etag\"", "x-amz-meta-codec", "gzip");
+            return new GetObjectResponse(headers, "bucket", null, "a", new ByteArrayInputStream(content));
+        }
+
+        @Override
+        public InputStream fetch(long offset, long length) {
+            calls.incrementAndGet();
+            return new ByteArrayInputStream(content, (int) offset, (int) length);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.minio.cache;
+
+import io.minio.StatObjectResponse;
+import io.minio.errors.ErrorResponseException;
+import io.minio.messages.ErrorResponse;
+import okhttp3.Headers;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+class InMemoryStatObjectCacheTest {
+
+    @Test
+    void cachesExistingObjectsForTtl() throws Exception {
+        InMemoryStatObjectCache cache = new InMemoryStatObjectCache(10, 50, 0);
+        cache.put("bucket", "a", CachedStat.of(stat("a")));
+
+        assertThat(cache.get("bucket", "a").response().object()).isEqualTo("a");
+
+        Thread.sleep(60);
+        assertThat(cache.get("bucket", "a")).isNull();
+    }
+
+    @Test
+    void cachesMissingObjectsOnlyWithNegativeTtl() {
+        ErrorResponseException notFound = notFound();
+        InMemoryStatObjectCache disabled = new InMemoryStatObjectCache(10, 60_000, 0);
+        disabled.put("bucket", "a", CachedStat.notFound(notFound));
+        assertThat(disabled.get("bucket", "a")).isNull();
+
+        InMemoryStatObjectCache cache = new InMemoryStatObjectCache(10, 60_000, 60_000);
+        cache.put("bucket", "a", CachedStat.notFound(notFound));
+
+        CachedStat cached = cache.get("bucket", "a");
+        assertThat(cached.exists()).isFalse();
+        // 每次命中抛出新的异常，错误信息与原异常一致
+        assertThatThrownBy(cached::response)
+                .isInstanceOf(ErrorResponseException.class)
+                .isNotSameAs(notFound)
+                .satisfies(e -> {
+                    ErrorResponseException error = (ErrorResponseException) e;
+                    assertThat(error.errorResponse().code()).isEqualTo("NoSuchKey");
+                    assertThat(error.response().code()).isEqualTo(404);
+                });
+        Throwable first = catchThrowable(cached::response);
+        assertThat(catchThrowable(cached::response)).isNotSameAs(first);
+    }
+
+    @Test
+    void invalidateRemovesEntry() throws Exception {
+        InMemoryStatObjectCache cache = new InMemoryStatObjectCache(10, 60_000, 60_000);
+        cache.put("bucket", "a", CachedStat.of(stat("a")));
+        cache.put("other", "a", CachedStat.of(stat("a")));
+
+        cache.invalidate("bucket", "a");
+
+        assertThat(cache.get("bucket", "a")).isNull();
+        assertThat(cache.get("other", "a")).isNotNull();
+    }
+
+    @Test
+    void rejectsInvalidArguments() {
+        assertThatThrownBy(() -> new InMemoryStatObjectCache(0, 1, 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new InMemoryStatObjectCache(1, 0, 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new InMemoryStatObjectCache(1, 1, -1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static StatObjectResponse stat(String objectName) {
+        Headers headers = new Headers.Builder()
+                .add("ETag", "\"etag\"")
+                .add("Content-Length", "1")
+                .add("Last-Modified", "Mon, 02 Jan 2023 00:00:00 GMT")
+                .build();
+        return new StatObjectResponse(headers, "bucket", null, objectName);
+    }
+
+    private static ErrorResponseException notFound() {
+        Response response = new Response.Builder()
+                .request(new Request.Builder().url("http://localhost:9000/bucket/a").build())
+                .protocol(Protocol.HTTP_1_1)
+                .code(404)
+                .message("")
+                .build();
+        return new ErrorResponseException(new ErrorResponse("NoSuchKey", "not found", "bucket", "a", null, null, null), response, null);
+    }
+}
@@ -0,0 +1,144 @@
+package com.minio.codec;
+
+import com.google.common.io.ByteStreams;
+import com.minio.properties.MinioProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ObjectCompressorTest {
+
+    private static final int BLOCK_SIZE = 1024;
+
+    private final byte[] content = new byte[10 * BLOCK_SIZE + 123];
+
+    ObjectCompressorTest() {
+        // 可压缩但不是全部重复的内容
+        Random random = new Random(1);
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) ('a' + random.nextInt(4));
+        }
+    }
+
+    @Test
+    void streamFramingRoundTrip() throws Exception {
+        ObjectCompressor compressor = compressor(ObjectCompressor.FRAMING_STREAM);
+        Map<String, String> metadata = metadata(compressor);
+        byte[] stored = encode(compressor);
+
+        assertThat(stored.length).isLessThan(content.length);
+        assertThat(metadata).doesNotContainKey(ObjectCompressor.META_BLOCK_SIZE);
+        assertThat(ByteStreams.toByteArray(compressor.decode(metadata, new ByteArrayInputStream(stored)))).isEqualTo(content);
+        assertThat(ByteStreams.toByteArray(compressor.decodeRange(metadata, stored.length, 3000, 500, fetcher(stored, null))))
+                .isEqualTo(Arrays.copyOfRange(content, 3000, 3500));
+    }
+
+    @Test
+    void blockFramingRoundTrip() throws Exception {
+        ObjectCompressor compressor = compressor(ObjectCompressor.FRAMING_BLOCK);
+        Map<String, String> metadata = metadata(compressor);
+        byte[] stored = encode(compressor);
+
+        assertThat(metadata).containsEntry(ObjectCompressor.META_BLOCK_SIZE, String.valueOf(BLOCK_SIZE));
+        assertThat(ByteStreams.toByteArray(compressor.decode(metadata, new ByteArrayInputStream(stored)))).isEqualTo(content);
+    }
+
+    @Test
+    void blockFramingRangeReadsOnlyCoveredBlocks() throws Exception {
+        ObjectCompressor compressor = compressor(ObjectCompressor.FRAMING_BLOCK);
+        Map<String, String> metadata = metadata(compressor);
+        byte[] stored = encode(compressor);
+
+        // 跨越两个块边界的范围
+        AtomicLong lastFetch = new AtomicLong();
+        byte[] range = ByteStreams.toByteArray(compressor.decodeRange(metadata, stored.length, BLOCK_SIZE - 10, BLOCK_SIZE + 20, fetcher(stored, lastFetch)));
+        assertThat(range).isEqualTo(Arrays.copyOfRange(content, BLOCK_SIZE - 10, 2 * BLOCK_SIZE + 10));
+        // 先读结尾的索引，再只读覆盖范围的3个块
+        assertThat(lastFetch.get()).isLessThan(stored.length / 2);
+
+        // 最后一个不满的块和超出原文的长度
+        byte[] tail = ByteStreams.toByteArray(compressor.decodeRange(metadata, stored.length, content.length - 50, 1000, fetcher(stored, null)));
+        assertThat(tail).isEqualTo(Arrays.copyOfRange(content, content.length - 50, content.length));
+
+        assertThat(ByteStreams.toByteArray(compressor.decodeRange(metadata, stored.length, content.length, 10, fetcher(stored, null)))).isEmpty();
+    }
+
+    @Test
+    void emptyContentRoundTrip() throws Exception {
+        for (String framing : new String[]{ObjectCompressor.FRAMING_STREAM, ObjectCompressor.FRAMING_BLOCK}) {
+            ObjectCompressor compressor = compressor(framing);
+            byte[] stored = ByteStreams.toByteArray(compressor.encode(codec(compressor), new ByteArrayInputStream(new byte[0])));
+
+            assertThat(ByteStreams.toByteArray(compressor.decode(metadata(compressor), new ByteArrayInputStream(stored)))).isEmpty();
+        }
+    }
+
+    @Test
+    void uncompressedObjectsAreReturnedAsIs() throws Exception {
+        ObjectCompressor compressor = compressor(ObjectCompressor.FRAMING_BLOCK);
+        InputStream stored = new ByteArrayInputStream(content);
+
+        assertThat(compressor.isEncoded(new HashMap<>())).isFalse();
+        assertThat(compressor.decode(new HashMap<>(), stored)).isSameAs(stored);
+    }
+
+    @Test
+    void rejectsCorruptBlockIndex() throws Exception {
+        ObjectCompressor compressor = compressor(ObjectCompressor.FRAMING_BLOCK);
+        Map<String, String> metadata = metadata(compressor);
+        byte[] stored = encode(compressor);
+        stored[stored.length - 1] ^= 1;
+
+        assertThatThrownBy(() -> compressor.decodeRange(metadata, stored.length, 0, 10, fetcher(stored, null)))
+                .isInstanceOf(IOException.class);
+
+        Map<String, String> wrongBlockSize = new HashMap<>(metadata);
+        wrongBlockSize.put(ObjectCompressor.META_BLOCK_SIZE, "-1");
+        assertThatThrownBy(() -> compressor.decode(wrongBlockSize, new ByteArrayInputStream(stored)))
+                .isInstanceOf(IOException.class);
+    }
+
+    private static ObjectCompressor compressor(String framing) {
+        MinioProperties.Compression compression = new MinioProperties.Compression();
+        compression.setFraming(framing);
+        compression.setBlockSize(DataSize.ofBytes(BLOCK_SIZE));
+        return new ObjectCompressor(compression);
+    }
+
+    private static ObjectCodec codec(ObjectCompressor compressor) {
+        return compressor.select("text/plain");
+    }
+
+    /**
+     * 上传时的请求头去掉x-amz-meta-前缀，即读取时的元数据
+     */
+    private static Map<String, String> metadata(ObjectCompressor compressor) {
+        Map<String, String> metadata = new HashMap<>();
+        compressor.headers(codec(compressor)).forEach((name, value) -> metadata.put(name.substring("x-amz-meta-".length()), value));
+        return metadata;
+    }
+
+    private byte[] encode(ObjectCompressor compressor) throws IOException {
+        return ByteStreams.toByteArray(compressor.encode(codec(compressor), new ByteArrayInputStream(content)));
+    }
+
+    private static ObjectCompressor.RangeFetcher fetcher(byte[] stored, AtomicLong lastFetch) {
+        return (offset, length) -> {
+            if (lastFetch != null) {
+                lastFetch.set(length);
+            }
+            return new ByteArrayInputStream(stored, (int) offset, (int) length);
+        };
+    }
+}
@@ -0,0 +1,159 @@
+package com.minio.config;
+
+import com.minio.session.InMemoryUploadSessionStore;
+import com.minio.session.UploadSessionStore;
+import com.minio.utils.MinioTemplate;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MinioAutoConfigureTest {
+
+    /** minio收到的请求，格式为"方法 路径" */
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+
+    /** 存储桶是否存在 */
+    private volatile boolean bucketExists;
+
+    /** 创建存储桶是否成功 */
+    private volatile boolean makeBucketSucceeds = true;
+
+    private final ApplicationContextRunner runner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(MinioAutoConfigure.class))
+            .withBean("minioHttpClient", OkHttpClient.class, this::httpClient)
+            .withPropertyValues(
+                    "minio.endpoint=http://localhost:9000",
+                    "minio.access-key=minioadmin",
+                    "minio.secret-key=minioadmin",
+                    "minio.region=us-east-1",
+                    "minio.bucket=bucket",
+                    "minio.bootstrap.mode=none");
+
+    @Test
+    void backsOffWithoutEndpoint() {
+        new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(MinioAutoConfigure.class))
+                .run(context -> assertThat(context).hasNotFailed().doesNotHaveBean(MinioTemplate.class));
+    }
+
+    @Test
+    void syncModeCreatesMissingBucketBeforeStartup() {
+        runner.withPropertyValues("minio.bootstrap.mode=sync")
+                .run(context -> {
+                    assertThat(context).hasNotFailed();
+                    assertThat(requests).containsExactly("HEAD /bucket", "PUT /bucket");
+                });
+    }
+
+    @Test
+    void syncModeFailsStartupWhenBucketCannotBeCreated() {
+        makeBucketSucceeds = false;
+
+        runner.withPropertyValues("minio.bootstrap.mode=sync")
+                .run(context -> assertThat(context).hasFailed()
+                        .getFailure().hasRootCauseInstanceOf(IllegalStateException.class));
+    }
+
+    @Test
+    void asyncModeDoesNotBlockStartupAndFailureReachesWrites() {
+        makeBucketSucceeds = false;
+
+        runner.withPropertyValues("minio.bootstrap.mode=async")
+                .run(context -> {
+                    assertThat(context).hasNotFailed();
+                    MinioTemplate template = context.getBean(MinioTemplate.class);
+
+                    assertThatThrownBy(() -> template.initMultiPartUpload("bucket", "a.bin", 2, null))
+                            .isInstanceOf(IllegalStateException.class)
+                            .hasMessageContaining("bucket");
+                    assertThat(requests).doesNotContain("POST /bucket/a.bin");
+
+                    // 失败的检查不缓存，下一次写入重新检查
+                    makeBucketSucceeds = true;
+                    template.initMultiPartUpload("bucket", "a.bin", 2, null);
+                    assertThat(requests).endsWith("HEAD /bucket", "PUT /bucket", "POST /bucket/a.bin");
+                });
+    }
+
+    @Test
+    void lazyModeChecksOnFirstWrite() {
+        bucketExists = true;
+
+        runner.withPropertyValues("minio.bootstrap.mode=lazy")
+                .run(context -> {
+                    assertThat(context).hasNotFailed();
+                    assertThat(requests).isEmpty();
+
+                    MinioTemplate template = context.getBean(MinioTemplate.class);
+                    template.initMultiPartUpload("bucket", "a.bin", 2, null);
+                    template.initMultiPartUpload("bucket", "b.bin", 2, null);
+
+                    assertThat(requests).containsExactly("HEAD /bucket", "POST /bucket/a.bin", "POST /bucket/b.bin");
+                });
+    }
+
+    @Test
+    void memorySessionStore() {
+        runner.withPropertyValues("minio.session.enabled=true", "minio.session.store=memory")
+                .run(context -> assertThat(context).getBean(UploadSessionStore.class).isInstanceOf(InMemoryUploadSessionStore.class));
+    }
+
+    @Test
+    void redisSessionStoreWithoutRedisFailsFast() {
+        runner.withPropertyValues("minio.session.enabled=true", "minio.session.store=redis")
+                .run(context -> assertThat(context).hasFailed()
+                        .getFailure().hasRootCauseInstanceOf(IllegalStateException.class));
+    }
+
+    @Test
+    void unknownSessionStoreFailsFast() {
+        runner.withPropertyValues("minio.session.enabled=true", "minio.session.store=jdbc")
+                .run(context -> assertThat(context).hasFailed()
+                        .getFailure().hasRootCauseInstanceOf(IllegalArgumentException.class));
+    }
+
+    private OkHttpClient httpClient() {
+        return new OkHttpClient.Builder()
+                .addInterceptor(chain -> {
+                    Request request = chain.request();
+                    requests.add(request.method() + " " + request.url().encodedPath());
+                    switch (request.method()) {
+                        case "HEAD":
+                            return response(request, bucketExists ? 200 : 404, "");
+                        case "PUT":
+                            if (!makeBucketSucceeds) {
+                                return response(request, 403, "<Error><Code>AccessDenied</Code><Message>denied</Message></Error>");
+                            }
+                            bucketExists = true;
+                            return response(request, 200, "");
+                        default:
+                            return response(request, 200, "<InitiateMultipartUploadResult><Bucket>bucket</Bucket>"
+                                    + "<Key>a.bin</Key><UploadId>upload-id</UploadId></InitiateMultipartUploadResult>");
+                    }
+                })
+                .build();
+    }
+
+    private static Response response(Request request, int code, String body) {
+        return new Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_1_1)
+                .code(code)
+                .message("")
+                .header("Content-Type", "application/xml")
+                .body(ResponseBody.create(body, MediaType.get("application/xml")))
+                .build();
+    }
+}
@@ -0,0 +1,118 @@
+package com.minio.enums;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MimeTypeEnumTest {
+
+    @Test
+    void findsExtensionIgnoringCase() {
+        assertThat(MimeTypeEnum.findByExtension(".jpg")).isEqualTo(MimeTypeEnum.JPG);
+        assertThat(MimeTypeEnum.findByExtension(".JPG")).isEqualTo(MimeTypeEnum.JPG);
+        assertThat(MimeTypeEnum.findByExtension(".DocX")).isEqualTo(MimeTypeEnum.DOCX);
+        assertThat(MimeTypeEnum.findByExtension(".7z")).isEqualTo(MimeTypeEnum.MIME_7Z);
+
+        assertThat(MimeTypeEnum.findByExtension("jpg")).isNull();
+        assertThat(MimeTypeEnum.findByExtension(".unknown")).isNull();
+        assertThat(MimeTypeEnum.findByExtension(" ")).isNull();
+        assertThat(MimeTypeEnum.findByExtension(null)).isNull();
+    }
+
+    @Test
+    void sameExtensionUsesFirstDeclared() {
+        assertThat(MimeTypeEnum.findByExtension(".3gp")).isEqualTo(MimeTypeEnum.MIME_3GP);
+        assertThat(MimeTypeEnum.findByExtension(".3g2")).isEqualTo(MimeTypeEnum.MIME_3G2);
+    }
+
+    @Test
+    void everyExtensionIsIndexed() {
+        for (MimeTypeEnum value : MimeTypeEnum.values()) {
+            assertThat(MimeTypeEnum.findByExtension(value.getExtension().toUpperCase()).getExtension()).isEqualTo(value.getExtension());
+        }
+    }
+
+    @Test
+    void findsByFileName() {
+        assertThat(MimeTypeEnum.findByFileName("photo.PNG")).isEqualTo(MimeTypeEnum.PNG);
+        assertThat(MimeTypeEnum.findByFileName("2021-12/27/typora-setup.x64.tar")).isEqualTo(MimeTypeEnum.TAR);
+        // 多个点时取最后一段
+        assertThat(MimeTypeEnum.findByFileName("archive.tar.gz")).isEqualTo(MimeTypeEnum.GZ);
+        assertThat(MimeTypeEnum.findByFileName("report.pdf.unknown")).isNull();
+
+        // 没有扩展名，目录名中的点不算扩展名
+        assertThat(MimeTypeEnum.findByFileName("README")).isNull();
+        assertThat(MimeTypeEnum.findByFileName("v1.2/README")).isNull();
+        assertThat(MimeTypeEnum.findByFileName("C:\\dir.png\\file")).isNull();
+        assertThat(MimeTypeEnum.findByFileName("name.")).isNull();
+        assertThat(MimeTypeEnum.findByFileName(null)).isNull();
+
+        // 隐藏文件
+        assertThat(MimeTypeEnum.findByFileName(".png")).isNull();
+        assertThat(MimeTypeEnum.findByFileName("dir/.png")).isNull();
+        assertThat(MimeTypeEnum.findByFileName("dir\\.gitignore")).isNull();
+        assertThat(MimeTypeEnum.findByFileName(".config.json")).isEqualTo(MimeTypeEnum.JSON);
+    }
+
+    @Test
+    void compressibleTypes() {
+        assertThat(MimeTypeEnum.TXT.isCompressible()).isTrue();
+        assertThat(MimeTypeEnum.JSON.isCompressible()).isTrue();
+        assertThat(MimeTypeEnum.SVG.isCompressible()).isTrue();
+        assertThat(MimeTypeEnum.JSONLD.isCompressible()).isTrue();
+        assertThat(MimeTypeEnum.BMP.isCompressible()).isTrue();
+
+        assertThat(MimeTypeEnum.JPG.isCompressible()).isFalse();
+        assertThat(MimeTypeEnum.MP3.isCompressible()).isFalse();
+        assertThat(MimeTypeEnum.ZIP.isCompressible()).isFalse();
+        assertThat(MimeTypeEnum.WOFF2.isCompressible()).isFalse();
+        assertThat(MimeTypeEnum.isCompressible(null)).isFalse();
+    }
+
+    @Test
+    void sniffsMagicNumbers() {
+        assertThat(sniff(0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)).isEqualTo(MimeTypeEnum.PNG);
+        assertThat(sniff(0xFF, 0xD8, 0xFF, 0xE0)).isEqualTo(MimeTypeEnum.JPG);
+        assertThat(sniff('%', 'P', 'D', 'F', '-', '1')).isEqualTo(MimeTypeEnum.PDF);
+        assertThat(sniff('P', 'K', 0x03, 0x04)).isEqualTo(MimeTypeEnum.ZIP);
+        assertThat(sniff(0x1F, 0x8B, 0x08)).isEqualTo(MimeTypeEnum.GZ);
+        assertThat(sniff('R', 'I', 'F', 'F', 0, 0, 0, 0, 'W', 'E', 'B', 'P')).isEqualTo(MimeTypeEnum.WEBP);
+        assertThat(sniff('R', 'I', 'F', 'F', 0, 0, 0, 0, 'W', 'A', 'V', 'E')).isEqualTo(MimeTypeEnum.WAV);
+        assertThat(sniff('R', 'I', 'F', 'F', 0, 0, 0, 0, 'X', 'X', 'X', 'X')).isNull();
+        assertThat(sniff(0xD0, 0xCF, 0x11, 0xE0, 0xA1, 0xB1, 0x1A, 0xE1)).isEqualTo(MimeTypeEnum.BIN);
+
+        byte[] tar = new byte[MimeTypeEnum.MAGIC_LENGTH];
+        System.arraycopy("ustar".getBytes(StandardCharsets.US_ASCII), 0, tar, 257, 5);
+        assertThat(MimeTypeEnum.sniff(tar, tar.length)).isEqualTo(MimeTypeEnum.TAR);
+
+        assertThat(sniff('h', 'e', 'l', 'l', 'o')).isNull();
+    }
+
+    @Test
+    void shortHeaderIsNotMatched() {
+        // 只读到部分特征字节时不能误判，也不能越界
+        assertThat(sniff(0x89, 'P', 'N')).isNull();
+        assertThat(sniff('R', 'I', 'F', 'F', 0, 0, 0, 0, 'W', 'E')).isNull();
+        assertThat(sniff()).isNull();
+
+        byte[] png = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A};
+        assertThat(MimeTypeEnum.sniff(png, 4)).isNull();
+
+        // 缓冲区比有效长度大时只看有效部分
+        byte[] tar = new byte[MimeTypeEnum.MAGIC_LENGTH];
+        System.arraycopy("ustar".getBytes(StandardCharsets.US_ASCII), 0, tar, 257, 5);
+        assertThat(MimeTypeEnum.sniff(tar, 260)).isNull();
+        assertThat(MimeTypeEnum.sniff(Arrays.copyOf(png, 100), png.length)).isEqualTo(MimeTypeEnum.PNG);
+    }
+
+    private static MimeTypeEnum sniff(int... bytes) {
+        byte[] header = new byte[bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            header[i] = (byte) bytes[i];
+        }
+        return MimeTypeEnum.sniff(header, header.length);
+    }
+}
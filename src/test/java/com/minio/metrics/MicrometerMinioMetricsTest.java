@@ -0,0 +1,79 @@
+package com.minio.metrics;
+
+import com.minio.properties.MinioProperties;
+import com.minio.utils.MinioTemplate;
+import com.minio.utils.PresignedUrlCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.minio.http.Method;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MicrometerMinioMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final MicrometerMinioMetrics metrics = new MicrometerMinioMetrics(registry, false);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void recordsOperations() {
+        long start = metrics.start(Operation.GET);
+        assertThat(registry.get("minio.operation.active").tag("operation", Operation.GET.tag()).gauge().value()).isEqualTo(1);
+
+        metrics.stop(Operation.GET, "bucket", start, true);
+        metrics.stop(Operation.GET, null, metrics.start(Operation.GET), false);
+
+        assertThat(registry.get("minio.operation").tags("bucket", "bucket", "outcome", "success").timer().count()).isEqualTo(1);
+        assertThat(registry.get("minio.operation").tags("bucket", "none", "outcome", "error").timer().count()).isEqualTo(1);
+        assertThat(registry.get("minio.operation.active").tag("operation", Operation.GET.tag()).gauge().value()).isZero();
+    }
+
+    @Test
+    void bindsCacheCounts() {
+        PresignedUrlCache cache = new PresignedUrlCache(10, 60_000, 1_000);
+        metrics.bindCache("presign", cache, PresignedUrlCache::hitCount, PresignedUrlCache::missCount);
+
+        cache.get(Method.GET, "bucket", "a", () -> "url");
+        cache.get(Method.GET, "bucket", "a", () -> "url");
+        cache.get(Method.GET, "bucket", "b", () -> "url");
+
+        assertThat(counter("presign", "hit")).isEqualTo(1);
+        assertThat(counter("presign", "miss")).isEqualTo(2);
+    }
+
+    @Test
+    void templateBindsEnabledCaches() {
+        MinioProperties properties = new MinioProperties();
+        properties.setEndpoint("http://localhost:9000");
+        properties.setAccessKey("minioadmin");
+        properties.setSecretKey("minioadmin");
+        properties.setRegion("us-east-1");
+        properties.getStatCache().setSize(10);
+        properties.getObjectCache().setMaxSize(DataSize.ofMegabytes(64));
+        properties.getObjectCache().setDirectory(dir.toString());
+        MinioTemplate template = new MinioTemplate(properties);
+
+        template.setMetrics(metrics);
+
+        assertThat(registry.find("minio.cache.requests").functionCounters())
+                .extracting(counter -> counter.getId().getTag("cache"))
+                .containsOnly("presign", "stat", "object");
+        template.getPresignedUrlCache().get(Method.GET, "bucket", "a", () -> "url");
+        assertThat(counter("presign", "miss")).isEqualTo(1);
+        assertThat(counter("object", "hit")).isZero();
+        template.destroy();
+    }
+
+    private double counter(String cache, String result) {
+        FunctionCounter counter = registry.get("minio.cache.requests").tags("cache", cache, "result", result).functionCounter();
+        return counter.count();
+    }
+}
@@ -0,0 +1,209 @@
+package com.minio.pack;
+
+import com.google.common.io.ByteStreams;
+import com.minio.properties.MinioProperties;
+import com.minio.utils.CustomMinioClient;
+import io.minio.GetObjectArgs;
+import io.minio.GetObjectResponse;
+import io.minio.ListObjectsArgs;
+import io.minio.PutObjectArgs;
+import io.minio.RemoveObjectArgs;
+import io.minio.Result;
+import io.minio.messages.Item;
+import okhttp3.Headers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SmallObjectPackerTest {
+
+    /** 模拟的存储桶内容 */
+    private final Map<String, byte[]> objects = new TreeMap<>();
+
+    private final CustomMinioClient client = mock(CustomMinioClient.class);
+
+    private final MinioProperties.Pack pack = new MinioProperties.Pack();
+
+    private final List<SmallObjectPacker> packers = new ArrayList<>();
+
+    /** 设置后第一个段文件的上传等待它放行 */
+    private volatile CountDownLatch holdFirstSegment;
+
+    private final AtomicBoolean firstSegmentHeld = new AtomicBoolean();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        pack.setMaxObjectSize(DataSize.ofKilobytes(1));
+        pack.setSegmentSize(DataSize.ofKilobytes(4));
+        pack.setFlushInterval(Duration.ofMillis(20));
+        pack.setCompactInterval(Duration.ZERO);
+        pack.setCompactThreshold(0.9);
+
+        when(client.putObject(any(PutObjectArgs.class))).thenAnswer(invocation -> {
+            PutObjectArgs args = invocation.getArgument(0);
+            CountDownLatch hold = holdFirstSegment;
+            if (hold != null && args.object().endsWith(".seg") && firstSegmentHeld.compareAndSet(false, true)) {
+                hold.await();
+            }
+            byte[] data = ByteStreams.toByteArray(args.stream());
+            synchronized (objects) {
+                objects.put(args.object(), data);
+            }
+            return null;
+        });
+        when(client.getObject(any(GetObjectArgs.class))).thenAnswer(invocation -> {
+            GetObjectArgs args = invocation.getArgument(0);
+            byte[] data;
+            synchronized (objects) {
+                data = objects.get(args.object());
+            }
+            int from = args.offset() == null ? 0 : args.offset().intValue();
+            int to = args.length() == null ? data.length : from + args.length().intValue();
+            return new GetObjectResponse(Headers.of(), "bucket", null, args.object(),
+                    new ByteArrayInputStream(Arrays.copyOfRange(data, from, to)));
+        });
+        when(client.listObjects(any(ListObjectsArgs.class))).thenAnswer(invocation -> {
+            ListObjectsArgs args = invocation.getArgument(0);
+            List<Result<Item>> results = new ArrayList<>();
+            synchronized (objects) {
+                for (String name : objects.keySet()) {
+                    if (name.startsWith(args.prefix())) {
+                        results.add(new Result<>(new Item(name) {
+                        }));
+                    }
+                }
+            }
+            return results;
+        });
+        doAnswer(invocation -> {
+            RemoveObjectArgs args = invocation.getArgument(0);
+            synchronized (objects) {
+                objects.remove(args.object());
+            }
+            return null;
+        }).when(client).removeObject(any(RemoveObjectArgs.class));
+    }
+
+    @AfterEach
+    void shutdown() {
+        packers.forEach(SmallObjectPacker::shutdown);
+    }
+
+    @Test
+    void overwriteKeepsNewestAfterRestart() {
+        SmallObjectPacker packer = packer();
+        write(packer, "a", "v1").join();
+        write(packer, "a", "v2").join();
+
+        SmallObjectPacker restarted = packer();
+
+        assertThat(read(restarted, "a")).isEqualTo("v2");
+    }
+
+    @Test
+    void overwrittenThenRemovedDoesNotResurrect() {
+        SmallObjectPacker packer = packer();
+        write(packer, "a", "v1").join();
+        write(packer, "a", "v2").join();
+        assertThat(packer.remove("a")).isNotNull();
+
+        assertThat(packer().locate("a")).isNull();
+    }
+
+    @Test
+    void olderSegmentFlushedLastDoesNotOverwrite() throws Exception {
+        holdFirstSegment = new CountDownLatch(1);
+        SmallObjectPacker packer = packer();
+        CompletableFuture<PackedObject> older = write(packer, "a", "v1");
+        while (!firstSegmentHeld.get()) {
+            Thread.sleep(5);
+        }
+
+        // 第一个段已封闭，新内容写入更新的段并先上传完成
+        write(packer, "a", "v2").join();
+        holdFirstSegment.countDown();
+        older.join();
+
+        assertThat(read(packer, "a")).isEqualTo("v2");
+        assertThat(read(packer(), "a")).isEqualTo("v2");
+
+        packer.remove("a");
+        assertThat(packer().locate("a")).isNull();
+    }
+
+    @Test
+    void relocatedThenRemovedDoesNotResurrect() throws Exception {
+        SmallObjectPacker packer = packer();
+        CompletableFuture<PackedObject> large = write(packer, "a", repeat('x', 500));
+        CompletableFuture<PackedObject> small = write(packer, "b", "small");
+        String segment = large.join().getSegment();
+        assertThat(small.join().getSegment()).isEqualTo(segment);
+
+        packer.remove("a");
+        packer.compact();
+        assertThat(packer.locate("b").getSegment()).isNotEqualTo(segment);
+        packer.remove("b");
+
+        SmallObjectPacker restarted = packer();
+        assertThat(restarted.locate("a")).isNull();
+        assertThat(restarted.locate("b")).isNull();
+    }
+
+    @Test
+    void relocatedKeepsContentAfterRestart() throws Exception {
+        SmallObjectPacker packer = packer();
+        write(packer, "a", repeat('x', 500));
+        write(packer, "b", "small").join();
+
+        packer.remove("a");
+        packer.compact();
+
+        assertThat(read(packer(), "b")).isEqualTo("small");
+    }
+
+    private SmallObjectPacker packer() {
+        SmallObjectPacker packer = new SmallObjectPacker(client, new InMemoryPackIndex(), "bucket", pack);
+        packers.add(packer);
+        return packer;
+    }
+
+    private static CompletableFuture<PackedObject> write(SmallObjectPacker packer, String name, String content) {
+        byte[] data = content.getBytes(StandardCharsets.UTF_8);
+        return packer.write(name, data, data.length);
+    }
+
+    private String read(SmallObjectPacker packer, String name) {
+        PackedObject packed = packer.locate(name);
+        assertThat(packed).isNotNull();
+        byte[] segment;
+        synchronized (objects) {
+            segment = objects.get(packed.getSegment());
+        }
+        return new String(segment, (int) packed.getOffset(), (int) packed.getLength(), StandardCharsets.UTF_8);
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+}
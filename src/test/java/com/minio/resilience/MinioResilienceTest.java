@@ -0,0 +1,220 @@
+package com.minio.resilience;
+
+import com.minio.metrics.Operation;
+import com.minio.properties.MinioProperties;
+import io.minio.errors.ErrorResponseException;
+import io.minio.messages.ErrorResponse;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MinioResilienceTest {
+
+    private final ExecutorService callers = Executors.newSingleThreadExecutor();
+
+    private MinioResilience resilience;
+
+    @AfterEach
+    void shutdown() {
+        callers.shutdownNow();
+        if (resilience != null) {
+            resilience.shutdown();
+        }
+    }
+
+    @Test
+    void retriesTransientFailures() throws Exception {
+        resilience = resilience(3, 0, false);
+        AtomicInteger calls = new AtomicInteger();
+
+        String value = resilience.retry(Operation.GET, () -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new IOException("connection reset");
+            }
+            return "ok";
+        });
+
+        assertThat(value).isEqualTo("ok");
+        assertThat(calls.get()).isEqualTo(3);
+    }
+
+    @Test
+    void retriesTimeoutsAndCountsThemAsFailures() throws Exception {
+        resilience = resilience(3, 0, false);
+        AtomicInteger calls = new AtomicInteger();
+
+        String value = resilience.retry(Operation.GET, () -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new SocketTimeoutException("Read timed out");
+            }
+            if (calls.get() == 2) {
+                // OkHttp的调用超时
+                throw new InterruptedIOException("timeout");
+            }
+            return "ok";
+        });
+
+        assertThat(value).isEqualTo("ok");
+        assertThat(calls.get()).isEqualTo(3);
+    }
+
+    @Test
+    void stalledEndpointOpensCircuit() {
+        resilience = resilience(1, 2, false);
+
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> resilience.retry(Operation.GET, () -> {
+                throw new SocketTimeoutException("connect timed out");
+            })).isInstanceOf(SocketTimeoutException.class);
+        }
+
+        assertThat(resilience.getCircuitBreaker().getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void interruptionIsNotRetried() {
+        resilience = resilience(3, 1, false);
+        AtomicInteger calls = new AtomicInteger();
+
+        try {
+            assertThatThrownBy(() -> resilience.retry(Operation.GET, () -> {
+                calls.incrementAndGet();
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted");
+            })).isInstanceOf(InterruptedIOException.class);
+        } finally {
+            Thread.interrupted();
+        }
+
+        assertThat(calls.get()).isEqualTo(1);
+        // 中断不能说明端点的状态
+        assertThat(resilience.getCircuitBreaker().getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(MinioResilience.isTransient(new SocketTimeoutException())).isTrue();
+    }
+
+    @Test
+    void doesNotRetryPermanentErrors() {
+        resilience = resilience(3, 0, false);
+        AtomicInteger calls = new AtomicInteger();
+        ErrorResponse error = new ErrorResponse("NoSuchKey", "missing", "bucket", "a.bin", null, null, null);
+
+        assertThatThrownBy(() -> resilience.retry(Operation.GET, () -> {
+            calls.incrementAndGet();
+            throw new ErrorResponseException(error, response(404), null);
+        })).isInstanceOf(ErrorResponseException.class);
+        assertThat(calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void circuitOpensAndRejects() {
+        resilience = resilience(1, 2, false);
+        AtomicInteger calls = new AtomicInteger();
+
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> resilience.retry(Operation.GET, () -> {
+                calls.incrementAndGet();
+                throw new IOException("connection refused");
+            })).isInstanceOf(IOException.class);
+        }
+
+        assertThat(resilience.getCircuitBreaker().getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThatThrownBy(() -> resilience.retry(Operation.GET, () -> "ok")).isInstanceOf(CircuitBreakerOpenException.class);
+        assertThat(calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void probeReleasedWhenCallThrowsError() {
+        CircuitBreaker breaker = new CircuitBreaker(1, 0);
+        breaker.onFailure();
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isFalse();
+
+        resilience = new MinioResilience("http://localhost:9000", retry(1), hedge(false), circuitBreaker(1, 0));
+        resilience.getCircuitBreaker().onFailure();
+        assertThatThrownBy(() -> resilience.retry(Operation.GET, () -> {
+            throw new AssertionError("boom");
+        })).isInstanceOf(AssertionError.class);
+
+        // 探测名额已释放，下一个请求可以继续探测
+        assertThat(resilience.getCircuitBreaker().getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(resilience.getCircuitBreaker().tryAcquire()).isTrue();
+    }
+
+    @Test
+    void runsInCallerThreadWhenHedgePoolIsFull() throws Exception {
+        resilience = resilience(1, 0, true);
+        // 积累足够的样本后才开始对冲
+        for (int i = 0; i < 200; i++) {
+            resilience.hedge(Operation.GET, () -> "warm", null);
+        }
+
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger pooled = new AtomicInteger();
+        Future<String> blocked = callers.submit(() -> resilience.hedge(Operation.GET, () -> {
+            pooled.incrementAndGet();
+            release.await();
+            return "slow";
+        }, null));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (pooled.get() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(pooled.get()).isEqualTo(2);
+
+        Thread caller = Thread.currentThread();
+        assertThat(resilience.hedge(Operation.GET, () -> Thread.currentThread() == caller ? "inline" : "pooled", null)).isEqualTo("inline");
+
+        release.countDown();
+        assertThat(blocked.get(5, TimeUnit.SECONDS)).isEqualTo("slow");
+    }
+
+    private static MinioResilience resilience(int maxAttempts, int failureThreshold, boolean hedge) {
+        return new MinioResilience("http://localhost:9000", retry(maxAttempts), hedge(hedge), circuitBreaker(failureThreshold, 60_000));
+    }
+
+    private static MinioProperties.Retry retry(int maxAttempts) {
+        MinioProperties.Retry retry = new MinioProperties.Retry();
+        retry.setMaxAttempts(maxAttempts);
+        retry.setInitialBackoff(Duration.ZERO);
+        return retry;
+    }
+
+    private static MinioProperties.Hedge hedge(boolean enabled) {
+        MinioProperties.Hedge hedge = new MinioProperties.Hedge();
+        hedge.setEnabled(enabled);
+        hedge.setMaxThreads(2);
+        return hedge;
+    }
+
+    private static MinioProperties.CircuitBreaker circuitBreaker(int failureThreshold, long openMillis) {
+        MinioProperties.CircuitBreaker circuitBreaker = new MinioProperties.CircuitBreaker();
+        circuitBreaker.setFailureThreshold(failureThreshold);
+        circuitBreaker.setOpenDuration(Duration.ofMillis(openMillis));
+        return circuitBreaker;
+    }
+
+    private static Response response(int code) {
+        return new Response.Builder()
+                .request(new Request.Builder().url("http://localhost:9000/bucket/a.bin").build())
+                .protocol(Protocol.HTTP_1_1)
+                .code(code)
+                .message("")
+                .build();
+    }
+}
@@ -0,0 +1,146 @@
+package com.minio.utils;
+
+import io.minio.MinioClient;
+import io.minio.messages.DeleteError;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BatchDeleterTest {
+
+    private static final Pattern KEY = Pattern.compile("<Key>(.*?)</Key>");
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    /** 每次multi-delete请求中的对象名 */
+    private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+
+    /** 服务端逐个拒绝的对象 */
+    private String deniedObject;
+
+    /** 包含该对象的整组请求返回错误 */
+    private String failingBatchObject;
+
+    private final List<String> deleted = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void splitsIntoBatchesOfAtMost1000() {
+        List<String> names = names(2500);
+
+        RemoveObjectsResult result = deleter(BatchDeleter.MAX_BATCH_SIZE, 2).delete("bucket", names.iterator());
+
+        assertThat(batches).extracting(List::size).containsExactlyInAnyOrder(1000, 1000, 500);
+        assertThat(result.getDeleted()).isEqualTo(2500);
+        assertThat(result.isSuccess()).isTrue();
+        assertThat(deleted).containsExactlyInAnyOrderElementsOf(names);
+    }
+
+    @Test
+    void recordsPerObjectErrors() {
+        deniedObject = "object-3";
+
+        RemoveObjectsResult result = deleter(4, 2).delete("bucket", names(10).iterator());
+
+        assertThat(result.getDeleted()).isEqualTo(9);
+        assertThat(result.getErrors()).extracting(DeleteError::objectName).containsExactly("object-3");
+        assertThat(result.getErrors().get(0).code()).isEqualTo("AccessDenied");
+        assertThat(deleted).hasSize(9).doesNotContain("object-3");
+    }
+
+    @Test
+    void failedBatchIsRecordedAsErrors() {
+        failingBatchObject = "object-5";
+
+        RemoveObjectsResult result = deleter(4, 2).delete("bucket", names(10).iterator());
+
+        // 其余批次照常删除，失败的批次中每个对象都记为失败
+        assertThat(batches).hasSize(3);
+        assertThat(result.getDeleted()).isEqualTo(6);
+        assertThat(result.getErrors()).extracting(DeleteError::objectName)
+                .containsExactlyInAnyOrder("object-4", "object-5", "object-6", "object-7");
+        assertThat(result.getErrors()).extracting(DeleteError::code).containsOnly("SlowDown");
+        assertThat(deleted).hasSize(6).doesNotContain("object-4", "object-7");
+    }
+
+    @Test
+    void emptyInputSendsNoRequest() {
+        RemoveObjectsResult result = deleter(4, 2).delete("bucket", new ArrayList<String>().iterator());
+
+        assertThat(batches).isEmpty();
+        assertThat(result.isSuccess()).isTrue();
+        assertThat(result.getDeleted()).isZero();
+    }
+
+    private BatchDeleter deleter(int batchSize, int concurrency) {
+        OkHttpClient httpClient = new OkHttpClient.Builder()
+                .addInterceptor(chain -> {
+                    Request request = chain.request();
+                    Buffer buffer = new Buffer();
+                    request.body().writeTo(buffer);
+                    List<String> keys = new ArrayList<>();
+                    Matcher matcher = KEY.matcher(buffer.readUtf8());
+                    while (matcher.find()) {
+                        keys.add(matcher.group(1));
+                    }
+                    batches.add(keys);
+
+                    if (keys.contains(failingBatchObject)) {
+                        return response(request, 403, "<Error><Code>SlowDown</Code><Message>slow down</Message></Error>");
+                    }
+                    StringBuilder body = new StringBuilder("<DeleteResult xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\">");
+                    if (keys.contains(deniedObject)) {
+                        body.append("<Error><Key>").append(deniedObject).append("</Key><Code>AccessDenied</Code><Message>denied</Message></Error>");
+                    }
+                    return response(request, 200, body.append("</DeleteResult>").toString());
+                })
+                .build();
+        MinioClient minioClient = MinioClient.builder()
+                .endpoint("http://localhost:9000")
+                .credentials("minioadmin", "minioadmin")
+                .region("us-east-1")
+                .httpClient(httpClient)
+                .build();
+
+        return new BatchDeleter(new CustomMinioClient(minioClient), executor, batchSize, concurrency, (bucket, objectName) -> deleted.add(objectName));
+    }
+
+    private static Response response(Request request, int code, String body) {
+        return new Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_1_1)
+                .code(code)
+                .message("")
+                .header("Content-Type", "application/xml")
+                .body(ResponseBody.create(body, MediaType.get("application/xml")))
+                .build();
+    }
+
+    private static List<String> names(int count) {
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            names.add("object-" + i);
+        }
+        return names;
+    }
+}
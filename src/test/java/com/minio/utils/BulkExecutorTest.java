@@ -0,0 +1,76 @@
+package com.minio.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+class BulkExecutorTest {
+
+    @Test
+    void keepsOrderAndIsolatesFailures() throws Exception {
+        BulkExecutor executor = new BulkExecutor(false, 4, 4);
+
+        BulkResult<String> result = executor.execute(Arrays.asList("c", "bad", "a", "b"), name -> {
+            if ("bad".equals(name)) {
+                throw new IllegalStateException("失败");
+            }
+            // 先提交的对象后完成
+            Thread.sleep("c".equals(name) ? 50 : 0);
+            return name.toUpperCase();
+        });
+
+        assertThat(result.getResults()).containsExactly(
+                entry("c", "C"),
+                entry("a", "A"),
+                entry("b", "B"));
+        assertThat(result.getErrors()).containsOnlyKeys("bad");
+        assertThat(result.getErrors().get("bad")).isInstanceOf(IllegalStateException.class);
+        assertThat(result.isSuccess()).isFalse();
+        executor.shutdown();
+    }
+
+    @Test
+    void limitsConcurrency() throws Exception {
+        for (boolean virtualThreads : new boolean[]{false, true}) {
+            BulkExecutor executor = new BulkExecutor(virtualThreads, 3, 8);
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger peak = new AtomicInteger();
+            List<String> names = new ArrayList<>();
+            for (int i = 0; i < 30; i++) {
+                names.add("object-" + i);
+            }
+
+            BulkResult<Integer> result = executor.execute(names, name -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(5);
+                } finally {
+                    running.decrementAndGet();
+                }
+                return name.length();
+            });
+
+            assertThat(result.isSuccess()).isTrue();
+            assertThat(result.getResults()).hasSize(30);
+            assertThat(peak.get()).isBetween(1, 3);
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void emptyInputReturnsImmediately() throws Exception {
+        BulkExecutor executor = new BulkExecutor(false, 1, 1);
+
+        BulkResult<String> result = executor.execute(new ArrayList<>(), name -> name);
+
+        assertThat(result.getResults()).isEmpty();
+        assertThat(result.isSuccess()).isTrue();
+        executor.shutdown();
+    }
+}
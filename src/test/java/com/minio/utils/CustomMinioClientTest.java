@@ -0,0 +1,24 @@
+package com.minio.utils;
+
+import io.minio.Xml;
+import io.minio.messages.Part;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomMinioClientTest {
+
+    @Test
+    void completeRequestCarriesPartChecksums() throws Exception {
+        Part[] parts = {new Part(1, "etag-1"), new Part(2, "etag-2")};
+
+        String xml = Xml.marshal(new CustomMinioClient.ChecksumCompleteMultipartUpload(ChecksumAlgorithm.SHA256, parts, Arrays.asList("c1", "c2")));
+
+        assertThat(xml).startsWith("<CompleteMultipartUpload xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\">")
+                .contains("<Part><PartNumber>1</PartNumber><ETag>etag-1</ETag><ChecksumSHA256>c1</ChecksumSHA256></Part>")
+                .contains("<Part><PartNumber>2</PartNumber><ETag>etag-2</ETag><ChecksumSHA256>c2</ChecksumSHA256></Part>")
+                .doesNotContain("ChecksumCRC32C");
+    }
+}
@@ -0,0 +1,175 @@
+package com.minio.utils;
+
+import com.google.common.collect.Multimap;
+import io.minio.CreateMultipartUploadResponse;
+import io.minio.ObjectWriteResponse;
+import io.minio.errors.ErrorResponseException;
+import io.minio.messages.Part;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FileUploaderTest {
+
+    private static final int PART_SIZE = MultipartUploader.MIN_PART_SIZE;
+
+    private final CustomMinioClient client = mock(CustomMinioClient.class);
+
+    private final MinioPresigner presigner = new MinioPresigner("http://localhost:9000", "us-east-1", "minioadmin", "minioadmin", Integer.MAX_VALUE);
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    /** 按分片号记录上传的内容，单次上传记为0 */
+    private final Map<Integer, byte[]> bodies = new ConcurrentSkipListMap<>();
+
+    private final Map<Integer, Request> requests = new ConcurrentSkipListMap<>();
+
+    private int failStatus;
+
+    @TempDir
+    Path dir;
+
+    FileUploaderTest() throws Exception {
+        CreateMultipartUploadResponse created = mock(CreateMultipartUploadResponse.class, RETURNS_DEEP_STUBS);
+        when(created.result().uploadId()).thenReturn("upload-id");
+        when(client.createMultipartUpload(any(), any(), any(), any(), any())).thenReturn(created);
+        when(client.completeMultipartUploadWithChecksums(any(), any(), any(), any(), any(), any(), any())).thenReturn(mock(ObjectWriteResponse.class));
+    }
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void smallFileIsPutWithChecksum() throws Exception {
+        byte[] content = bytes(1000);
+        Path file = write(content);
+
+        UploadResult result = uploader(ChecksumAlgorithm.SHA256).upload("bucket", "a.bin", file, "application/octet-stream");
+
+        String checksum = ChecksumAlgorithm.encode(ChecksumAlgorithm.SHA256.digest(content, 0, content.length));
+        assertThat(bodies.get(0)).isEqualTo(content);
+        assertThat(requests.get(0).header(ChecksumAlgorithm.SHA256.getHeader())).isEqualTo(checksum);
+        assertThat(result.getChecksum()).isEqualTo(checksum);
+        assertThat(result.getSize()).isEqualTo(content.length);
+    }
+
+    @Test
+    void largeFileIsUploadedInPartsFromChannel() throws Exception {
+        byte[] content = bytes(2 * PART_SIZE + 100);
+        Path file = write(content);
+
+        uploader(null).upload("bucket", "a.bin", file, null);
+
+        assertThat(bodies).containsOnlyKeys(1, 2, 3);
+        assertThat(concat(bodies)).isEqualTo(content);
+        ArgumentCaptor<Part[]> parts = ArgumentCaptor.forClass(Part[].class);
+        verify(client).completeMultipartUploadWithChecksums(eq("bucket"), any(), eq("a.bin"), eq("upload-id"), parts.capture(), any(), any());
+        assertThat(parts.getValue()).extracting(Part::partNumber).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void partChecksumsAreDeclaredAndSent() throws Exception {
+        byte[] content = bytes(PART_SIZE + 100);
+        Path file = write(content);
+
+        UploadResult result = uploader(ChecksumAlgorithm.CRC32C).upload("bucket", "a.bin", file, null);
+
+        ArgumentCaptor<Multimap<String, String>> headers = ArgumentCaptor.forClass(Multimap.class);
+        verify(client).createMultipartUpload(eq("bucket"), any(), eq("a.bin"), headers.capture(), any());
+        assertThat(headers.getValue().get(ChecksumAlgorithm.ALGORITHM_HEADER)).containsExactly("CRC32C");
+
+        ArgumentCaptor<List<String>> checksums = ArgumentCaptor.forClass(List.class);
+        verify(client).completeMultipartUploadWithChecksums(any(), any(), any(), any(), any(), eq(ChecksumAlgorithm.CRC32C), checksums.capture());
+        assertThat(checksums.getValue()).hasSize(2);
+        for (int partNumber = 1; partNumber <= 2; partNumber++) {
+            byte[] body = bodies.get(partNumber);
+            String expected = ChecksumAlgorithm.encode(ChecksumAlgorithm.CRC32C.digest(body, 0, body.length));
+            assertThat(checksums.getValue().get(partNumber - 1)).isEqualTo(expected);
+            assertThat(requests.get(partNumber).header(ChecksumAlgorithm.CRC32C.getHeader())).isEqualTo(expected);
+        }
+        assertThat(result.getPartChecksums()).isEqualTo(checksums.getValue());
+    }
+
+    @Test
+    void failedPartAbortsUpload() throws Exception {
+        failStatus = 403;
+        Path file = write(bytes(PART_SIZE + 100));
+
+        assertThatThrownBy(() -> uploader(null).upload("bucket", "a.bin", file, null))
+                .isInstanceOf(ErrorResponseException.class);
+        verify(client).abortMultipartUpload(eq("bucket"), any(), eq("a.bin"), eq("upload-id"), any(), any());
+        verify(client, never()).completeMultipartUploadWithChecksums(any(), any(), any(), any(), any(), any(), any());
+    }
+
+    private FileUploader uploader(ChecksumAlgorithm checksumAlgorithm) {
+        OkHttpClient httpClient = new OkHttpClient.Builder()
+                .addInterceptor(chain -> {
+                    Request request = chain.request();
+                    String partNumber = request.url().queryParameter("partNumber");
+                    int key = partNumber == null ? 0 : Integer.parseInt(partNumber);
+                    Buffer buffer = new Buffer();
+                    request.body().writeTo(buffer);
+                    bodies.put(key, buffer.readByteArray());
+                    requests.put(key, request);
+
+                    return new Response.Builder()
+                            .request(request)
+                            .protocol(Protocol.HTTP_1_1)
+                            .code(failStatus == 0 ? 200 : failStatus)
+                            .message("")
+                            .header("ETag", "\"etag-" + key + "\"")
+                            .body(ResponseBody.create("", MediaType.get("application/xml")))
+                            .build();
+                })
+                .build();
+
+        return new FileUploader(httpClient, client, presigner, executor, PART_SIZE, 2, checksumAlgorithm);
+    }
+
+    private Path write(byte[] content) throws Exception {
+        return Files.write(dir.resolve("a.bin"), content);
+    }
+
+    private static byte[] bytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static byte[] concat(Map<Integer, byte[]> parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        parts.values().forEach(part -> out.write(part, 0, part.length));
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,163 @@
+package com.minio.utils;
+
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MinioEndpointPoolTest {
+
+    private static final String PRIMARY = "http://minio.example.com:9000";
+
+    private final List<Request> sent = new CopyOnWriteArrayList<>();
+
+    /** 请求发往该主机时模拟网络异常 */
+    private volatile String unreachable;
+
+    private MinioEndpointPool pool;
+
+    private OkHttpClient client;
+
+    @AfterEach
+    void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void rewritesToNodeAndKeepsHost() throws Exception {
+        setUp(MinioEndpointPool.POWER_OF_TWO);
+
+        execute(PRIMARY + "/bucket/a.txt?X-Amz-Signature=abc").close();
+
+        Request request = sent.get(0);
+        assertThat(request.url().host()).isIn("10.0.0.1", "10.0.0.2", "10.0.0.3");
+        assertThat(request.url().encodedPath()).isEqualTo("/bucket/a.txt");
+        assertThat(request.url().queryParameter("X-Amz-Signature")).isEqualTo("abc");
+        assertThat(request.header("Host")).isEqualTo("minio.example.com:9000");
+    }
+
+    @Test
+    void otherHostsAreNotRewritten() throws Exception {
+        setUp(MinioEndpointPool.POWER_OF_TWO);
+
+        execute("http://other.example.com/x").close();
+
+        assertThat(sent.get(0).url().host()).isEqualTo("other.example.com");
+        assertThat(sent.get(0).header("Host")).isNull();
+    }
+
+    @Test
+    void uploadIdSticksToOneNode() throws Exception {
+        setUp(MinioEndpointPool.POWER_OF_TWO);
+
+        for (int i = 1; i <= 20; i++) {
+            execute(PRIMARY + "/bucket/a.bin?uploadId=upload-1&partNumber=" + i).close();
+        }
+
+        Set<String> hosts = new HashSet<>();
+        for (Request request : sent) {
+            hosts.add(request.url().host());
+        }
+        assertThat(hosts).hasSize(1);
+    }
+
+    @Test
+    void leastOutstandingSpreadsOpenResponses() throws Exception {
+        setUp(MinioEndpointPool.LEAST_OUTSTANDING);
+
+        Response[] open = {execute(PRIMARY + "/bucket/1"), execute(PRIMARY + "/bucket/2"), execute(PRIMARY + "/bucket/3")};
+
+        Set<String> hosts = new HashSet<>();
+        for (Request request : sent) {
+            hosts.add(request.url().host());
+        }
+        assertThat(hosts).hasSize(3);
+        for (MinioEndpointPool.Node node : pool.getNodes()) {
+            assertThat(node.getOutstanding()).isEqualTo(1);
+        }
+
+        for (Response response : open) {
+            response.close();
+        }
+        for (MinioEndpointPool.Node node : pool.getNodes()) {
+            assertThat(node.getOutstanding()).isZero();
+        }
+    }
+
+    @Test
+    void failedNodeLeavesRotation() throws Exception {
+        setUp(MinioEndpointPool.LEAST_OUTSTANDING);
+        unreachable = "10.0.0.2";
+
+        MinioEndpointPool.Node down = pool.getNodes().get(1);
+        for (int i = 0; i < 100 && down.isHealthy(); i++) {
+            try {
+                execute(PRIMARY + "/bucket/" + i).close();
+            } catch (IOException ignored) {
+                // 请求落到不可用的节点
+            }
+        }
+
+        assertThat(down.isHealthy()).isFalse();
+        assertThat(down.getOutstanding()).isZero();
+        sent.clear();
+        for (int i = 0; i < 10; i++) {
+            execute(PRIMARY + "/bucket/" + i).close();
+        }
+        assertThat(sent).extracting(request -> request.url().host()).doesNotContain("10.0.0.2");
+    }
+
+    @Test
+    void rejectsInvalidConfiguration() {
+        OkHttpClient http = new OkHttpClient();
+        assertThatThrownBy(() -> new MinioEndpointPool(PRIMARY, Arrays.asList("http://10.0.0.1:9000"), "random", http, "/", 1000, 1000))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new MinioEndpointPool(PRIMARY, Arrays.asList(), MinioEndpointPool.POWER_OF_TWO, http, "/", 1000, 1000))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void setUp(String balancer) {
+        pool = new MinioEndpointPool(PRIMARY, Arrays.asList("http://10.0.0.1:9000", "http://10.0.0.2:9000", "http://10.0.0.3:9000"),
+                balancer, new OkHttpClient(), "/minio/health/live", TimeUnit.HOURS.toMillis(1), 1000);
+        // 拦截器之后直接返回，不发出真实请求
+        client = new OkHttpClient.Builder()
+                .addInterceptor(pool)
+                .addInterceptor(chain -> {
+                    Request request = chain.request();
+                    sent.add(request);
+                    if (request.url().host().equals(unreachable)) {
+                        throw new IOException("connection refused");
+                    }
+                    return new Response.Builder()
+                            .request(request)
+                            .protocol(Protocol.HTTP_1_1)
+                            .code(200)
+                            .message("OK")
+                            .body(ResponseBody.create("ok", MediaType.get("text/plain")))
+                            .build();
+                })
+                .build();
+    }
+
+    private Response execute(String url) throws IOException {
+        return client.newCall(new Request.Builder().url(HttpUrl.get(url)).build()).execute();
+    }
+}
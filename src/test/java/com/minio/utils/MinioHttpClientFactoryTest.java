@@ -0,0 +1,125 @@
+package com.minio.utils;
+
+import com.minio.properties.MinioProperties;
+import com.sun.net.httpserver.HttpServer;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MinioHttpClientFactoryTest {
+
+    private final ExecutorService serverExecutor = Executors.newCachedThreadPool();
+
+    private HttpServer server;
+
+    @AfterEach
+    void shutdown() {
+        if (server != null) {
+            server.stop(0);
+        }
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void appliesTimeoutsAndDispatcher() {
+        MinioProperties.Http http = new MinioProperties.Http();
+        http.setConnectTimeout(Duration.ofSeconds(3));
+        http.setReadTimeout(Duration.ofSeconds(4));
+        http.setWriteTimeout(Duration.ofSeconds(5));
+        http.setCallTimeout(Duration.ofSeconds(6));
+        http.setRetryOnConnectionFailure(false);
+        http.setMaxRequests(32);
+        http.setMaxRequestsPerHost(16);
+
+        OkHttpClient client = MinioHttpClientFactory.create(http);
+
+        assertThat(client.connectTimeoutMillis()).isEqualTo(3000);
+        assertThat(client.readTimeoutMillis()).isEqualTo(4000);
+        assertThat(client.writeTimeoutMillis()).isEqualTo(5000);
+        assertThat(client.callTimeoutMillis()).isEqualTo(6000);
+        assertThat(client.retryOnConnectionFailure()).isFalse();
+        assertThat(client.dispatcher().getMaxRequests()).isEqualTo(32);
+        assertThat(client.dispatcher().getMaxRequestsPerHost()).isEqualTo(16);
+        assertThat(client.protocols()).containsExactly(Protocol.HTTP_1_1);
+    }
+
+    @Test
+    void http2IsNegotiable() {
+        MinioProperties.Http http = new MinioProperties.Http();
+        http.setHttp2(true);
+
+        assertThat(MinioHttpClientFactory.create(http).protocols()).containsExactly(Protocol.HTTP_2, Protocol.HTTP_1_1);
+    }
+
+    @Test
+    void socketBuffersAreApplied() throws Exception {
+        MinioProperties.Http http = new MinioProperties.Http();
+        http.setSendBufferSize(DataSize.ofKilobytes(64));
+        http.setReceiveBufferSize(DataSize.ofKilobytes(32));
+
+        try (Socket socket = MinioHttpClientFactory.create(http).socketFactory().createSocket()) {
+            // 系统可能把缓冲区放大，但不会小于设置值
+            assertThat(socket.getSendBufferSize()).isGreaterThanOrEqualTo(64 * 1024);
+            assertThat(socket.getReceiveBufferSize()).isGreaterThanOrEqualTo(32 * 1024);
+        }
+    }
+
+    @Test
+    void prewarmFillsConnectionPool() throws Exception {
+        String endpoint = startServer();
+        MinioProperties.Http http = new MinioProperties.Http();
+        OkHttpClient client = MinioHttpClientFactory.create(http);
+
+        MinioHttpClientFactory.prewarm(client, endpoint, 4);
+
+        assertThat(client.connectionPool().idleConnectionCount()).isEqualTo(4);
+    }
+
+    @Test
+    void poolKeepsAtMostMaxIdleConnections() throws Exception {
+        String endpoint = startServer();
+        MinioProperties.Http http = new MinioProperties.Http();
+        http.setMaxIdleConnections(2);
+        OkHttpClient client = MinioHttpClientFactory.create(http);
+
+        MinioHttpClientFactory.prewarm(client, endpoint, 4);
+
+        // 超出的空闲连接由连接池的清理任务异步关闭
+        long deadline = System.currentTimeMillis() + 5000;
+        while (client.connectionPool().idleConnectionCount() > 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(client.connectionPool().idleConnectionCount()).isEqualTo(2);
+    }
+
+    /**
+     * 响应前稍作停顿，让预热的请求同时在途，各自建立连接
+     */
+    private String startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(serverExecutor);
+        server.createContext("/", exchange -> {
+            try {
+                TimeUnit.MILLISECONDS.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(403, -1);
+            exchange.close();
+        });
+        server.start();
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+}
@@ -0,0 +1,160 @@
+package com.minio.utils;
+
+import io.minio.GetPresignedObjectUrlArgs;
+import io.minio.MinioClient;
+import io.minio.http.Method;
+import okhttp3.HttpUrl;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MinioPresignerTest {
+
+    private static final String ENDPOINT = "http://localhost:9000";
+
+    private static final String ACCESS_KEY = "minioadmin";
+
+    private static final String SECRET_KEY = "minioadmin";
+
+    private final MinioClient minioClient = MinioClient.builder()
+            .endpoint(ENDPOINT)
+            .credentials(ACCESS_KEY, SECRET_KEY)
+            .region("us-east-1")
+            .build();
+
+    private final MinioPresigner presigner = new MinioPresigner(ENDPOINT, "us-east-1", ACCESS_KEY, SECRET_KEY, Integer.MAX_VALUE);
+
+    @Test
+    void presignMatchesSdk() throws Exception {
+        for (String objectName : new String[]{"a.txt", "dir/子目录/文件 (1).png", "a+b=c&d~e*f"}) {
+            assertSameSignature(() -> presigner.presign(Method.GET, "bucket", objectName, 3600, null),
+                    () -> sdkUrl(Method.GET, objectName, 3600, null));
+        }
+    }
+
+    @Test
+    void presignPartsMatchesSdk() throws Exception {
+        Map<String, String> params = new HashMap<>();
+        params.put("uploadId", "upload/id=1");
+        params.put("partNumber", "2");
+
+        assertSameSignature(() -> presigner.presignParts("bucket", "dir/a b.bin", "upload/id=1", 3, 600).get(1),
+                () -> sdkUrl(Method.PUT, "dir/a b.bin", 600, params));
+    }
+
+    @Test
+    void presignPartsIsParallelSafe() {
+        MinioPresigner parallel = new MinioPresigner(ENDPOINT, "us-east-1", ACCESS_KEY, SECRET_KEY, 1);
+
+        List<String> urls = parallel.presignParts("bucket", "a.bin", "id", 200, 600);
+
+        assertThat(urls).hasSize(200);
+        for (int i = 0; i < urls.size(); i++) {
+            assertThat(HttpUrl.parse(urls.get(i)).queryParameter("partNumber")).isEqualTo(String.valueOf(i + 1));
+        }
+    }
+
+    @Test
+    void presignObjectsMatchesSingle() throws Exception {
+        assertSameSignature(() -> presigner.presignObjects(Method.GET, "bucket", Collections.singletonList("x/y z.jpg"), 60).get("x/y z.jpg"),
+                () -> presigner.presign(Method.GET, "bucket", "x/y z.jpg", 60, null));
+    }
+
+    @Test
+    void presignObjectsKeepsOrderAndSignsDuplicatesOnce() {
+        Map<String, String> urls = presigner.presignObjects(Method.GET, "bucket", Arrays.asList("c.jpg", "a.jpg", "c.jpg", "b.jpg"), 60);
+
+        assertThat(urls).containsOnlyKeys("c.jpg", "a.jpg", "b.jpg");
+        assertThat(new ArrayList<>(urls.keySet())).containsExactly("c.jpg", "a.jpg", "b.jpg");
+        assertThat(HttpUrl.parse(urls.get("a.jpg")).encodedPath()).isEqualTo("/bucket/a.jpg");
+    }
+
+    @Test
+    void presignObjectsInParallelMatchesSdk() throws Exception {
+        MinioPresigner parallel = new MinioPresigner(ENDPOINT, "us-east-1", ACCESS_KEY, SECRET_KEY, 1);
+        List<String> objectNames = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            objectNames.add("相册/" + i + " (1).jpg");
+        }
+
+        for (int i : new int[]{0, 99, 199}) {
+            String objectName = objectNames.get(i);
+            assertSameSignature(() -> parallel.presignObjects(Method.GET, "bucket", objectNames, 600).get(objectName),
+                    () -> sdkUrl(Method.GET, objectName, 600, null));
+        }
+    }
+
+    @Test
+    void regionResolvedPerBucket() {
+        List<String> resolved = new ArrayList<>();
+        MinioPresigner resolving = new MinioPresigner(ENDPOINT, bucket -> {
+            resolved.add(bucket);
+            return "eu-west-1";
+        }, ACCESS_KEY, SECRET_KEY, Integer.MAX_VALUE);
+
+        String url = resolving.presign(Method.GET, "bucket", "a.txt", 60, null);
+
+        assertThat(resolved).containsExactly("bucket");
+        assertThat(HttpUrl.parse(url).queryParameter("X-Amz-Credential")).contains("/eu-west-1/s3/aws4_request");
+    }
+
+    @Test
+    void rejectsInvalidArguments() {
+        assertThatThrownBy(() -> presigner.presignParts("bucket", "a.bin", "id", -1, 60)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> presigner.presignParts("bucket", "a.bin", "id", 0, 60)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> presigner.presign(Method.GET, "bucket", "a", 0, null)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new MinioPresigner(ENDPOINT, "", ACCESS_KEY, SECRET_KEY, 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private String sdkUrl(Method method, String objectName, int expiry, Map<String, String> params) throws Exception {
+        return minioClient.getPresignedObjectUrl(GetPresignedObjectUrlArgs.builder()
+                .method(method)
+                .bucket("bucket")
+                .object(objectName)
+                .expiry(expiry)
+                .extraQueryParams(params)
+                .build());
+    }
+
+    /**
+     * 两次签名跨秒时X-Amz-Date不同，重试直到落在同一秒
+     */
+    private static void assertSameSignature(UrlSupplier actual, UrlSupplier expected) throws Exception {
+        for (int i = 0; i < 10; i++) {
+            HttpUrl actualUrl = HttpUrl.parse(actual.get());
+            HttpUrl expectedUrl = HttpUrl.parse(expected.get());
+            if (!actualUrl.queryParameter("X-Amz-Date").equals(expectedUrl.queryParameter("X-Amz-Date"))) {
+                continue;
+            }
+
+            assertThat(actualUrl.encodedPath()).isEqualTo(expectedUrl.encodedPath());
+            assertThat(query(actualUrl)).isEqualTo(query(expectedUrl));
+            return;
+        }
+        throw new AssertionError("签名时间始终不一致");
+    }
+
+    private static Map<String, String> query(HttpUrl url) {
+        Map<String, String> query = new TreeMap<>();
+        for (String name : url.queryParameterNames()) {
+            query.put(name, url.queryParameter(name));
+        }
+
+        return query;
+    }
+
+    @FunctionalInterface
+    private interface UrlSupplier {
+
+        String get() throws Exception;
+    }
+}
@@ -0,0 +1,189 @@
+package com.minio.utils;
+
+import com.minio.properties.MinioProperties;
+import io.minio.ObjectWriteResponse;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MinioTemplateMergeTest {
+
+    private static final String NAMESPACE = " xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\"";
+
+    private static final Pattern PART_NUMBER = Pattern.compile("<PartNumber>(\\d+)</PartNumber>");
+
+    /** 服务端已上传的分片序号，按列举顺序 */
+    private final List<Integer> uploaded = new ArrayList<>();
+
+    /** 每次列举请求的part-number-marker */
+    private final List<Integer> markers = new CopyOnWriteArrayList<>();
+
+    /** 合并请求中的分片序号 */
+    private final List<Integer> merged = new CopyOnWriteArrayList<>();
+
+    private MinioTemplate template;
+
+    @BeforeEach
+    void setUp() {
+        MinioProperties properties = new MinioProperties();
+        properties.setEndpoint("http://localhost:9000");
+        properties.setAccessKey("minioadmin");
+        properties.setSecretKey("minioadmin");
+        properties.setRegion("us-east-1");
+        properties.getBootstrap().setMode("none");
+
+        OkHttpClient httpClient = new OkHttpClient.Builder()
+                .addInterceptor(chain -> {
+                    Request request = chain.request();
+                    return "POST".equals(request.method()) ? complete(request) : listParts(request);
+                })
+                .build();
+        template = new MinioTemplate(properties, httpClient);
+    }
+
+    @AfterEach
+    void shutdown() {
+        template.destroy();
+    }
+
+    @Test
+    void mergesPartsAcrossPages() {
+        upload(1, 2500);
+
+        ObjectWriteResponse response = template.mergeMultipartUpload("bucket", "a.bin", "upload-id", 2500);
+
+        // 默认每页1000片
+        assertThat(markers).containsExactly(0, 1000, 2000);
+        assertThat(merged).hasSize(2500);
+        assertThat(merged.get(0)).isEqualTo(1);
+        assertThat(merged.get(2499)).isEqualTo(2500);
+        assertThat(response.etag()).isEqualTo("\"merged\"");
+    }
+
+    @Test
+    void mergesWithoutKnownTotal() {
+        upload(1, 1001);
+
+        template.mergeMultipartUpload("bucket", "a.bin", "upload-id");
+
+        assertThat(markers).containsExactly(0, 1000);
+        assertThat(merged).hasSize(1001);
+    }
+
+    @Test
+    void rejectsMissingPartOnLaterPage() {
+        upload(1, 1500);
+        uploaded.remove(Integer.valueOf(1200));
+
+        assertThatThrownBy(() -> template.mergeMultipartUpload("bucket", "a.bin", "upload-id", 1500))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("第1200片");
+        assertThat(merged).isEmpty();
+    }
+
+    @Test
+    void rejectsDuplicatePartNumber() {
+        upload(1, 3);
+        uploaded.add(2, 2);
+
+        assertThatThrownBy(() -> template.mergeMultipartUpload("bucket", "a.bin", "upload-id", 3))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("第3片");
+        assertThat(merged).isEmpty();
+    }
+
+    @Test
+    void rejectsIncompleteOrEmptyUpload() {
+        upload(1, 4);
+        assertThatThrownBy(() -> template.mergeMultipartUpload("bucket", "a.bin", "upload-id", 5))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("已上传4片，共5片");
+
+        uploaded.clear();
+        assertThatThrownBy(() -> template.mergeMultipartUpload("bucket", "a.bin", "upload-id"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("没有已上传的分片");
+        assertThat(merged).isEmpty();
+    }
+
+    private void upload(int from, int to) {
+        for (int partNumber = from; partNumber <= to; partNumber++) {
+            uploaded.add(partNumber);
+        }
+    }
+
+    /**
+     * 按max-parts和part-number-marker分页返回，分片按列举顺序排列
+     */
+    private Response listParts(Request request) {
+        int maxParts = Integer.parseInt(request.url().queryParameter("max-parts"));
+        String marker = request.url().queryParameter("part-number-marker");
+        int partNumberMarker = marker == null ? 0 : Integer.parseInt(marker);
+        markers.add(partNumberMarker);
+
+        int from = 0;
+        while (from < uploaded.size() && uploaded.get(from) <= partNumberMarker) {
+            from++;
+        }
+        int to = Math.min(from + maxParts, uploaded.size());
+        boolean truncated = to < uploaded.size();
+
+        StringBuilder xml = new StringBuilder("<ListPartsResult" + NAMESPACE + ">")
+                .append("<Bucket>bucket</Bucket><Key>a.bin</Key><UploadId>upload-id</UploadId>")
+                .append("<Initiator><ID>id</ID><DisplayName>minio</DisplayName></Initiator>")
+                .append("<Owner><ID>id</ID><DisplayName>minio</DisplayName></Owner>")
+                .append("<StorageClass>STANDARD</StorageClass>")
+                .append("<PartNumberMarker>").append(partNumberMarker).append("</PartNumberMarker>")
+                .append("<NextPartNumberMarker>").append(to > from ? uploaded.get(to - 1) : 0).append("</NextPartNumberMarker>")
+                .append("<MaxParts>").append(maxParts).append("</MaxParts>")
+                .append("<IsTruncated>").append(truncated).append("</IsTruncated>");
+        for (int i = from; i < to; i++) {
+            int partNumber = uploaded.get(i);
+            xml.append("<Part><PartNumber>").append(partNumber).append("</PartNumber>")
+                    .append("<LastModified>2023-01-02T00:00:00.000Z</LastModified>")
+                    .append("<ETag>\"etag-").append(partNumber).append("\"</ETag><Size>5</Size></Part>");
+        }
+
+        return response(request, xml.append("</ListPartsResult>").toString());
+    }
+
+    private Response complete(Request request) throws IOException {
+        Buffer buffer = new Buffer();
+        request.body().writeTo(buffer);
+        Matcher matcher = PART_NUMBER.matcher(buffer.readUtf8());
+        while (matcher.find()) {
+            merged.add(Integer.parseInt(matcher.group(1)));
+        }
+
+        return response(request, "<CompleteMultipartUploadResult" + NAMESPACE + "><Location>/bucket/a.bin</Location>"
+                + "<Bucket>bucket</Bucket><Key>a.bin</Key><ETag>\"merged\"</ETag></CompleteMultipartUploadResult>");
+    }
+
+    private static Response response(Request request, String body) {
+        return new Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_1_1)
+                .code(200)
+                .message("")
+                .header("Content-Type", "application/xml")
+                .body(ResponseBody.create(body, MediaType.get("application/xml")))
+                .build();
+    }
+}
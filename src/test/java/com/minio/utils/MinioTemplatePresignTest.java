@@ -0,0 +1,93 @@
+package com.minio.utils;
+
+import com.minio.properties.MinioProperties;
+import io.minio.errors.ErrorResponseException;
+import io.minio.http.Method;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MinioTemplatePresignTest {
+
+    /** minio收到的请求，格式为"方法 路径" */
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+
+    private MinioTemplate template;
+
+    @BeforeEach
+    void setUp() {
+        MinioProperties properties = new MinioProperties();
+        properties.setEndpoint("http://localhost:9000");
+        properties.setAccessKey("minioadmin");
+        properties.setSecretKey("minioadmin");
+        properties.setRegion("us-east-1");
+        properties.getBootstrap().setMode("none");
+
+        // 名称以missing开头的文件不存在
+        OkHttpClient httpClient = new OkHttpClient.Builder()
+                .addInterceptor(chain -> {
+                    Request request = chain.request();
+                    requests.add(request.method() + " " + request.url().encodedPath());
+                    return stat(request, !request.url().encodedPath().startsWith("/bucket/missing"));
+                })
+                .build();
+        template = new MinioTemplate(properties, httpClient);
+    }
+
+    @AfterEach
+    void shutdown() {
+        template.destroy();
+    }
+
+    @Test
+    void presignBatchSendsNoRequest() {
+        Map<String, String> urls = template.presignBatch("bucket", Arrays.asList("b.jpg", "a.jpg"), Method.GET, Duration.ofMinutes(10));
+
+        assertThat(urls.keySet()).containsExactly("b.jpg", "a.jpg");
+        HttpUrl url = HttpUrl.parse(urls.get("a.jpg"));
+        assertThat(url.encodedPath()).isEqualTo("/bucket/a.jpg");
+        assertThat(url.queryParameter("X-Amz-Expires")).isEqualTo("600");
+        assertThat(requests).isEmpty();
+    }
+
+    @Test
+    void presignExistingSignsOnlyExistingObjects() {
+        BulkResult<String> result = template.presignExisting("bucket", Arrays.asList("a.jpg", "missing.jpg", "b.jpg"),
+                Method.GET, Duration.ofMinutes(10));
+
+        assertThat(result.getResults().keySet()).containsExactly("a.jpg", "b.jpg");
+        assertThat(HttpUrl.parse(result.getResults().get("b.jpg")).encodedPath()).isEqualTo("/bucket/b.jpg");
+        assertThat(result.getErrors()).containsOnlyKeys("missing.jpg");
+        assertThat(result.getErrors().get("missing.jpg")).isInstanceOf(ErrorResponseException.class);
+        assertThat(requests).containsExactlyInAnyOrder("HEAD /bucket/a.jpg", "HEAD /bucket/missing.jpg", "HEAD /bucket/b.jpg");
+    }
+
+    private static Response stat(Request request, boolean exists) {
+        return new Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_1_1)
+                .code(exists ? 200 : 404)
+                .message("")
+                .header("Content-Type", "application/xml")
+                .header("ETag", "\"etag\"")
+                .header("Content-Length", "1")
+                .header("Last-Modified", "Mon, 02 Jan 2023 00:00:00 GMT")
+                .body(ResponseBody.create("", MediaType.get("application/xml")))
+                .build();
+    }
+}
@@ -0,0 +1,129 @@
+package com.minio.utils;
+
+import com.minio.properties.MinioProperties;
+import io.minio.messages.DeleteError;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MinioTemplatePurgeTest {
+
+    private static final Pattern KEY = Pattern.compile("<Key>(.*?)</Key>");
+
+    private static final int OBJECTS = 1500;
+
+    private static final int PAGE_SIZE = 1000;
+
+    private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+
+    private MinioTemplate template;
+
+    @BeforeEach
+    void setUp() {
+        MinioProperties properties = new MinioProperties();
+        properties.setEndpoint("http://localhost:9000");
+        properties.setAccessKey("minioadmin");
+        properties.setSecretKey("minioadmin");
+        properties.setRegion("us-east-1");
+        properties.getBootstrap().setMode("none");
+
+        OkHttpClient httpClient = new OkHttpClient.Builder()
+                .addInterceptor(chain -> {
+                    Request request = chain.request();
+                    if ("POST".equals(request.method())) {
+                        return delete(request);
+                    }
+                    return list(request);
+                })
+                .build();
+        template = new MinioTemplate(properties, httpClient);
+    }
+
+    @AfterEach
+    void shutdown() {
+        template.destroy();
+    }
+
+    @Test
+    void purgesEveryPageInBatches() {
+        RemoveObjectsResult result = template.purgePrefix("bucket", "p/");
+
+        assertThat(batches).extracting(List::size).containsExactlyInAnyOrder(1000, 500);
+        List<String> requested = new ArrayList<>();
+        batches.forEach(requested::addAll);
+        assertThat(requested).hasSize(OBJECTS).doesNotHaveDuplicates().allMatch(name -> name.startsWith("p/"));
+
+        // 服务端拒绝的对象记在结果中，其余的计为删除成功
+        assertThat(result.getDeleted()).isEqualTo(OBJECTS - 1);
+        assertThat(result.getErrors()).extracting(DeleteError::objectName).containsExactly("p/7");
+        assertThat(result.isSuccess()).isFalse();
+    }
+
+    /**
+     * 按continuation-token分两页返回
+     */
+    private static Response list(Request request) {
+        String token = request.url().queryParameter("continuation-token");
+        int from = token == null ? 0 : Integer.parseInt(token);
+        int to = Math.min(from + PAGE_SIZE, OBJECTS);
+
+        StringBuilder body = new StringBuilder("<ListBucketResult xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\">")
+                .append("<Name>bucket</Name><Prefix>p/</Prefix>")
+                .append("<KeyCount>").append(to - from).append("</KeyCount>")
+                .append("<MaxKeys>").append(PAGE_SIZE).append("</MaxKeys>")
+                .append("<IsTruncated>").append(to < OBJECTS).append("</IsTruncated>");
+        if (to < OBJECTS) {
+            body.append("<NextContinuationToken>").append(to).append("</NextContinuationToken>");
+        }
+        for (int i = from; i < to; i++) {
+            body.append("<Contents><Key>p/").append(i).append("</Key>")
+                    .append("<LastModified>2023-01-02T00:00:00.000Z</LastModified><ETag>\"etag\"</ETag><Size>1</Size></Contents>");
+        }
+
+        return response(request, body.append("</ListBucketResult>").toString());
+    }
+
+    private Response delete(Request request) throws IOException {
+        Buffer buffer = new Buffer();
+        request.body().writeTo(buffer);
+        List<String> keys = new ArrayList<>();
+        Matcher matcher = KEY.matcher(buffer.readUtf8());
+        while (matcher.find()) {
+            keys.add(matcher.group(1));
+        }
+        batches.add(keys);
+
+        StringBuilder body = new StringBuilder("<DeleteResult xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\">");
+        if (keys.contains("p/7")) {
+            body.append("<Error><Key>p/7</Key><Code>AccessDenied</Code><Message>denied</Message></Error>");
+        }
+        return response(request, body.append("</DeleteResult>").toString());
+    }
+
+    private static Response response(Request request, String body) {
+        return new Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_1_1)
+                .code(200)
+                .message("")
+                .header("Content-Type", "application/xml")
+                .body(ResponseBody.create(body, MediaType.get("application/xml")))
+                .build();
+    }
+}
@@ -0,0 +1,86 @@
+package com.minio.utils;
+
+import com.minio.properties.MinioProperties;
+import com.minio.session.InMemoryUploadSessionStore;
+import com.minio.session.UploadSession;
+import org.assertj.core.api.InstanceOfAssertFactories;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MinioTemplateSessionTest {
+
+    private final InMemoryUploadSessionStore store = new InMemoryUploadSessionStore();
+
+    private MinioTemplate template;
+
+    @BeforeEach
+    void setUp() {
+        MinioProperties properties = new MinioProperties();
+        properties.setEndpoint("http://localhost:9000");
+        properties.setAccessKey("minioadmin");
+        properties.setSecretKey("minioadmin");
+        properties.setRegion("us-east-1");
+        template = new MinioTemplate(properties);
+        template.setUploadSessionStore(store);
+
+        UploadSession session = new UploadSession();
+        session.setUploadId("id");
+        session.setBucket("bucket");
+        session.setObjectName("a.bin");
+        session.setTotalPart(5);
+        session.setCreateTime(System.currentTimeMillis());
+        session.setExpireTime(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1));
+        store.save(session);
+    }
+
+    @Test
+    void completePartRejectsOutOfRange() {
+        assertThatThrownBy(() -> template.completePart("id", 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> template.completePart("id", 6)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> template.completePart("missing", 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(store.completedParts("id")).isEmpty();
+    }
+
+    @Test
+    void expiredSessionIsRejected() {
+        UploadSession session = store.get("id");
+        session.setExpireTime(System.currentTimeMillis() - 1);
+        store.save(session);
+
+        assertThatThrownBy(() -> template.resumeMultiPartUpload("id")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> template.completePart("id", 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void resumeReturnsMissingParts() {
+        template.completePart("id", 2);
+        template.completePart("id", 2);
+        template.completePart("id", 4);
+
+        Map<String, Object> result = template.resumeMultiPartUpload("id");
+
+        assertThat((int[]) result.get("pendingParts")).containsExactly(1, 3, 5);
+        assertThat(result.get("completedParts")).asInstanceOf(InstanceOfAssertFactories.iterable(Integer.class)).containsExactly(2, 4);
+        assertThat((List<?>) result.get("uploadUrls")).hasSize(3);
+    }
+
+    @Test
+    void resumeIgnoresRecordsOutsideSession() {
+        // 直接写入存储的越界记录不能让待上传的分片丢失
+        store.completePart("id", 1);
+        store.completePart("id", 9);
+        store.completePart("id", -1);
+
+        Map<String, Object> result = template.resumeMultiPartUpload("id");
+
+        assertThat((int[]) result.get("pendingParts")).containsExactly(2, 3, 4, 5);
+        assertThat(result.get("completedParts")).asInstanceOf(InstanceOfAssertFactories.iterable(Integer.class)).containsExactly(1);
+    }
+}
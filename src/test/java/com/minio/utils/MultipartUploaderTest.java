@@ -0,0 +1,208 @@
+package com.minio.utils;
+
+import com.google.common.collect.Multimap;
+import com.google.common.io.ByteStreams;
+import io.minio.CreateMultipartUploadResponse;
+import io.minio.ObjectWriteResponse;
+import io.minio.PutObjectArgs;
+import io.minio.UploadPartResponse;
+import io.minio.messages.Part;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MultipartUploaderTest {
+
+    private static final int PART_SIZE = MultipartUploader.MIN_PART_SIZE;
+
+    private final CustomMinioClient client = mock(CustomMinioClient.class);
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    private final ByteArrayOutputStream putContent = new ByteArrayOutputStream();
+
+    private final Map<Integer, byte[]> parts = new ConcurrentSkipListMap<>();
+
+    MultipartUploaderTest() throws Exception {
+        when(client.putObject(any(PutObjectArgs.class))).thenAnswer(invocation -> {
+            PutObjectArgs args = invocation.getArgument(0);
+            ByteStreams.copy(args.stream(), putContent);
+            return mock(ObjectWriteResponse.class);
+        });
+        CreateMultipartUploadResponse created = mock(CreateMultipartUploadResponse.class, RETURNS_DEEP_STUBS);
+        when(created.result().uploadId()).thenReturn("upload-id");
+        when(client.createMultipartUpload(any(), any(), any(), any(), any())).thenReturn(created);
+        when(client.uploadPart(any(), any(), any(), any(), anyLong(), any(), anyInt(), any(), any())).thenAnswer(invocation -> {
+            byte[] data = invocation.getArgument(3);
+            long length = invocation.getArgument(4);
+            int partNumber = invocation.getArgument(6);
+            // 缓冲区上传后会被复用，先复制出来
+            parts.put(partNumber, Arrays.copyOf(data, (int) length));
+            UploadPartResponse response = mock(UploadPartResponse.class);
+            when(response.etag()).thenReturn("etag-" + partNumber);
+            return response;
+        });
+        when(client.completeMultipartUploadWithChecksums(any(), any(), any(), any(), any(), any(), any())).thenReturn(mock(ObjectWriteResponse.class));
+    }
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void smallStreamOfUnknownSizeIsPutDirectly() throws Exception {
+        byte[] content = bytes(100);
+        MultipartUploader uploader = new MultipartUploader(client, executor, PART_SIZE, 2, 1);
+
+        UploadResult result = uploader.upload("bucket", "a.bin", slow(content), -1, null);
+
+        assertThat(result.getSize()).isEqualTo(100);
+        assertThat(putContent.toByteArray()).isEqualTo(content);
+        verify(client, never()).createMultipartUpload(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void streamBelowPartSizeIsPutOnce() throws Exception {
+        byte[] content = bytes(3 * 1024 * 1024 + 7);
+        MultipartUploader uploader = new MultipartUploader(client, executor, PART_SIZE, 2, 1);
+
+        uploader.upload("bucket", "a.bin", slow(content), -1, null);
+
+        assertThat(putContent.toByteArray()).isEqualTo(content);
+        verify(client, never()).createMultipartUpload(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void largeStreamIsUploadedInParts() throws Exception {
+        byte[] content = bytes(2 * PART_SIZE + 12345);
+        MultipartUploader uploader = new MultipartUploader(client, executor, PART_SIZE, 2, 2);
+
+        UploadResult result = uploader.upload("bucket", "a.bin", slow(content), -1, null);
+
+        assertThat(result.getSize()).isEqualTo(content.length);
+        assertThat(parts).containsOnlyKeys(1, 2, 3);
+        ByteArrayOutputStream uploaded = new ByteArrayOutputStream();
+        for (byte[] part : parts.values()) {
+            uploaded.write(part);
+        }
+        assertThat(uploaded.toByteArray()).isEqualTo(content);
+
+        ArgumentCaptor<Part[]> captor = ArgumentCaptor.forClass(Part[].class);
+        verify(client).completeMultipartUploadWithChecksums(eq("bucket"), any(), eq("a.bin"), eq("upload-id"), captor.capture(), isNull(), isNull());
+        assertThat(captor.getValue()).extracting(Part::partNumber).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    void partsInFlightAreBoundedByConcurrency() throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        doAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(50);
+            inFlight.decrementAndGet();
+            UploadPartResponse response = mock(UploadPartResponse.class);
+            when(response.etag()).thenReturn("etag");
+            return response;
+        }).when(client).uploadPart(any(), any(), any(), any(), anyLong(), any(), anyInt(), any(), any());
+        // 线程池有空闲线程，也只能同时上传concurrency个分片
+        MultipartUploader uploader = new MultipartUploader(client, executor, PART_SIZE, 1, 3);
+
+        uploader.upload("bucket", "a.bin", new ByteArrayInputStream(bytes(3 * PART_SIZE)), 3L * PART_SIZE, null);
+
+        assertThat(maxInFlight.get()).isEqualTo(1);
+        verify(client, times(3)).uploadPart(any(), any(), any(), any(), anyLong(), any(), anyInt(), any(), any());
+    }
+
+    @Test
+    void failedPartAbortsUpload() throws Exception {
+        doThrow(new IOException("connection reset")).when(client).uploadPart(any(), any(), any(), any(), anyLong(), any(), eq(2), any(), any());
+        MultipartUploader uploader = new MultipartUploader(client, executor, PART_SIZE, 2, 2);
+
+        assertThatThrownBy(() -> uploader.upload("bucket", "a.bin", slow(bytes(3 * PART_SIZE)), -1, null))
+                .isInstanceOf(IOException.class)
+                .hasMessage("connection reset");
+
+        verify(client).abortMultipartUpload(eq("bucket"), any(), eq("a.bin"), eq("upload-id"), any(), any());
+        verify(client, never()).completeMultipartUploadWithChecksums(any(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void checksumIsDeclaredAtCreateAndSentOnComplete() throws Exception {
+        byte[] content = bytes(PART_SIZE + 100);
+        MultipartUploader uploader = new MultipartUploader(client, executor, PART_SIZE, 2, 2, ChecksumAlgorithm.CRC32C);
+
+        UploadResult result = uploader.upload("bucket", "a.bin", new ByteArrayInputStream(content), content.length, null);
+
+        ArgumentCaptor<Multimap<String, String>> headers = ArgumentCaptor.forClass(Multimap.class);
+        verify(client).createMultipartUpload(eq("bucket"), any(), eq("a.bin"), headers.capture(), any());
+        assertThat(headers.getValue().get(ChecksumAlgorithm.ALGORITHM_HEADER)).containsExactly("CRC32C");
+
+        List<String> expected = Arrays.asList(
+                ChecksumAlgorithm.encode(ChecksumAlgorithm.CRC32C.digest(content, 0, PART_SIZE)),
+                ChecksumAlgorithm.encode(ChecksumAlgorithm.CRC32C.digest(content, PART_SIZE, 100)));
+        verify(client).completeMultipartUploadWithChecksums(eq("bucket"), any(), eq("a.bin"), eq("upload-id"), any(),
+                eq(ChecksumAlgorithm.CRC32C), eq(expected));
+        assertThat(result.getPartChecksums()).isEqualTo(expected);
+        assertThat(result.getChecksum()).endsWith("-2");
+    }
+
+    @Test
+    void knownSmallSizeWithChecksumIsPutOnce() throws Exception {
+        byte[] content = bytes(4096);
+        MultipartUploader uploader = new MultipartUploader(client, executor, PART_SIZE, 2, 1, ChecksumAlgorithm.CRC32C);
+
+        UploadResult result = uploader.upload("bucket", "a.bin", new ByteArrayInputStream(content), content.length, null);
+
+        assertThat(putContent.toByteArray()).isEqualTo(content);
+        assertThat(result.getChecksum()).isNotNull();
+    }
+
+    private static byte[] bytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+
+    /**
+     * 每次最多返回一小段，模拟网络流
+     */
+    private static InputStream slow(byte[] content) {
+        return new FilterInputStream(new ByteArrayInputStream(content)) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return super.read(b, off, Math.min(len, 4000));
+            }
+        };
+    }
+}
@@ -0,0 +1,141 @@
+package com.minio.utils;
+
+import com.google.common.collect.Multimap;
+import io.minio.CopyObjectArgs;
+import io.minio.CreateMultipartUploadResponse;
+import io.minio.ObjectWriteResponse;
+import io.minio.StatObjectArgs;
+import io.minio.StatObjectResponse;
+import io.minio.UploadPartCopyResponse;
+import io.minio.messages.Item;
+import io.minio.messages.Part;
+import okhttp3.Headers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ObjectCopierTest {
+
+    private static final long PART_SIZE = MultipartUploader.MIN_PART_SIZE;
+
+    private final CustomMinioClient client = mock(CustomMinioClient.class);
+
+    private final ExecutorService partExecutor = Executors.newFixedThreadPool(2);
+
+    private final ExecutorService objectExecutor = Executors.newFixedThreadPool(2);
+
+    private final ObjectCopier copier = new ObjectCopier(client, partExecutor, objectExecutor, PART_SIZE, 2, 2);
+
+    private final List<String> copied = new CopyOnWriteArrayList<>();
+
+    ObjectCopierTest() throws Exception {
+        when(client.copyObject(any(CopyObjectArgs.class))).thenAnswer(invocation -> {
+            CopyObjectArgs args = invocation.getArgument(0);
+            copied.add(args.source().object() + "->" + args.object());
+            return mock(ObjectWriteResponse.class);
+        });
+        CreateMultipartUploadResponse created = mock(CreateMultipartUploadResponse.class, RETURNS_DEEP_STUBS);
+        when(created.result().uploadId()).thenReturn("upload-id");
+        when(client.createMultipartUpload(any(), any(), any(), any(), any())).thenReturn(created);
+        when(client.uploadPartCopy(any(), any(), any(), any(), anyInt(), any(), any())).thenAnswer(invocation -> {
+            UploadPartCopyResponse response = mock(UploadPartCopyResponse.class, RETURNS_DEEP_STUBS);
+            when(response.result().etag()).thenReturn("etag-" + invocation.getArgument(4));
+            return response;
+        });
+        when(client.completeMultipartUpload(any(), any(), any(), any(), any(), any(), any())).thenReturn(mock(ObjectWriteResponse.class));
+    }
+
+    @AfterEach
+    void shutdown() {
+        partExecutor.shutdownNow();
+        objectExecutor.shutdownNow();
+    }
+
+    @Test
+    void rejectsOverlappingPrefixes() {
+        Iterator<Item> items = Collections.singletonList(item("a/x.txt", 10)).iterator();
+
+        assertThatThrownBy(() -> copier.copyAll("bucket", "a/", items, "bucket", "a/b/", null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> copier.copyAll("bucket", "a/", items, "bucket", "a/", null))
+                .isInstanceOf(IllegalArgumentException.class);
+        // 源前缀位于目标前缀之下时会覆盖还没复制的源对象
+        assertThatThrownBy(() -> copier.copyAll("bucket", "a/b/", items, "bucket", "a/", null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(copied).isEmpty();
+    }
+
+    @Test
+    void copiesPrefixIntoOtherLocation() {
+        List<Item> items = Arrays.asList(item("a/x.txt", 10), item("a/y/z.txt", 20));
+
+        CopyObjectsResult result = copier.copyAll("bucket", "a/", items.iterator(), "bucket", "b/", null);
+
+        assertThat(result.isSuccess()).isTrue();
+        assertThat(result.getCopied()).isEqualTo(2);
+        assertThat(copied).containsExactlyInAnyOrder("a/x.txt->b/x.txt", "a/y/z.txt->b/y/z.txt");
+
+        // 不同存储桶之间前缀可以相同
+        copier.copyAll("bucket", "a/", Collections.singletonList(item("a/x.txt", 10)).iterator(), "other", "a/", null);
+        assertThat(copied).contains("a/x.txt->a/x.txt");
+    }
+
+    @Test
+    void largeCopyKeepsContentHeaders() throws Exception {
+        long size = 2 * PART_SIZE + 100;
+        Headers headers = new Headers.Builder()
+                .add("ETag", "\"etag\"")
+                .add("Content-Length", String.valueOf(size))
+                .add("Last-Modified", "Mon, 02 Jan 2023 00:00:00 GMT")
+                .add("Content-Type", "text/csv")
+                .add("Content-Encoding", "gzip")
+                .add("Cache-Control", "max-age=60")
+                .add("Content-Disposition", "attachment; filename=\"a.csv\"")
+                .add("x-amz-meta-owner", "alice")
+                .build();
+        when(client.statObject(any(StatObjectArgs.class))).thenReturn(new StatObjectResponse(headers, "bucket", null, "a.csv"));
+
+        copier.copy("bucket", "a.csv", "other", "b.csv");
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Multimap<String, String>> captor = ArgumentCaptor.forClass(Multimap.class);
+        verify(client).createMultipartUpload(eq("other"), any(), eq("b.csv"), captor.capture(), any());
+        Multimap<String, String> created = captor.getValue();
+        assertThat(created.get("Content-Type")).containsExactly("text/csv");
+        assertThat(created.get("Content-Encoding")).containsExactly("gzip");
+        assertThat(created.get("Cache-Control")).containsExactly("max-age=60");
+        assertThat(created.get("Content-Disposition")).containsExactly("attachment; filename=\"a.csv\"");
+        assertThat(created.get("x-amz-meta-owner")).containsExactly("alice");
+
+        ArgumentCaptor<Part[]> parts = ArgumentCaptor.forClass(Part[].class);
+        verify(client).completeMultipartUpload(eq("other"), any(), eq("b.csv"), eq("upload-id"), parts.capture(), any(), any());
+        assertThat(parts.getValue()).extracting(Part::partNumber).containsExactly(1, 2);
+        verify(client, never()).copyObject(any(CopyObjectArgs.class));
+    }
+
+    private static Item item(String objectName, long size) {
+        Item item = mock(Item.class);
+        when(item.objectName()).thenReturn(objectName);
+        when(item.size()).thenReturn(size);
+        return item;
+    }
+}
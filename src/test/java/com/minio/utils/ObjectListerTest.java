@@ -0,0 +1,95 @@
+package com.minio.utils;
+
+import io.minio.ListObjectsArgs;
+import io.minio.Result;
+import io.minio.messages.Contents;
+import io.minio.messages.Item;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ObjectListerTest {
+
+    private static final int PER_PREFIX = 50;
+
+    private final CustomMinioClient client = mock(CustomMinioClient.class);
+
+    private final ThreadPoolExecutor executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(4);
+
+    ObjectListerTest() {
+        when(client.listObjects(any(ListObjectsArgs.class))).thenAnswer(invocation -> {
+            ListObjectsArgs args = invocation.getArgument(0);
+            List<Result<Item>> results = new ArrayList<>();
+            if (!args.recursive()) {
+                results.add(new Result<>(file("top.txt")));
+                for (String prefix : new String[]{"a/", "b/", "c/"}) {
+                    results.add(new Result<>(new Contents(prefix)));
+                }
+            } else {
+                for (int i = 0; i < PER_PREFIX; i++) {
+                    results.add(new Result<>(file(args.prefix() + i)));
+                }
+            }
+            return results;
+        });
+    }
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void listsAllPrefixes() {
+        ObjectLister lister = new ObjectLister(client, executor, 1000, 2, 4, 60_000);
+
+        List<String> names;
+        try (Stream<Item> stream = lister.listParallel("bucket", null)) {
+            names = stream.map(Item::objectName).collect(Collectors.toList());
+        }
+
+        assertThat(names).hasSize(3 * PER_PREFIX + 1).doesNotHaveDuplicates().contains("top.txt", "a/0", "c/49");
+    }
+
+    @Test
+    void stopsWhenAbandoned() throws Exception {
+        ObjectLister lister = new ObjectLister(client, executor, 1000, 3, 2, 200);
+
+        // 只取两个就不再消费，也不关闭流
+        Iterator<Item> iterator = lister.listParallel("bucket", null).iterator();
+        iterator.next();
+        iterator.next();
+
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while (executor.getActiveCount() > 0 && System.currentTimeMillis() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+        assertThat(executor.getActiveCount()).isZero();
+        assertThatThrownBy(() -> {
+            while (iterator.hasNext()) {
+                iterator.next();
+            }
+        }).isInstanceOf(IllegalStateException.class);
+    }
+
+    private static Item file(String objectName) {
+        Item item = mock(Item.class);
+        when(item.objectName()).thenReturn(objectName);
+        when(item.isDir()).thenReturn(false);
+        return item;
+    }
+}
@@ -0,0 +1,61 @@
+package com.minio.utils;
+
+import io.minio.http.Method;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PresignedUrlCacheTest {
+
+    private final AtomicInteger signed = new AtomicInteger();
+
+    private final Supplier<String> signer = () -> "url-" + signed.incrementAndGet();
+
+    @Test
+    void reusesUrlUntilRefreshWindow() throws Exception {
+        PresignedUrlCache cache = new PresignedUrlCache(10, 100, 60);
+
+        assertThat(cache.get(Method.GET, "bucket", "a", signer)).isEqualTo("url-1");
+        assertThat(cache.get(Method.GET, "bucket", "a", signer)).isEqualTo("url-1");
+
+        // 剩余有效期不足refreshBefore时重新签名
+        Thread.sleep(60);
+        assertThat(cache.get(Method.GET, "bucket", "a", signer)).isEqualTo("url-2");
+        assertThat(cache.hitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void invalidateRemovesEveryMethod() {
+        PresignedUrlCache cache = new PresignedUrlCache(10, 60_000, 1000);
+        cache.get(Method.GET, "bucket", "a", signer);
+        cache.get(Method.PUT, "bucket", "a", signer);
+        cache.get(Method.GET, "bucket", "b", signer);
+
+        cache.invalidate("bucket", "a");
+
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.get(Method.GET, "bucket", "b", signer)).isEqualTo("url-3");
+        assertThat(cache.get(Method.GET, "bucket", "a", signer)).isEqualTo("url-4");
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        PresignedUrlCache cache = new PresignedUrlCache(2, 60_000, 1000);
+        cache.get(Method.GET, "bucket", "a", signer);
+        cache.get(Method.GET, "bucket", "b", signer);
+        cache.get(Method.GET, "bucket", "c", signer);
+
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    void rejectsInvalidArguments() {
+        assertThatThrownBy(() -> new PresignedUrlCache(0, 1000, 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new PresignedUrlCache(1, 1000, 1000)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new PresignedUrlCache(1, 1000, -1)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
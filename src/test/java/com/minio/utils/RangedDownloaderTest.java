@@ -0,0 +1,166 @@
+package com.minio.utils;
+
+import io.minio.GetObjectArgs;
+import io.minio.GetObjectResponse;
+import io.minio.StatObjectArgs;
+import io.minio.StatObjectResponse;
+import io.minio.errors.ErrorResponseException;
+import io.minio.messages.ErrorResponse;
+import okhttp3.Headers;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RangedDownloaderTest {
+
+    private static final int SIZE = 1000;
+
+    private final byte[] content = new byte[SIZE];
+
+    private final CustomMinioClient client = mock(CustomMinioClient.class);
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @TempDir
+    Path dir;
+
+    RangedDownloaderTest() throws Exception {
+        new Random(1).nextBytes(content);
+        Headers headers = new Headers.Builder()
+                .add("ETag", "\"etag\"")
+                .add("Content-Length", String.valueOf(SIZE))
+                .add("Last-Modified", "Mon, 02 Jan 2023 00:00:00 GMT")
+                .build();
+        when(client.statObject(any(StatObjectArgs.class))).thenReturn(new StatObjectResponse(headers, "bucket", null, "a.bin"));
+    }
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void resumesRangeAfterTransientFailure() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        when(client.getObject(any(GetObjectArgs.class))).thenAnswer(invocation -> {
+            GetObjectArgs args = invocation.getArgument(0);
+            InputStream stream = slice(args);
+            // 第一次请求读到一半断开
+            return response(calls.getAndIncrement() == 0 ? truncated(stream, 30) : stream);
+        });
+        RangedDownloader downloader = new RangedDownloader(client, executor, 100, 1, 3);
+
+        Path target = dir.resolve("a.bin");
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            assertThat(downloader.download("bucket", "a.bin", channel, null)).isEqualTo(SIZE);
+        }
+
+        assertThat(Files.readAllBytes(target)).isEqualTo(content);
+        assertThat(calls.get()).isEqualTo(SIZE / 100 + 1);
+    }
+
+    @Test
+    void deliversRangesInOrder() throws Exception {
+        when(client.getObject(any(GetObjectArgs.class))).thenAnswer(invocation -> response(slice(invocation.getArgument(0))));
+        RangedDownloader downloader = new RangedDownloader(client, executor, 64, 4, 0);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        downloader.download("bucket", "a.bin", out, null);
+
+        assertThat(out.toByteArray()).isEqualTo(content);
+    }
+
+    @Test
+    void doesNotRetryPermanentError() throws Exception {
+        ErrorResponse error = new ErrorResponse("PreconditionFailed", "changed", "bucket", "a.bin", null, null, null);
+        when(client.getObject(any(GetObjectArgs.class))).thenThrow(new ErrorResponseException(error, httpResponse(412), null));
+        RangedDownloader downloader = new RangedDownloader(client, executor, SIZE, 1, 3);
+
+        assertThatThrownBy(() -> downloader.download("bucket", "a.bin", new ByteArrayOutputStream(), null))
+                .isInstanceOf(ErrorResponseException.class);
+        verify(client, times(1)).getObject(any(GetObjectArgs.class));
+    }
+
+    @Test
+    void doesNotRetryFailedOpen() throws Exception {
+        // 打开请求的重试由MinioResilience负责，外层只续传读取中途的断开
+        when(client.getObject(any(GetObjectArgs.class))).thenThrow(new IOException("connection refused"));
+        RangedDownloader downloader = new RangedDownloader(client, executor, SIZE, 1, 3);
+
+        assertThatThrownBy(() -> downloader.download("bucket", "a.bin", new ByteArrayOutputStream(), null))
+                .isInstanceOf(IOException.class);
+        verify(client, times(1)).getObject(any(GetObjectArgs.class));
+    }
+
+    @Test
+    void doesNotRetryLocalWriteFailure() throws Exception {
+        when(client.getObject(any(GetObjectArgs.class))).thenAnswer(invocation -> response(slice(invocation.getArgument(0))));
+        RangedDownloader downloader = new RangedDownloader(client, executor, SIZE, 1, 3);
+
+        Path target = dir.resolve("a.bin");
+        Files.createFile(target);
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.READ)) {
+            assertThatThrownBy(() -> downloader.download("bucket", "a.bin", channel, null)).isNotNull();
+        }
+        verify(client, times(1)).getObject(any(GetObjectArgs.class));
+    }
+
+    static Response httpResponse(int code) {
+        return new Response.Builder()
+                .request(new Request.Builder().url("http://localhost:9000/bucket/a.bin").build())
+                .protocol(Protocol.HTTP_1_1)
+                .code(code)
+                .message("")
+                .build();
+    }
+
+    private InputStream slice(GetObjectArgs args) {
+        return new ByteArrayInputStream(content, args.offset().intValue(), args.length().intValue());
+    }
+
+    private static GetObjectResponse response(InputStream stream) {
+        return new GetObjectResponse(Headers.of(), "bucket", null, "a.bin", stream);
+    }
+
+    private static InputStream truncated(InputStream stream, int limit) {
+        return new FilterInputStream(stream) {
+
+            private int read;
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (read >= limit) {
+                    throw new IOException("connection reset");
+                }
+                int n = super.read(b, off, Math.min(len, limit - read));
+                read += n;
+                return n;
+            }
+        };
+    }
+}
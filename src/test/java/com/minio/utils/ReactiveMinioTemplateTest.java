@@ -0,0 +1,224 @@
+package com.minio.utils;
+
+import com.minio.properties.MinioProperties;
+import io.minio.ObjectWriteResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import lombok.AllArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 在本地启动reactor-netty的http服务模拟minio，请求经过真实的WebClient和签名
+ */
+class ReactiveMinioTemplateTest {
+
+    private static final String NAMESPACE = " xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\"";
+
+    private final List<Recorded> requests = new CopyOnWriteArrayList<>();
+
+    private volatile Function<Recorded, Reply> responder = request -> new Reply(200, Collections.emptyMap(), "");
+
+    private final DisposableServer server = HttpServer.create()
+            .host("localhost")
+            .port(0)
+            .handle((request, response) -> request.receive().aggregate().asString(StandardCharsets.UTF_8).defaultIfEmpty("")
+                    .flatMap(body -> {
+                        Recorded recorded = new Recorded(request.method().name(), request.uri(), request.requestHeaders().get("Range"),
+                                request.requestHeaders().get("Content-Length"), body);
+                        requests.add(recorded);
+                        Reply reply = responder.apply(recorded);
+                        response.status(HttpResponseStatus.valueOf(reply.status));
+                        reply.headers.forEach(response::header);
+                        return response.sendString(Mono.just(reply.body)).then();
+                    }))
+            .bindNow();
+
+    private ReactiveMinioTemplate template;
+
+    @AfterEach
+    void shutdown() {
+        if (template != null) {
+            template.destroy();
+        }
+        server.disposeNow();
+    }
+
+    @Test
+    void putObjectSendsSignedRequest() {
+        responder = request -> new Reply(200, Collections.singletonMap("ETag", "\"etag\""), "");
+
+        ObjectWriteResponse response = template("us-east-1").putObject("bucket", "a.txt", content("hello"), 5, "text/plain").block();
+
+        Recorded request = requests.get(0);
+        assertThat(request.method).isEqualTo("PUT");
+        assertThat(request.uri).startsWith("/bucket/a.txt?").contains("X-Amz-Signature=");
+        assertThat(request.contentLength).isEqualTo("5");
+        assertThat(request.body).isEqualTo("hello");
+        assertThat(response.etag()).isEqualTo("etag");
+    }
+
+    @Test
+    void getObjectSendsRange() {
+        responder = request -> new Reply(206, Collections.emptyMap(), "world");
+
+        assertThat(read(template("us-east-1").getObject("bucket", "a.txt", 6, 5))).isEqualTo("world");
+        assertThat(requests.get(0).range).isEqualTo("bytes=6-10");
+
+        assertThat(read(template.getObject("bucket", "a.txt", 6, -1))).isEqualTo("world");
+        assertThat(requests.get(1).range).isEqualTo("bytes=6-");
+    }
+
+    @Test
+    void emptyRangeSendsNoRequest() {
+        assertThat(template("us-east-1").getObject("bucket", "a.txt", 6, 0).collectList().block()).isEmpty();
+        assertThat(requests).isEmpty();
+    }
+
+    @Test
+    void missingObjectIsNotFound() {
+        responder = request -> new Reply(404, Collections.emptyMap(), "");
+
+        assertThatThrownBy(() -> template("us-east-1").statObject("bucket", "a.txt").block())
+                .satisfies(e -> assertThat(ReactiveMinioTemplate.isNotFound(e)).isTrue());
+    }
+
+    @Test
+    void mergeListsEveryPage() {
+        responder = request -> {
+            if ("POST".equals(request.method)) {
+                return new Reply(200, Collections.emptyMap(), "<CompleteMultipartUploadResult" + NAMESPACE + "><Location>/bucket/a.bin</Location><Bucket>bucket</Bucket>"
+                        + "<Key>a.bin</Key><ETag>\"merged\"</ETag></CompleteMultipartUploadResult>");
+            }
+            // 第一页返回1、2片，第二页返回3片
+            return request.uri.contains("part-number-marker")
+                    ? new Reply(200, Collections.emptyMap(), listParts(false, 3))
+                    : new Reply(200, Collections.emptyMap(), listParts(true, 1, 2));
+        };
+
+        ObjectWriteResponse response = template("us-east-1").mergeMultipartUpload("bucket", "a.bin", "upload-id").block();
+
+        assertThat(response.etag()).isEqualTo("merged");
+        assertThat(requests).hasSize(3);
+        assertThat(requests.get(1).uri).contains("part-number-marker=2");
+        assertThat(requests.get(2).body).contains("<PartNumber>3</PartNumber><ETag>etag-3</ETag>");
+    }
+
+    @Test
+    void mergeRejectsMissingPart() {
+        responder = request -> new Reply(200, Collections.emptyMap(), listParts(false, 1, 3));
+
+        assertThatThrownBy(() -> template("us-east-1").mergeMultipartUpload("bucket", "a.bin", "upload-id").block())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("第2片");
+        assertThat(requests).hasSize(1);
+    }
+
+    @Test
+    void mergeErrorInOkResponseFails() {
+        responder = request -> "POST".equals(request.method)
+                ? new Reply(200, Collections.emptyMap(), "<Error><Code>InvalidPart</Code><Message>part missing</Message></Error>")
+                : new Reply(200, Collections.emptyMap(), listParts(false, 1));
+
+        assertThatThrownBy(() -> template("us-east-1").mergeMultipartUpload("bucket", "a.bin", "upload-id").block())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("InvalidPart");
+    }
+
+    @Test
+    void regionIsQueriedOnce() {
+        responder = request -> request.uri.contains("location")
+                ? new Reply(200, Collections.emptyMap(), "<LocationConstraint" + NAMESPACE + ">cn-north-1</LocationConstraint>")
+                : new Reply(204, Collections.emptyMap(), "");
+
+        ReactiveMinioTemplate template = template(null);
+        template.removeObject("bucket", "a.txt").block();
+        template.removeObject("bucket", "b.txt").block();
+
+        assertThat(requests).extracting(request -> request.method).containsExactly("GET", "DELETE", "DELETE");
+        assertThat(requests.get(0).uri).contains("us-east-1");
+        assertThat(requests.get(1).uri).contains("cn-north-1");
+    }
+
+    private ReactiveMinioTemplate template(String region) {
+        MinioProperties properties = new MinioProperties();
+        properties.setEndpoint("http://localhost:" + server.port());
+        properties.setAccessKey("minioadmin");
+        properties.setSecretKey("minioadmin");
+        properties.setRegion(region);
+        template = new ReactiveMinioTemplate(properties);
+        return template;
+    }
+
+    private static Flux<DataBuffer> content(String content) {
+        return Flux.just(new DefaultDataBufferFactory().wrap(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String read(Flux<DataBuffer> buffers) {
+        return DataBufferUtils.join(buffers).map(buffer -> {
+            String content = buffer.toString(StandardCharsets.UTF_8);
+            DataBufferUtils.release(buffer);
+            return content;
+        }).block();
+    }
+
+    /**
+     * 一页分片列表，下一页从本页最后一片之后开始
+     */
+    private static String listParts(boolean truncated, int... partNumbers) {
+        StringBuilder xml = new StringBuilder("<ListPartsResult" + NAMESPACE + ">")
+                .append("<Bucket>bucket</Bucket><Key>a.bin</Key><UploadId>upload-id</UploadId>")
+                .append("<Initiator><ID>id</ID><DisplayName>minio</DisplayName></Initiator>")
+                .append("<Owner><ID>id</ID><DisplayName>minio</DisplayName></Owner>")
+                .append("<StorageClass>STANDARD</StorageClass><PartNumberMarker>0</PartNumberMarker>")
+                .append("<NextPartNumberMarker>").append(partNumbers[partNumbers.length - 1]).append("</NextPartNumberMarker>")
+                .append("<MaxParts>1000</MaxParts><IsTruncated>").append(truncated).append("</IsTruncated>");
+        for (int partNumber : partNumbers) {
+            xml.append("<Part><PartNumber>").append(partNumber).append("</PartNumber>")
+                    .append("<LastModified>2023-01-02T00:00:00.000Z</LastModified>")
+                    .append("<ETag>\"etag-").append(partNumber).append("\"</ETag><Size>5</Size></Part>");
+        }
+
+        return xml.append("</ListPartsResult>").toString();
+    }
+
+    @AllArgsConstructor
+    private static class Recorded {
+
+        private final String method;
+
+        private final String uri;
+
+        private final String range;
+
+        private final String contentLength;
+
+        private final String body;
+    }
+
+    @AllArgsConstructor
+    private static class Reply {
+
+        private final int status;
+
+        private final Map<String, String> headers;
+
+        private final String body;
+    }
+}